@@ -4,6 +4,7 @@ import co.elastic.clients.elasticsearch._types.ErrorCause;
 import co.elastic.clients.elasticsearch.core.bulk.OperationType;
 import de.mpg.imeji.logic.db.indexretry.model.RetryBaseRequest;
 import de.mpg.imeji.logic.db.writer.WriterFacade;
+import org.apache.http.HttpStatus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -12,6 +13,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Exception is thrown when one or more requests (delete/index) of a bulk request to elastic search
@@ -64,6 +66,17 @@ public class SearchIndexBulkFailureException extends ImejiException {
 
   }
 
+  /**
+   * Return the ids of the documents which could not be indexed or deleted. A document which was not
+   * indexed because a newer version is already in the index (version conflict) has not failed
+   *
+   * @return
+   */
+  public Set<String> getFailedIds() {
+    return failures.entrySet().stream().filter(e -> e.getValue().status != HttpStatus.SC_CONFLICT).map(e -> e.getKey())
+        .collect(Collectors.toSet());
+  }
+
   public List<RetryBaseRequest> getRetryRequests(List<Object> objectsToIndexOrDelete) {
 
     List<RetryBaseRequest> retryRequests = new ArrayList<RetryBaseRequest>();
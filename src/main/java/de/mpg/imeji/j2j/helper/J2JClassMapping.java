@@ -0,0 +1,166 @@
+package de.mpg.imeji.j2j.helper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.mpg.imeji.j2j.annotations.j2jDataType;
+import de.mpg.imeji.j2j.annotations.j2jId;
+import de.mpg.imeji.j2j.annotations.j2jResource;
+
+/**
+ * Immutable, precompiled j2j mapping of a {@link Class}: namespaces, the annotated
+ * {@link J2JFieldMapping}s and the {@link j2jId} accessors. Mappings are computed once per
+ * {@link Class} and then shared by {@link de.mpg.imeji.j2j.persistence.Java2Jena},
+ * {@link de.mpg.imeji.j2j.persistence.Jena2Java} and {@link J2JHelper}, so that reading and writing
+ * objects doesn't need to reflect over annotations anymore.
+ */
+public final class J2JClassMapping {
+  private static final MethodType ID_GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final MethodType ID_SETTER_TYPE = MethodType.methodType(void.class, Object.class, URI.class);
+  private static final ClassValue<J2JClassMapping> MAPPINGS = new ClassValue<J2JClassMapping>() {
+    @Override
+    protected J2JClassMapping computeValue(Class<?> type) {
+      return new J2JClassMapping(type);
+    }
+  };
+
+  private final Class<?> type;
+  private final boolean resource;
+  private final String resourceNamespace;
+  private final String dataType;
+  private final MethodHandle idGetter;
+  private final MethodHandle idSetter;
+  private final List<J2JFieldMapping> fields;
+  private final List<Field> javaFields;
+
+  private J2JClassMapping(Class<?> type) {
+    this.type = type;
+    final j2jResource resourceAnnotation = type.getAnnotation(j2jResource.class);
+    final j2jDataType dataTypeAnnotation = type.getAnnotation(j2jDataType.class);
+    this.resource = resourceAnnotation != null;
+    this.resourceNamespace = resource ? resourceAnnotation.value() : null;
+    this.dataType = dataTypeAnnotation != null ? dataTypeAnnotation.value() : null;
+    final j2jId id = type.getAnnotation(j2jId.class);
+    if (id != null) {
+      try {
+        final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        this.idGetter = lookup.unreflect(type.getMethod(id.getMethod())).asType(ID_GETTER_TYPE);
+        this.idSetter = lookup.unreflect(type.getMethod(id.setMethod(), URI.class)).asType(ID_SETTER_TYPE);
+      } catch (final ReflectiveOperationException e) {
+        throw new RuntimeException("Error reading j2jId methods of " + type, e);
+      }
+    } else {
+      this.idGetter = null;
+      this.idSetter = null;
+    }
+    final List<J2JFieldMapping> fieldMappings = new ArrayList<>();
+    final List<Field> annotatedFields = new ArrayList<>();
+    for (final Field f : J2JHelper.scanObjectFields(type)) {
+      fieldMappings.add(new J2JFieldMapping(f));
+      annotatedFields.add(f);
+    }
+    this.fields = Collections.unmodifiableList(fieldMappings);
+    this.javaFields = Collections.unmodifiableList(annotatedFields);
+  }
+
+  /**
+   * Return the (cached) mapping of a {@link Class}
+   *
+   * @param c
+   * @return
+   */
+  public static J2JClassMapping of(Class<?> c) {
+    return MAPPINGS.get(c);
+  }
+
+  /**
+   * Return the (cached) mapping of the {@link Class} of an {@link Object}
+   *
+   * @param o
+   * @return
+   */
+  public static J2JClassMapping of(Object o) {
+    return MAPPINGS.get(o.getClass());
+  }
+
+  /**
+   * Read the id of an {@link Object} of this {@link Class}
+   *
+   * @param o
+   * @return
+   */
+  public URI getId(Object o) {
+    if (idGetter == null) {
+      return null;
+    }
+    try {
+      final Object id = (Object) idGetter.invokeExact(o);
+      if (id == null) {
+        return null;
+      }
+      return id instanceof URI ? (URI) id : new URI(id.toString());
+    } catch (final Throwable e) {
+      throw new RuntimeException("Error reading ID of " + o, e);
+    }
+  }
+
+  /**
+   * Set the id of an {@link Object} of this {@link Class}
+   *
+   * @param o
+   * @param id
+   */
+  public void setId(Object o, URI id) {
+    if (idSetter != null) {
+      try {
+        idSetter.invokeExact(o, id);
+      } catch (final Throwable e) {
+        throw new RuntimeException("Error setting ID of " + o, e);
+      }
+    }
+  }
+
+  /**
+   * The annotated fields of this {@link Class}, including the ones of annotated super classes
+   *
+   * @return
+   */
+  public List<J2JFieldMapping> getFields() {
+    return fields;
+  }
+
+  /**
+   * The annotated {@link Field}s, in the same order as {@link #getFields()}
+   *
+   * @return
+   */
+  public List<Field> getJavaFields() {
+    return javaFields;
+  }
+
+  public boolean isResource() {
+    return resource;
+  }
+
+  public String getResourceNamespace() {
+    return resourceNamespace;
+  }
+
+  public boolean hasDataType() {
+    return dataType != null;
+  }
+
+  public String getDataType() {
+    return dataType;
+  }
+
+  public Class<?> getType() {
+    return type;
+  }
+}
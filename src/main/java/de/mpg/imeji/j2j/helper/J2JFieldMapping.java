@@ -0,0 +1,369 @@
+package de.mpg.imeji.j2j.helper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.net.URI;
+
+import de.mpg.imeji.j2j.annotations.j2jLazyList;
+import de.mpg.imeji.j2j.annotations.j2jLazyLiteral;
+import de.mpg.imeji.j2j.annotations.j2jLazyURIResource;
+import de.mpg.imeji.j2j.annotations.j2jList;
+import de.mpg.imeji.j2j.annotations.j2jLiteral;
+import de.mpg.imeji.j2j.annotations.j2jReferencedResource;
+import de.mpg.imeji.j2j.annotations.j2jResource;
+
+/**
+ * Immutable description of one j2j annotated {@link Field}: kind of the field, predicates and
+ * {@link MethodHandle} accessors. Built once per {@link Class} by {@link J2JClassMapping}
+ */
+public final class J2JFieldMapping {
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+  private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+  private final Field field;
+  private final MethodHandle getter;
+  private final MethodHandle setter;
+  private final MethodHandle typeConstructor;
+  private final boolean literal;
+  private final boolean lazyLiteral;
+  private final boolean resource;
+  private final boolean lazyURIResource;
+  private final boolean list;
+  private final boolean lazyList;
+  private final boolean uriType;
+  private final String namespace;
+  private final String literalNamespace;
+  private final String uriResourceNamespace;
+  private final String listNamespace;
+  private final String lazyListNamespace;
+  private final Class<?> listElementClass;
+  private final boolean listOfResources;
+  private final MethodHandle listElementConstructor;
+  private final j2jReferencedResource referencedResource;
+  private volatile ReferencedResourceMapping referencedResourceMapping;
+
+  /**
+   * Build the mapping of a {@link Field}
+   *
+   * @param field
+   */
+  J2JFieldMapping(Field field) {
+    this.field = field;
+    field.setAccessible(true);
+    try {
+      final MethodHandles.Lookup lookup = MethodHandles.lookup();
+      this.getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+      this.setter = Modifier.isFinal(field.getModifiers()) ? null : lookup.unreflectSetter(field).asType(SETTER_TYPE);
+    } catch (final IllegalAccessException e) {
+      throw new RuntimeException("Error creating accessors for field " + field, e);
+    }
+    final j2jLiteral literalAnnotation = field.getAnnotation(j2jLiteral.class);
+    final j2jLazyLiteral lazyLiteralAnnotation = field.getAnnotation(j2jLazyLiteral.class);
+    final j2jResource resourceAnnotation = field.getAnnotation(j2jResource.class);
+    final j2jLazyURIResource lazyURIResourceAnnotation = field.getAnnotation(j2jLazyURIResource.class);
+    final j2jList listAnnotation = field.getAnnotation(j2jList.class);
+    final j2jLazyList lazyListAnnotation = field.getAnnotation(j2jLazyList.class);
+    this.literal = literalAnnotation != null;
+    this.lazyLiteral = lazyLiteralAnnotation != null;
+    this.resource = resourceAnnotation != null;
+    this.lazyURIResource = lazyURIResourceAnnotation != null;
+    this.list = listAnnotation != null;
+    this.lazyList = lazyListAnnotation != null;
+    this.uriType = field.getType().equals(URI.class);
+    this.listNamespace = list ? listAnnotation.value() : null;
+    this.lazyListNamespace = lazyList ? lazyListAnnotation.value() : null;
+    this.literalNamespace = firstNonNull(literal ? literalAnnotation.value() : null, lazyLiteral ? lazyLiteralAnnotation.value() : null,
+        listNamespace, lazyListNamespace);
+    this.uriResourceNamespace = firstNonNull(resource ? resourceAnnotation.value() : null,
+        lazyURIResource ? lazyURIResourceAnnotation.value() : null, listNamespace, lazyListNamespace);
+    this.namespace = resource ? resourceAnnotation.value() : literal ? literalAnnotation.value() : listNamespace;
+    this.listElementClass = readListElementClass(field);
+    this.listOfResources = listElementClass != null && listElementClass.getAnnotation(j2jResource.class) != null;
+    this.listElementConstructor = listElementClass != null ? findConstructor(listElementClass) : null;
+    this.typeConstructor = findConstructor(field.getType());
+    this.referencedResource = field.getAnnotation(j2jReferencedResource.class);
+  }
+
+  /**
+   * Read the value of the field
+   *
+   * @param o
+   * @return the value, or null if it can not be read
+   */
+  public Object get(Object o) {
+    try {
+      return (Object) getter.invokeExact(o);
+    } catch (final Throwable e) {
+      return null;
+    }
+  }
+
+  /**
+   * Read the value of the field. If the value is null, return a new instance of the field type
+   *
+   * @param o
+   * @return
+   */
+  public Object getNonNull(Object o) {
+    final Object value = get(o);
+    return value != null ? value : newInstance(typeConstructor);
+  }
+
+  /**
+   * Write a value into the field
+   *
+   * @param o
+   * @param value
+   */
+  public void set(Object o, Object value) {
+    if (setter == null) {
+      throw new RuntimeException("Error writing " + value + " to " + o + ": field " + field + " is final");
+    }
+    try {
+      setter.invokeExact(o, value);
+    } catch (final Throwable e) {
+      throw new RuntimeException("Error writing " + value + " to " + o + " for field " + field, e);
+    }
+  }
+
+  /**
+   * Create a new instance of the element type of a list field. Returns null if the field is not a
+   * parameterized list
+   *
+   * @return
+   */
+  public Object newListElement() {
+    if (listElementClass == null) {
+      return null;
+    }
+    if (listElementClass == URI.class) {
+      return URI.create("");
+    }
+    if (listElementConstructor == null) {
+      throw new RuntimeException("Error initializing " + listElementClass);
+    }
+    try {
+      return (Object) listElementConstructor.invokeExact();
+    } catch (final Throwable e) {
+      throw new RuntimeException("Error initializing " + listElementClass);
+    }
+  }
+
+  /**
+   * Return the mapping of the referenced resource, resolved on first use
+   *
+   * @return
+   */
+  public ReferencedResourceMapping getReferencedResourceMapping() {
+    if (referencedResource == null) {
+      return null;
+    }
+    ReferencedResourceMapping mapping = referencedResourceMapping;
+    if (mapping == null) {
+      mapping = new ReferencedResourceMapping(field.getDeclaringClass(), referencedResource);
+      referencedResourceMapping = mapping;
+    }
+    return mapping;
+  }
+
+  /**
+   * Same as {@link J2JHelper#getNamespace(Object, Field)}
+   *
+   * @param o
+   * @return
+   */
+  public String getNamespace(Object o) {
+    if (J2JHelper.isResource(o)) {
+      return J2JHelper.getResourceNamespace(o);
+    } else if (literal || lazyLiteral) {
+      return literalNamespace;
+    } else if (isURIResource(o) || isLazyURIResource(o)) {
+      return uriResourceNamespace;
+    } else if (list) {
+      return listNamespace;
+    } else if (lazyList) {
+      return lazyListNamespace;
+    }
+    return null;
+  }
+
+  /**
+   * Same as {@link J2JHelper#getURIResourceNamespace(Object, Field)}
+   *
+   * @param o
+   * @return
+   */
+  public String getURIResourceNamespace(Object o) {
+    return isURIResource(o) || isLazyURIResource(o) ? uriResourceNamespace : null;
+  }
+
+  /**
+   * Same as {@link J2JHelper#isURIResource(Object, Field)}
+   *
+   * @param o
+   * @return
+   */
+  public boolean isURIResource(Object o) {
+    return uriType && resource || ((list || lazyList) && o instanceof URI);
+  }
+
+  /**
+   * Same as {@link J2JHelper#isLazyURIResource(Object, Field)}
+   *
+   * @param o
+   * @return
+   */
+  public boolean isLazyURIResource(Object o) {
+    return uriType && lazyURIResource || (lazyList && o instanceof URI);
+  }
+
+  public Field getField() {
+    return field;
+  }
+
+  public boolean isLiteral() {
+    return literal;
+  }
+
+  public boolean isLazyLiteral() {
+    return lazyLiteral;
+  }
+
+  public boolean isResource() {
+    return resource;
+  }
+
+  public boolean isList() {
+    return list;
+  }
+
+  public boolean isLazyList() {
+    return lazyList;
+  }
+
+  public boolean isReferencedResource() {
+    return referencedResource != null;
+  }
+
+  public boolean isListOfResources() {
+    return listOfResources;
+  }
+
+  /**
+   * Same as {@link J2JHelper#getNamespace(Field)}
+   *
+   * @return
+   */
+  public String getNamespace() {
+    return namespace;
+  }
+
+  /**
+   * Same as {@link J2JHelper#getLiteralNamespace(Field)}
+   *
+   * @return
+   */
+  public String getLiteralNamespace() {
+    return literalNamespace;
+  }
+
+  public String getListNamespace() {
+    return listNamespace;
+  }
+
+  public String getLazyListNamespace() {
+    return lazyListNamespace;
+  }
+
+  @Override
+  public String toString() {
+    return field.toString();
+  }
+
+  /**
+   * Return the class of the elements of a parameterized field (i.e. a {@link java.util.List})
+   *
+   * @param f
+   * @return
+   */
+  private static Class<?> readListElementClass(Field f) {
+    final Type genericFieldType = f.getGenericType();
+    if (genericFieldType instanceof ParameterizedType) {
+      final Type[] fieldArgTypes = ((ParameterizedType) genericFieldType).getActualTypeArguments();
+      if (fieldArgTypes.length > 0 && fieldArgTypes[0] instanceof Class<?>) {
+        return (Class<?>) fieldArgTypes[0];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Find the default constructor of a {@link Class}, or null if it doesn't have any accessible one
+   *
+   * @param c
+   * @return
+   */
+  private static MethodHandle findConstructor(Class<?> c) {
+    if (c.isInterface() || Modifier.isAbstract(c.getModifiers()) || c.isPrimitive() || c.isArray()) {
+      return null;
+    }
+    try {
+      return MethodHandles.publicLookup().findConstructor(c, MethodType.methodType(void.class)).asType(CONSTRUCTOR_TYPE);
+    } catch (final ReflectiveOperationException | SecurityException e) {
+      return null;
+    }
+  }
+
+  private static Object newInstance(MethodHandle constructor) {
+    if (constructor == null) {
+      return null;
+    }
+    try {
+      return (Object) constructor.invokeExact();
+    } catch (final Throwable e) {
+      return null;
+    }
+  }
+
+  private static String firstNonNull(String... values) {
+    for (final String value : values) {
+      if (value != null) {
+        return value;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Resolved {@link j2jReferencedResource}: the field holding the uri of the referenced resource
+   * and the field of the referenced class to read
+   */
+  public static final class ReferencedResourceMapping {
+    private final J2JFieldMapping uriField;
+    private final J2JFieldMapping targetField;
+
+    private ReferencedResourceMapping(Class<?> declaringClass, j2jReferencedResource annotation) {
+      try {
+        this.uriField = new J2JFieldMapping(declaringClass.getDeclaredField(annotation.referencedResourceUri()));
+        final Class<?> targetClass = Class.forName(annotation.referencedClass());
+        this.targetField = new J2JFieldMapping(targetClass.getDeclaredField(annotation.referencedField()));
+      } catch (final ReflectiveOperationException e) {
+        throw new RuntimeException("Error resolving referenced resource " + annotation, e);
+      }
+    }
+
+    public J2JFieldMapping getUriField() {
+      return uriField;
+    }
+
+    public J2JFieldMapping getTargetField() {
+      return targetField;
+    }
+  }
+}
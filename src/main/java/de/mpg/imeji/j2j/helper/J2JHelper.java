@@ -43,18 +43,7 @@ public class J2JHelper {
     if (o == null) {
       return null;
     }
-    final j2jId ano = o.getClass().getAnnotation(j2jId.class);
-    if (ano != null) {
-      try {
-        final Object id = o.getClass().getMethod(ano.getMethod(), null).invoke(o, null);
-        if (id != null) {
-          return new URI(id.toString());
-        }
-      } catch (final Exception e) {
-        throw new RuntimeException("Error reading ID of " + o, e);
-      }
-    }
-    return null;
+    return J2JClassMapping.of(o).getId(o);
   }
 
   /**
@@ -64,15 +53,7 @@ public class J2JHelper {
    * @param id
    */
   public static Object setId(Object o, URI id) {
-    final j2jId ano = o.getClass().getAnnotation(j2jId.class);
-    final Object[] args = {id};
-    if (ano != null) {
-      try {
-        o.getClass().getMethod(ano.setMethod(), URI.class).invoke(o, args);
-      } catch (final Exception e) {
-        throw new RuntimeException("Error setting ID of " + o, e);
-      }
-    }
+    J2JClassMapping.of(o).setId(o, id);
     return o;
   }
 
@@ -93,10 +74,7 @@ public class J2JHelper {
    * @return
    */
   public static String getType(Object o) {
-    if (hasDataType(o)) {
-      return o.getClass().getAnnotation(j2jDataType.class).value();
-    }
-    return null;
+    return J2JClassMapping.of(o).getDataType();
   }
 
   /**
@@ -160,11 +138,7 @@ public class J2JHelper {
    * @return
    */
   public static String getResourceNamespace(Object o) {
-    if (isResource(o)) {
-      return o.getClass().getAnnotation(j2jResource.class).value();
-    } else {
-      return null;
-    }
+    return o != null ? J2JClassMapping.of(o).getResourceNamespace() : null;
   }
 
   /**
@@ -244,7 +218,7 @@ public class J2JHelper {
    * @return
    */
   public static boolean isResource(Object o) {
-    return o != null && o.getClass().getAnnotation(j2jResource.class) != null;
+    return o != null && J2JClassMapping.of(o).isResource();
   }
 
   /**
@@ -254,7 +228,7 @@ public class J2JHelper {
    * @return
    */
   public static boolean isResource(Class<?> c) {
-    return c != null && c.getAnnotation(j2jResource.class) != null;
+    return c != null && J2JClassMapping.of(c).isResource();
   }
 
   /**
@@ -358,7 +332,7 @@ public class J2JHelper {
    * @return
    */
   public static boolean hasDataType(Object o) {
-    return o.getClass().getAnnotation(j2jDataType.class) != null;
+    return J2JClassMapping.of(o).hasDataType();
   }
 
   /**
@@ -401,16 +375,28 @@ public class J2JHelper {
 
   /**
    * Return all the Fields that should be written as rdf property If class is not inheriting from a
-   * {@link RDFObject} then return empty list.
+   * {@link RDFObject} then return empty list. The list is read from the cached
+   * {@link J2JClassMapping} and can not be modified.
    *
    * @param clazz
    * @return
    */
   public static List<Field> getAllObjectFields(Class<?> clazz) {
+    return J2JClassMapping.of(clazz).getJavaFields();
+  }
+
+  /**
+   * Read via reflection all the Fields that should be written as rdf property. Used to build the
+   * {@link J2JClassMapping}
+   *
+   * @param clazz
+   * @return
+   */
+  static List<Field> scanObjectFields(Class<?> clazz) {
     if (clazz.getAnnotation(j2jResource.class) != null) {
       final List<Field> l = new ArrayList<Field>(Arrays.asList(clazz.getDeclaredFields()));
       if (clazz.getSuperclass() != null && clazz.getSuperclass().getAnnotation(j2jResource.class) != null) {
-        l.addAll(getAllObjectFields(clazz.getSuperclass()));
+        l.addAll(scanObjectFields(clazz.getSuperclass()));
       }
       return getOnlyAnnotatedFields(l);
     }
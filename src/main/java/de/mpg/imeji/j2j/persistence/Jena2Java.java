@@ -1,8 +1,5 @@
 package de.mpg.imeji.j2j.persistence;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
@@ -19,8 +16,10 @@ import org.apache.jena.vocabulary.RDF;
 import org.apache.jena.vocabulary.RDFS;
 
 import de.mpg.imeji.j2j.annotations.j2jId;
-import de.mpg.imeji.j2j.annotations.j2jReferencedResource;
 import de.mpg.imeji.j2j.annotations.j2jResource;
+import de.mpg.imeji.j2j.helper.J2JClassMapping;
+import de.mpg.imeji.j2j.helper.J2JFieldMapping;
+import de.mpg.imeji.j2j.helper.J2JFieldMapping.ReferencedResourceMapping;
 import de.mpg.imeji.j2j.helper.J2JHelper;
 import de.mpg.imeji.j2j.helper.LiteralHelper;
 import de.mpg.imeji.util.LocalizedString;
@@ -59,8 +58,8 @@ public class Jena2Java {
   }
 
   /**
-   * Load all {@link Field} defined in the Object. The Object must be a {@link Resource} (defined in
-   * Java by {@link j2jResource})
+   * Load all fields defined in the Object. The Object must be a {@link Resource} (defined in Java
+   * by {@link j2jResource})
    *
    * @param javaObject
    * @return
@@ -71,13 +70,12 @@ public class Jena2Java {
     if (J2JHelper.hasDataType(javaObject) && isTypedResource(subject)) {
       javaObject = createJavaObjectFromDataType(subject);
     }
-    List<Field> resourceFields = J2JHelper.getAllObjectFields(javaObject.getClass());
-    for (final Field field : resourceFields) {
+    for (final J2JFieldMapping field : J2JClassMapping.of(javaObject).getFields()) {
       Object object = null;
-      if (J2JHelper.isReferencedResource(field)) {
+      if (field.isReferencedResource()) {
         object = loadReferenceObject(javaObject, field);
       } else {
-        object = J2JHelper.getFieldAsJavaObjectNonNull(field, javaObject);
+        object = field.getNonNull(javaObject);
         object = loadObject(subject, field, object, 0, null);
       }
       setField(javaObject, field, object);
@@ -92,33 +90,21 @@ public class Jena2Java {
    * @param field
    * @return
    */
-  private Object loadReferenceObject(Object javaObject, Field field) {
+  private Object loadReferenceObject(Object javaObject, J2JFieldMapping field) {
 
     Object referenceObject = null;
 
     if (javaObject != null) {
-      j2jReferencedResource referencedResourceAnnotation = field.getAnnotation(j2jReferencedResource.class);
-      if (referencedResourceAnnotation != null) {
-        String uriFieldName = referencedResourceAnnotation.referencedResourceUri();
-        String targetClassName = referencedResourceAnnotation.referencedClass();
-        String targetFieldName = referencedResourceAnnotation.referencedField();
-        if (uriFieldName != null) {
-          try {
-            // (1) get URI of resource whose field we want to read
-            Field uriField = javaObject.getClass().getDeclaredField(uriFieldName);
-            uriField.setAccessible(true);
-            String resourceUriString = (String) uriField.get(javaObject);
-            final Resource subject = model.getResource(resourceUriString);
-            // (2) get field that we want to read
-            Class<?> myClass = Class.forName(targetClassName);
-            Field targetField = myClass.getDeclaredField(targetFieldName);
-            targetField.setAccessible(true);
-            referenceObject = loadObject(subject, targetField, null, 0, null);
-          } catch (Exception e) {
-            // NoSuchFieldException, SecurityException
-            e.printStackTrace();
-          }
-        }
+      try {
+        // The fields defined by the j2jReferencedResource are resolved once and cached in the mapping
+        final ReferencedResourceMapping reference = field.getReferencedResourceMapping();
+        // (1) get URI of resource whose field we want to read
+        final String resourceUriString = (String) reference.getUriField().get(javaObject);
+        final Resource subject = model.getResource(resourceUriString);
+        // (2) get field that we want to read
+        referenceObject = loadObject(subject, reference.getTargetField(), null, 0, null);
+      } catch (Exception e) {
+        LOGGER.error("Error loading referenced resource for field " + field, e);
       }
     }
     return referenceObject;
@@ -126,8 +112,8 @@ public class Jena2Java {
 
 
   /**
-   * Load the Object of a Triple. The {@link Field} defines the relation between the subject and the
-   * object (i.e. the field contains predicate information)
+   * Load the Object of a Triple. The {@link J2JFieldMapping} defines the relation between the
+   * subject and the object (i.e. the field contains predicate information)
    *
    * @param subject
    * @param f
@@ -135,18 +121,18 @@ public class Jena2Java {
    * @param position
    * @return
    */
-  private Object loadObject(Resource subject, Field f, Object object, int position, Statement st) {
+  private Object loadObject(Resource subject, J2JFieldMapping f, Object object, int position, Statement st) {
     if (J2JHelper.isResource(object)) {
       object = loadResourceObject(subject, object, position);
-    } else if (J2JHelper.isLiteral(f) || (J2JHelper.isLazyLitereal(f) && !lazy)) {
+    } else if (f.isLiteral() || (f.isLazyLiteral() && !lazy)) {
       object = loadObjectLiteral(f, subject, object, position, st);
-    } else if (J2JHelper.isURIResource(object, f) || (J2JHelper.isLazyURIResource(object, f) && !lazy)) {
+    } else if (f.isURIResource(object) || (f.isLazyURIResource(object) && !lazy)) {
       object = readURIResource(f, subject, object, position);
     } else if (object instanceof List<?>) {
       object = readList(f, subject);
     } else if (object instanceof LocalizedString) {
       object = readLocalizedString(f, subject, object, position, st);
-    } else if (J2JHelper.isList(f) && J2JHelper.getLiteralNamespace(f) != null) {
+    } else if (f.isList() && f.getLiteralNamespace() != null) {
       // field of a list which has not been handle so for (i.e not an URI or not a
       // localized String)
       object = loadObjectLiteral(f, subject, object, position, st);
@@ -155,24 +141,19 @@ public class Jena2Java {
   }
 
   /**
-   * Set object into the {@link Field} of the subject
+   * Set object into the field of the subject
    *
    * @param subject
    * @param f
    * @param object
    * @return
    */
-  private Object setField(Object subject, Field f, Object object) {
-    try {
-      f.setAccessible(true);
-      object = LiteralHelper.jenaTypeToJ2jType(object);
-      if (object != null) {
-        f.set(subject, object);
-      }
-      return subject;
-    } catch (final Exception e) {
-      throw new RuntimeException("Error writing " + object + " to " + subject + " for field " + f, e);
+  private Object setField(Object subject, J2JFieldMapping f, Object object) {
+    object = LiteralHelper.jenaTypeToJ2jType(object);
+    if (object != null) {
+      f.set(subject, object);
     }
+    return subject;
   }
 
   /**
@@ -207,8 +188,8 @@ public class Jena2Java {
    * @param position
    * @return
    */
-  private Object loadObjectLiteral(Field f, Resource subject, Object object, int position, Statement statement) {
-    final String predicate = J2JHelper.getLiteralNamespace(f);
+  private Object loadObjectLiteral(J2JFieldMapping f, Resource subject, Object object, int position, Statement statement) {
+    final String predicate = f.getLiteralNamespace();
     final Statement st = statement == null ? getStatement(subject, predicate, position) : statement;
     if (st != null) {
       object = LiteralHelper.jenaTypeToJ2jType(st.getLiteral().getValue());
@@ -227,8 +208,8 @@ public class Jena2Java {
    * @param position
    * @return
    */
-  private Object readURIResource(Field f, Resource subject, Object object, int position) {
-    final String predicate = J2JHelper.getURIResourceNamespace(object, f);
+  private Object readURIResource(J2JFieldMapping f, Resource subject, Object object, int position) {
+    final String predicate = f.getURIResourceNamespace(object);
     final Statement st = getStatement(subject, predicate, position);
     if (st != null) {
       object = URI.create(st.getObject().toString());
@@ -247,7 +228,7 @@ public class Jena2Java {
    * @param position
    * @return
    */
-  private Object readLocalizedString(Field f, Resource subject, Object object, int position, Statement statement) {
+  private Object readLocalizedString(J2JFieldMapping f, Resource subject, Object object, int position, Statement statement) {
     final Statement st = statement == null ? getStatement(subject, RDFS.label.getURI(), position) : statement;
     final LocalizedString ls = new LocalizedString(st.getObject().asLiteral().getValue().toString(), st.getLanguage());
     return ls;
@@ -262,11 +243,11 @@ public class Jena2Java {
    * @param subject
    * @return
    */
-  private Object readList(Field f, Resource subject) {
+  private Object readList(J2JFieldMapping f, Resource subject) {
     final List<Object> object = new ArrayList<Object>();
-    String predicate = J2JHelper.getListNamespace(f);
+    String predicate = f.getListNamespace();
     if (predicate == null && !lazy) {
-      predicate = J2JHelper.getLazyListNamespace(f);
+      predicate = f.getLazyListNamespace();
     }
     if (predicate == null) {
       return object;
@@ -278,7 +259,7 @@ public class Jena2Java {
       if (st.getObject().isResource() && isTypedResource(st.getResource())) {
         listObject = createJavaObjectFromDataType(st.getResource());
       } else {
-        listObject = createJavaObjectForListElements(f);
+        listObject = f.newListElement();
       }
       if (listObject != null) {
         if (J2JHelper.isResource(listObject)) {
@@ -347,30 +328,4 @@ public class Jena2Java {
     }
     return null;
   }
-
-  /**
-   * Return an object instance contained in a List
-   *
-   * @param f
-   * @return
-   */
-  private Object createJavaObjectForListElements(Field f) {
-    final Type genericFieldType = f.getGenericType();
-    if (genericFieldType instanceof ParameterizedType) {
-      final ParameterizedType aType = (ParameterizedType) genericFieldType;
-      final Type[] fieldArgTypes = aType.getActualTypeArguments();
-      for (final Type fieldArgType : fieldArgTypes) {
-        final Class<?> fieldArgClass = (Class<?>) fieldArgType;
-        try {
-          if (fieldArgClass == URI.class) {
-            return URI.create("");
-          }
-          return fieldArgClass.newInstance();
-        } catch (final Exception e) {
-          throw new RuntimeException("Error initializing " + fieldArgClass);
-        }
-      }
-    }
-    return null;
-  }
 }
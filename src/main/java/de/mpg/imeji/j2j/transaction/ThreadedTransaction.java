@@ -4,7 +4,6 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import org.apache.jena.Jena;
@@ -14,6 +13,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import de.mpg.imeji.exceptions.ImejiException;
+import de.mpg.imeji.logic.concurrency.ImejiExecutors;
+import de.mpg.imeji.logic.concurrency.ImejiExecutors.Pool;
 
 
 /**
@@ -26,7 +27,6 @@ import de.mpg.imeji.exceptions.ImejiException;
  * @version $Revision$ $LastChangedDate$
  */
 public class ThreadedTransaction implements Callable<Integer> {
-  private static ExecutorService EXECUTOR = Executors.newCachedThreadPool();
   private final Transaction myTransaction;
   private final String tdbPath;
   protected static Logger LOGGER = LogManager.getLogger(ThreadedTransaction.class);
@@ -67,17 +67,19 @@ public class ThreadedTransaction implements Callable<Integer> {
   }
 
   /**
-   * Run a {@link ThreadedTransaction} with the {@link ExecutorService} of imeji
+   * Run a {@link ThreadedTransaction} with the {@link ExecutorService} of imeji for the jena
+   * transactions
    *
    * @param t
    * @throws Exception
    */
   public static void run(ThreadedTransaction t) throws Exception {
-    run(t, EXECUTOR);
+    run(t, ImejiExecutors.get(Pool.JENA));
   }
 
   /**
-   * Run a {@link ThreadedTransaction} with the {@link ExecutorService} of imeji
+   * Run a {@link ThreadedTransaction} with the {@link ExecutorService} of imeji for the jena
+   * transactions
    *
    * @param transactionThread
    * @throws Exception
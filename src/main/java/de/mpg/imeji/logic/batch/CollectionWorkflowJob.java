@@ -0,0 +1,470 @@
+package de.mpg.imeji.logic.batch;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.mpg.imeji.exceptions.ImejiException;
+import de.mpg.imeji.exceptions.NotFoundException;
+import de.mpg.imeji.exceptions.UnprocessableError;
+import de.mpg.imeji.logic.concurrency.ImejiExecutors.Pool;
+import de.mpg.imeji.logic.concurrency.Locks;
+import de.mpg.imeji.logic.config.Imeji;
+import de.mpg.imeji.logic.config.util.PropertyReader;
+import de.mpg.imeji.logic.core.facade.WorkflowFacade;
+import de.mpg.imeji.logic.core.item.ItemService;
+import de.mpg.imeji.logic.db.keyValue.KeyValueStoreService;
+import de.mpg.imeji.logic.db.keyValue.stores.HTreeMapStore;
+import de.mpg.imeji.logic.db.writer.WriterFacade;
+import de.mpg.imeji.logic.hierarchy.HierarchyService;
+import de.mpg.imeji.logic.model.CollectionImeji;
+import de.mpg.imeji.logic.model.Item;
+import de.mpg.imeji.logic.model.License;
+import de.mpg.imeji.logic.model.Properties.Status;
+import de.mpg.imeji.logic.model.SearchFields;
+import de.mpg.imeji.logic.model.User;
+import de.mpg.imeji.logic.model.aspects.ChangeMember;
+import de.mpg.imeji.logic.search.Search;
+import de.mpg.imeji.logic.search.Search.SearchObjectTypes;
+import de.mpg.imeji.logic.search.factory.SearchFactory;
+import de.mpg.imeji.logic.search.factory.SearchFactory.SEARCH_IMPLEMENTATIONS;
+import de.mpg.imeji.logic.search.model.SearchCursor;
+import de.mpg.imeji.logic.search.model.SearchOperators;
+import de.mpg.imeji.logic.search.model.SearchPair;
+import de.mpg.imeji.logic.search.model.SearchQuery;
+import de.mpg.imeji.logic.search.model.SearchResult;
+import de.mpg.imeji.logic.security.user.UserService;
+import de.mpg.imeji.util.DateHelper;
+
+/**
+ * Release or withdraw a collection, its subcollections and all their items. The items are changed
+ * in chunks: each chunk is written in its own transaction, and only the workflow fields of the
+ * items are updated in the search index. The collections are changed once all items are done. <br/>
+ * The locks of all items of the collection tree are checked before the job starts. After each
+ * chunk, a checkpoint is written in a store: a job interrupted by a shutdown or by an error is
+ * resumed when imeji starts, or when the workflow operation is called again on the collection.
+ * Since only the items which don't have the new status yet are read, a resumed job continues where
+ * it stopped. The status of the items found in the search index is checked in the database before
+ * they are changed: an item already changed, whose index has not been updated yet (failed or
+ * asynchronous index), is not changed twice. <br/>
+ * While a job is running, the collections of its tree and their items can not be changed (see
+ * {@link #checkNotRunning(URI)}). <br/>
+ * The chunk size can be configured with the property <i>imeji.workflow.chunk.size</i>, the time a
+ * request waits for the job with <i>imeji.workflow.wait</i> (in ms): a longer job continues in the
+ * background
+ */
+public class CollectionWorkflowJob implements Callable<Integer> {
+  private static final Logger LOGGER = LogManager.getLogger(CollectionWorkflowJob.class);
+  private static final int DEFAULT_CHUNK_SIZE = 1000;
+  private static final long DEFAULT_WAIT = 30000;
+  private static final KeyValueStoreService STORE = new KeyValueStoreService(new HTreeMapStore("collectionWorkflowJobStore"));
+  private static final Map<String, CollectionWorkflowJob> RUNNING = new ConcurrentHashMap<>();
+  private final Checkpoint checkpoint;
+  private final User user;
+  private final int chunkSize;
+  private final ReIndexProgress progress;
+  private final Search search = SearchFactory.create(SearchObjectTypes.ITEM, SEARCH_IMPLEMENTATIONS.ELASTIC);
+  private final SearchQuery query;
+
+  /**
+   * The workflow operations done by the job
+   */
+  public enum Action {
+    RELEASE(Status.PENDING),
+    WITHDRAW(Status.RELEASED);
+
+    private final Status from;
+
+    private Action(Status from) {
+      this.from = from;
+    }
+
+    /**
+     * @return the status of the items which are changed by the action
+     */
+    public Status getFrom() {
+      return from;
+    }
+  }
+
+  /**
+   * The state of a job, written in the store after each chunk
+   */
+  public static class Checkpoint implements Serializable {
+    private static final long serialVersionUID = 5180853460925326411L;
+    private final String collectionId;
+    private final String userId;
+    private final Action action;
+    private final License license;
+    private final String comment;
+    private final Calendar date;
+    private long changed = 0;
+
+    public Checkpoint(String collectionId, String userId, Action action, License license, String comment, Calendar date) {
+      this.collectionId = collectionId;
+      this.userId = userId;
+      this.action = action;
+      this.license = license;
+      this.comment = comment;
+      this.date = date;
+    }
+
+    public String getCollectionId() {
+      return collectionId;
+    }
+
+    public String getUserId() {
+      return userId;
+    }
+
+    public Action getAction() {
+      return action;
+    }
+
+    public License getLicense() {
+      return license;
+    }
+
+    public String getComment() {
+      return comment;
+    }
+
+    public Calendar getDate() {
+      return date;
+    }
+
+    /**
+     * @return the number of items changed before the last checkpoint
+     */
+    public long getChanged() {
+      return changed;
+    }
+
+    public void addChanged(long count) {
+      changed += count;
+    }
+  }
+
+  private CollectionWorkflowJob(Checkpoint checkpoint, User user) {
+    this.checkpoint = checkpoint;
+    this.user = user;
+    this.chunkSize = (int) readProperty("imeji.workflow.chunk.size", DEFAULT_CHUNK_SIZE);
+    this.progress = new ReIndexProgress(checkpoint.getAction().name().toLowerCase() + " " + checkpoint.getCollectionId());
+    this.query = buildQuery(checkpoint.getAction());
+  }
+
+  /**
+   * The query of the items changed by the action, i.e. which don't have the new status yet
+   *
+   * @param action
+   * @return
+   */
+  private static SearchQuery buildQuery(Action action) {
+    try {
+      return new SearchFactory().and(Arrays.asList(new SearchPair(SearchFields.filename, "*"),
+          new SearchPair(SearchFields.status, SearchOperators.EQUALS, action.getFrom().name(), false))).build();
+    } catch (final UnprocessableError e) {
+      throw new IllegalStateException("Invalid query of the workflow job", e);
+    }
+  }
+
+  /**
+   * Start the job for a collection and wait until it is done, at most <i>imeji.workflow.wait</i>
+   * ms. The errors of the job are thrown if it is done within this time
+   *
+   * @param collection
+   * @param user
+   * @param action
+   * @param license the license of the released items, null for withdraw
+   * @param comment the discard comment, null for release
+   * @throws ImejiException
+   */
+  public static void run(CollectionImeji collection, User user, Action action, License license, String comment) throws ImejiException {
+    final Checkpoint checkpoint = getCheckpoint(collection.getId().toString(), action).orElse(
+        new Checkpoint(collection.getId().toString(), user.getId().toString(), action, license, comment, DateHelper.getCurrentDate()));
+    final CollectionWorkflowJob job = new CollectionWorkflowJob(checkpoint, user);
+    synchronized (RUNNING) {
+      checkNotRunning(collection.getId());
+      RUNNING.put(checkpoint.getCollectionId(), job);
+    }
+    final Future<Integer> future;
+    try {
+      job.checkLocks();
+      job.saveCheckpoint();
+      future = Imeji.getExecutor(Pool.DEFAULT).submit(job);
+    } catch (final ImejiException | RuntimeException e) {
+      RUNNING.remove(checkpoint.getCollectionId(), job);
+      throw e;
+    }
+    try {
+      future.get(readProperty("imeji.workflow.wait", DEFAULT_WAIT), TimeUnit.MILLISECONDS);
+    } catch (final TimeoutException e) {
+      LOGGER.info("Continuing in the background: " + job.getProgress());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof ImejiException) {
+        throw (ImejiException) e.getCause();
+      }
+      throw new ImejiException(e.getCause().getMessage(), e.getCause());
+    }
+  }
+
+  /**
+   * Return the checkpoint of an interrupted job of the collection for this action
+   *
+   * @param collectionId
+   * @param action
+   * @return
+   */
+  private static Optional<Checkpoint> getCheckpoint(String collectionId, Action action) {
+    try {
+      final Object checkpoint = STORE.get(collectionId);
+      if (checkpoint instanceof Checkpoint && ((Checkpoint) checkpoint).getAction() == action) {
+        LOGGER.info("Resuming the interrupted " + action.name().toLowerCase() + " of " + collectionId);
+        return Optional.of((Checkpoint) checkpoint);
+      }
+    } catch (final NotFoundException e) {
+      // no interrupted job
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Resume the jobs which have been interrupted, for instance by a shutdown of imeji
+   */
+  public static void resumeAll() {
+    final List<Checkpoint> checkpoints;
+    try {
+      checkpoints = STORE.getList(".*", Checkpoint.class);
+    } catch (final ImejiException e) {
+      LOGGER.error("Error reading the workflow jobs to resume", e);
+      return;
+    }
+    for (final Checkpoint checkpoint : checkpoints) {
+      try {
+        final User user = new UserService().retrieve(URI.create(checkpoint.getUserId()), Imeji.adminUser);
+        final CollectionWorkflowJob job = new CollectionWorkflowJob(checkpoint, user);
+        synchronized (RUNNING) {
+          if (isRunning(URI.create(checkpoint.getCollectionId()))) {
+            continue;
+          }
+          RUNNING.put(checkpoint.getCollectionId(), job);
+        }
+        LOGGER.info("Resuming " + job.getProgress().getName() + " after " + checkpoint.getChanged() + " items");
+        Imeji.getExecutor(Pool.DEFAULT).submit(job);
+      } catch (final Exception e) {
+        LOGGER.error("Workflow job of collection " + checkpoint.getCollectionId() + " can not be resumed", e);
+        deleteCheckpoint(checkpoint);
+      }
+    }
+  }
+
+  /**
+   * @return the progress of the running jobs
+   */
+  public static List<ReIndexProgress> getRunningJobs() {
+    return RUNNING.values().stream().map(CollectionWorkflowJob::getProgress).collect(Collectors.toList());
+  }
+
+  /**
+   * True if a job is running for this collection, one of its parents or one of its subcollections
+   *
+   * @param collectionId
+   * @return
+   */
+  public static boolean isRunning(URI collectionId) {
+    if (RUNNING.isEmpty()) {
+      return false;
+    }
+    final String id = collectionId.toString();
+    final HierarchyService hierarchyService = new HierarchyService();
+    return RUNNING.containsKey(id) || hierarchyService.findAllParents(id).stream().anyMatch(RUNNING::containsKey)
+        || RUNNING.keySet().stream().anyMatch(running -> hierarchyService.isChildOf(running, id));
+  }
+
+  /**
+   * Throw an {@link UnprocessableError} if a job is running for this collection, one of its parents
+   * or one of its subcollections
+   *
+   * @param collectionId
+   * @throws UnprocessableError
+   */
+  public static void checkNotRunning(URI collectionId) throws UnprocessableError {
+    if (collectionId != null && isRunning(collectionId)) {
+      throw new UnprocessableError("The collection is being released or withdrawn: it can not be changed until the end of the operation");
+    }
+  }
+
+  @Override
+  public Integer call() throws Exception {
+    try {
+      SearchCursor cursor = SearchCursor.start();
+      do {
+        final SearchResult result = searchChunk(cursor);
+        if (cursor.isStart()) {
+          progress.start(checkpoint.getChanged() + result.getNumberOfRecords());
+          progress.addIndexed(checkpoint.getChanged());
+        }
+        changeItems(result.getResults());
+        cursor = result.getNextCursor();
+      } while (cursor != null);
+      changeCollections();
+      deleteCheckpoint(checkpoint);
+      progress.done();
+      LOGGER.info(progress.toString());
+      return (int) progress.getIndexed();
+    } catch (final ImejiException e) {
+      progress.fail();
+      if (checkpoint.getChanged() == 0) {
+        // nothing has been changed: the job is not resumed
+        LOGGER.error("Error in " + progress.getName(), e);
+        deleteCheckpoint(checkpoint);
+      } else {
+        LOGGER.error("Error in " + progress.getName() + " after " + checkpoint.getChanged()
+            + " items: will be resumed when imeji restarts or when the operation is called again", e);
+      }
+      throw e;
+    } catch (final Exception e) {
+      LOGGER.error("Error in " + progress.getName() + ": will be resumed when imeji restarts", e);
+      progress.fail();
+      throw e;
+    } finally {
+      RUNNING.remove(checkpoint.getCollectionId(), this);
+    }
+  }
+
+  /**
+   * Check that no item of the collection tree which will be changed is locked by another user
+   *
+   * @throws ImejiException
+   */
+  private void checkLocks() throws ImejiException {
+    SearchCursor cursor = SearchCursor.start();
+    do {
+      final SearchResult result = searchChunk(cursor);
+      for (final String itemId : result.getResults()) {
+        if (Locks.isLocked(itemId, user.getEmail())) {
+          throw new UnprocessableError("Collection has locked items: " + progress.getName() + " not possible");
+        }
+      }
+      cursor = result.getNextCursor();
+    } while (cursor != null);
+  }
+
+  /**
+   * Search the next chunk of items to change
+   *
+   * @param cursor
+   * @return
+   * @throws ImejiException if the search failed
+   */
+  private SearchResult searchChunk(SearchCursor cursor) throws ImejiException {
+    final SearchResult result =
+        search.searchWithCursor(query, null, Imeji.adminUser, checkpoint.getCollectionId(), cursor, chunkSize, false, true);
+    if (result == null) {
+      throw new ImejiException("The items of the collection could not be searched: " + progress.getName() + " not possible");
+    }
+    return result;
+  }
+
+  /**
+   * Change a chunk of items in one transaction, and write the checkpoint. The items which don't
+   * have the status changed by the action in the database are skipped
+   *
+   * @param foundIds the ids of the items found in the search index
+   * @throws ImejiException
+   */
+  private void changeItems(List<String> foundIds) throws ImejiException {
+    if (foundIds.isEmpty()) {
+      return;
+    }
+    progress.addRead(foundIds.size());
+    final List<String> itemIds = new ItemService().retrieveBatchLazy(foundIds, Imeji.adminUser).stream()
+        .filter(item -> item.getStatus() == checkpoint.getAction().getFrom()).map(item -> item.getId().toString())
+        .collect(Collectors.toList());
+    if (itemIds.size() < foundIds.size()) {
+      LOGGER.info((foundIds.size() - itemIds.size()) + " items already changed by " + progress.getName());
+      progress.addIndexed(foundIds.size() - itemIds.size());
+      if (itemIds.isEmpty()) {
+        return;
+      }
+    }
+    final List<ChangeMember> changes = new ArrayList<>(itemIds.size() * 3);
+    for (final String itemId : itemIds) {
+      if (Locks.isLocked(itemId, user.getEmail())) {
+        throw new UnprocessableError("Collection has locked items: " + progress.getName() + " not possible");
+      }
+      final Item item = new Item();
+      item.setId(URI.create(itemId));
+      changes.addAll(getChanges(item));
+    }
+    new WriterFacade().editElements(changes, user, true);
+    progress.addIndexed(itemIds.size());
+    checkpoint.addChanged(itemIds.size());
+    saveCheckpoint();
+  }
+
+  /**
+   * Change the collection and its subcollections
+   *
+   * @throws ImejiException
+   */
+  private void changeCollections() throws ImejiException {
+    final List<String> collectionIds = new ArrayList<>(new HierarchyService().findAllSubcollections(checkpoint.getCollectionId()));
+    collectionIds.add(checkpoint.getCollectionId());
+    final List<ChangeMember> changes = new ArrayList<>(collectionIds.size() * 3);
+    for (final String collectionId : collectionIds) {
+      final CollectionImeji collection = new CollectionImeji();
+      collection.setId(URI.create(collectionId));
+      changes.addAll(getChanges(collection));
+    }
+    new WriterFacade().editElements(changes, user);
+  }
+
+  private List<ChangeMember> getChanges(Object object) throws UnprocessableError {
+    return checkpoint.getAction() == Action.RELEASE
+        ? WorkflowFacade.getReleaseChanges(object, checkpoint.getLicense(), checkpoint.getDate())
+        : WorkflowFacade.getWithdrawChanges(object, checkpoint.getComment(), checkpoint.getDate());
+  }
+
+  private void saveCheckpoint() throws ImejiException {
+    STORE.put(checkpoint.getCollectionId(), checkpoint);
+  }
+
+  private static void deleteCheckpoint(Checkpoint checkpoint) {
+    try {
+      STORE.delete(checkpoint.getCollectionId());
+    } catch (final ImejiException e) {
+      LOGGER.error("Error deleting the checkpoint of the workflow job of " + checkpoint.getCollectionId(), e);
+    }
+  }
+
+  private static long readProperty(String key, long defaultValue) {
+    try {
+      final String value = PropertyReader.getProperty(key);
+      return value != null ? Long.parseLong(value.trim()) : defaultValue;
+    } catch (final Exception e) {
+      return defaultValue;
+    }
+  }
+
+  public ReIndexProgress getProgress() {
+    return progress;
+  }
+}
@@ -1,27 +1,73 @@
 package de.mpg.imeji.logic.batch;
 
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 import de.mpg.imeji.exceptions.ImejiException;
+import de.mpg.imeji.exceptions.NotFoundException;
+import de.mpg.imeji.j2j.helper.J2JHelper;
+import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.config.util.PropertyReader;
+import de.mpg.imeji.logic.concurrency.ImejiExecutors;
+import de.mpg.imeji.logic.concurrency.ImejiExecutors.Pool;
 import de.mpg.imeji.logic.core.collection.CollectionService;
 import de.mpg.imeji.logic.core.content.ContentService;
 import de.mpg.imeji.logic.core.item.ItemService;
+import de.mpg.imeji.logic.db.indexretry.model.RetryBaseRequest;
+import de.mpg.imeji.logic.db.indexretry.model.RetryDeleteFromIndexRequest;
+import de.mpg.imeji.logic.db.indexretry.model.RetryIndexRequest;
+import de.mpg.imeji.logic.db.indexretry.queue.IndexOutbox;
+import de.mpg.imeji.logic.db.reader.Reader;
+import de.mpg.imeji.logic.db.reader.ReaderFactory;
+import de.mpg.imeji.logic.init.ImejiInitializer;
 import de.mpg.imeji.logic.model.CollectionImeji;
 import de.mpg.imeji.logic.model.Item;
+import de.mpg.imeji.logic.search.Search.SearchObjectTypes;
 import de.mpg.imeji.logic.search.elasticsearch.ElasticIndexer;
+import de.mpg.imeji.logic.search.elasticsearch.ElasticIndexer.RefreshPolicy;
 import de.mpg.imeji.logic.search.elasticsearch.ElasticInitializer;
 import de.mpg.imeji.logic.search.elasticsearch.ElasticService;
 import de.mpg.imeji.logic.search.elasticsearch.ElasticService.ElasticAnalysers;
 import de.mpg.imeji.logic.search.elasticsearch.ElasticService.ElasticIndices;
 import de.mpg.imeji.logic.security.user.UserService;
 import de.mpg.imeji.logic.security.usergroup.UserGroupService;
+import de.mpg.imeji.logic.util.StringHelper;
 
 /**
- * REindex data from the database into elastic search
+ * REindex data from the database into elastic search.<br/>
+ * The reindex runs in 2 phases: first users, user groups and collections are indexed in parallel.
+ * Then items and contents are indexed in parallel: since the collections are already indexed, the
+ * items can be written with the fields of their collection directly. The progress of each step can
+ * be followed with {@link #getProgress()}<br/>
+ * In blue/green mode (default), the data is written into new indexes (without replicas and
+ * refresh), while the current indexes are still used for search. At the end of each phase, the
+ * aliases are atomically moved to the new indexes and the old indexes are deleted. If a step stops
+ * with an error, or if more objects than allowed by <i>imeji.reindex.failures.max</i> (in percent
+ * of the objects of the index, default {@link #DEFAULT_MAX_FAILURES}) could not be indexed, its new
+ * index is deleted and the current one is kept. The objects which could not be indexed are counted
+ * in the {@link ReIndexProgress}. <br/>
+ * The objects written to the database during the reindex (as notified by the {@link IndexOutbox})
+ * are indexed again in the new index from the database: once before its alias is moved, and once
+ * after, for the objects written in the meantime. The writes done after the alias has been moved
+ * are indexed in the new index by their writers.
  *
  * @author bastiens
  *
@@ -29,60 +75,350 @@ import de.mpg.imeji.logic.security.usergroup.UserGroupService;
 public class ElasticReIndexJob implements Callable<Integer> {
 
   private static final Logger LOGGER = LogManager.getLogger(ElasticReIndexJob.class);
+  private static final AtomicBoolean RUNNING = new AtomicBoolean(false);
+  private static final double DEFAULT_MAX_FAILURES = 1;
+  private static volatile List<ReIndexProgress> progress = new ArrayList<>();
+  private final boolean blueGreen;
+  /**
+   * The last request for each object written during the reindex, which is not yet in its new index
+   */
+  private final Map<URI, RetryBaseRequest> changes = new ConcurrentHashMap<>();
+  /**
+   * The indexes whose alias has been moved to the new index
+   */
+  private final Set<ElasticIndices> switched = ConcurrentHashMap.newKeySet();
+  private final Consumer<List<RetryBaseRequest>> recorder = this::record;
+
+  /**
+   * Reindex in blue/green mode
+   */
+  public ElasticReIndexJob() {
+    this(true);
+  }
+
+  /**
+   * @param blueGreen if true, reindex into new indexes and move the aliases at the end, if false,
+   *        reindex directly in the current indexes
+   */
+  public ElasticReIndexJob(boolean blueGreen) {
+    this.blueGreen = blueGreen;
+  }
 
   @Override
   public Integer call() {
+    if (!RUNNING.compareAndSet(false, true)) {
+      LOGGER.warn("Reindex already running, request ignored");
+      return null;
+    }
+    final ReIndexProgress users = new ReIndexProgress("users");
+    final ReIndexProgress userGroups = new ReIndexProgress("user groups");
+    final ReIndexProgress folders = new ReIndexProgress("collections");
+    final ReIndexProgress items = new ReIndexProgress("items");
+    final ReIndexProgress contents = new ReIndexProgress("content");
+    progress = Collections.unmodifiableList(Arrays.asList(users, userGroups, folders, items, contents));
+    final ExecutorService executor = ImejiExecutors.get(Pool.REINDEX);
+    final Map<ElasticIndices, String> indexes = new EnumMap<>(ElasticIndices.class);
+    if (blueGreen) {
+      IndexOutbox.getInstance().addListener(recorder);
+    }
     try {
-      LOGGER.info("Reindex started!");
+      LOGGER.info("Reindex started" + (blueGreen ? " (blue/green)!" : "!"));
       // ElasticService.ANALYSER =
       // ElasticAnalysers.valueOf(PropertyReader.getProperty("elastic.analyser"));
-      // Check if the alias is used by only 1 index. If not, reset completely the
-      // indexes
-      // ElasticInitializer.getIndexNameFromAliasName(ElasticService.DATA_ALIAS);
-      // final String index = ElasticInitializer.createIndex();
-      // addAllMappings(index);
-      for (final ElasticIndices index : ElasticIndices.values()) {
+      initializeIndexes(indexes);
+      // Phase 1: objects without dependencies to other indexes
+      waitFor(submit(executor, users, () -> reindexUsers(indexes.get(ElasticIndices.users), users)),
+          submit(executor, userGroups, () -> reindexUserGroups(indexes.get(ElasticIndices.usergroups), userGroups)),
+          submit(executor, folders, () -> reindexFolders(indexes.get(ElasticIndices.folders), folders)));
+      switchIndex(ElasticIndices.users, indexes, users);
+      switchIndex(ElasticIndices.usergroups, indexes, userGroups);
+      switchIndex(ElasticIndices.folders, indexes, folders);
+      // Phase 2: items read the fields of their collection from the folders index
+      waitFor(submit(executor, items, () -> reindexItems(indexes.get(ElasticIndices.items), items)),
+          submit(executor, contents, () -> reindexContents(indexes.get(ElasticIndices.items), contents)));
+      switchIndex(ElasticIndices.items, indexes, items, contents);
+      LOGGER.info("Reindex done!");
+    } catch (final Exception e) {
+      LOGGER.error("Error while reindexing, stopping reindex", e);
+    } finally {
+      IndexOutbox.getInstance().removeListener(recorder);
+      deleteNewIndexes(indexes);
+      RUNNING.set(false);
+    }
+
+    return null;
+  }
+
+  /**
+   * Create the indexes to write in and add the mappings
+   *
+   * @param indexes filled with the name of the index to write in for each {@link ElasticIndices},
+   *        as soon as it is created
+   * @throws IOException
+   */
+  private void initializeIndexes(Map<ElasticIndices, String> indexes) throws IOException {
+    for (final ElasticIndices index : ElasticIndices.values()) {
+      if (blueGreen) {
+        final String indexName = ElasticInitializer.createIndexForBulkLoad(index);
+        indexes.put(index, indexName);
+        new ElasticIndexer(indexName, index, RefreshPolicy.NONE).addMapping();
+      } else {
         ElasticInitializer.initializeIndex(index);
         new ElasticIndexer(index.name()).addMapping();
+        indexes.put(index, index.name());
       }
+    }
+  }
 
-      try {
-        reindexUsers(ElasticIndices.users.name());
-      } catch (Exception e) {
-        LOGGER.error("Error while reindexing users", e);
+  /**
+   * In blue/green mode, delete the new indexes whose alias has not been moved, i.e. the current
+   * indexes are kept
+   *
+   * @param indexes
+   */
+  private void deleteNewIndexes(Map<ElasticIndices, String> indexes) {
+    if (!blueGreen) {
+      return;
+    }
+    final List<String> notSwitched = indexes.entrySet().stream().filter(e -> !switched.contains(e.getKey())).map(Map.Entry::getValue)
+        .distinct().collect(Collectors.toList());
+    if (notSwitched.isEmpty()) {
+      return;
+    }
+    try {
+      ElasticInitializer.deleteIndexes(notSwitched);
+    } catch (final Exception e) {
+      LOGGER.error("Could not delete the new indexes " + notSwitched + ", they must be deleted manually", e);
+    }
+  }
+
+  /**
+   * In blue/green mode: if all steps written in the new index are done and not too many objects
+   * failed, index the objects changed during the reindex, restore the settings of the new index and
+   * move the alias to it, and index the objects changed meanwhile. Otherwise, the new index is kept
+   * unswitched and deleted at the end of the reindex.
+   *
+   * @param index
+   * @param indexes
+   * @param steps
+   * @throws IOException
+   */
+  private void switchIndex(ElasticIndices index, Map<ElasticIndices, String> indexes, ReIndexProgress... steps) throws IOException {
+    if (!blueGreen) {
+      return;
+    }
+    final String newIndex = indexes.get(index);
+    long total = 0;
+    long failed = 0;
+    for (final ReIndexProgress step : steps) {
+      if (step.getState() != ReIndexProgress.State.DONE) {
+        LOGGER.error("Reindex of " + step.getName() + " not complete, keeping the current index " + index.name());
+        return;
       }
+      total += step.getTotal();
+      failed += step.getFailed();
+    }
+    if (failed > 0) {
+      final double maxFailures = getMaxFailures();
+      if (failed * 100.0 > total * maxFailures) {
+        LOGGER.error(
+            failed + "/" + total + " objects could not be indexed (max " + maxFailures + "%), keeping the current index " + index.name());
+        return;
+      }
+      LOGGER.warn(failed + "/" + total + " objects could not be indexed in " + newIndex + ", they are missing in the index " + index.name()
+          + " until they are written again");
+    }
+    try {
+      replayChanges(index, newIndex, false);
+    } catch (final Exception e) {
+      LOGGER.error("Could not index the changes done during the reindex, keeping the current index " + index.name(), e);
+      return;
+    }
+    ElasticInitializer.restoreIndexSettings(newIndex, ElasticInitializer.getNumberOfReplicas(index.name()));
+    ElasticInitializer.setNewIndexesAndRemoveOldIndexes(Collections.singletonMap(index.name(), newIndex));
+    switched.add(index);
+    try {
+      replayChanges(index, newIndex, true);
+    } catch (final Exception e) {
+      LOGGER.error("Could not index the last changes in " + newIndex + ", they are indexed again by the index outbox", e);
+      IndexOutbox.getInstance().append(removeChanges(index), null);
+    }
+  }
 
-      try {
-        reindexUserGroups(ElasticIndices.usergroups.name());
-      } catch (Exception e) {
-        LOGGER.error("Error while reindexing usergroups", e);
+  /**
+   * The max percentage of the objects of an index which may fail to be indexed, so that the alias
+   * is still moved to the new index: property <i>imeji.reindex.failures.max</i>, default
+   * {@link #DEFAULT_MAX_FAILURES}
+   *
+   * @return
+   */
+  private static double getMaxFailures() {
+    try {
+      final String value = PropertyReader.getProperty("imeji.reindex.failures.max");
+      if (!StringHelper.isNullOrEmptyTrim(value)) {
+        return Double.parseDouble(value.trim());
+      }
+    } catch (final Exception e) {
+      LOGGER.error("Invalid value of imeji.reindex.failures.max, using " + DEFAULT_MAX_FAILURES, e);
+    }
+    return DEFAULT_MAX_FAILURES;
+  }
+
+  /**
+   * Record the objects written to the database, if the alias of their index has not been moved yet
+   *
+   * @param requests
+   */
+  private void record(List<RetryBaseRequest> requests) {
+    for (final RetryBaseRequest request : requests) {
+      final ElasticIndices index = getIndex(request);
+      if (index != null && !switched.contains(index)) {
+        changes.put(request.getUri(), request);
       }
+    }
+  }
 
-      try {
-        reindexItems(ElasticIndices.items.name());
-      } catch (Exception e) {
-        LOGGER.error("Error while reindexing items", e);
+  /**
+   * Remove the recorded changes of an index
+   *
+   * @param index
+   * @return the removed changes
+   */
+  private List<RetryBaseRequest> removeChanges(ElasticIndices index) {
+    final List<RetryBaseRequest> removed = new ArrayList<>();
+    for (final URI uri : new ArrayList<>(changes.keySet())) {
+      final RetryBaseRequest request = changes.get(uri);
+      if (request != null && getIndex(request) == index && changes.remove(uri, request)) {
+        removed.add(request);
       }
+    }
+    return removed;
+  }
 
-      try {
-        reindexContents(ElasticIndices.items.name());
-      } catch (Exception e) {
-        LOGGER.error("Error while reindexing contents", e);
+  /**
+   * Index in the new index the recorded changes of an index, as they are in the database: the
+   * objects which don't exist anymore are deleted. <br/>
+   * The changes are recorded before the database commit: a change replayed before the alias is
+   * moved can still be committed later. It must therefore be kept, and replayed again (with
+   * remove=true) once the alias has been moved. If it fails, the removed changes are recorded again
+   *
+   * @param index
+   * @param newIndex
+   * @param remove if true, remove the replayed changes
+   * @throws Exception
+   */
+  private void replayChanges(ElasticIndices index, String newIndex, boolean remove) throws Exception {
+    final List<RetryBaseRequest> replay =
+        remove ? removeChanges(index) : changes.values().stream().filter(r -> getIndex(r) == index).collect(Collectors.toList());
+    if (replay.isEmpty()) {
+      return;
+    }
+    LOGGER.info("Indexing " + replay.size() + " objects changed during the reindex in " + newIndex);
+    final ElasticIndexer indexer = new ElasticIndexer(newIndex, index, RefreshPolicy.NONE);
+    try {
+      final Map<Class<?>, List<RetryBaseRequest>> byType =
+          replay.stream().collect(Collectors.groupingBy(ElasticReIndexJob::getObjectClass));
+      for (final Map.Entry<Class<?>, List<RetryBaseRequest>> e : byType.entrySet()) {
+        final Reader reader = ReaderFactory.create(ImejiInitializer.getJenaModelName(e.getKey()));
+        final List<Object> existing = new ArrayList<>();
+        final List<Object> deleted = new ArrayList<>();
+        for (final RetryBaseRequest request : e.getValue()) {
+          try {
+            existing.add(reader.read(request.getUri().toString(), Imeji.adminUser, e.getKey().getConstructor().newInstance()));
+          } catch (final NotFoundException notFound) {
+            deleted.add(request instanceof RetryDeleteFromIndexRequest ? ((RetryDeleteFromIndexRequest) request).getObjectToDelete()
+                : J2JHelper.setId(e.getKey().getConstructor().newInstance(), request.getUri()));
+          }
+        }
+        indexer.indexBatch(existing);
+        indexer.deleteBatch(deleted);
       }
+    } catch (final Exception e) {
+      replay.forEach(r -> changes.putIfAbsent(r.getUri(), r));
+      throw e;
+    }
+    indexer.commit();
+  }
+
+  /**
+   * The class of the object of a request
+   *
+   * @param request
+   * @return
+   */
+  private static Class<?> getObjectClass(RetryBaseRequest request) {
+    return request instanceof RetryIndexRequest ? ((RetryIndexRequest) request).getObjectClass()
+        : ((RetryDeleteFromIndexRequest) request).getObjectToDelete().getClass();
+  }
 
+  /**
+   * The index of the object of a request, or null if it is not indexed
+   *
+   * @param request
+   * @return
+   */
+  private static ElasticIndices getIndex(RetryBaseRequest request) {
+    final SearchObjectTypes type = SearchObjectTypes.getFromDataType(getObjectClass(request));
+    return type != null ? ElasticIndices.toElasticIndex(type) : null;
+  }
+
+  /**
+   * A step of the reindex
+   */
+  @FunctionalInterface
+  private interface ReIndexStep {
+    void run() throws Exception;
+  }
+
+  /**
+   * Run a step of the reindex in the executor. An error in one step is logged and doesn't stop the
+   * other steps
+   *
+   * @param executor
+   * @param progress
+   * @param step
+   * @return
+   */
+  private Future<?> submit(ExecutorService executor, ReIndexProgress progress, ReIndexStep step) {
+    return executor.submit(() -> {
       try {
-        reindexFolders(ElasticIndices.folders.name());
-      } catch (Exception e) {
-        LOGGER.error("Error while reindexing folders", e);
+        step.run();
+      } catch (final Exception e) {
+        progress.fail();
+        LOGGER.error("Error while reindexing " + progress.getName(), e);
       }
-      // ElasticInitializer.setNewIndexAndRemoveOldIndex(index);
-      LOGGER.info("Reindex done!");
+    });
+  }
 
-    } catch (final Exception e) {
-      LOGGER.error("Error while initializing indexes, stopping reindex", e);
+  /**
+   * Wait until all steps are done
+   *
+   * @param steps
+   * @throws InterruptedException
+   * @throws ExecutionException
+   */
+  private void waitFor(Future<?>... steps) throws InterruptedException, ExecutionException {
+    for (final Future<?> step : steps) {
+      step.get();
     }
+  }
 
-    return null;
+  /**
+   * The progress of the current (or last) reindex
+   *
+   * @return
+   */
+  public static List<ReIndexProgress> getProgress() {
+    return progress;
+  }
+
+  /**
+   * True if a reindex is currently running
+   *
+   * @return
+   */
+  public static boolean isRunning() {
+    return RUNNING.get();
   }
 
   /**
@@ -99,11 +435,13 @@ public class ElasticReIndexJob implements Callable<Integer> {
   /**
    * Reindex all the {@link CollectionImeji} stored in the database
    *
+   * @param index
+   * @param progress
    * @throws ImejiException
    */
-  private void reindexFolders(String index) throws Exception {
+  private void reindexFolders(String index, ReIndexProgress progress) throws Exception {
     final CollectionService c = new CollectionService();
-    c.reindex(index);
+    c.reindex(index, progress);
   }
 
   /**
@@ -112,9 +450,9 @@ public class ElasticReIndexJob implements Callable<Integer> {
    * @throws ImejiException
    *
    */
-  private void reindexItems(String index) throws Exception {
+  private void reindexItems(String index, ReIndexProgress progress) throws Exception {
     final ItemService controller = new ItemService();
-    controller.reindex(index);
+    controller.reindex(index, progress);
   }
 
   /**
@@ -123,8 +461,8 @@ public class ElasticReIndexJob implements Callable<Integer> {
    * @throws ImejiException
    *
    */
-  private void reindexContents(String index) throws Exception {
-    new ContentService().reindex(index);
+  private void reindexContents(String index, ReIndexProgress progress) throws Exception {
+    new ContentService().reindex(index, progress);
   }
 
   /**
@@ -133,8 +471,8 @@ public class ElasticReIndexJob implements Callable<Integer> {
    * @param index
    * @throws ImejiException
    */
-  private void reindexUsers(String index) throws Exception {
-    new UserService().reindex(index);
+  private void reindexUsers(String index, ReIndexProgress progress) throws Exception {
+    new UserService().reindex(index, progress);
   }
 
   /**
@@ -143,8 +481,8 @@ public class ElasticReIndexJob implements Callable<Integer> {
    * @param index
    * @throws ImejiException
    */
-  private void reindexUserGroups(String index) throws Exception {
-    new UserGroupService().reindex(index);
+  private void reindexUserGroups(String index, ReIndexProgress progress) throws Exception {
+    new UserGroupService().reindex(index, progress);
   }
 
 }
@@ -0,0 +1,225 @@
+package de.mpg.imeji.logic.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.mpg.imeji.logic.concurrency.ImejiExecutors;
+import de.mpg.imeji.logic.concurrency.ImejiExecutors.Pool;
+import de.mpg.imeji.logic.config.Imeji;
+import de.mpg.imeji.logic.config.util.PropertyReader;
+import de.mpg.imeji.logic.generic.SearchServiceAbstract;
+import de.mpg.imeji.logic.search.elasticsearch.ElasticIndexer;
+
+/**
+ * Producer/consumer pipeline to reindex all objects of a {@link SearchServiceAbstract}: reader
+ * threads load batches from Jena and put them into a bounded queue, writer threads take the batches
+ * from the queue and send them as bulk requests to Elasticsearch. Reading and writing therefore
+ * overlap, and the reindex is bounded by the slower of both sides.<br/>
+ * Readers and writers run in the {@link Pool#REINDEX_PIPELINE} executor. They never wait without
+ * limit: a reader which can't queue its batch because no writer is running (not started yet, or
+ * stopped by an error) indexes the batch itself, and the writers stop once all readers are done and
+ * the queue is empty. <br/>
+ * The number of readers and writers can be configured with the properties
+ * <i>elastic.reindex.readers</i> and <i>elastic.reindex.writers</i>
+ *
+ * @param <T>
+ */
+public class ElasticReIndexPipeline<T> implements Callable<Integer> {
+  private static final Logger LOGGER = LogManager.getLogger(ElasticReIndexPipeline.class);
+  private static final int DEFAULT_READERS = 2;
+  private static final int DEFAULT_WRITERS = 2;
+  /**
+   * Max time (in ms) a reader or a writer waits for the queue before checking the other side
+   */
+  private static final long QUEUE_TIMEOUT = 1000;
+  private final SearchServiceAbstract<T> service;
+  private final ElasticIndexer indexer;
+  private final int batchSize;
+  private final int readers;
+  private final int writers;
+  private final ReIndexProgress progress;
+  private final AtomicBoolean readersDone = new AtomicBoolean(false);
+  private final AtomicInteger runningWriters = new AtomicInteger();
+
+  /**
+   * Create a pipeline with the number of readers and writers defined in the properties
+   *
+   * @param service the service to read the objects
+   * @param indexer the indexer to write the objects
+   * @param batchSize the number of objects read and indexed together
+   * @param progress the {@link ReIndexProgress} to update
+   */
+  public ElasticReIndexPipeline(SearchServiceAbstract<T> service, ElasticIndexer indexer, int batchSize, ReIndexProgress progress) {
+    this(service, indexer, batchSize, readIntProperty("elastic.reindex.readers", DEFAULT_READERS),
+        readIntProperty("elastic.reindex.writers", DEFAULT_WRITERS), progress);
+  }
+
+  public ElasticReIndexPipeline(SearchServiceAbstract<T> service, ElasticIndexer indexer, int batchSize, int readers, int writers,
+      ReIndexProgress progress) {
+    this.service = service;
+    this.indexer = indexer;
+    this.batchSize = batchSize;
+    this.readers = readers;
+    this.writers = writers;
+    this.progress = progress;
+  }
+
+  /**
+   * Run the reindex and return the number of objects indexed
+   */
+  @Override
+  public Integer call() throws Exception {
+    final List<String> uris = service.searchAll();
+    final List<List<String>> batches = partition(uris, batchSize);
+    progress.start(uris.size());
+    LOGGER.info("+++ " + uris.size() + " " + progress.getName() + " to index with " + readers + " readers and " + writers + " writers +++");
+    // The queue is bounded: readers wait when writers are slower, which bounds the memory used
+    final BlockingQueue<List<T>> queue = new ArrayBlockingQueue<>(Math.max(1, writers * 2));
+    final AtomicInteger nextBatch = new AtomicInteger();
+    final List<Future<?>> readerFutures = new ArrayList<>(readers);
+    final List<Future<?>> writerFutures = new ArrayList<>(writers);
+    try {
+      // The readers are submitted first: a running writer never waits for a reader which doesn't
+      // get a thread
+      for (int i = 0; i < readers; i++) {
+        readerFutures.add(ImejiExecutors.get(Pool.REINDEX_PIPELINE).submit(() -> read(batches, nextBatch, queue)));
+      }
+      for (int i = 0; i < writers; i++) {
+        writerFutures.add(ImejiExecutors.get(Pool.REINDEX_PIPELINE).submit(() -> write(queue)));
+      }
+      waitFor(readerFutures);
+      readersDone.set(true);
+      waitFor(writerFutures);
+      // Batches left by writers which stopped with an error
+      List<T> list;
+      while ((list = queue.poll()) != null) {
+        index(list);
+      }
+      indexer.commit();
+      progress.done();
+    } catch (final Exception e) {
+      progress.fail();
+      throw e;
+    } finally {
+      readerFutures.forEach(f -> f.cancel(true));
+      writerFutures.forEach(f -> f.cancel(true));
+    }
+    LOGGER.info(progress.toString());
+    return (int) progress.getIndexed();
+  }
+
+  /**
+   * Read the batches from the database and put them in the queue. If the queue stays full and no
+   * writer is running, the batch is indexed by the reader
+   *
+   * @param batches
+   * @param nextBatch
+   * @param queue
+   * @return
+   * @throws InterruptedException
+   */
+  private Void read(List<List<String>> batches, AtomicInteger nextBatch, BlockingQueue<List<T>> queue) throws InterruptedException {
+    int i;
+    while ((i = nextBatch.getAndIncrement()) < batches.size()) {
+      final List<String> batch = batches.get(i);
+      try {
+        final List<T> list = service.retrieve(batch, Imeji.adminUser);
+        progress.addRead(list.size());
+        while (!queue.offer(list, QUEUE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+          if (runningWriters.get() == 0) {
+            index(list);
+            break;
+          }
+        }
+      } catch (final InterruptedException e) {
+        throw e;
+      } catch (final Exception e) {
+        LOGGER.error("Error reading " + progress.getName() + " to reindex", e);
+        progress.addFailed(batch.size());
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Take the batches from the queue and index them, until all readers are done and the queue is
+   * empty
+   *
+   * @param queue
+   * @return
+   * @throws InterruptedException
+   */
+  private Void write(BlockingQueue<List<T>> queue) throws InterruptedException {
+    runningWriters.incrementAndGet();
+    try {
+      while (true) {
+        final boolean done = readersDone.get();
+        final List<T> list = queue.poll(QUEUE_TIMEOUT, TimeUnit.MILLISECONDS);
+        if (list != null) {
+          index(list);
+        } else if (done) {
+          return null;
+        }
+      }
+    } finally {
+      runningWriters.decrementAndGet();
+    }
+  }
+
+  /**
+   * Index a batch. Errors are counted in the progress
+   *
+   * @param list
+   */
+  private void index(List<T> list) {
+    try {
+      indexer.indexBatch(list);
+      progress.addIndexed(list.size());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      progress.addFailed(list.size());
+    } catch (final Exception e) {
+      LOGGER.error("Error indexing " + progress.getName(), e);
+      progress.addFailed(list.size());
+    }
+    LOGGER.info(progress.getName() + ": " + progress.getIndexed() + "/" + progress.getTotal());
+  }
+
+  private static void waitFor(List<Future<?>> futures) throws InterruptedException, ExecutionException {
+    for (final Future<?> f : futures) {
+      f.get();
+    }
+  }
+
+  private static List<List<String>> partition(List<String> uris, int size) {
+    final List<List<String>> batches = new ArrayList<>(uris.size() / size + 1);
+    for (int i = 0; i < uris.size(); i += size) {
+      batches.add(uris.subList(i, Math.min(i + size, uris.size())));
+    }
+    return batches;
+  }
+
+  private static int readIntProperty(String key, int defaultValue) {
+    try {
+      final String value = PropertyReader.getProperty(key);
+      return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+    } catch (final Exception e) {
+      return defaultValue;
+    }
+  }
+
+  public ReIndexProgress getProgress() {
+    return progress;
+  }
+}
@@ -1,11 +1,17 @@
 package de.mpg.imeji.logic.batch;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import de.mpg.imeji.logic.concurrency.Locks;
+import de.mpg.imeji.logic.concurrency.PrioritizedTask;
+import de.mpg.imeji.logic.concurrency.PrioritizedTask.Priority;
+import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.core.content.ContentService;
 import de.mpg.imeji.logic.generic.SearchServiceAbstract;
 import de.mpg.imeji.logic.model.ContentVO;
@@ -25,16 +31,28 @@ public class ReGenerateFullWebThumbnailJob implements Callable<Integer> {
     long start = System.currentTimeMillis();
     while (iterator.hasNext()) {
       List<ContentVO> result = (List<ContentVO>) iterator.next();
+      final List<Future<Integer>> futures = new ArrayList<>();
       for (ContentVO content : result) {
         StorageController controller = new StorageController();
-        LOGGER.info("Generating full web and thumbnail images for item " + content.getItemId() + " " + count + "/" + iterator.getSize());
-        try {
-          controller.reGenerateFullWebThumbnailImages(content.getOriginal());
-        } catch (Exception e) {
-          LOGGER.error("Error full web and thumbnail images for item file @ " + content.getOriginal(), e);
-        }
+        final String progress = count + "/" + iterator.getSize();
+        futures.add(Imeji.getINTERNAL_STORAGE_EXECUTOR().submit(new PrioritizedTask<>(() -> {
+          LOGGER.info("Generating full web and thumbnail images for item " + content.getItemId() + " " + progress);
+          Locks.lockFiles(content.getId().toString());
+          try {
+            controller.reGenerateFullWebThumbnailImages(content.getOriginal());
+          } catch (Exception e) {
+            LOGGER.error("Error full web and thumbnail images for item file @ " + content.getOriginal(), e);
+          } finally {
+            Locks.releaseFiles(content.getId().toString());
+          }
+          return 1;
+        }, Priority.BATCH)));
         count++;
       }
+      // Wait for the page before reading the next one: uploads are not delayed by a long queue
+      for (Future<Integer> future : futures) {
+        future.get();
+      }
     }
 
     LOGGER.info("Full web and thumbnail images generated for all files in " + (System.currentTimeMillis() - start) + " ms!");
@@ -0,0 +1,138 @@
+package de.mpg.imeji.logic.batch;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress and throughput of the reindex of one type of objects (items, contents, collections,
+ * etc.). Updated concurrently by the reindex workers and read by the admin page.
+ */
+public class ReIndexProgress implements Serializable {
+  private static final long serialVersionUID = -3151263208049004538L;
+
+  public enum State {
+    WAITING,
+    RUNNING,
+    DONE,
+    FAILED;
+  }
+
+  private final String name;
+  private volatile State state = State.WAITING;
+  private volatile long total = 0;
+  private final AtomicLong read = new AtomicLong();
+  private final AtomicLong indexed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private volatile long startTime = 0;
+  private volatile long endTime = 0;
+
+  public ReIndexProgress(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Start the reindex of the given number of objects
+   *
+   * @param total
+   */
+  public void start(long total) {
+    this.total = total;
+    this.startTime = System.currentTimeMillis();
+    this.state = State.RUNNING;
+  }
+
+  /**
+   * Reindex is finished. The objects which could not be indexed are counted by {@link #getFailed()}
+   */
+  public void done() {
+    this.endTime = System.currentTimeMillis();
+    this.state = State.DONE;
+  }
+
+  /**
+   * Reindex has been stopped by an error
+   */
+  public void fail() {
+    this.endTime = System.currentTimeMillis();
+    this.state = State.FAILED;
+  }
+
+  public void addRead(long count) {
+    read.addAndGet(count);
+  }
+
+  public void addIndexed(long count) {
+    indexed.addAndGet(count);
+  }
+
+  public void addFailed(long count) {
+    failed.addAndGet(count);
+  }
+
+  /**
+   * Number of objects indexed per second since the start
+   *
+   * @return
+   */
+  public long getThroughput() {
+    return perSecond(indexed.get());
+  }
+
+  /**
+   * Number of objects read from the database per second since the start
+   *
+   * @return
+   */
+  public long getReadThroughput() {
+    return perSecond(read.get());
+  }
+
+  /**
+   * The duration of the reindex in seconds
+   *
+   * @return
+   */
+  public long getDuration() {
+    if (startTime == 0) {
+      return 0;
+    }
+    return ((endTime > 0 ? endTime : System.currentTimeMillis()) - startTime) / 1000;
+  }
+
+  private long perSecond(long count) {
+    if (startTime == 0) {
+      return 0;
+    }
+    final long duration = (endTime > 0 ? endTime : System.currentTimeMillis()) - startTime;
+    return duration > 0 ? count * 1000 / duration : count;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  public long getTotal() {
+    return total;
+  }
+
+  public long getRead() {
+    return read.get();
+  }
+
+  public long getIndexed() {
+    return indexed.get();
+  }
+
+  public long getFailed() {
+    return failed.get();
+  }
+
+  @Override
+  public String toString() {
+    return name + ": " + indexed.get() + "/" + total + " indexed (" + failed.get() + " failed, " + getThroughput() + "/s)";
+  }
+}
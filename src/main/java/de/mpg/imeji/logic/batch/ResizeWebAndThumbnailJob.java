@@ -1,11 +1,17 @@
 package de.mpg.imeji.logic.batch;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
+import de.mpg.imeji.logic.concurrency.Locks;
+import de.mpg.imeji.logic.concurrency.PrioritizedTask;
+import de.mpg.imeji.logic.concurrency.PrioritizedTask.Priority;
+import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.core.content.ContentService;
 import de.mpg.imeji.logic.generic.SearchServiceAbstract;
 import de.mpg.imeji.logic.model.ContentVO;
@@ -23,16 +29,28 @@ public class ResizeWebAndThumbnailJob implements Callable<Integer> {
     long start = System.currentTimeMillis();
     while (iterator.hasNext()) {
       List<ContentVO> result = (List<ContentVO>) iterator.next();
+      final List<Future<Integer>> futures = new ArrayList<>();
       for (ContentVO content : result) {
         StorageController controller = new StorageController();
-        LOGGER.info("Generating jpeg for file " + count + "/" + iterator.getSize());
-        try {
-          controller.recalculateWebAndThumbnail(content.getOriginal());
-        } catch (Exception e) {
-          LOGGER.error("Error generating images of " + content.getOriginal(), e);
-        }
+        final String progress = count + "/" + iterator.getSize();
+        futures.add(Imeji.getINTERNAL_STORAGE_EXECUTOR().submit(new PrioritizedTask<>(() -> {
+          LOGGER.info("Generating jpeg for file " + progress);
+          Locks.lockFiles(content.getId().toString());
+          try {
+            controller.recalculateWebAndThumbnail(content.getOriginal());
+          } catch (Exception e) {
+            LOGGER.error("Error generating images of " + content.getOriginal(), e);
+          } finally {
+            Locks.releaseFiles(content.getId().toString());
+          }
+          return 1;
+        }, Priority.BATCH)));
         count++;
       }
+      // Wait for the page before reading the next one: uploads are not delayed by a long queue
+      for (Future<Integer> future : futures) {
+        future.get();
+      }
     }
 
     LOGGER.info("JPEG for all files generated in " + (System.currentTimeMillis() - start) + " ms!");
@@ -0,0 +1,176 @@
+package de.mpg.imeji.logic.concurrency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.mpg.imeji.logic.config.util.PropertyReader;
+
+/**
+ * Registry of the executors of imeji: one bounded {@link InstrumentedExecutor} per workload. Tasks
+ * of a workload which wait for tasks of another workload must use distinct pools, to avoid that a
+ * full pool waits for itself.<br/>
+ * The number of threads of a pool can be configured with the property
+ * imeji.executor.&lt;name&gt;.threads
+ */
+public class ImejiExecutors {
+  private static final Logger LOGGER = LogManager.getLogger(ImejiExecutors.class);
+  private static final Map<Pool, InstrumentedExecutor> EXECUTORS = new ConcurrentHashMap<>();
+
+  /**
+   * The workloads of imeji
+   */
+  public enum Pool {
+    /**
+     * Jobs and other background tasks
+     */
+    DEFAULT("default", 16),
+    /**
+     * Upload of files to the temp directory
+     */
+    UPLOAD("upload", 16),
+    /**
+     * Jena read and update transactions
+     */
+    JENA("jena", 8),
+    /**
+     * Jena write transactions: only one writer at a time
+     */
+    JENA_WRITE("jena-write", 1),
+    /**
+     * Write to the database (waits for {@link #JENA_WRITE})
+     */
+    WRITE("write", 8),
+    /**
+     * Write to the search index
+     */
+    INDEX("index", 8),
+    /**
+     * Write to the search index the objects of the index outbox which could not be indexed by their
+     * writer
+     */
+    INDEX_OUTBOX("index-outbox", 4),
+    /**
+     * Steps of the reindex, which wait for their pipeline
+     */
+    REINDEX("reindex", 3),
+    /**
+     * Readers and writers of the reindex pipelines
+     */
+    REINDEX_PIPELINE("reindex-pipeline", 12),
+    /**
+     * Asynchronous retrieve of search results
+     */
+    SEARCH("search", 8),
+    /**
+     * Listeners of the message queue
+     */
+    LISTENER("listener", 4),
+    /**
+     * Extraction of the fulltext and technical metadata of the files
+     */
+    CONTENT_EXTRACTION("content-extraction", 1),
+    /**
+     * Generation of the thumbnail, preview and full resolution files. Uploads are preferred to the
+     * batch regeneration of the files (see {@link PrioritizedTask})
+     */
+    FILE_TRANSFORMATION("file-transformation", 10, true);
+
+    private final String name;
+    private final int defaultThreads;
+    private final boolean prioritized;
+
+    private Pool(String name, int defaultThreads) {
+      this(name, defaultThreads, false);
+    }
+
+    private Pool(String name, int defaultThreads, boolean prioritized) {
+      this.name = name;
+      this.defaultThreads = defaultThreads;
+      this.prioritized = prioritized;
+    }
+
+    public String getName() {
+      return name;
+    }
+  }
+
+  private ImejiExecutors() {
+    // avoid constructor
+  }
+
+  /**
+   * Return the executor of the workload. A new executor is created if it doesn't exist or has been
+   * shut down
+   *
+   * @param pool
+   * @return
+   */
+  public static InstrumentedExecutor get(Pool pool) {
+    final InstrumentedExecutor executor = EXECUTORS.get(pool);
+    if (executor != null && !executor.isShutdown()) {
+      return executor;
+    }
+    return EXECUTORS.compute(pool,
+        (p, e) -> e == null || e.isShutdown() ? new InstrumentedExecutor(p.getName(), getThreads(p), p.prioritized) : e);
+  }
+
+  /**
+   * @return all running executors
+   */
+  public static List<InstrumentedExecutor> getAll() {
+    return new ArrayList<>(EXECUTORS.values());
+  }
+
+  /**
+   * Shutdown all executors: wait until the running and queued tasks are done, at most timeout, then
+   * interrupt the tasks still running
+   *
+   * @param timeout
+   * @param unit
+   */
+  public static void shutdownAll(long timeout, TimeUnit unit) {
+    final List<InstrumentedExecutor> executors = getAll();
+    EXECUTORS.clear();
+    for (final InstrumentedExecutor executor : executors) {
+      LOGGER.info("Shutting down executor " + executor);
+      executor.shutdown();
+    }
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
+    for (final InstrumentedExecutor executor : executors) {
+      try {
+        if (!executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+          LOGGER.warn("Executor " + executor.getName() + " not terminated after " + timeout + " " + unit + ": interrupting "
+              + executor.shutdownNow().size() + " queued tasks and the running tasks");
+        }
+      } catch (final InterruptedException e) {
+        executor.shutdownNow();
+        Thread.currentThread().interrupt();
+      }
+      LOGGER.info("executor " + executor.getName() + " terminated? " + executor.isTerminated());
+    }
+  }
+
+  /**
+   * Read the number of threads of a pool from the properties
+   *
+   * @param pool
+   * @return
+   */
+  private static int getThreads(Pool pool) {
+    try {
+      final String threads = PropertyReader.getProperty("imeji.executor." + pool.getName() + ".threads");
+      if (threads != null && !threads.trim().isEmpty()) {
+        return Math.max(1, Integer.parseInt(threads.trim()));
+      }
+    } catch (final Exception e) {
+      LOGGER.warn("Could not read the number of threads of executor " + pool.getName() + ": " + e.getMessage());
+    }
+    return pool.defaultThreads;
+  }
+}
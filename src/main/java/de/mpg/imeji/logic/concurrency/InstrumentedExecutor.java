@@ -0,0 +1,203 @@
+package de.mpg.imeji.logic.concurrency;
+
+import java.util.Comparator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.mpg.imeji.logic.concurrency.PrioritizedTask.Priority;
+
+/**
+ * {@link ThreadPoolExecutor} with a fixed maximum number of named threads, which measures the time
+ * tasks wait in the queue and the time they run. Idle threads are released after one minute. <br/>
+ * A prioritized executor runs the queued {@link PrioritizedTask}s by priority (other tasks have the
+ * priority {@link Priority#INTERACTIVE})
+ */
+public class InstrumentedExecutor extends ThreadPoolExecutor {
+  private static final long KEEP_ALIVE_SECONDS = 60;
+  private static final Comparator<Runnable> PRIORITY_ORDER =
+      Comparator.comparing((Runnable r) -> ((TimedTask) r).priority).thenComparingLong(r -> ((TimedTask) r).sequence);
+  private final AtomicLong sequence = new AtomicLong();
+  private final String name;
+  private final AtomicLong waitTime = new AtomicLong();
+  private final AtomicLong runTime = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicInteger maxQueueSize = new AtomicInteger();
+
+  /**
+   * @param name the name of the executor, used to name its threads
+   * @param threads the maximum number of threads
+   */
+  public InstrumentedExecutor(String name, int threads) {
+    this(name, threads, false);
+  }
+
+  /**
+   * @param name the name of the executor, used to name its threads
+   * @param threads the maximum number of threads
+   * @param prioritized if true, the queued tasks are executed by priority
+   */
+  public InstrumentedExecutor(String name, int threads, boolean prioritized) {
+    super(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, createQueue(prioritized), new NamedThreadFactory(name));
+    this.name = name;
+    allowCoreThreadTimeOut(true);
+  }
+
+  private static BlockingQueue<Runnable> createQueue(boolean prioritized) {
+    return prioritized ? new PriorityBlockingQueue<Runnable>(11, PRIORITY_ORDER) : new LinkedBlockingQueue<Runnable>();
+  }
+
+  @Override
+  protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+    if (callable instanceof PrioritizedTask) {
+      return new PrioritizedFutureTask<>(callable, ((PrioritizedTask<T>) callable).getPriority());
+    }
+    return super.newTaskFor(callable);
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    super.execute(new TimedTask(command));
+    maxQueueSize.accumulateAndGet(getQueue().size(), Math::max);
+  }
+
+  /**
+   * Count the failed tasks. The exception of a submitted task is not thrown but kept in its
+   * {@link Future}: it is read from the Future
+   */
+  @Override
+  protected void afterExecute(Runnable r, Throwable t) {
+    super.afterExecute(r, t);
+    final Runnable task = r instanceof TimedTask ? ((TimedTask) r).task : r;
+    if (t == null && task instanceof Future<?> && ((Future<?>) task).isDone()) {
+      try {
+        ((Future<?>) task).get();
+      } catch (final ExecutionException e) {
+        t = e.getCause();
+      } catch (final CancellationException e) {
+        // Cancelled tasks are not failed
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (t != null) {
+      failed.incrementAndGet();
+    }
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the number of tasks waiting to be executed
+   */
+  public int getQueueSize() {
+    return getQueue().size();
+  }
+
+  /**
+   * @return the highest number of tasks which were waiting at the same time
+   */
+  public int getMaxQueueSize() {
+    return maxQueueSize.get();
+  }
+
+  /**
+   * @return the average time (in ms) a task waited in the queue before being executed
+   */
+  public long getAverageWaitTime() {
+    final long completed = getCompletedTaskCount();
+    return completed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(waitTime.get() / completed);
+  }
+
+  /**
+   * @return the average time (in ms) to execute a task
+   */
+  public long getAverageRunTime() {
+    final long completed = getCompletedTaskCount();
+    return completed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(runTime.get() / completed);
+  }
+
+  /**
+   * @return the number of tasks which ended with an uncaught exception, executed or submitted
+   */
+  public long getFailedTaskCount() {
+    return failed.get();
+  }
+
+  @Override
+  public String toString() {
+    return name + " [threads: " + getPoolSize() + "/" + getMaximumPoolSize() + ", active: " + getActiveCount() + ", queued: "
+        + getQueueSize() + " (max " + getMaxQueueSize() + "), completed: " + getCompletedTaskCount() + ", failed: " + getFailedTaskCount()
+        + ", avg wait: " + getAverageWaitTime() + "ms, avg run: " + getAverageRunTime() + "ms]";
+  }
+
+  /**
+   * Wrap a task to measure its waiting and running time
+   */
+  private class TimedTask implements Runnable {
+    private final Runnable task;
+    private final long submitted = System.nanoTime();
+    private final long sequence = InstrumentedExecutor.this.sequence.incrementAndGet();
+    private final Priority priority;
+
+    private TimedTask(Runnable task) {
+      this.task = task;
+      this.priority = task instanceof PrioritizedFutureTask ? ((PrioritizedFutureTask<?>) task).priority : Priority.INTERACTIVE;
+    }
+
+    @Override
+    public void run() {
+      final long start = System.nanoTime();
+      waitTime.addAndGet(start - submitted);
+      try {
+        task.run();
+      } finally {
+        runTime.addAndGet(System.nanoTime() - start);
+      }
+    }
+  }
+
+  /**
+   * The {@link FutureTask} of a {@link PrioritizedTask}
+   */
+  private static class PrioritizedFutureTask<T> extends FutureTask<T> {
+    private final Priority priority;
+
+    private PrioritizedFutureTask(Callable<T> callable, Priority priority) {
+      super(callable);
+      this.priority = priority;
+    }
+  }
+
+  /**
+   * Create daemon threads named after the executor
+   */
+  private static class NamedThreadFactory implements ThreadFactory {
+    private final String prefix;
+    private final AtomicInteger count = new AtomicInteger();
+
+    private NamedThreadFactory(String name) {
+      this.prefix = "imeji-" + name + "-";
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+      final Thread t = new Thread(r, prefix + count.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    }
+  }
+}
@@ -1,6 +1,17 @@
 package de.mpg.imeji.logic.concurrency;
 
-public class Lock {
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A lock on an object (uri), either for one user or for the system. A {@link Lock} expires
+ * {@link Locks#LOCK_MAX_TIME} ms after its creation: it is {@link Delayed} so that expired locks
+ * can be read from a {@link java.util.concurrent.DelayQueue}
+ *
+ * @author saquet
+ *
+ */
+public class Lock implements Delayed {
   private long createTime = 0;
   private String email = null;
   private String uri = null;
@@ -42,4 +53,14 @@ public class Lock {
   public String getUri() {
     return uri;
   }
+
+  @Override
+  public long getDelay(TimeUnit unit) {
+    return unit.convert(createTime + Locks.LOCK_MAX_TIME - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public int compareTo(Delayed o) {
+    return Long.compare(getDelay(TimeUnit.MILLISECONDS), o.getDelay(TimeUnit.MILLISECONDS));
+  }
 }
@@ -4,25 +4,55 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
+/**
+ * Manage the {@link Lock}s on objects.<br/>
+ * Locks on objects are guarded by striped (fair) {@link ReentrantLock}s, so that checking and
+ * adding a lock is atomic. Expired locks are read from a {@link DelayQueue} by the
+ * {@link LocksSurveyor}. <br/>
+ * The transformations of the files of a content (rotation, generation of the web resolution and
+ * thumbnail) are serialized by striped file locks ({@link #lockFiles(String)}).
+ *
+ * @author saquet
+ *
+ */
 public class Locks {
   // Lock on User Event
   private static Map<String, Lock> userLocks = new ConcurrentHashMap<String, Lock>();
   // Locks on System event
   private static Map<String, Lock> sysLocks = new ConcurrentHashMap<String, Lock>();
   // Life time for a lock. After that limit, the lock is destroyed.
-  private static final long LOCK_MAX_TIME = 900000;// 900s = 15min
+  static final long LOCK_MAX_TIME = 900000;// 900s = 15min
   // private static final long LOCK_MAX_TIME = 60000;// 60s = 1min
   private static final Logger LOGGER = LogManager.getLogger(Locks.class);
-  private static boolean writeLock = false;
-  private static boolean counterLock = false;
+  private static final int STRIPES = 64;
+  private static final ReentrantLock[] STRIPE_LOCKS = new ReentrantLock[STRIPES];
+  private static final ReentrantLock[] FILE_LOCKS = new ReentrantLock[STRIPES];
+  private static final DelayQueue<Lock> EXPIRATIONS = new DelayQueue<>();
+  // Metrics
+  private static final AtomicLong ACQUIRED = new AtomicLong();
+  private static final AtomicLong CONTENDED = new AtomicLong();
+  private static final AtomicLong EXPIRED = new AtomicLong();
+  private static final AtomicLong WAIT_TIME = new AtomicLong();
+
+  static {
+    for (int i = 0; i < STRIPES; i++) {
+      STRIPE_LOCKS[i] = new ReentrantLock(true);
+      FILE_LOCKS[i] = new ReentrantLock(true);
+    }
+  }
 
   public static void reset() {
     userLocks = new ConcurrentHashMap<String, Lock>();
     sysLocks = new ConcurrentHashMap<String, Lock>();
+    EXPIRATIONS.clear();
   }
 
   public static Map<String, Lock> getUserLocks() {
@@ -63,16 +93,16 @@ public class Locks {
    * @param lock
    */
   public static void lock(Lock lock) {
-    if (!isLocked(lock.getUri(), lock.getEmail())) {
-      if (lock.getEmail() == null) {
-        LOGGER.debug(lock.getUri() + " locked by system");
-        getSystemLocks().put(lock.getUri(), lock);
-      } else {
-        LOGGER.debug(lock.getUri() + " locked by " + lock.getEmail());
-        getUserLocks().put(lock.getUri(), lock);
+    final ReentrantLock stripe = getStripe(lock.getUri());
+    stripe.lock();
+    try {
+      if (isLocked(lock.getUri(), lock.getEmail())) {
+        CONTENDED.incrementAndGet();
+        throw new RuntimeException(lock.getUri() + " already locked by another user " + lock.getEmail());
       }
-    } else {
-      throw new RuntimeException(lock.getUri() + " already locked by another user " + lock.getEmail());
+      add(lock);
+    } finally {
+      stripe.unlock();
     }
   }
 
@@ -82,12 +112,16 @@ public class Locks {
    * @param lock
    */
   public static void unLock(Lock lock) {
-    if (lock.getEmail() == null && getSystemLocks().get(lock.getUri()) != null) {
-      LOGGER.debug(lock.getUri() + " unlocked by system");
-      getSystemLocks().remove(lock.getUri());
-    } else if (lock.getEmail() != null && getUserLocks().get(lock.getUri()) != null) {
-      LOGGER.debug(lock.getUri() + " unlocked by " + lock.getEmail());
-      getUserLocks().remove(lock.getUri());
+    final ReentrantLock stripe = getStripe(lock.getUri());
+    stripe.lock();
+    try {
+      final Lock removed = lock.getEmail() == null ? getSystemLocks().remove(lock.getUri()) : getUserLocks().remove(lock.getUri());
+      if (removed != null) {
+        LOGGER.debug(lock.getUri() + " unlocked by " + (lock.getEmail() == null ? "system" : lock.getEmail()));
+        EXPIRATIONS.remove(removed);
+      }
+    } finally {
+      stripe.unlock();
     }
   }
 
@@ -117,68 +151,131 @@ public class Locks {
    */
   public static List<Lock> getExpiredLocks() {
     final List<Lock> list = new ArrayList<Lock>();
-    if (!getUserLocks().isEmpty()) {
-      final List<Lock> l1 = new ArrayList<Lock>(userLocks.values());
-      for (final Lock lock : l1) {
-        final long created = lock.getCreateTime();
-        final long current = System.currentTimeMillis();
-        if (current > (LOCK_MAX_TIME + created)) {
-          list.add(lock);
-        }
+    final long current = System.currentTimeMillis();
+    for (final Lock lock : new ArrayList<Lock>(userLocks.values())) {
+      if (current > (LOCK_MAX_TIME + lock.getCreateTime())) {
+        list.add(lock);
       }
     }
-    if (!getSystemLocks().isEmpty()) {
-      final List<Lock> l1 = new ArrayList<Lock>(sysLocks.values());
-      for (final Lock lock : l1) {
-        final long created = lock.getCreateTime();
-        final long current = System.currentTimeMillis();
-        if (current > (LOCK_MAX_TIME + created)) {
-          list.add(lock);
-        }
+    for (final Lock lock : new ArrayList<Lock>(sysLocks.values())) {
+      if (current > (LOCK_MAX_TIME + lock.getCreateTime())) {
+        list.add(lock);
       }
     }
     return list;
   }
 
-  public synchronized static boolean tryLock() {
-    final long startLocked = System.currentTimeMillis();
-    while (writeLock) {
-      // wait for lock to be released
-      if ((System.currentTimeMillis() - startLocked) > 10000) {
-        // if a lock is kept more than 10 s, throw exception
-        throw new RuntimeException("Write lock could not be released in less than 10s. Check if there is no dead locks");
+  /**
+   * Wait for the next lock to expire and unlock it, if it is still active (i.e. it has not been
+   * unlocked or replaced by a new lock in the meantime)
+   *
+   * @throws InterruptedException
+   */
+  public static void unlockNextExpired() throws InterruptedException {
+    final Lock lock = EXPIRATIONS.take();
+    final ReentrantLock stripe = getStripe(lock.getUri());
+    stripe.lock();
+    try {
+      final Map<String, Lock> locks = lock.getEmail() == null ? getSystemLocks() : getUserLocks();
+      if (locks.get(lock.getUri()) == lock) {
+        LOGGER.info("Unlocking dead lock on " + lock.getUri() + " by " + lock.getEmail());
+        EXPIRED.incrementAndGet();
+        unLock(lock);
       }
+    } finally {
+      stripe.unlock();
     }
-    lockForWrite();
-    return true;
   }
 
-  public static void lockForWrite() {
-    writeLock = true;
+  /**
+   * Lock the files of a content, waiting until the running transformation of its files is done.
+   * Must be released with {@link #releaseFiles(String)}
+   *
+   * @param contentId
+   */
+  public static void lockFiles(String contentId) {
+    final ReentrantLock lock = FILE_LOCKS[getStripeIndex(contentId)];
+    if (!lock.tryLock()) {
+      CONTENDED.incrementAndGet();
+      final long start = System.nanoTime();
+      lock.lock();
+      WAIT_TIME.addAndGet(System.nanoTime() - start);
+    }
+    ACQUIRED.incrementAndGet();
   }
 
-  public static void releaseLockForWrite() {
-    writeLock = false;
+  /**
+   * Release the files of a content locked by {@link #lockFiles(String)}
+   *
+   * @param contentId
+   * @throws IllegalMonitorStateException if the current thread didn't lock the files
+   */
+  public static void releaseFiles(String contentId) {
+    FILE_LOCKS[getStripeIndex(contentId)].unlock();
   }
 
-  public static void lockCounter() {
-    counterLock = true;
+  /**
+   * @return the number of locks acquired since the start
+   */
+  public static long getAcquiredCount() {
+    return ACQUIRED.get();
   }
 
-  public static void releaseCounter() {
-    counterLock = false;
+  /**
+   * @return the number of times a lock was requested on an already locked object
+   */
+  public static long getContendedCount() {
+    return CONTENDED.get();
   }
 
-  public synchronized static boolean tryLockCounter() {
-    final long startLocked = System.currentTimeMillis();
-    while (counterLock) {
-      // wait for lock to be released
-      if ((System.currentTimeMillis() - startLocked) > 10000) {
-        // if a lock is kept more than 10 s, throw exception
-        throw new RuntimeException("Write lock could not be released in less than 10s. Check if there is no dead locks");
-      }
+  /**
+   * @return the number of locks released because they expired
+   */
+  public static long getExpiredCount() {
+    return EXPIRED.get();
+  }
+
+  /**
+   * @return the number of active locks waiting for their expiration
+   */
+  public static int getExpirationQueueSize() {
+    return EXPIRATIONS.size();
+  }
+
+  /**
+   * @return the total time (in ms) threads waited for a lock
+   */
+  public static long getWaitTime() {
+    return TimeUnit.NANOSECONDS.toMillis(WAIT_TIME.get());
+  }
+
+  /**
+   * Add the lock. Must be called within the lock of the stripe of the uri
+   *
+   * @param lock
+   */
+  private static void add(Lock lock) {
+    final Lock previous;
+    if (lock.getEmail() == null) {
+      LOGGER.debug(lock.getUri() + " locked by system");
+      previous = getSystemLocks().put(lock.getUri(), lock);
+    } else {
+      LOGGER.debug(lock.getUri() + " locked by " + lock.getEmail());
+      previous = getUserLocks().put(lock.getUri(), lock);
     }
-    lockCounter();
-    return true;
+    if (previous != null) {
+      EXPIRATIONS.remove(previous);
+    }
+    EXPIRATIONS.add(lock);
+    ACQUIRED.incrementAndGet();
+  }
+
+  private static ReentrantLock getStripe(String uri) {
+    return STRIPE_LOCKS[getStripeIndex(uri)];
+  }
+
+  private static int getStripeIndex(String uri) {
+    final int h = uri.hashCode();
+    return (h ^ (h >>> 16)) & (STRIPES - 1);
   }
 }
@@ -0,0 +1,43 @@
+package de.mpg.imeji.logic.concurrency;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A {@link Callable} with a {@link Priority}. A prioritized {@link InstrumentedExecutor} executes
+ * the queued tasks with the highest priority first, and the tasks of the same priority in the order
+ * they were submitted
+ *
+ * @param <T>
+ */
+public class PrioritizedTask<T> implements Callable<T> {
+  private final Callable<T> task;
+  private final Priority priority;
+
+  /**
+   * The priorities of the tasks, from the highest to the lowest
+   */
+  public enum Priority {
+    /**
+     * A task a user is waiting for (for instance an upload)
+     */
+    INTERACTIVE,
+    /**
+     * A task of a batch job
+     */
+    BATCH;
+  }
+
+  public PrioritizedTask(Callable<T> task, Priority priority) {
+    this.task = task;
+    this.priority = priority;
+  }
+
+  @Override
+  public T call() throws Exception {
+    return task.call();
+  }
+
+  public Priority getPriority() {
+    return priority;
+  }
+}
@@ -1,11 +1,12 @@
 package de.mpg.imeji.logic.config;
 
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import org.apache.jena.query.Dataset;
 
+import de.mpg.imeji.logic.concurrency.ImejiExecutors;
+import de.mpg.imeji.logic.concurrency.ImejiExecutors.Pool;
 import de.mpg.imeji.logic.concurrency.LocksSurveyor;
 import de.mpg.imeji.logic.config.emailcontent.ImejiEmailContentConfiguration;
 import de.mpg.imeji.logic.model.User;
@@ -45,19 +46,6 @@ public class Imeji {
    * Thread to check if locked objects can be unlocked
    */
   public static final LocksSurveyor locksSurveyor = new LocksSurveyor();
-  /**
-   * The {@link ExecutorService} which runs the thread in imeji
-   */
-  private static ExecutorService EXECUTOR = Executors.newCachedThreadPool();
-  /**
-   * Executor used for the content extraction
-   */
-  private static ThreadPoolExecutor CONTENT_EXTRACTION_EXECUTOR = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
-
-  /**
-   * Executor used to transform files by the internal storage
-   */
-  private static ThreadPoolExecutor INTERNAL_STORAGE_EXECUTOR = (ThreadPoolExecutor) Executors.newFixedThreadPool(10);
 
   /**
    * private Constructor
@@ -67,33 +55,32 @@ public class Imeji {
   }
 
   /**
-   * @return the eXECUTOR
+   * @return the {@link ExecutorService} which runs the jobs in imeji
    */
   public static ExecutorService getEXECUTOR() {
-    if (EXECUTOR.isShutdown()) {
-      EXECUTOR = Executors.newCachedThreadPool();
-    }
-    return EXECUTOR;
+    return ImejiExecutors.get(Pool.DEFAULT);
   }
 
   /**
-   * @return the cONTENT_EXTRACTION_EXECUTOR
+   * @return the executor used for the content extraction
    */
   public static ThreadPoolExecutor getCONTENT_EXTRACTION_EXECUTOR() {
-    if (CONTENT_EXTRACTION_EXECUTOR.isShutdown()) {
-      return CONTENT_EXTRACTION_EXECUTOR = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
-    }
-    return CONTENT_EXTRACTION_EXECUTOR;
+    return ImejiExecutors.get(Pool.CONTENT_EXTRACTION);
   }
 
   /**
-   * @return the iNTERNAL_STORAGE_EXECUTOR
+   * @return the executor used to transform files by the internal storage
    */
   public static ThreadPoolExecutor getINTERNAL_STORAGE_EXECUTOR() {
-    if (INTERNAL_STORAGE_EXECUTOR.isShutdown()) {
-      return INTERNAL_STORAGE_EXECUTOR = (ThreadPoolExecutor) Executors.newFixedThreadPool(10);
-    }
-    return INTERNAL_STORAGE_EXECUTOR;
+    return ImejiExecutors.get(Pool.FILE_TRANSFORMATION);
+  }
+
+  /**
+   * @param pool
+   * @return the executor of the workload
+   */
+  public static ExecutorService getExecutor(Pool pool) {
+    return ImejiExecutors.get(pool);
   }
 
 }
@@ -28,6 +28,7 @@ class CollectionController extends ImejiControllerAbstract<CollectionImeji> {
 
   @Override
   public List<CollectionImeji> createBatch(List<CollectionImeji> l, User user) throws ImejiException {
+    checkNoWorkflowRunning(l, CollectionImeji::getCollection);
     for (final CollectionImeji c : l) {
       prepareCreate(c, user);
     }
@@ -54,6 +55,7 @@ class CollectionController extends ImejiControllerAbstract<CollectionImeji> {
 
   @Override
   public List<CollectionImeji> updateBatch(List<CollectionImeji> l, User user) throws ImejiException {
+    checkNoWorkflowRunning(l, CollectionImeji::getId);
     for (final CollectionImeji c : l) {
       prepareUpdate(c, user);
     }
@@ -63,6 +65,7 @@ class CollectionController extends ImejiControllerAbstract<CollectionImeji> {
 
   @Override
   public void deleteBatch(List<CollectionImeji> l, User user) throws ImejiException {
+    checkNoWorkflowRunning(l, CollectionImeji::getId);
     WRITER.delete(toObjectList(l), user);
   }
 
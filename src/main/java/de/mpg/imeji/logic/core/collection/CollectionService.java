@@ -14,6 +14,8 @@ import org.apache.logging.log4j.Logger;
 
 import de.mpg.imeji.exceptions.ImejiException;
 import de.mpg.imeji.exceptions.UnprocessableError;
+import de.mpg.imeji.logic.batch.ElasticReIndexPipeline;
+import de.mpg.imeji.logic.batch.ReIndexProgress;
 import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.core.facade.MoveFacade;
 import de.mpg.imeji.logic.core.facade.WorkflowFacade;
@@ -32,6 +34,7 @@ import de.mpg.imeji.logic.model.factory.ImejiFactory;
 import de.mpg.imeji.logic.search.Search;
 import de.mpg.imeji.logic.search.Search.SearchObjectTypes;
 import de.mpg.imeji.logic.search.elasticsearch.ElasticIndexer;
+import de.mpg.imeji.logic.search.elasticsearch.ElasticIndexer.RefreshPolicy;
 import de.mpg.imeji.logic.search.facet.model.Facet;
 import de.mpg.imeji.logic.search.factory.SearchFactory;
 import de.mpg.imeji.logic.search.factory.SearchFactory.SEARCH_IMPLEMENTATIONS;
@@ -86,7 +89,7 @@ public class CollectionService extends SearchServiceAbstract<CollectionImeji> {
     }
     c = controller.create(c, user);
     messageService.add(new CollectionMessage(MessageType.CREATE_COLLECTION, c));
-    HierarchyService.reloadHierarchy();
+    HierarchyService.setParent(c.getId().toString(), c.getCollection() != null ? c.getCollection().toString() : null);
     return c;
   }
 
@@ -351,10 +354,20 @@ public class CollectionService extends SearchServiceAbstract<CollectionImeji> {
    * @throws ImejiException
    */
   public void reindex(String index) throws Exception {
+    reindex(index, new ReIndexProgress("collections"));
+  }
+
+  /**
+   * Reindex all collections
+   *
+   * @param index
+   * @param progress
+   * @throws Exception
+   */
+  public void reindex(String index, ReIndexProgress progress) throws Exception {
     LOGGER.info("Indexing collections...");
-    final ElasticIndexer indexer = new ElasticIndexer(index);
-    final List<CollectionImeji> collections = retrieveAll();
-    indexer.indexBatch(collections);
+    final ElasticIndexer indexer = new ElasticIndexer(index, RefreshPolicy.NONE);
+    new ElasticReIndexPipeline<>(this, indexer, 500, progress).call();
     LOGGER.info("collections reindexed!");
   }
 
@@ -16,6 +16,8 @@ import com.google.common.collect.ImmutableMap;
 
 import de.mpg.imeji.exceptions.ImejiException;
 import de.mpg.imeji.exceptions.NotFoundException;
+import de.mpg.imeji.logic.batch.ElasticReIndexPipeline;
+import de.mpg.imeji.logic.batch.ReIndexProgress;
 import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.core.content.extraction.ContentExtractionResult;
 import de.mpg.imeji.logic.core.content.extraction.ContentExtractorFactory;
@@ -31,6 +33,7 @@ import de.mpg.imeji.logic.model.factory.ImejiFactory;
 import de.mpg.imeji.logic.notification.subscription.SubscriptionsAggregation;
 import de.mpg.imeji.logic.search.Search.SearchObjectTypes;
 import de.mpg.imeji.logic.search.elasticsearch.ElasticIndexer;
+import de.mpg.imeji.logic.search.elasticsearch.ElasticIndexer.RefreshPolicy;
 import de.mpg.imeji.logic.search.elasticsearch.ElasticService;
 import de.mpg.imeji.logic.search.elasticsearch.ElasticService.ElasticIndices;
 import de.mpg.imeji.logic.search.jenasearch.ImejiSPARQL;
@@ -39,6 +42,8 @@ import de.mpg.imeji.logic.search.model.SearchQuery;
 import de.mpg.imeji.logic.search.model.SearchResult;
 import de.mpg.imeji.logic.search.model.SortCriterion;
 import de.mpg.imeji.logic.storage.StorageController;
+import de.mpg.imeji.logic.storage.ingest.IngestedFile;
+import de.mpg.imeji.logic.storage.ingest.StreamingIngest;
 import de.mpg.imeji.logic.util.StringHelper;
 
 /**
@@ -92,6 +97,19 @@ public class ContentService extends SearchServiceAbstract<ContentVO> implements
    * @throws ImejiException
    */
   public ContentVO create(Item item, File file, User user) throws ImejiException {
+    return create(item, StorageController.inspect(file), user);
+  }
+
+  /**
+   * Create a {@link ContentVO} for a file read by the {@link StreamingIngest}
+   *
+   * @param item
+   * @param file
+   * @param user
+   * @return
+   * @throws ImejiException
+   */
+  public ContentVO create(Item item, IngestedFile file, User user) throws ImejiException {
     ContentVO contentVO = uploadFile(new ContentVO(), item.getId().toString(), file, user);
     contentVO = controller.create(contentVO, Imeji.adminUser);
     analyzeFile(contentVO);
@@ -110,7 +128,7 @@ public class ContentService extends SearchServiceAbstract<ContentVO> implements
   public List<ContentVO> createBatch(List<ItemWithStagedFile> itemWithFileList, User user) throws ImejiException {
     List<ContentVO> contents =
         itemWithFileList.stream().map(i -> toContentVO(i.getItem().getId().toString(), i.getUploadResult())).collect(Collectors.toList());
-    controller.createBatch(contents, user);
+    controller.createBatch(contents, Imeji.adminUser);
     contents.stream().forEach(c -> analyzeFile(c));
     itemWithFileList.stream().forEach(item -> messageService.add(new ItemMessage(MessageType.UPLOAD_FILE, item.getItem())));
     return contents;
@@ -198,6 +216,19 @@ public class ContentService extends SearchServiceAbstract<ContentVO> implements
    * @throws ImejiException
    */
   public ContentVO update(Item item, File file, User user) throws ImejiException {
+    return update(item, StorageController.inspect(file), user);
+  }
+
+  /**
+   * Update a {@link ContentVO} with a file read by the {@link StreamingIngest}
+   *
+   * @param item
+   * @param file
+   * @param user
+   * @return
+   * @throws ImejiException
+   */
+  public ContentVO update(Item item, IngestedFile file, User user) throws ImejiException {
     ContentVO contentVO = retrieveLazy(findContentId(item.getId().toString()));
     final StorageController storageController = new StorageController();
     try {
@@ -275,9 +306,9 @@ public class ContentService extends SearchServiceAbstract<ContentVO> implements
    * @return
    * @throws ImejiException
    */
-  private ContentVO uploadFile(ContentVO contentVO, String itemId, File file, User user) throws ImejiException {
+  private ContentVO uploadFile(ContentVO contentVO, String itemId, IngestedFile file, User user) throws ImejiException {
     final StorageController sc = new StorageController();
-    final UploadResult uploadResult = sc.upload(file.getName(), file);
+    final UploadResult uploadResult = sc.upload(file.getFile().getName(), file);
     return toContentVO(itemId, uploadResult);
   }
 
@@ -343,17 +374,21 @@ public class ContentService extends SearchServiceAbstract<ContentVO> implements
    * @throws ImejiException
    */
   public void reindex(String index) throws Exception {
+    reindex(index, new ReIndexProgress("content"));
+  }
+
+  /**
+   * Reindex all contents: contents are read from Jena and written to Elasticsearch in parallel (see
+   * {@link ElasticReIndexPipeline})
+   *
+   * @param index
+   * @param progress
+   * @throws Exception
+   */
+  public void reindex(String index, ReIndexProgress progress) throws Exception {
     LOGGER.info("Indexing Content...");
-    final ElasticIndexer indexer = new ElasticIndexer(index);
-    final SearchServiceAbstract<ContentVO>.RetrieveIterator iterator = iterateAll(50);
-    LOGGER.info("+++ " + iterator.getSize() + " content to index +++");
-    int count = 0;
-    while (iterator.hasNext()) {
-      List<ContentVO> list = (List<ContentVO>) iterator.next();
-      indexer.indexBatch(list);
-      count = count + list.size();
-      LOGGER.info(count + "/" + iterator.getSize());
-    }
+    final ElasticIndexer indexer = new ElasticIndexer(index, RefreshPolicy.NONE);
+    new ElasticReIndexPipeline<>(this, indexer, 50, progress).call();
     LOGGER.info("Content reindexed!");
   }
 
@@ -134,7 +134,7 @@ public class MoveFacade implements Serializable {
         LOGGER.error("Unexpected result while moving collection");
       }
 
-      HierarchyService.reloadHierarchy();
+      HierarchyService.setParent(collection.getId().toString(), newParent.getId().toString());
     } catch (NoSuchFieldException | SecurityException e) {
       LOGGER.error("Could not move collection", e);
     }
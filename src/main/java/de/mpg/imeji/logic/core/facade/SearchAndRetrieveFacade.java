@@ -5,8 +5,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -15,17 +17,25 @@ import java.util.stream.Collectors;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
 import de.mpg.imeji.exceptions.ImejiException;
 import de.mpg.imeji.logic.core.collection.CollectionService;
 import de.mpg.imeji.logic.core.item.ItemService;
+import de.mpg.imeji.logic.core.statement.StatementService;
 import de.mpg.imeji.logic.model.CollectionElement;
 import de.mpg.imeji.logic.model.CollectionImeji;
 import de.mpg.imeji.logic.model.Item;
+import de.mpg.imeji.logic.model.Metadata;
 import de.mpg.imeji.logic.model.User;
 import de.mpg.imeji.logic.model.factory.ImejiFactory;
 import de.mpg.imeji.logic.search.Search;
 import de.mpg.imeji.logic.search.Search.SearchObjectTypes;
 import de.mpg.imeji.logic.search.elasticsearch.ElasticSearch;
+import de.mpg.imeji.logic.search.elasticsearch.factory.util.ItemSummaryParser;
+import de.mpg.imeji.logic.search.model.ItemSummary;
+import de.mpg.imeji.logic.search.model.ItemSummary.MetadataSummary;
+import de.mpg.imeji.logic.search.model.SearchCursor;
 import de.mpg.imeji.logic.search.model.SearchQuery;
 import de.mpg.imeji.logic.search.model.SearchResult;
 import de.mpg.imeji.logic.search.model.SortCriterion;
@@ -40,6 +50,7 @@ import de.mpg.imeji.logic.util.ObjectHelper;
 public class SearchAndRetrieveFacade implements Serializable {
   private static final long serialVersionUID = 105851155975646142L;
   private final Search search = new ElasticSearch(SearchObjectTypes.ITEM, SearchObjectTypes.COLLECTION);
+  private final Search itemSearch = new ElasticSearch(SearchObjectTypes.ITEM);
   private final ItemService itemService = new ItemService();
   private final CollectionService collectionService = new CollectionService();
   private final static Logger LOGGER = LogManager.getLogger(SearchAndRetrieveFacade.class);
@@ -76,6 +87,136 @@ public class SearchAndRetrieveFacade implements Serializable {
         includeSubcollections);
   }
 
+  /**
+   * Search for the page of objects within the collection following the cursor. Items and
+   * Sub-Collections are mixed
+   *
+   * @param q
+   * @param collection
+   * @param user
+   * @param sortCriteria
+   * @param cursor
+   * @param size
+   * @param includeSubcollections
+   * @return
+   */
+  public SearchResult searchWithCursor(SearchQuery q, CollectionImeji collection, User user, List<SortCriterion> sortCriteria,
+      SearchCursor cursor, int size, boolean includeSubcollections) {
+    return search.searchWithCursor(q, sortCriteria, user, collection.getId().toString(), cursor, size, true, includeSubcollections);
+  }
+
+  /**
+   * Search for all items, with facets, and return the {@link ItemSummary} of the results from the
+   * search index (see {@link #retrieveSummaries(SearchResult, User)})
+   *
+   * @param q
+   * @param user
+   * @param sortCriteria
+   * @param cursor the position of the page, or null to search from the offset
+   * @param offset
+   * @param size
+   * @return
+   */
+  public SearchResult searchItemSummaries(SearchQuery q, User user, List<SortCriterion> sortCriteria, SearchCursor cursor, int offset,
+      int size) {
+    return itemSearch.searchWithProjection(q, sortCriteria, user, null, cursor, offset, size, true, true, ItemSummaryParser.PROJECTION);
+  }
+
+  /**
+   * Search for all objects within the collection, with facets, and return the {@link ItemSummary}
+   * of the results from the search index (see {@link #retrieveSummaries(SearchResult, User)}).
+   * Items and Sub-Collections are mixed
+   *
+   * @param q
+   * @param collection
+   * @param user
+   * @param sortCriteria
+   * @param cursor the position of the page, or null to search from the offset
+   * @param offset
+   * @param size
+   * @param includeSubcollections
+   * @return
+   */
+  public SearchResult searchSummaries(SearchQuery q, CollectionImeji collection, User user, List<SortCriterion> sortCriteria,
+      SearchCursor cursor, int offset, int size, boolean includeSubcollections) {
+    return search.searchWithProjection(q, sortCriteria, user, collection.getId().toString(), cursor, offset, size, true,
+        includeSubcollections, ItemSummaryParser.PROJECTION);
+  }
+
+  /**
+   * Return the {@link ItemSummary} of the results of a search done with
+   * {@link #searchSummaries(SearchQuery, CollectionImeji, User, List, SearchCursor, int, int, boolean)}
+   * or {@link #searchItemSummaries(SearchQuery, User, List, SearchCursor, int, int)}, in the order
+   * of the results. The summaries are read from the search result: only the results which are
+   * missing in the search index are retrieved from the database
+   *
+   * @param result
+   * @param user
+   * @return
+   * @throws ImejiException
+   */
+  public List<ItemSummary> retrieveSummaries(SearchResult result, User user) throws ImejiException {
+    final Map<String, ItemSummary> summaries = new HashMap<>();
+    final List<String> missing = new ArrayList<>();
+    for (final String id : result.getResults()) {
+      final ObjectNode source = result.getSource(id);
+      if (source != null) {
+        summaries.put(id, ItemSummaryParser.parse(id, source));
+      } else {
+        missing.add(id);
+      }
+    }
+    if (!missing.isEmpty()) {
+      for (final Item item : retrieveItemsAndCollectionsAsItems(missing, user)) {
+        summaries.put(item.getId().toString(), toSummary(item));
+      }
+    }
+    final List<ItemSummary> l =
+        result.getResults().stream().filter(id -> summaries.containsKey(id)).map(id -> summaries.get(id)).collect(Collectors.toList());
+    setStatementIndexes(l);
+    return l;
+  }
+
+  /**
+   * Replace the formatted index of the metadata (as indexed) with the index of their statement
+   *
+   * @param summaries
+   */
+  private void setStatementIndexes(List<ItemSummary> summaries) {
+    final Set<String> formattedIndexes = summaries.stream().flatMap(s -> s.getMetadata().stream()).map(md -> md.getIndex())
+        .filter(i -> i != null).collect(Collectors.toSet());
+    if (formattedIndexes.isEmpty()) {
+      return;
+    }
+    final Map<String, String> indexes = new StatementService().getIndexes(formattedIndexes);
+    for (final ItemSummary summary : summaries) {
+      final List<MetadataSummary> metadata = summary.getMetadata().stream()
+          .map(md -> new MetadataSummary(indexes.getOrDefault(md.getIndex(), md.getIndex()), md.getValue())).collect(Collectors.toList());
+      summary.getMetadata().clear();
+      summary.getMetadata().addAll(metadata);
+    }
+  }
+
+  /**
+   * Create the {@link ItemSummary} of an {@link Item} retrieved from the database
+   *
+   * @param item
+   * @return
+   */
+  private ItemSummary toSummary(Item item) {
+    final ItemSummary summary = new ItemSummary(item.getId());
+    summary.setCollection(item.getCollection());
+    summary.setFilename(item.getFilename());
+    summary.setFiletype(item.getFiletype());
+    summary.setFileSize(item.getFileSize());
+    summary.setModified(item.getModified() != null ? item.getModified().getTime() : null);
+    summary.setStatus(item.getStatus());
+    for (final Metadata md : item.getMetadata()) {
+      summary.getMetadata().add(new MetadataSummary(md));
+    }
+    return summary;
+  }
+
   /**
    * Retrieve all objects of the uris list, which can be a mixed of items and collections
    * 
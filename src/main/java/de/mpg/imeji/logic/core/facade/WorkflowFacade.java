@@ -13,11 +13,12 @@ import de.mpg.imeji.exceptions.ImejiException;
 import de.mpg.imeji.exceptions.NotAllowedError;
 import de.mpg.imeji.exceptions.NotFoundException;
 import de.mpg.imeji.exceptions.UnprocessableError;
+import de.mpg.imeji.logic.batch.CollectionWorkflowJob;
+import de.mpg.imeji.logic.batch.CollectionWorkflowJob.Action;
 import de.mpg.imeji.logic.concurrency.Locks;
 import de.mpg.imeji.logic.core.item.ItemService;
 import de.mpg.imeji.logic.db.writer.WriterFacade;
 import de.mpg.imeji.logic.doi.DoiService;
-import de.mpg.imeji.logic.hierarchy.HierarchyService;
 import de.mpg.imeji.logic.model.CollectionImeji;
 import de.mpg.imeji.logic.model.Item;
 import de.mpg.imeji.logic.model.License;
@@ -49,7 +50,9 @@ public class WorkflowFacade implements Serializable {
 
 
   /**
-   * Release a collection and its item
+   * Release a collection and its item. The items are released in chunks by a
+   * {@link CollectionWorkflowJob}, which continues in the background if the collection is too large
+   * to be released within the request
    * 
    * @param collection
    * @param user
@@ -59,65 +62,15 @@ public class WorkflowFacade implements Serializable {
   public void release(CollectionImeji collection, User user, License releaseLicense) throws ImejiException {
 
     preValidateRelease(collection, user, releaseLicense);
+    if (getNumberOfItems(collection, user) == 0) {
+      throw new UnprocessableError("An empty collection can not be released!");
+    }
 
-    ItemService itemService = new ItemService();
-    // 1) all items of collection and it's sub collections
-    final List<String> itemIds =
-        itemService.search(collection.getId(), new SearchFactory().and(new SearchPair(SearchFields.filename, "*")).build(), null, user,
-            Search.GET_ALL_RESULTS, Search.SEARCH_FROM_START_INDEX).getResults();
-    preValidateCollectionItems(itemIds, user);
-
-    // 2) collection ids 
-    // Create a list with the collectionId, all the sub collection ids and all itemIds
-    List<String> collectionIds = new ArrayList<>(new HierarchyService().findAllSubcollections(collection.getId().toString()));
-    collectionIds.add(collection.getId().toString());
-
-    List<ChangeMember> changeParts = new ArrayList<ChangeMember>(itemIds.size() + collectionIds.size());
-    try {
-      Field statusField = Properties.class.getDeclaredField("status");
-      Field issuedField = Properties.class.getDeclaredField("versionDate");
-      Field licensesField = Item.class.getDeclaredField("licenses");
-      Calendar releaseDate = DateHelper.getCurrentDate();
-
-      // items
-      for (String itemId : itemIds) {
-        URI itemURI = URI.create(itemId);
-        Item item = new Item();
-        item.setId(itemURI);
-        // status, status issued
-        ChangeMember changeItemStatus = new ChangeMember(ActionType.EDIT, item, statusField, Properties.Status.RELEASED);
-        ChangeMember changeItemStatusIssued = new ChangeMember(ActionType.ADD, item, issuedField, releaseDate);
-        // only add license to items that don't have a license yet
-        License itemsLicense = releaseLicense.clone();
-        itemsLicense.setStart(releaseDate.getTimeInMillis());
-        ChangeMember addItemsLicense = new ChangeMember(ActionType.ADD, item, licensesField, itemsLicense);
-        changeParts.add(changeItemStatus);
-        changeParts.add(changeItemStatusIssued);
-        changeParts.add(addItemsLicense);
-      }
-      // collection and sub collections
-      for (String collectionId : collectionIds) {
-        CollectionImeji collectionToChange = new CollectionImeji();
-        collectionToChange.setId(URI.create(collectionId));
-        ChangeMember changeCollectionStatus =
-            new ChangeMember(ActionType.EDIT, collectionToChange, statusField, Properties.Status.RELEASED);
-        ChangeMember changeCollectionStatusIssued = new ChangeMember(ActionType.ADD, collectionToChange, issuedField, releaseDate);
-        changeParts.add(changeCollectionStatus);
-        changeParts.add(changeCollectionStatusIssued);
-      }
-
-      // if the collection already has a DOI it must be updated (from state draft to state findable)
-      if (!StringHelper.isNullOrEmptyTrim(collection.getDoi())) {
-        (new DoiService()).updateDoi(collection);
-      }
-
-      // direct access to WriterFacade
-      WriterFacade writerFacade = new WriterFacade();
-      writerFacade.editElements(changeParts, user);
-    } catch (NoSuchFieldException | SecurityException e) {
-      // log error
-      return;
+    // if the collection already has a DOI it must be updated (from state draft to state findable)
+    if (!StringHelper.isNullOrEmptyTrim(collection.getDoi())) {
+      (new DoiService()).updateDoi(collection);
     }
+    CollectionWorkflowJob.run(collection, user, Action.RELEASE, releaseLicense, null);
   }
 
   /**
@@ -129,40 +82,23 @@ public class WorkflowFacade implements Serializable {
    * @throws ImejiException
    */
   public void releaseItems(List<Item> items, User user, License defaultLicense) throws ImejiException {
-    final List<String> itemIds = items.stream().map(item -> item.getId().toString()).collect(Collectors.toList());
     preValidateReleaseItems(items, user, defaultLicense);
-    List<ChangeMember> changeParts = new ArrayList<ChangeMember>(itemIds.size());
-    try {
-      Field statusField = Properties.class.getDeclaredField("status");
-      Field issuedField = Properties.class.getDeclaredField("versionDate");
-      Field licensesField = Item.class.getDeclaredField("licenses");
-      Calendar releaseDate = DateHelper.getCurrentDate();
-
-      for (String itemId : itemIds) {
-        Item item = new Item();
-        item.setId(URI.create(itemId));
-        ChangeMember changeItemStatus = new ChangeMember(ActionType.EDIT, item, statusField, Properties.Status.RELEASED);
-        ChangeMember changeItemStatusIssued = new ChangeMember(ActionType.ADD, item, issuedField, releaseDate);
-        License itemsLicense = defaultLicense.clone();
-        itemsLicense.setStart(releaseDate.getTimeInMillis());
-        ChangeMember addItemsLicense = new ChangeMember(ActionType.ADD, item, licensesField, itemsLicense);
-        changeParts.add(changeItemStatus);
-        changeParts.add(changeItemStatusIssued);
-        changeParts.add(addItemsLicense);
-      }
-
-      // direct access to WriterFacade
-      WriterFacade writerFacade = new WriterFacade();
-      writerFacade.editElements(changeParts, user);
-
-    } catch (NoSuchFieldException | SecurityException e) {
-      // log error
-      return;
+    final Calendar releaseDate = DateHelper.getCurrentDate();
+    List<ChangeMember> changeParts = new ArrayList<ChangeMember>(items.size() * 3);
+    for (Item item : items) {
+      Item itemToChange = new Item();
+      itemToChange.setId(item.getId());
+      changeParts.addAll(getReleaseChanges(itemToChange, defaultLicense, releaseDate));
     }
+    // direct access to WriterFacade
+    WriterFacade writerFacade = new WriterFacade();
+    writerFacade.editElements(changeParts, user);
   }
 
   /**
-   * Withdraw the collection and its items
+   * Withdraw the collection and its items. The items are withdrawn in chunks by a
+   * {@link CollectionWorkflowJob}, which continues in the background if the collection is too large
+   * to be withdrawn within the request
    * 
    * @param collection
    * @param comment
@@ -170,57 +106,8 @@ public class WorkflowFacade implements Serializable {
    * @throws ImejiException
    */
   public void withdraw(CollectionImeji collection, String comment, User user) throws ImejiException {
-
     prevalidateWithdraw(collection, comment, user);
-    final List<String> itemIds = getItemIds(collection, user);
-    if (itemIds != null && itemIds.size() > 0) {
-      preValidateCollectionItems(itemIds, user);
-    }
-
-    // Create a list with the collectionId, all the subcollectionIds and all itemIds
-    List<String> collectionIds = new ArrayList<>(new HierarchyService().findAllSubcollections(collection.getId().toString()));
-    collectionIds.add(collection.getId().toString());
-
-    // set for items and collections: status, versionDate, discardComment
-    List<ChangeMember> changeParts = new ArrayList<ChangeMember>(itemIds.size() + collectionIds.size());
-    try {
-      Field statusField = Properties.class.getDeclaredField("status");
-      Field issuedField = Properties.class.getDeclaredField("versionDate");
-      Field discardCommentField = Properties.class.getDeclaredField("discardComment");
-      Calendar withdrawDate = DateHelper.getCurrentDate();
-
-      // items
-      for (String itemId : itemIds) {
-        Item item = new Item();
-        item.setId(URI.create(itemId));
-        ChangeMember changeItemStatus = new ChangeMember(ActionType.EDIT, item, statusField, Properties.Status.WITHDRAWN);
-        ChangeMember changeItemStatusIssued = new ChangeMember(ActionType.EDIT, item, issuedField, withdrawDate);
-        ChangeMember changeItemDiscardComment = new ChangeMember(ActionType.ADD, item, discardCommentField, comment);
-        changeParts.add(changeItemStatus);
-        changeParts.add(changeItemStatusIssued);
-        changeParts.add(changeItemDiscardComment);
-      }
-
-      // collections
-      for (String collectionId : collectionIds) {
-        CollectionImeji collectionToUpdate = new CollectionImeji();
-        collectionToUpdate.setId(URI.create(collectionId));
-        ChangeMember changeCollectionStatus =
-            new ChangeMember(ActionType.EDIT, collectionToUpdate, statusField, Properties.Status.WITHDRAWN);
-        ChangeMember changeCollectionStatusIssued = new ChangeMember(ActionType.EDIT, collectionToUpdate, issuedField, withdrawDate);
-        ChangeMember changeCollectionDiscardComment = new ChangeMember(ActionType.ADD, collectionToUpdate, discardCommentField, comment);
-        changeParts.add(changeCollectionStatus);
-        changeParts.add(changeCollectionStatusIssued);
-        changeParts.add(changeCollectionDiscardComment);
-      }
-
-      // direct access to WriterFacade
-      WriterFacade writerFacade = new WriterFacade();
-      writerFacade.editElements(changeParts, user);
-    } catch (NoSuchFieldException | SecurityException e) {
-      // log error
-      return;
-    }
+    CollectionWorkflowJob.run(collection, user, Action.WITHDRAW, null, comment);
   }
 
   /**
@@ -236,32 +123,65 @@ public class WorkflowFacade implements Serializable {
     List<String> itemIds = items.stream().map(item -> item.getId().toString()).collect(Collectors.toList());
     preValidateCollectionItems(itemIds, user);
 
-    // set for items and collections: status, versionDate, discardComment
-    List<ChangeMember> changeParts = new ArrayList<ChangeMember>(itemIds.size());
-    try {
-      Field statusField = Properties.class.getDeclaredField("status");
-      Field issuedField = Properties.class.getDeclaredField("versionDate");
-      Field discardCommentField = Properties.class.getDeclaredField("discardComment");
-      Calendar withdrawDate = DateHelper.getCurrentDate();
-
-      // items
-      for (String itemId : itemIds) {
-        Item item = new Item();
-        item.setId(URI.create(itemId));
-        ChangeMember changeItemStatus = new ChangeMember(ActionType.EDIT, item, statusField, Properties.Status.WITHDRAWN);
-        ChangeMember changeItemStatusIssued = new ChangeMember(ActionType.EDIT, item, issuedField, withdrawDate);
-        ChangeMember changeItemDiscardComment = new ChangeMember(ActionType.ADD, item, discardCommentField, comment);
-        changeParts.add(changeItemStatus);
-        changeParts.add(changeItemStatusIssued);
-        changeParts.add(changeItemDiscardComment);
-      }
+    // set for items: status, versionDate, discardComment
+    final Calendar withdrawDate = DateHelper.getCurrentDate();
+    List<ChangeMember> changeParts = new ArrayList<ChangeMember>(itemIds.size() * 3);
+    for (String itemId : itemIds) {
+      Item item = new Item();
+      item.setId(URI.create(itemId));
+      changeParts.addAll(getWithdrawChanges(item, comment, withdrawDate));
+    }
+    // direct access to WriterFacade
+    WriterFacade writerFacade = new WriterFacade();
+    writerFacade.editElements(changeParts, user);
+  }
 
-      // direct access to WriterFacade
-      WriterFacade writerFacade = new WriterFacade();
-      writerFacade.editElements(changeParts, user);
+  /**
+   * Return the changes to release an item or a collection: status and status issued, and for an
+   * item the release license
+   * 
+   * @param object an {@link Item} or a {@link CollectionImeji} with only its id
+   * @param releaseLicense
+   * @param releaseDate
+   * @return
+   * @throws UnprocessableError
+   */
+  public static List<ChangeMember> getReleaseChanges(Object object, License releaseLicense, Calendar releaseDate)
+      throws UnprocessableError {
+    final List<ChangeMember> changes = new ArrayList<>(3);
+    changes.add(new ChangeMember(ActionType.EDIT, object, getField(Properties.class, "status"), Properties.Status.RELEASED));
+    changes.add(new ChangeMember(ActionType.ADD, object, getField(Properties.class, "versionDate"), releaseDate));
+    if (object instanceof Item) {
+      License itemsLicense = releaseLicense.clone();
+      itemsLicense.setStart(releaseDate.getTimeInMillis());
+      changes.add(new ChangeMember(ActionType.ADD, object, getField(Item.class, "licenses"), itemsLicense));
+    }
+    return changes;
+  }
+
+  /**
+   * Return the changes to withdraw an item or a collection: status, status issued and discard
+   * comment
+   * 
+   * @param object an {@link Item} or a {@link CollectionImeji} with only its id
+   * @param comment
+   * @param withdrawDate
+   * @return
+   * @throws UnprocessableError
+   */
+  public static List<ChangeMember> getWithdrawChanges(Object object, String comment, Calendar withdrawDate) throws UnprocessableError {
+    final List<ChangeMember> changes = new ArrayList<>(3);
+    changes.add(new ChangeMember(ActionType.EDIT, object, getField(Properties.class, "status"), Properties.Status.WITHDRAWN));
+    changes.add(new ChangeMember(ActionType.EDIT, object, getField(Properties.class, "versionDate"), withdrawDate));
+    changes.add(new ChangeMember(ActionType.ADD, object, getField(Properties.class, "discardComment"), comment));
+    return changes;
+  }
+
+  private static Field getField(Class<?> clazz, String name) throws UnprocessableError {
+    try {
+      return clazz.getDeclaredField(name);
     } catch (NoSuchFieldException | SecurityException e) {
-      // log error
-      return;
+      throw new UnprocessableError("Field " + name + " not found in " + clazz.getSimpleName(), e);
     }
   }
 
@@ -289,6 +209,7 @@ public class WorkflowFacade implements Serializable {
       throw new UnprocessableError("A default license is needed to release a collection");
     }
     workflowValidator.isReleaseAllowed(collection);
+    CollectionWorkflowJob.checkNotRunning(collection.getId());
   }
 
   /**
@@ -313,6 +234,7 @@ public class WorkflowFacade implements Serializable {
     if (StringHelper.isNullOrEmptyTrim(comment)) {
       throw new UnprocessableError("Missing discard comment");
     }
+    CollectionWorkflowJob.checkNotRunning(collection.getId());
   }
 
   /**
@@ -335,6 +257,7 @@ public class WorkflowFacade implements Serializable {
       if (StringHelper.isNullOrEmptyTrim(comment)) {
         throw new UnprocessableError("Missing discard comment");
       }
+      CollectionWorkflowJob.checkNotRunning(item.getCollection());
     }
   }
 
@@ -355,6 +278,7 @@ public class WorkflowFacade implements Serializable {
       if (!authorization.administrate(user, item)) {
         throw new NotAllowedError(NotAllowedError.NOT_ALLOWED);
       }
+      CollectionWorkflowJob.checkNotRunning(item.getCollection());
     }
     if (defaultLicense == null) {
       throw new UnprocessableError("A default license is needed to release a collection");
@@ -379,16 +303,16 @@ public class WorkflowFacade implements Serializable {
   }
 
   /**
-   * Return the ids of all items of the collection and its subcollection
+   * Return the number of items of the collection and its subcollections
    * 
    * @param c
    * @param user
    * @return
    * @throws UnprocessableError
    */
-  private List<String> getItemIds(CollectionImeji c, User user) throws UnprocessableError {
-    return new ItemService().search(c.getId(), new SearchFactory().and(new SearchPair(SearchFields.filename, "*")).build(), null, user,
-        Search.GET_ALL_RESULTS, Search.SEARCH_FROM_START_INDEX).getResults();
+  private int getNumberOfItems(CollectionImeji c, User user) throws UnprocessableError {
+    return new ItemService().search(c.getId(), new SearchFactory().and(new SearchPair(SearchFields.filename, "*")).build(), null, user, 1,
+        Search.SEARCH_FROM_START_INDEX).getNumberOfRecords();
   }
 
 
@@ -69,6 +69,7 @@ class ItemController extends ImejiControllerAbstract<Item> {
 
   @Override
   public List<Item> createBatch(List<Item> l, User user) throws ImejiException {
+    checkNoWorkflowRunning(l, Item::getCollection);
     Set<String> collectionIds = new HashSet<>();
     for (final Item item : l) {
       if (!collectionIds.contains(item.getCollection().toString())) {
@@ -127,6 +128,7 @@ class ItemController extends ImejiControllerAbstract<Item> {
   @Override
   public List<Item> updateBatch(List<Item> l, User user) throws ImejiException {
     if (l != null && !l.isEmpty()) {
+      checkNoWorkflowRunning(l, Item::getCollection);
       for (final Item item : l) {
         prepareUpdate(item, user);
         item.setFilename(FilenameUtils.getName(item.getFilename()));
@@ -155,6 +157,7 @@ class ItemController extends ImejiControllerAbstract<Item> {
 
   @Override
   public void deleteBatch(List<Item> l, User user) throws ImejiException {
+    checkNoWorkflowRunning(l, Item::getCollection);
     WRITER.delete(new ArrayList<Object>(l), user);
   }
 
@@ -9,8 +9,10 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
@@ -24,6 +26,8 @@ import de.mpg.imeji.exceptions.ImejiException;
 import de.mpg.imeji.exceptions.NotFoundException;
 import de.mpg.imeji.exceptions.QuotaExceededException;
 import de.mpg.imeji.exceptions.UnprocessableError;
+import de.mpg.imeji.logic.batch.ElasticReIndexPipeline;
+import de.mpg.imeji.logic.batch.ReIndexProgress;
 import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.core.content.ContentService;
 import de.mpg.imeji.logic.core.facade.MoveFacade;
@@ -33,12 +37,14 @@ import de.mpg.imeji.logic.model.CollectionImeji;
 import de.mpg.imeji.logic.model.Item;
 import de.mpg.imeji.logic.model.License;
 import de.mpg.imeji.logic.model.SearchFields;
+import de.mpg.imeji.logic.model.UploadResult;
 import de.mpg.imeji.logic.model.User;
 import de.mpg.imeji.logic.model.factory.ImejiFactory;
 import de.mpg.imeji.logic.search.Search;
 import de.mpg.imeji.logic.search.Search.SearchObjectTypes;
 import de.mpg.imeji.logic.search.elasticsearch.ElasticIndexer;
-import de.mpg.imeji.logic.search.elasticsearch.ElasticService.ElasticIndices;
+import de.mpg.imeji.logic.search.elasticsearch.ElasticSearch;
+import de.mpg.imeji.logic.search.elasticsearch.ElasticIndexer.RefreshPolicy;
 import de.mpg.imeji.logic.search.facet.model.Facet;
 import de.mpg.imeji.logic.search.factory.SearchFactory;
 import de.mpg.imeji.logic.search.factory.SearchFactory.SEARCH_IMPLEMENTATIONS;
@@ -46,6 +52,7 @@ import de.mpg.imeji.logic.search.jenasearch.ImejiSPARQL;
 import de.mpg.imeji.logic.search.jenasearch.JenaCustomQueries;
 import de.mpg.imeji.logic.search.model.SearchOperators;
 import de.mpg.imeji.logic.search.model.SearchPair;
+import de.mpg.imeji.logic.search.model.SearchCursor;
 import de.mpg.imeji.logic.search.model.SearchQuery;
 import de.mpg.imeji.logic.search.model.SearchResult;
 import de.mpg.imeji.logic.search.model.SortCriterion;
@@ -53,6 +60,8 @@ import de.mpg.imeji.logic.security.user.UserService;
 import de.mpg.imeji.logic.security.user.util.QuotaUtil;
 import de.mpg.imeji.logic.storage.Storage;
 import de.mpg.imeji.logic.storage.StorageController;
+import de.mpg.imeji.logic.storage.ingest.IngestedFile;
+import de.mpg.imeji.logic.storage.ingest.StreamingIngest;
 import de.mpg.imeji.logic.util.ObjectHelper;
 import de.mpg.imeji.logic.util.StorageUtils;
 import de.mpg.imeji.logic.util.StringHelper;
@@ -103,18 +112,136 @@ public class ItemService extends SearchServiceAbstract<Item> {
    * @throws ImejiException
    */
   public Item createWithFile(Item item, File f, String filename, CollectionImeji c, User user) throws ImejiException {
+    return createWithFile(item, StorageController.inspect(f), filename, c, user);
+  }
+
+  /**
+   * Create an {@link Item} for a file read by the {@link StreamingIngest}: the file is not read
+   * again to validate and store it
+   *
+   * @param item
+   * @param f
+   * @param filename
+   * @param c
+   * @param user
+   * @return
+   * @throws ImejiException
+   */
+  public Item createWithFile(Item item, IngestedFile f, String filename, CollectionImeji c, User user) throws ImejiException {
     if (item == null) {
       item = ImejiFactory.newItem(c);
     }
     preValidateUpload(filename, c, f, user, item, false);
     item.setFilename(filename);
-    item.setFileSize(f.length());
-    item.setFiletype(StorageUtils.getMimeType(f));
+    item.setFileSize(f.getSize());
+    item.setFiletype(f.getMimeType());
     item = create(item, c, user);
     new ContentService().create(item, f, user);
     return item;
   }
 
+  /**
+   * Create many {@link Item}s with their files read by the {@link StreamingIngest}: the files are
+   * validated together (one search for the filenames and one for the checksums), the quota is
+   * checked once for the total size of the files, and the items and their contents are written and
+   * indexed in one batch. <br/>
+   * The filename of each item must be set, the file of an item has the same position in files than
+   * the item in items
+   *
+   * @param items
+   * @param files
+   * @param c
+   * @param user
+   * @return
+   * @throws ImejiException
+   */
+  public List<Item> createWithFiles(List<Item> items, List<IngestedFile> files, CollectionImeji c, User user) throws ImejiException {
+    if (items.size() != files.size()) {
+      throw new UnprocessableError("Each item must have one file");
+    }
+    if (items.isEmpty()) {
+      return items;
+    }
+    preValidateUpload(items, files, c, user);
+    final StorageController sc = new StorageController();
+    final List<UploadResult> uploadResults = new ArrayList<>(files.size());
+    try {
+      for (int i = 0; i < items.size(); i++) {
+        final IngestedFile f = files.get(i);
+        items.get(i).setFileSize(f.getSize());
+        items.get(i).setFiletype(f.getMimeType());
+        uploadResults.add(sc.upload(f.getFile().getName(), f));
+      }
+      create(items, c, user);
+    } catch (final ImejiException | RuntimeException e) {
+      uploadResults.stream().forEach(r -> removeFileFromStorage(r));
+      throw e;
+    }
+    final ContentService contentService = new ContentService();
+    final List<ContentService.ItemWithStagedFile> itemsWithFile = new ArrayList<>(items.size());
+    for (int i = 0; i < items.size(); i++) {
+      itemsWithFile.add(contentService.new ItemWithStagedFile(items.get(i), uploadResults.get(i)));
+    }
+    contentService.createBatch(itemsWithFile, user);
+    return items;
+  }
+
+  /**
+   * Check if the files can be uploaded together in the collection
+   *
+   * @param items
+   * @param files
+   * @param c
+   * @param user
+   * @throws ImejiException
+   */
+  private void preValidateUpload(List<Item> items, List<IngestedFile> files, CollectionImeji c, User user) throws ImejiException {
+    final Set<String> filenames = new HashSet<>();
+    final Set<String> checksums = new HashSet<>();
+    final List<String> duplicates = new ArrayList<>();
+    long size = 0;
+    for (int i = 0; i < items.size(); i++) {
+      final String filename = items.get(i).getFilename();
+      if (StringHelper.isNullOrEmptyTrim(filename)) {
+        throw new UnprocessableError("Filename must not be empty!");
+      }
+      if (!filenames.add(filename) || !checksums.add(files.get(i).getChecksum())) {
+        duplicates.add(filename);
+      }
+      validateFileFormat(files.get(i));
+      size += files.get(i).getSize();
+    }
+    if (!duplicates.isEmpty()) {
+      throw new UnprocessableError("The upload contains the same file or the same filename more than once: " + toMessage(duplicates));
+    }
+    final Set<String> existingFilenames = ElasticSearch.searchExistingFilenames(c.getId().toString(), filenames);
+    if (!existingFilenames.isEmpty()) {
+      throw new UnprocessableError("Files with the same name already exist in the collection: " + toMessage(existingFilenames));
+    }
+    final Set<String> existingChecksums = ElasticSearch.searchExistingChecksums(c.getId().toString(), checksums);
+    if (!existingChecksums.isEmpty()) {
+      final List<String> existing = new ArrayList<>();
+      for (int i = 0; i < items.size(); i++) {
+        if (existingChecksums.contains(files.get(i).getChecksum())) {
+          existing.add(items.get(i).getFilename());
+        }
+      }
+      throw new UnprocessableError("Same files already exist in the collection (same checksum): " + toMessage(existing));
+    }
+    QuotaUtil.checkQuota(user, size, c);
+  }
+
+  /**
+   * Write the first filenames of a list for an error message
+   *
+   * @param filenames
+   * @return
+   */
+  private String toMessage(Collection<String> filenames) {
+    final int max = 10;
+    return filenames.stream().limit(max).collect(Collectors.joining(", ")) + (filenames.size() > max ? ", ..." : "");
+  }
+
   /**
    * Check if the file ca be uploaded
    * 
@@ -124,14 +251,15 @@ public class ItemService extends SearchServiceAbstract<Item> {
    * @param user
    * @throws ImejiException
    */
-  private void preValidateUpload(String filename, CollectionImeji c, File f, User user, Item item, boolean isUpdate) throws ImejiException {
+  private void preValidateUpload(String filename, CollectionImeji c, IngestedFile f, User user, Item item, boolean isUpdate)
+      throws ImejiException {
     if (StringHelper.isNullOrEmptyTrim(filename)) {
       throw new UnprocessableError("Filename must not be empty!");
     }
     validateFilenameExists(filename, c.getId(), item, isUpdate);
-    validateChecksum(c.getId(), f, isUpdate);
+    validateChecksum(f.getChecksum(), c.getId(), f.getFile(), isUpdate);
     validateFileFormat(f);
-    QuotaUtil.checkQuota(user, f, c);
+    QuotaUtil.checkQuota(user, f.getFile(), c);
   }
 
   /**
@@ -371,15 +499,15 @@ public class ItemService extends SearchServiceAbstract<Item> {
    * @throws ImejiException
    */
   public Item updateFile(Item item, CollectionImeji col, File f, String filename, User user) throws ImejiException {
-    //validateChecksum(item.getCollection(), f, true);
-    preValidateUpload(filename, col, f, user, item, true);
+    final IngestedFile ingested = StorageController.inspect(f);
+    preValidateUpload(filename, col, ingested, user, item, true);
     if (filename != null) {
       item.setFilename(filename);
     }
-    item.setFileSize(f.length());
-    item.setFiletype(StorageUtils.getMimeType(f));
+    item.setFileSize(ingested.getSize());
+    item.setFiletype(ingested.getMimeType());
     item = update(item, user);
-    new ContentService().update(item, f, user);
+    new ContentService().update(item, ingested, user);
     return item;
   }
 
@@ -490,6 +618,23 @@ public class ItemService extends SearchServiceAbstract<Item> {
     return facetSearchResult;
   }
 
+  /**
+   * Search the page of {@link Item}s following the cursor, with {@link Facet}s
+   *
+   * @param containerUri
+   * @param searchQuery
+   * @param sortCriteria
+   * @param user
+   * @param cursor the position of the page, {@link SearchCursor#start()} for the first page
+   * @param size
+   * @return
+   */
+  public SearchResult searchWithCursor(URI containerUri, SearchQuery searchQuery, List<SortCriterion> sortCriteria, User user,
+      SearchCursor cursor, int size) {
+    return search.searchWithCursor(searchQuery, sortCriteria, user, containerUri != null ? containerUri.toString() : null, cursor, size,
+        true, true);
+  }
+
   /**
    * Retrieve all items filtered by query
    *
@@ -583,21 +728,21 @@ public class ItemService extends SearchServiceAbstract<Item> {
    * @throws ImejiException
    */
   public void reindex(String index) throws Exception {
-    LOGGER.info("Indexing Items...");
-    final ElasticIndexer indexer = new ElasticIndexer(ElasticIndices.items.name());
-    LOGGER.info("Retrieving Items...");
-    // (1) read item UIDs from Jena database (2) use item UIDs to read item content
-    // from Jena
-    final SearchServiceAbstract<Item>.RetrieveIterator iterator = iterateAll(500);
-    LOGGER.info("+++ " + iterator.getSize() + " items to index +++");
-    int count = 0;
-    while (iterator.hasNext()) {
-      List<Item> list = (List<Item>) iterator.next();
-      indexer.indexBatch(list);
-      count = count + list.size();
-      LOGGER.info(count + "/" + iterator.getSize());
-    }
+    reindex(index, new ReIndexProgress("items"));
+  }
 
+  /**
+   * Reindex all items: items are read from Jena and written to Elasticsearch in parallel (see
+   * {@link ElasticReIndexPipeline})
+   *
+   * @param index
+   * @param progress
+   * @throws Exception
+   */
+  public void reindex(String index, ReIndexProgress progress) throws Exception {
+    LOGGER.info("Indexing Items...");
+    final ElasticIndexer indexer = new ElasticIndexer(index, RefreshPolicy.NONE);
+    new ElasticReIndexPipeline<>(this, indexer, 500, progress).call();
     LOGGER.info("Items reindexed!");
   }
 
@@ -615,6 +760,23 @@ public class ItemService extends SearchServiceAbstract<Item> {
     }
   }
 
+  /**
+   * Remove the stored files of a file which hasn't been written in the database
+   *
+   * @param uploadResult
+   */
+  private void removeFileFromStorage(UploadResult uploadResult) {
+    final StorageController storageController = new StorageController();
+    try {
+      storageController.delete(uploadResult.getOrginal());
+      storageController.delete(uploadResult.getWeb());
+      storageController.delete(uploadResult.getThumb());
+      storageController.delete(uploadResult.getFull());
+    } catch (final Exception e) {
+      LOGGER.error("error deleting file", e);
+    }
+  }
+
   /**
    * Remove files from storage
    * 
@@ -670,17 +832,6 @@ public class ItemService extends SearchServiceAbstract<Item> {
     return !isNullOrEmpty(fetchUrl);
   }
 
-  /**
-   * Throws an {@link Exception} if the file cannot be uploaded. The validation will only occur when
-   * the file has been stored locally)
-   *
-   * @throws ImejiException
-   * @throws UnprocessableError
-   */
-  private void validateChecksum(URI collectionURI, File file, Boolean isUpdate) throws ImejiException {
-    validateChecksum(StorageUtils.calculateChecksum(file), collectionURI, file, isUpdate);
-  }
-
   /**
    * Throws an {@link Exception} if the file cannot be uploaded. The validation will only occur when
    * the file has been stored locally)
@@ -709,12 +860,12 @@ public class ItemService extends SearchServiceAbstract<Item> {
     }
   }
 
-  private void validateFileFormat(File file) throws UnprocessableError {
+  private void validateFileFormat(IngestedFile file) throws UnprocessableError {
     final StorageController sc = new StorageController();
-    final String guessedNotAllowedFormat = sc.guessNotAllowedFormat(file);
+    final String guessedNotAllowedFormat = sc.guessNotAllowedFormat(file.getFile().getName(), file.getExtension());
     if (StorageUtils.BAD_FORMAT.equals(guessedNotAllowedFormat)) {
       throw new UnprocessableError(
-          "File format not allowed (." + FilenameUtils.getExtension(file.getName()) + "). Please contact the administrator");
+          "File format not allowed (." + FilenameUtils.getExtension(file.getFile().getName()) + "). Please contact the administrator");
     }
   }
 
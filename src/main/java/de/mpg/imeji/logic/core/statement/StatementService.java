@@ -4,10 +4,15 @@ import static java.util.stream.Collectors.toList;
 
 import java.net.URI;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+import org.apache.logging.log4j.LogManager;
+
 import de.mpg.imeji.exceptions.ImejiException;
 import de.mpg.imeji.exceptions.NotAllowedError;
 import de.mpg.imeji.logic.config.Imeji;
@@ -21,6 +26,7 @@ import de.mpg.imeji.logic.model.User;
 import de.mpg.imeji.logic.model.factory.ImejiFactory;
 import de.mpg.imeji.logic.model.factory.StatementFactory;
 import de.mpg.imeji.logic.model.util.StatementUtil;
+import de.mpg.imeji.logic.util.ObjectHelper;
 import de.mpg.imeji.logic.search.Search;
 import de.mpg.imeji.logic.search.Search.SearchObjectTypes;
 import de.mpg.imeji.logic.search.factory.SearchFactory;
@@ -42,6 +48,10 @@ import de.mpg.imeji.logic.search.model.SortCriterion;
 public class StatementService extends SearchServiceAbstract<Statement> {
   private final StatementController controller = new StatementController();
   private final MessageService messageService = new MessageService();
+  /**
+   * The index of the statements, by formatted index
+   */
+  private static final Map<String, String> INDEXES = new ConcurrentHashMap<>();
 
   public StatementService() {
     super(SearchObjectTypes.STATEMENT);
@@ -168,6 +178,7 @@ public class StatementService extends SearchServiceAbstract<Statement> {
         return after;
       }
     } finally {
+      INDEXES.clear();
       changeDefaultStatement(before, after);
       messageService.add(new StatementMessage(MessageType.STATEMENT_CHANGED, after, before.getIndex()));
     }
@@ -217,6 +228,33 @@ public class StatementService extends SearchServiceAbstract<Statement> {
     return search.search(q, null, Imeji.adminUser, null, 0, 1).getNumberOfRecords() > 0;
   }
 
+  /**
+   * Return the index of the statements with the formatted indexes (as indexed in the search index).
+   * The indexes are cached until a statement is updated
+   *
+   * @param formattedIndexes
+   * @return the index of each formatted index, or the formatted index if the statement doesn't
+   *         exist
+   */
+  public Map<String, String> getIndexes(Collection<String> formattedIndexes) {
+    final List<String> uris = formattedIndexes.stream().filter(i -> !INDEXES.containsKey(i))
+        .map(i -> ObjectHelper.getURI(Statement.class, i).toString()).distinct().collect(toList());
+    if (!uris.isEmpty()) {
+      try {
+        for (final Statement s : controller.retrieveBatch(uris, Imeji.adminUser)) {
+          INDEXES.put(s.getIndexFormatted(), s.getIndex());
+        }
+      } catch (final ImejiException e) {
+        LogManager.getLogger(StatementService.class).error("Error retrieving statements", e);
+      }
+    }
+    final Map<String, String> indexes = new HashMap<>();
+    for (final String formattedIndex : formattedIndexes) {
+      indexes.put(formattedIndex, INDEXES.getOrDefault(formattedIndex, formattedIndex));
+    }
+    return indexes;
+  }
+
   /**
    * Return the index for the passed statement id
    * 
@@ -0,0 +1,684 @@
+package de.mpg.imeji.logic.db.indexretry.queue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.ObjectInputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.mpg.imeji.exceptions.ImejiException;
+import de.mpg.imeji.logic.concurrency.ImejiExecutors;
+import de.mpg.imeji.logic.concurrency.ImejiExecutors.Pool;
+import de.mpg.imeji.logic.config.Imeji;
+import de.mpg.imeji.logic.config.ImejiConfiguration;
+import de.mpg.imeji.logic.config.util.PropertyReader;
+import de.mpg.imeji.logic.db.indexretry.model.RetryBaseRequest;
+import de.mpg.imeji.logic.db.indexretry.model.RetryDeleteFromIndexRequest;
+import de.mpg.imeji.logic.db.indexretry.model.RetryIndexRequest;
+import de.mpg.imeji.logic.db.keyValue.KeyValueStoreService;
+import de.mpg.imeji.logic.db.keyValue.stores.HTreeMapStore;
+import de.mpg.imeji.logic.model.User;
+import de.mpg.imeji.logic.search.elasticsearch.ElasticDocumentSearch;
+import de.mpg.imeji.logic.util.StringHelper;
+
+/**
+ * Durable outbox of the requests to synchronize the search index with the database. <br/>
+ * Each object written to the database is added to the outbox before the database commit and removed
+ * once it has been written to (or deleted from) the search index. The outbox is persisted in a
+ * key/value store committed on each write, so that after a crash only the objects still in the
+ * outbox need to be indexed again, instead of the whole database. Since the objects are always
+ * indexed as they are in the database, an entry whose database write failed or never happened is
+ * harmless: it only indexes the object again.<br/>
+ * The entries which could not be indexed by their writer are indexed again by batches, in parallel
+ * in the {@link Pool#INDEX_OUTBOX} executor. If the search index is not available, the next attempt
+ * is delayed with an exponential backoff, up to the retry queue sleep time of the configuration.
+ * <br/>
+ * In asynchronous mode (property imeji.index.async), the writers don't index the objects: they
+ * return after the database commit and the objects are indexed in the background. Multiple writes
+ * of the same object before it is indexed are indexed once. Each write gets a token (its sequence
+ * in the outbox), and the searches of a user wait (at most imeji.index.async.wait ms) until the
+ * objects written by the user are visible in the search index. <br/>
+ * An entry which failed {@link #PARK_ATTEMPTS} times is parked: it is still indexed again, but only
+ * once per retry queue sleep time, and the searches don't wait for it anymore.
+ */
+public class IndexOutbox {
+  private static final Logger LOGGER = LogManager.getLogger(IndexOutbox.class);
+  private static final KeyValueStoreService STORE = new KeyValueStoreService(new HTreeMapStore("indexOutboxStore"));
+  /**
+   * Max number of objects indexed in one bulk request
+   */
+  private static final int BATCH_SIZE = 500;
+  /**
+   * Entries younger than this (in ms) are still being indexed by their writer
+   */
+  private static final long MIN_AGE = 5000;
+  private static final long MIN_BACKOFF = 1000;
+  /**
+   * Entries written since longer than this (in ms) are considered abandoned by their writer
+   */
+  private static final long WRITE_TIMEOUT = 600000;
+  /**
+   * Delay (in ms) before indexing the entries written in asynchronous mode, to index multiple
+   * writes of the same object once
+   */
+  private static final long ASYNC_DELAY = 100;
+  private static final long DEFAULT_ASYNC_WAIT = 2000;
+  /**
+   * Number of failed attempts after which an entry is parked
+   */
+  static final int PARK_ATTEMPTS = 5;
+  /**
+   * Number of objects written by a user above which the objects already indexed are forgotten
+   */
+  private static final int USER_WRITES_PRUNE_SIZE = 1000;
+  /**
+   * Files written by the previous in-memory retry queue
+   */
+  private static final String LEGACY_FILE_REGEX = "ReIndex_[0-9]+\\.bin";
+  private static final String LEGACY_RUNNING_FLAG = "RetryQueueRunning.txt";
+  private static IndexOutbox instance;
+  private final Map<URI, IndexOutboxEntry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong sequence = new AtomicLong(0);
+  private final AtomicLong indexedCount = new AtomicLong(0);
+  private final AtomicLong failedCount = new AtomicLong(0);
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+    final Thread t = new Thread(r, "imeji-index-outbox");
+    t.setDaemon(true);
+    return t;
+  });
+  private ScheduledFuture<?> scheduledDrain;
+  private volatile long backoff = 0;
+  private boolean stopped = false;
+  private volatile long lastDrain = 0;
+  private volatile boolean async = false;
+  private volatile long asyncWait = DEFAULT_ASYNC_WAIT;
+  /**
+   * The objects written by each user since the last search of the user, in asynchronous mode
+   */
+  private final Map<String, Set<URI>> userWrites = new ConcurrentHashMap<>();
+  private final Object visibility = new Object();
+  /**
+   * Notified of the requests added to the outbox
+   */
+  private final List<Consumer<List<RetryBaseRequest>>> listeners = new CopyOnWriteArrayList<>();
+
+  private IndexOutbox() {
+    load();
+  }
+
+  /**
+   * Return the outbox. The entries persisted before the last shutdown are read on first call
+   *
+   * @return
+   */
+  public static synchronized IndexOutbox getInstance() {
+    if (instance == null) {
+      instance = new IndexOutbox();
+    }
+    return instance;
+  }
+
+  /**
+   * Called on start-up of imeji: index the entries left in the outbox by the last run
+   */
+  public void start() {
+    synchronized (this) {
+      stopped = false;
+      load();
+    }
+    readProperties();
+    importLegacyRetryQueue();
+    if (!entries.isEmpty()) {
+      LOGGER.info(entries.size() + " objects of the index outbox will be indexed again");
+      scheduleDrain(0);
+    }
+  }
+
+  /**
+   * Called when imeji is shutting down. The entries stay in the outbox and are indexed on next
+   * start-up
+   */
+  public synchronized void stop() {
+    stopped = true;
+    if (scheduledDrain != null) {
+      scheduledDrain.cancel(true);
+    }
+    LOGGER.info("Index outbox stopped with " + entries.size() + " pending objects");
+  }
+
+  /**
+   * True if the objects are indexed in the background
+   *
+   * @return
+   */
+  public boolean isAsync() {
+    return async;
+  }
+
+  /**
+   * Add the requests to the outbox, with one commit. A delete request is never replaced by an index
+   * request
+   *
+   * @param requests
+   * @param user the user writing the objects, or null
+   * @return the entries added to the outbox
+   */
+  public synchronized List<IndexOutboxEntry> append(List<RetryBaseRequest> requests, User user) {
+    return append(requests, user, false);
+  }
+
+  private List<IndexOutboxEntry> append(List<RetryBaseRequest> requests, User user, boolean writing) {
+    final Map<String, IndexOutboxEntry> appended = new LinkedHashMap<>();
+    for (final RetryBaseRequest request : requests) {
+      final IndexOutboxEntry previous = entries.get(request.getUri());
+      if (previous != null && previous.isDelete() && request instanceof RetryIndexRequest) {
+        LOGGER.error("Index outbox: trying to index " + request.getUri() + " after a previous delete request.");
+        continue;
+      }
+      final IndexOutboxEntry entry = new IndexOutboxEntry(sequence.incrementAndGet(), previous, request);
+      entry.setWriting(writing);
+      appended.put(request.getUri().toString(), entry);
+    }
+    try {
+      STORE.putAll(appended);
+    } catch (final ImejiException e) {
+      LOGGER.error("Error writing " + appended.size() + " objects to the index outbox: they will be lost on crash", e);
+    }
+    appended.values().forEach(e -> entries.put(e.getRequest().getUri(), e));
+    notifyListeners(appended.values());
+    if (async && user != null && user.getId() != null && !appended.isEmpty()) {
+      final Set<URI> written = userWrites.computeIfAbsent(user.getId().toString(), k -> ConcurrentHashMap.newKeySet());
+      appended.values().forEach(e -> written.add(e.getRequest().getUri()));
+      if (written.size() > USER_WRITES_PRUNE_SIZE) {
+        written.removeIf(uri -> !entries.containsKey(uri));
+      }
+    }
+    return new ArrayList<>(appended.values());
+  }
+
+  /**
+   * Add the requests of a writer to the outbox, before the writer commits the objects to the
+   * database. The entries are not indexed by the outbox until the writer acknowledges, retries,
+   * submits or cancels them
+   *
+   * @param requests
+   * @param user the user writing the objects, or null
+   * @return the entries added to the outbox
+   */
+  public synchronized List<IndexOutboxEntry> beginWrite(List<RetryBaseRequest> requests, User user) {
+    return append(requests, user, true);
+  }
+
+  /**
+   * Cancel the entries of a writer which could not write the objects to the database. The objects
+   * are indexed again as they are in the database, in particular the objects which could not be
+   * deleted are not deleted from the search index
+   *
+   * @param cancelled
+   */
+  public synchronized void cancel(Collection<IndexOutboxEntry> cancelled) {
+    final Map<String, IndexOutboxEntry> replaced = new LinkedHashMap<>();
+    for (final IndexOutboxEntry entry : cancelled) {
+      entry.setWriting(false);
+      if (entry.isDelete() && entries.get(entry.getRequest().getUri()) == entry) {
+        final RetryBaseRequest request =
+            new RetryIndexRequest(entry.getRequest().getUri(), ((RetryDeleteFromIndexRequest) entry.getRequest()).getObjectToDelete());
+        replaced.put(request.getUri().toString(), new IndexOutboxEntry(sequence.incrementAndGet(), entry, request));
+      }
+    }
+    try {
+      STORE.putAll(replaced);
+    } catch (final ImejiException e) {
+      LOGGER.error("Error writing " + replaced.size() + " objects to the index outbox", e);
+    }
+    replaced.values().forEach(e -> entries.put(e.getRequest().getUri(), e));
+    notifyListeners(replaced.values());
+    if (!cancelled.isEmpty()) {
+      scheduleDrain(Math.max(backoff, MIN_AGE));
+    }
+  }
+
+  /**
+   * Add a listener notified of all requests added to the outbox, i.e. of all objects written to the
+   * database. The listener is called by the writers: it must be fast and must not throw
+   *
+   * @param listener
+   */
+  public void addListener(Consumer<List<RetryBaseRequest>> listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(Consumer<List<RetryBaseRequest>> listener) {
+    listeners.remove(listener);
+  }
+
+  private void notifyListeners(Collection<IndexOutboxEntry> added) {
+    if (!added.isEmpty() && !listeners.isEmpty()) {
+      final List<RetryBaseRequest> requests = added.stream().map(IndexOutboxEntry::getRequest).collect(Collectors.toList());
+      listeners.forEach(l -> l.accept(requests));
+    }
+  }
+
+  /**
+   * Index the entries in the background (asynchronous mode)
+   *
+   * @param queued
+   */
+  public void submit(Collection<IndexOutboxEntry> queued) {
+    if (!queued.isEmpty()) {
+      queued.forEach(e -> {
+        e.setQueued(true);
+        e.setWriting(false);
+      });
+      scheduleDrain(Math.max(backoff, ASYNC_DELAY));
+    }
+  }
+
+  /**
+   * @return the token of the last write: when it is visible, all writes done until now are visible
+   *         in the search index
+   */
+  public long getToken() {
+    return sequence.get();
+  }
+
+  /**
+   * True if all writes until the token are visible in the search index. The parked entries are
+   * ignored
+   *
+   * @param token
+   * @return
+   */
+  public boolean isVisible(long token) {
+    return entries.values().stream().noneMatch(e -> !e.isParked() && e.getFirstSequence() <= token);
+  }
+
+  /**
+   * True if the last writes of the objects are visible in the search index. The parked entries are
+   * ignored
+   *
+   * @param uris
+   * @return
+   */
+  public boolean isVisible(Collection<URI> uris) {
+    return uris.stream().map(entries::get).noneMatch(e -> e != null && !e.isParked());
+  }
+
+  /**
+   * Wait until all writes until the token are visible in the search index
+   *
+   * @param token
+   * @param timeout the max time to wait in ms
+   * @return true if the token is visible, false if the timeout has been reached
+   */
+  public boolean awaitVisible(long token, long timeout) {
+    return awaitVisible(() -> isVisible(token), timeout);
+  }
+
+  /**
+   * Wait until the condition is true, at most timeout ms. The condition is checked each time
+   * entries are removed from the outbox
+   *
+   * @param visible
+   * @param timeout
+   * @return true if the condition is true, false if the timeout has been reached
+   */
+  private boolean awaitVisible(BooleanSupplier visible, long timeout) {
+    final long deadline = System.currentTimeMillis() + timeout;
+    synchronized (visibility) {
+      while (!visible.getAsBoolean()) {
+        final long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          return false;
+        }
+        try {
+          visibility.wait(remaining);
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * In asynchronous mode, wait until the objects written by the user are visible in the search
+   * index, at most imeji.index.async.wait ms. The writes of the user are forgotten after the wait,
+   * even if they are not visible: the next searches don't wait for them anymore
+   *
+   * @param user
+   */
+  public void awaitWritesOf(User user) {
+    if (!async || user == null || user.getId() == null) {
+      return;
+    }
+    final Set<URI> written = userWrites.remove(user.getId().toString());
+    if (written != null && !isVisible(written) && !awaitVisible(() -> isVisible(written), asyncWait)) {
+      LOGGER.info("Index outbox: the last writes of " + user.getEmail() + " are not visible after " + asyncWait + " ms");
+    }
+  }
+
+  /**
+   * Remove the entries which have been indexed. An entry replaced by a newer entry for the same
+   * object is not removed
+   *
+   * @param done
+   */
+  public synchronized void acknowledge(Collection<IndexOutboxEntry> done) {
+    final List<String> keys = new ArrayList<>(done.size());
+    for (final IndexOutboxEntry entry : done) {
+      entry.setWriting(false);
+      if (entries.remove(entry.getRequest().getUri(), entry)) {
+        keys.add(entry.getRequest().getUri().toString());
+      }
+    }
+    try {
+      STORE.deleteAll(keys);
+    } catch (final ImejiException e) {
+      LOGGER.error("Error removing " + keys.size() + " objects from the index outbox", e);
+    }
+    indexedCount.addAndGet(keys.size());
+    synchronized (visibility) {
+      visibility.notifyAll();
+    }
+  }
+
+  /**
+   * Mark the entries as failed: they will be indexed again
+   *
+   * @param failed
+   */
+  public void retry(Collection<IndexOutboxEntry> failed) {
+    if (!failed.isEmpty()) {
+      markFailed(failed);
+      scheduleDrain(backoff);
+    }
+  }
+
+  /**
+   * Count a failed attempt for the entries, without scheduling a retry
+   *
+   * @param failed
+   */
+  void markFailed(Collection<IndexOutboxEntry> failed) {
+    failed.forEach(e -> {
+      e.incrementAttempts();
+      e.setWriting(false);
+      if (e.getAttempts() == PARK_ATTEMPTS) {
+        LOGGER.error("Index outbox: " + e.getRequest().getUri() + " failed " + PARK_ATTEMPTS + " times and is parked");
+      }
+    });
+    failedCount.addAndGet(failed.size());
+    if (failed.stream().anyMatch(IndexOutboxEntry::isParked)) {
+      synchronized (visibility) {
+        visibility.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * @return the number of objects waiting to be indexed
+   */
+  public int getPendingCount() {
+    return entries.size();
+  }
+
+  /**
+   * @return the number of objects which failed too often and are only indexed again once per retry
+   *         queue sleep time
+   */
+  public long getParkedCount() {
+    return entries.values().stream().filter(IndexOutboxEntry::isParked).count();
+  }
+
+  /**
+   * @return the time (in ms) since the oldest pending object has been written to the database, or 0
+   *         if no object is pending
+   */
+  public long getLag() {
+    final OptionalLong oldest = entries.values().stream().mapToLong(IndexOutboxEntry::getEnqueued).min();
+    return oldest.isPresent() ? System.currentTimeMillis() - oldest.getAsLong() : 0;
+  }
+
+  /**
+   * @return the number of objects indexed since imeji started
+   */
+  public long getIndexedCount() {
+    return indexedCount.get();
+  }
+
+  /**
+   * @return the number of failed attempts to index an object since imeji started
+   */
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
+  /**
+   * @return the time (in ms) of the last retry, or 0
+   */
+  public long getLastDrain() {
+    return lastDrain;
+  }
+
+  @Override
+  public String toString() {
+    return "index outbox [pending: " + getPendingCount() + ", parked: " + getParkedCount() + ", lag: " + getLag() + "ms, indexed: "
+        + getIndexedCount() + ", failed: " + getFailedCount() + ", next retry in: " + backoff + "ms]";
+  }
+
+  /**
+   * Read the entries persisted in the store
+   */
+  private synchronized void load() {
+    entries.clear();
+    try {
+      for (final IndexOutboxEntry entry : STORE.getList(".*", IndexOutboxEntry.class)) {
+        entries.put(entry.getRequest().getUri(), entry);
+        sequence.set(Math.max(sequence.get(), entry.getSequence()));
+      }
+    } catch (final ImejiException e) {
+      LOGGER.error("Error reading the index outbox", e);
+    }
+  }
+
+  /**
+   * Schedule the next retry, if none is scheduled earlier
+   *
+   * @param delay
+   */
+  private synchronized void scheduleDrain(long delay) {
+    if (stopped) {
+      return;
+    }
+    if (scheduledDrain != null && !scheduledDrain.isDone()) {
+      if (scheduledDrain.getDelay(TimeUnit.MILLISECONDS) <= delay) {
+        return;
+      }
+      scheduledDrain.cancel(false);
+    }
+    scheduledDrain = scheduler.schedule(this::drain, delay, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Index all pending entries by batches. The entries added recently and the entries still being
+   * written are skipped, since their writer is indexing them
+   */
+  private void drain() {
+    synchronized (this) {
+      // the running drain is not scheduled anymore: the next one can be scheduled
+      scheduledDrain = null;
+    }
+    lastDrain = System.currentTimeMillis();
+    final List<IndexOutboxEntry> pending = entries.values().stream().filter(this::isDrainable)
+        .sorted(Comparator.comparingLong(IndexOutboxEntry::getSequence)).collect(Collectors.toList());
+    if (pending.isEmpty()) {
+      if (!entries.isEmpty()) {
+        scheduleDrain(MIN_AGE);
+      }
+      return;
+    }
+    if (!searchIndexAvailable()) {
+      scheduleDrain(nextBackoff());
+      return;
+    }
+    boolean success = true;
+    final List<Future<Boolean>> results = new ArrayList<>();
+    for (final List<IndexOutboxEntry> batch : toBatches(pending)) {
+      results.add(ImejiExecutors.get(Pool.INDEX_OUTBOX).submit(new IndexOutboxBatch(this, batch)));
+    }
+    for (final Future<Boolean> result : results) {
+      try {
+        success = result.get() && success;
+      } catch (final ExecutionException e) {
+        LOGGER.error("Error indexing the index outbox", e);
+        success = false;
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+    if (success) {
+      backoff = 0;
+      if (!entries.isEmpty()) {
+        scheduleDrain(entries.values().stream().anyMatch(IndexOutboxEntry::isQueued) ? ASYNC_DELAY : MIN_AGE);
+      }
+    } else {
+      scheduleDrain(nextBackoff());
+    }
+  }
+
+  /**
+   * True if the entry can be indexed by the outbox
+   *
+   * @param e
+   * @return
+   */
+  private boolean isDrainable(IndexOutboxEntry e) {
+    if (e.isWriting()) {
+      return lastDrain - e.getWriteStarted() >= WRITE_TIMEOUT;
+    }
+    if (e.isParked()) {
+      return lastDrain - e.getLastAttempt() >= getMaxBackoff();
+    }
+    return e.isQueued() || e.getAttempts() > 0 || lastDrain - e.getEnqueued() >= MIN_AGE;
+  }
+
+  /**
+   * Group the entries by operation and type of object, in batches of max {@link #BATCH_SIZE}
+   * entries
+   *
+   * @param pending
+   * @return
+   */
+  private List<List<IndexOutboxEntry>> toBatches(List<IndexOutboxEntry> pending) {
+    final Map<String, List<IndexOutboxEntry>> groups = pending.stream().collect(Collectors
+        .groupingBy(e -> e.isDelete() + ":" + IndexOutboxBatch.getObjectClass(e).getName(), LinkedHashMap::new, Collectors.toList()));
+    final List<List<IndexOutboxEntry>> batches = new ArrayList<>();
+    for (final List<IndexOutboxEntry> group : groups.values()) {
+      for (int i = 0; i < group.size(); i += BATCH_SIZE) {
+        batches.add(group.subList(i, Math.min(i + BATCH_SIZE, group.size())));
+      }
+    }
+    return batches;
+  }
+
+  private boolean searchIndexAvailable() {
+    try {
+      return ElasticDocumentSearch.pingElasticSearch() && ElasticDocumentSearch.getClusterHealthYellow();
+    } catch (final Exception e) {
+      LOGGER.info("Search index not available: " + e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Double the backoff, up to the retry queue sleep time of the configuration
+   *
+   * @return
+   */
+  private long nextBackoff() {
+    backoff = Math.min(Math.max(MIN_BACKOFF, backoff * 2), getMaxBackoff());
+    LOGGER.info("Index outbox: " + entries.size() + " pending objects, next retry in " + backoff + " ms");
+    return backoff;
+  }
+
+  private long getMaxBackoff() {
+    String sleepTime = Imeji.CONFIG != null ? Imeji.CONFIG.getRetryQueueSleepTime() : "";
+    if (StringHelper.isNullOrEmptyTrim(sleepTime)) {
+      sleepTime = ImejiConfiguration.DEFAULT_RETRY_QUEUE_SLEEP_MIL_SEC;
+    }
+    return Long.parseLong(sleepTime.trim());
+  }
+
+  /**
+   * Read the asynchronous mode from the properties
+   */
+  private void readProperties() {
+    try {
+      async = Boolean.parseBoolean(PropertyReader.getProperty("imeji.index.async"));
+      final String wait = PropertyReader.getProperty("imeji.index.async.wait");
+      asyncWait = StringHelper.isNullOrEmptyTrim(wait) ? DEFAULT_ASYNC_WAIT : Long.parseLong(wait.trim());
+    } catch (final Exception e) {
+      LOGGER.warn("Could not read the index properties: " + e.getMessage());
+    }
+    LOGGER.info("Index mode: " + (async ? "asynchronous (searches wait max " + asyncWait + " ms)" : "synchronous"));
+  }
+
+  /**
+   * Add the requests saved in files by the previous retry queue to the outbox, and delete the files
+   */
+  @SuppressWarnings("unchecked")
+  private void importLegacyRetryQueue() {
+    final File tdb = new File(StringHelper.normalizePath(Imeji.tdbPath));
+    if (new File(tdb, LEGACY_RUNNING_FLAG).exists()) {
+      LOGGER.error("Retry Queue: Requests were lost during a shut down of a previous version of imeji. In order to keep database and "
+          + "index synchronized, delete " + LEGACY_RUNNING_FLAG + " in tdb and do a re-index!");
+    }
+    final File[] files = tdb.listFiles((dir, name) -> name.matches(LEGACY_FILE_REGEX));
+    if (files == null) {
+      return;
+    }
+    for (final File file : files) {
+      try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
+        final Map<URI, RetryBaseRequest> requests = new HashMap<>((Map<URI, RetryBaseRequest>) in.readObject());
+        final List<RetryBaseRequest> deletes =
+            requests.values().stream().filter(r -> r instanceof RetryDeleteFromIndexRequest).collect(Collectors.toList());
+        final List<RetryBaseRequest> others =
+            requests.values().stream().filter(r -> !(r instanceof RetryDeleteFromIndexRequest)).collect(Collectors.toList());
+        append(others, null);
+        append(deletes, null);
+      } catch (final Exception e) {
+        LOGGER.error("Could not read retry requests from file " + file.getName(), e);
+        continue;
+      }
+      if (!file.delete()) {
+        LOGGER.error("Could not delete retry request file " + file.getName());
+      }
+    }
+  }
+}
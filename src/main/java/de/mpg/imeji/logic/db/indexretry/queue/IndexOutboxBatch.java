@@ -0,0 +1,146 @@
+package de.mpg.imeji.logic.db.indexretry.queue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.mpg.imeji.exceptions.NotFoundException;
+import de.mpg.imeji.exceptions.SearchIndexBulkFailureException;
+import de.mpg.imeji.exceptions.UnprocessableError;
+import de.mpg.imeji.j2j.helper.J2JHelper;
+import de.mpg.imeji.logic.config.Imeji;
+import de.mpg.imeji.logic.db.indexretry.model.RetryDeleteFromIndexRequest;
+import de.mpg.imeji.logic.db.indexretry.model.RetryIndexRequest;
+import de.mpg.imeji.logic.db.reader.Reader;
+import de.mpg.imeji.logic.db.reader.ReaderFactory;
+import de.mpg.imeji.logic.init.ImejiInitializer;
+import de.mpg.imeji.logic.search.Search.SearchObjectTypes;
+import de.mpg.imeji.logic.search.SearchIndexer;
+import de.mpg.imeji.logic.search.factory.SearchFactory;
+import de.mpg.imeji.logic.search.factory.SearchFactory.SEARCH_IMPLEMENTATIONS;
+
+/**
+ * Index a batch of entries of the {@link IndexOutbox} with one bulk request. All entries of a batch
+ * have the same operation and the same type of object. The objects to index are read from the
+ * database, so that their last version is indexed. The objects to delete which still exist in the
+ * database (because their writer failed before the database commit) are indexed instead.
+ */
+class IndexOutboxBatch implements Callable<Boolean> {
+  private static final Logger LOGGER = LogManager.getLogger(IndexOutboxBatch.class);
+  private final IndexOutbox outbox;
+  private final List<IndexOutboxEntry> entries;
+
+  IndexOutboxBatch(IndexOutbox outbox, List<IndexOutboxEntry> entries) {
+    this.outbox = outbox;
+    this.entries = entries;
+  }
+
+  /**
+   * Index the batch
+   *
+   * @return true if all entries have been indexed
+   */
+  @Override
+  public Boolean call() {
+    final List<IndexOutboxEntry> done = new ArrayList<>();
+    final List<IndexOutboxEntry> failed = new ArrayList<>();
+    final List<IndexOutboxEntry> sent = new ArrayList<>();
+    final Map<IndexOutboxEntry, Object> found = new LinkedHashMap<>();
+    final List<IndexOutboxEntry> missing = new ArrayList<>();
+    final boolean delete = entries.get(0).isDelete();
+    try {
+      read(found, missing);
+      final SearchIndexer indexer = SearchFactory
+          .create(SearchObjectTypes.getFromDataType(getObjectClass(entries.get(0))), SEARCH_IMPLEMENTATIONS.ELASTIC).getIndexer();
+      try {
+        if (delete && !missing.isEmpty()) {
+          sent.addAll(missing);
+          indexer.deleteBatch(
+              missing.stream().map(e -> ((RetryDeleteFromIndexRequest) e.getRequest()).getObjectToDelete()).collect(Collectors.toList()));
+        } else {
+          // the deleted objects are not in the index anymore
+          done.addAll(missing);
+        }
+        if (!found.isEmpty()) {
+          sent.addAll(found.keySet());
+          indexer.indexBatch(new ArrayList<>(found.values()));
+        }
+        done.addAll(sent);
+      } catch (final SearchIndexBulkFailureException e) {
+        final Set<String> failedIds = e.getFailedIds();
+        for (final IndexOutboxEntry entry : sent) {
+          if (failedIds.contains(entry.getRequest().getUri().toString())) {
+            failed.add(entry);
+          } else {
+            done.add(entry);
+          }
+        }
+        LOGGER.error("Index outbox: " + failedIds.size() + " objects could not be indexed: " + e.getMessage());
+      } catch (final UnprocessableError e) {
+        // The objects can't be transformed to json: retrying won't help
+        LOGGER.error("Index outbox: could not parse data object to json representation", e);
+        done.addAll(sent);
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      entries.stream().filter(entry -> !done.contains(entry)).forEach(failed::add);
+    } catch (final Exception e) {
+      LOGGER.error("Index outbox: error indexing " + entries.size() + " objects: " + e.getMessage());
+      entries.stream().filter(entry -> !done.contains(entry)).forEach(failed::add);
+    }
+    outbox.acknowledge(done);
+    outbox.markFailed(failed);
+    return failed.isEmpty();
+  }
+
+  /**
+   * Read the last version of the objects from the database, with one transaction. If one object
+   * doesn't exist anymore, the objects are read one by one
+   *
+   * @param found the entries whose object exists in the database, with the object
+   * @param missing the entries whose object doesn't exist in the database
+   * @throws Exception
+   */
+  private void read(Map<IndexOutboxEntry, Object> found, List<IndexOutboxEntry> missing) throws Exception {
+    final Class<?> type = getObjectClass(entries.get(0));
+    final Reader reader = ReaderFactory.create(ImejiInitializer.getJenaModelName(type));
+    final List<Object> toRead = new ArrayList<>(entries.size());
+    for (final IndexOutboxEntry entry : entries) {
+      toRead.add(J2JHelper.setId(type.getConstructor().newInstance(), entry.getRequest().getUri()));
+    }
+    try {
+      final List<Object> objects = reader.read(toRead, Imeji.adminUser);
+      for (int i = 0; i < entries.size(); i++) {
+        found.put(entries.get(i), objects.get(i));
+      }
+    } catch (final NotFoundException e) {
+      for (final IndexOutboxEntry entry : entries) {
+        try {
+          found.put(entry, reader.read(entry.getRequest().getUri().toString(), Imeji.adminUser, type.getConstructor().newInstance()));
+        } catch (final NotFoundException e1) {
+          missing.add(entry);
+        }
+      }
+    }
+  }
+
+  /**
+   * Return the class of the object of an entry
+   *
+   * @param entry
+   * @return
+   */
+  static Class<?> getObjectClass(IndexOutboxEntry entry) {
+    if (entry.getRequest() instanceof RetryIndexRequest) {
+      return ((RetryIndexRequest) entry.getRequest()).getObjectClass();
+    }
+    return ((RetryDeleteFromIndexRequest) entry.getRequest()).getObjectToDelete().getClass();
+  }
+}
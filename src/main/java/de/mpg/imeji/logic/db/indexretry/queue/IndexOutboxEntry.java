@@ -0,0 +1,136 @@
+package de.mpg.imeji.logic.db.indexretry.queue;
+
+import java.io.Serializable;
+
+import de.mpg.imeji.logic.db.indexretry.model.RetryBaseRequest;
+import de.mpg.imeji.logic.db.indexretry.model.RetryDeleteFromIndexRequest;
+
+/**
+ * An entry of the {@link IndexOutbox}: a request to index (or delete from the index) an object
+ * written to the database, with the position of the request in the outbox
+ */
+public class IndexOutboxEntry implements Serializable {
+  private static final long serialVersionUID = -2931270158006410853L;
+  private final long sequence;
+  private final long firstSequence;
+  private final long enqueued;
+  private final RetryBaseRequest request;
+  private transient int attempts = 0;
+  private transient long lastAttempt = 0;
+  private transient boolean queued = false;
+  private transient long writeStarted = 0;
+
+  /**
+   * Create an entry
+   *
+   * @param sequence the position of the entry in the outbox
+   * @param previous the pending entry for the same object which is replaced by this entry, or null
+   * @param request
+   */
+  public IndexOutboxEntry(long sequence, IndexOutboxEntry previous, RetryBaseRequest request) {
+    this.sequence = sequence;
+    this.firstSequence = previous != null ? previous.getFirstSequence() : sequence;
+    this.enqueued = previous != null ? previous.getEnqueued() : System.currentTimeMillis();
+    this.request = request;
+  }
+
+  /**
+   * @return the position of the entry in the outbox: a newer entry for the same object has a higher
+   *         sequence
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  /**
+   * @return the sequence of the oldest write of the object which is not indexed yet: the writes
+   *         with a token lower than this sequence are visible in the search index
+   */
+  public long getFirstSequence() {
+    return firstSequence;
+  }
+
+  /**
+   * @return the time (in ms) when the oldest write of the object which is not indexed yet has been
+   *         written to the outbox
+   */
+  public long getEnqueued() {
+    return enqueued;
+  }
+
+  public RetryBaseRequest getRequest() {
+    return request;
+  }
+
+  /**
+   * True if the object must be deleted from the index
+   *
+   * @return
+   */
+  public boolean isDelete() {
+    return request instanceof RetryDeleteFromIndexRequest;
+  }
+
+  /**
+   * @return the number of failed attempts to index the entry since imeji started
+   */
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public void incrementAttempts() {
+    attempts++;
+    lastAttempt = System.currentTimeMillis();
+  }
+
+  /**
+   * @return the time (in ms) of the last failed attempt, or 0
+   */
+  public long getLastAttempt() {
+    return lastAttempt;
+  }
+
+  /**
+   * True if the entry failed too often: it is indexed again less often, and the searches don't wait
+   * for it
+   *
+   * @return
+   */
+  public boolean isParked() {
+    return attempts >= IndexOutbox.PARK_ATTEMPTS;
+  }
+
+  /**
+   * True if the entry is indexed in the background, and not by its writer
+   *
+   * @return
+   */
+  public boolean isQueued() {
+    return queued;
+  }
+
+  public void setQueued(boolean queued) {
+    this.queued = queued;
+  }
+
+  /**
+   * True if the writer of the entry is still writing the object to the database and to the search
+   * index
+   *
+   * @return
+   */
+  public boolean isWriting() {
+    return writeStarted > 0;
+  }
+
+  /**
+   * @return the time (in ms) when the writer started to write the object, or 0 if it is done
+   */
+  public long getWriteStarted() {
+    return writeStarted;
+  }
+
+  public void setWriting(boolean writing) {
+    this.writeStarted = writing ? System.currentTimeMillis() : 0;
+  }
+}
@@ -0,0 +1,57 @@
+package de.mpg.imeji.logic.db.keyValue;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * {@link KeyValueStore} with secondary indexes: each value is indexed by a time and by a list of
+ * attributes, which allows range queries without iterating over all keys of the store
+ */
+public interface IndexedKeyValueStore extends KeyValueStore {
+
+  /**
+   * Put a key/value to the store and index it with its time and attributes
+   *
+   * @param key
+   * @param value
+   * @param time
+   * @param attributes
+   */
+  public void put(String key, byte[] value, long time, Collection<String> attributes);
+
+  /**
+   * Return the values with a time between from and to (both excluded), ordered by time
+   *
+   * @param from
+   * @param to
+   * @return
+   */
+  public List<byte[]> getRange(long from, long to);
+
+  /**
+   * Return the values indexed with the attribute and with a time between from and to (both
+   * excluded), ordered by time
+   *
+   * @param attribute
+   * @param from
+   * @param to
+   * @return
+   */
+  public List<byte[]> getRange(String attribute, long from, long to);
+
+  /**
+   * Return the keys with a time before the given time (excluded)
+   *
+   * @param time
+   * @return
+   */
+  public List<String> getKeysBefore(long time);
+
+  /**
+   * True if all values of the store are indexed. False for instance for a store written before the
+   * indexes existed
+   *
+   * @return
+   */
+  public boolean isIndexComplete();
+}
@@ -0,0 +1,106 @@
+package de.mpg.imeji.logic.db.keyValue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.mpg.imeji.exceptions.ImejiException;
+
+/**
+ * {@link KeyValueStoreService} for an {@link IndexedKeyValueStore}: values can be read by time
+ * window and by attribute without iterating over the whole store
+ */
+public class IndexedKeyValueStoreService extends KeyValueStoreService {
+  private static final Logger LOGGER = LogManager.getLogger(IndexedKeyValueStoreService.class);
+  private final IndexedKeyValueStore store;
+
+  public IndexedKeyValueStoreService(IndexedKeyValueStore store, KeyValueCodec<?>... codecs) {
+    super(store, codecs);
+    this.store = store;
+  }
+
+  /**
+   * Put an object to the Key/Value Store and index it with its time and attributes
+   *
+   * @param key
+   * @param value
+   * @param time
+   * @param attributes
+   * @throws ImejiException
+   */
+  public void put(String key, Object value, long time, Collection<String> attributes) throws ImejiException {
+    try {
+      store.put(key, serialize(value), time, attributes);
+    } catch (final Exception e) {
+      throw new ImejiException("Error writing Data in Key/Value Store", e);
+    }
+  }
+
+  /**
+   * Return all objects with a time between from and to (both excluded), ordered by time
+   *
+   * @param from
+   * @param to
+   * @param clazz
+   * @return
+   * @throws ImejiException
+   */
+  public <T> List<T> getRange(long from, long to, Class<T> clazz) throws ImejiException {
+    return deserializeList(store.getRange(from, to), clazz);
+  }
+
+  /**
+   * Return all objects indexed with the attribute with a time between from and to (both excluded),
+   * ordered by time
+   *
+   * @param attribute
+   * @param from
+   * @param to
+   * @param clazz
+   * @return
+   * @throws ImejiException
+   */
+  public <T> List<T> getRange(String attribute, long from, long to, Class<T> clazz) throws ImejiException {
+    return deserializeList(store.getRange(attribute, from, to), clazz);
+  }
+
+  /**
+   * Delete all objects with a time before the timestamp (excluded), with one commit
+   *
+   * @param time
+   * @return the number of deleted objects
+   * @throws ImejiException
+   */
+  public int deleteBefore(long time) throws ImejiException {
+    final List<String> keys = store.getKeysBefore(time);
+    deleteAll(keys);
+    return keys.size();
+  }
+
+  /**
+   * True if all values are indexed
+   *
+   * @return
+   */
+  public boolean isIndexComplete() {
+    return store.isIndexComplete();
+  }
+
+  private <T> List<T> deserializeList(List<byte[]> values, Class<T> clazz) throws ImejiException {
+    final List<T> list = new ArrayList<>(values.size());
+    for (final byte[] b : values) {
+      try {
+        list.add(clazz.cast(deserialize(b)));
+      } catch (ClassNotFoundException e) {
+        LOGGER.error("Error deserializing value from store " + store.getName(), e);
+      } catch (IOException e) {
+        throw new ImejiException("Error deserializing value from store " + store.getName(), e);
+      }
+    }
+    return list;
+  }
+}
@@ -0,0 +1,85 @@
+package de.mpg.imeji.logic.db.keyValue;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary codec for the values of a {@link KeyValueStoreService}. A codec writes only the fields of
+ * the object (no class descriptors), and is identified in each record by its id and its version, so
+ * that records written by an older version of the codec can still be read.
+ *
+ * @param <T>
+ */
+public abstract class KeyValueCodec<T> {
+  private final byte id;
+  private final byte version;
+  private final Class<T> type;
+
+  /**
+   * @param id the id of the codec, unique within a store
+   * @param version the current version of the codec
+   * @param type the class (and subclasses) encoded by this codec
+   */
+  protected KeyValueCodec(int id, int version, Class<T> type) {
+    this.id = (byte) id;
+    this.version = (byte) version;
+    this.type = type;
+  }
+
+  /**
+   * Write the object
+   *
+   * @param value
+   * @param out
+   * @throws IOException
+   */
+  public abstract void write(T value, DataOutput out) throws IOException;
+
+  /**
+   * Read an object written with the given version of this codec
+   *
+   * @param in
+   * @param version
+   * @return
+   * @throws IOException
+   */
+  public abstract T read(DataInput in, int version) throws IOException;
+
+  public byte getId() {
+    return id;
+  }
+
+  public byte getVersion() {
+    return version;
+  }
+
+  public Class<T> getType() {
+    return type;
+  }
+
+  /**
+   * Write a String which can be null
+   *
+   * @param s
+   * @param out
+   * @throws IOException
+   */
+  protected static void writeString(String s, DataOutput out) throws IOException {
+    out.writeBoolean(s != null);
+    if (s != null) {
+      out.writeUTF(s);
+    }
+  }
+
+  /**
+   * Read a String written with {@link #writeString(String, DataOutput)}
+   *
+   * @param in
+   * @return
+   * @throws IOException
+   */
+  protected static String readString(DataInput in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+}
@@ -1,7 +1,9 @@
 package de.mpg.imeji.logic.db.keyValue;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for Key/Value Store
@@ -42,6 +44,20 @@ public interface KeyValueStore {
    */
   public void delete(String key);
 
+  /**
+   * Put all key/values to the store with one commit
+   *
+   * @param values
+   */
+  public void putAll(Map<String, byte[]> values);
+
+  /**
+   * Delete all entries with one commit
+   *
+   * @param keys
+   */
+  public void deleteAll(Collection<String> keys);
+
   /**
    * Return a list of value which the key matches the pattern
    *
@@ -51,6 +67,14 @@ public interface KeyValueStore {
    */
   public List<byte[]> getList(String keyPattern);
 
+  /**
+   * Return the keys matching the pattern
+   *
+   * @param keyPattern
+   * @return
+   */
+  public List<String> getKeys(String keyPattern);
+
   /**
    * Start the Key/Value Store
    *
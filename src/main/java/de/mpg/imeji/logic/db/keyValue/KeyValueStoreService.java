@@ -2,10 +2,13 @@ package de.mpg.imeji.logic.db.keyValue;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,15 +28,41 @@ import de.mpg.imeji.exceptions.NotFoundException;
  */
 public class KeyValueStoreService {
   private static final Logger LOGGER = LogManager.getLogger(KeyValueStoreService.class);
+  /**
+   * First byte of a value written with a {@link KeyValueCodec}. Values written with the java
+   * serialization start with 0xAC (first byte of ObjectStreamConstants.STREAM_MAGIC)
+   */
+  private static final byte FORMAT_CODEC = 0x01;
   private final KeyValueStore store;
+  private final Map<Byte, KeyValueCodec<?>> codecsById = new HashMap<>();
+  private final Map<Class<?>, KeyValueCodec<?>> codecsByType = new HashMap<>();
   private static final Map<String, KeyValueStore> stores = new HashMap<>();
 
   public KeyValueStoreService(KeyValueStore store) {
+    this(store, new KeyValueCodec<?>[0]);
+  }
+
+  /**
+   * Create a service for a store which values are written with the given codecs. Values which can't
+   * be written by any codec are written with the java serialization. Values written with the java
+   * serialization before the codecs were added are rewritten with the codecs.
+   *
+   * @param store
+   * @param codecs
+   */
+  public KeyValueStoreService(KeyValueStore store, KeyValueCodec<?>... codecs) {
     this.store = store;
     if (!store.isStarted()) {
       store.start();
     }
     stores.put(store.getName(), store);
+    for (final KeyValueCodec<?> codec : codecs) {
+      codecsById.put(codec.getId(), codec);
+      codecsByType.put(codec.getType(), codec);
+    }
+    if (codecs.length > 0) {
+      migrate();
+    }
   }
 
   /**
@@ -119,6 +148,16 @@ public class KeyValueStoreService {
     return list;
   }
 
+  /**
+   * Return all keys matching the Key pattern (according to REGEX Rules)
+   *
+   * @param keyPattern
+   * @return
+   */
+  public List<String> getKeys(String keyPattern) {
+    return store.getKeys(keyPattern);
+  }
+
   /**
    * Put an object to the Key/Value Store
    *
@@ -134,6 +173,24 @@ public class KeyValueStoreService {
     }
   }
 
+  /**
+   * Put all objects to the Key/Value Store with one commit
+   *
+   * @param values
+   * @throws ImejiException
+   */
+  public void putAll(Map<String, ?> values) throws ImejiException {
+    try {
+      final Map<String, byte[]> serialized = new HashMap<>(values.size());
+      for (final Map.Entry<String, ?> e : values.entrySet()) {
+        serialized.put(e.getKey(), serialize(e.getValue()));
+      }
+      store.putAll(serialized);
+    } catch (final Exception e) {
+      throw new ImejiException("Error writing Data in Key/Value Store", e);
+    }
+  }
+
   /**
    * Delete the key/value by its key
    *
@@ -148,6 +205,48 @@ public class KeyValueStoreService {
     }
   }
 
+  /**
+   * Delete all keys with one commit
+   *
+   * @param keys
+   * @throws ImejiException
+   */
+  public void deleteAll(Collection<String> keys) throws ImejiException {
+    try {
+      store.deleteAll(keys);
+    } catch (final Exception e) {
+      throw new ImejiException("Error deleting Data " + store.getName(), e);
+    }
+  }
+
+  /**
+   * Rewrite all values written with the java serialization with the codecs of this service
+   *
+   * @return the number of rewritten values
+   */
+  public int migrate() {
+    final Map<String, byte[]> migrated = new HashMap<>();
+    for (final String key : store.getKeys(".*")) {
+      final byte[] value = store.get(key);
+      if (value == null || value.length == 0 || value[0] == FORMAT_CODEC) {
+        continue;
+      }
+      try {
+        final Object o = deserialize(value);
+        if (getCodec(o.getClass()) != null) {
+          migrated.put(key, serialize(o));
+        }
+      } catch (final Exception e) {
+        LOGGER.error("Error migrating value " + key + " of store " + store.getName(), e);
+      }
+    }
+    if (!migrated.isEmpty()) {
+      store.putAll(migrated);
+      LOGGER.info(migrated.size() + " values of store " + store.getName() + " migrated to binary codec");
+    }
+    return migrated.size();
+  }
+
   /**
    * Create the Object from its serialized byte representation
    *
@@ -156,7 +255,16 @@ public class KeyValueStoreService {
    * @throws IOException
    * @throws ClassNotFoundException
    */
-  private Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+  protected Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+    if (bytes.length > 0 && bytes[0] == FORMAT_CODEC) {
+      final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1));
+      final byte codecId = in.readByte();
+      final KeyValueCodec<?> codec = codecsById.get(codecId);
+      if (codec == null) {
+        throw new ClassNotFoundException("No codec with id " + codecId + " for store " + store.getName());
+      }
+      return codec.read(in, in.readByte());
+    }
     final ByteArrayInputStream in = new ByteArrayInputStream(bytes);
     final ObjectInputStream is = new ObjectInputStream(in);
     return is.readObject();
@@ -169,11 +277,38 @@ public class KeyValueStoreService {
    * @return
    * @throws IOException
    */
-  private byte[] serialize(Object obj) throws IOException {
+  @SuppressWarnings("unchecked")
+  protected byte[] serialize(Object obj) throws IOException {
     final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final KeyValueCodec<Object> codec = (KeyValueCodec<Object>) getCodec(obj.getClass());
+    if (codec != null) {
+      final DataOutputStream os = new DataOutputStream(out);
+      os.writeByte(FORMAT_CODEC);
+      os.writeByte(codec.getId());
+      os.writeByte(codec.getVersion());
+      codec.write(obj, os);
+      os.flush();
+      return out.toByteArray();
+    }
     final ObjectOutputStream os = new ObjectOutputStream(out);
     os.writeObject(obj);
     return out.toByteArray();
   }
 
+  /**
+   * Find the codec for this class or for one of its super classes
+   *
+   * @param c
+   * @return
+   */
+  private KeyValueCodec<?> getCodec(Class<?> c) {
+    for (Class<?> type = c; type != null; type = type.getSuperclass()) {
+      final KeyValueCodec<?> codec = codecsByType.get(type);
+      if (codec != null) {
+        return codec;
+      }
+    }
+    return null;
+  }
+
 }
@@ -2,7 +2,13 @@ package de.mpg.imeji.logic.db.keyValue.stores;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FileUtils;
 import org.mapdb.DB;
@@ -22,17 +28,42 @@ import de.mpg.imeji.logic.util.StringHelper;
  */
 public class HTreeMapStore implements KeyValueStore {
   public static final String STORE_FILENAME_PREFIX = "imeji_HTreeMap_";
-  protected static DB STORE;
+  private static final ScheduledExecutorService COMMIT_SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+    final Thread t = new Thread(r, "imeji-keyvalue-commit");
+    t.setDaemon(true);
+    return t;
+  });
+  protected DB store;
   protected HTreeMap<Object, Object> map;
   protected String name;
+  private final long commitDelay;
+  private final int maxPendingCommits;
+  private int pendingCommits = 0;
+  private ScheduledFuture<?> scheduledCommit;
 
   /**
-   * Basic HTreeMapStore without expiration date
+   * Basic HTreeMapStore without expiration date. Each write is committed immediately
    *
    * @param storeName
    */
   public HTreeMapStore(String name) {
+    this(name, 0, 1);
+  }
+
+  /**
+   * HTreeMapStore with group commit: writes are committed together, at the latest after commitDelay
+   * ms or after maxPendingCommits writes. Writes done since the last commit are lost if imeji
+   * crashes, so this should be used only for stores which can afford it.
+   *
+   * @param name
+   * @param commitDelay the max time (in ms) before a write is committed. If 0, each write is
+   *        committed immediately
+   * @param maxPendingCommits the max number of writes before a commit
+   */
+  public HTreeMapStore(String name, long commitDelay, int maxPendingCommits) {
     this.name = name;
+    this.commitDelay = commitDelay;
+    this.maxPendingCommits = maxPendingCommits;
   }
 
   @Override
@@ -48,13 +79,71 @@ public class HTreeMapStore implements KeyValueStore {
   @Override
   public void put(String key, byte[] value) {
     map.put(key, value);
-    STORE.commit();
+    commit();
+  }
+
+  @Override
+  public void putAll(Map<String, byte[]> values) {
+    if (!values.isEmpty()) {
+      map.putAll(values);
+      commit();
+    }
   }
 
   @Override
   public void delete(String key) {
     map.remove(key);
-    STORE.commit();
+    commit();
+  }
+
+  @Override
+  public void deleteAll(Collection<String> keys) {
+    if (!keys.isEmpty()) {
+      for (final String key : keys) {
+        map.remove(key);
+      }
+      commit();
+    }
+  }
+
+  /**
+   * Commit the changes: immediately if the store is durable, otherwise when the commit delay is
+   * reached or when there are too many pending changes
+   */
+  protected synchronized void commit() {
+    if (isDurable()) {
+      store.commit();
+      return;
+    }
+    pendingCommits++;
+    if (pendingCommits >= maxPendingCommits) {
+      flush();
+    } else if (scheduledCommit == null) {
+      scheduledCommit = COMMIT_SCHEDULER.schedule(this::flush, commitDelay, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Commit all pending changes
+   */
+  public synchronized void flush() {
+    if (scheduledCommit != null) {
+      scheduledCommit.cancel(false);
+      scheduledCommit = null;
+    }
+    if (pendingCommits > 0 && isStarted()) {
+      store.commit();
+    }
+    pendingCommits = 0;
+  }
+
+  /**
+   * True if each write is committed immediately
+   *
+   * @return
+   */
+  public boolean isDurable() {
+    return commitDelay <= 0 || maxPendingCommits <= 1;
   }
 
   @Override
@@ -68,25 +157,37 @@ public class HTreeMapStore implements KeyValueStore {
     return list;
   }
 
+  @Override
+  public List<String> getKeys(String keyPattern) {
+    final List<String> list = new ArrayList<>();
+    for (final Object key : map.keySet()) {
+      if (((String) key).matches(keyPattern)) {
+        list.add((String) key);
+      }
+    }
+    return list;
+  }
+
   @Override
   public void start() {
     final File f = new File(StringHelper.normalizePath(Imeji.tdbPath) + STORE_FILENAME_PREFIX + name);
-    STORE = DBMaker.newFileDB(f).make();
-    map = STORE.createHashMap(name).keySerializer(Serializer.STRING).makeOrGet();
+    store = DBMaker.newFileDB(f).make();
+    map = store.createHashMap(name).keySerializer(Serializer.STRING).makeOrGet();
 
   }
 
   @Override
   public synchronized void stop() {
-    if (!STORE.isClosed()) {
-      STORE.commit();
-      STORE.close();
+    flush();
+    if (!store.isClosed()) {
+      store.commit();
+      store.close();
     }
   }
 
   @Override
   public boolean isStarted() {
-    return STORE != null && map != null && !STORE.isClosed();
+    return store != null && map != null && !store.isClosed();
   }
 
   @Override
@@ -25,8 +25,8 @@ public class HTreeMapWithExpirationStore extends HTreeMapStore {
 
   @Override
   public void start() {
-    STORE = DBMaker.newFileDB(new File(StringHelper.normalizePath(Imeji.tdbPath) + STORE_FILENAME_PREFIX + name)).make();
-    map = STORE.createHashMap(name).keySerializer(Serializer.STRING).expireAfterWrite(this.expiration, TimeUnit.DAYS).makeOrGet();
+    store = DBMaker.newFileDB(new File(StringHelper.normalizePath(Imeji.tdbPath) + STORE_FILENAME_PREFIX + name)).make();
+    map = store.createHashMap(name).keySerializer(Serializer.STRING).expireAfterWrite(this.expiration, TimeUnit.DAYS).makeOrGet();
   }
 
 }
@@ -0,0 +1,148 @@
+package de.mpg.imeji.logic.db.keyValue.stores;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableSet;
+
+import org.mapdb.BTreeKeySerializer;
+import org.mapdb.Fun;
+import org.mapdb.Fun.Tuple2;
+import org.mapdb.Fun.Tuple3;
+import org.mapdb.HTreeMap;
+import org.mapdb.Serializer;
+
+import de.mpg.imeji.logic.db.keyValue.IndexedKeyValueStore;
+
+/**
+ * {@link HTreeMapStore} with secondary indexes stored in the same MapDB file:
+ * <ul>
+ * <li>a time index (time, key), ordered by time</li>
+ * <li>an attribute index (attribute, time, key), ordered by attribute and time</li>
+ * </ul>
+ * Both indexes are BTree sets, so that a time window is read with a range scan instead of iterating
+ * over all keys of the store
+ */
+public class IndexedHTreeMapStore extends HTreeMapStore implements IndexedKeyValueStore {
+  private NavigableSet<Tuple2<Long, String>> timeIndex;
+  private NavigableSet<Tuple3<String, Long, String>> attributeIndex;
+  /**
+   * key -> (time, attributes): the index entries of a key, needed to remove them
+   */
+  private HTreeMap<String, Tuple2<Long, ArrayList<String>>> indexEntries;
+
+  public IndexedHTreeMapStore(String name) {
+    super(name);
+  }
+
+  /**
+   * Indexed store with group commit (see {@link HTreeMapStore#HTreeMapStore(String, long, int)})
+   *
+   * @param name
+   * @param commitDelay
+   * @param maxPendingCommits
+   */
+  public IndexedHTreeMapStore(String name, long commitDelay, int maxPendingCommits) {
+    super(name, commitDelay, maxPendingCommits);
+  }
+
+  @Override
+  public void start() {
+    super.start();
+    timeIndex = store.createTreeSet(name + "_timeIndex").serializer(BTreeKeySerializer.TUPLE2).makeOrGet();
+    attributeIndex = store.createTreeSet(name + "_attributeIndex").serializer(BTreeKeySerializer.TUPLE3).makeOrGet();
+    indexEntries = store.createHashMap(name + "_indexEntries").keySerializer(Serializer.STRING).makeOrGet();
+  }
+
+  @Override
+  public synchronized void put(String key, byte[] value, long time, Collection<String> attributes) {
+    removeIndexEntries(key);
+    map.put(key, value);
+    timeIndex.add(Fun.t2(time, key));
+    for (final String attribute : attributes) {
+      attributeIndex.add(Fun.t3(attribute, time, key));
+    }
+    indexEntries.put(key, Fun.t2(time, new ArrayList<>(attributes)));
+    commit();
+  }
+
+  @Override
+  public synchronized void delete(String key) {
+    removeIndexEntries(key);
+    map.remove(key);
+    commit();
+  }
+
+  @Override
+  public synchronized void deleteAll(Collection<String> keys) {
+    if (keys.isEmpty()) {
+      return;
+    }
+    for (final String key : keys) {
+      removeIndexEntries(key);
+      map.remove(key);
+    }
+    commit();
+  }
+
+  @Override
+  public List<byte[]> getRange(long from, long to) {
+    final List<byte[]> list = new ArrayList<>();
+    if (from >= to - 1) {
+      return list;
+    }
+    for (final Tuple2<Long, String> entry : timeIndex.subSet(Fun.t2(from + 1, (String) null), true, Fun.t2(to, (String) null), false)) {
+      addValue(entry.b, list);
+    }
+    return list;
+  }
+
+  @Override
+  public List<byte[]> getRange(String attribute, long from, long to) {
+    final List<byte[]> list = new ArrayList<>();
+    if (from >= to - 1) {
+      return list;
+    }
+    for (final Tuple3<String, Long, String> entry : attributeIndex.subSet(Fun.t3(attribute, from + 1, (String) null), true,
+        Fun.t3(attribute, to, (String) null), false)) {
+      addValue(entry.c, list);
+    }
+    return list;
+  }
+
+  @Override
+  public List<String> getKeysBefore(long time) {
+    final List<String> keys = new ArrayList<>();
+    for (final Tuple2<Long, String> entry : timeIndex.headSet(Fun.t2(time, (String) null), false)) {
+      keys.add(entry.b);
+    }
+    return keys;
+  }
+
+  @Override
+  public boolean isIndexComplete() {
+    return indexEntries.size() == map.size();
+  }
+
+  /**
+   * Remove all index entries of a key
+   *
+   * @param key
+   */
+  private void removeIndexEntries(String key) {
+    final Tuple2<Long, ArrayList<String>> entries = indexEntries.remove(key);
+    if (entries != null) {
+      timeIndex.remove(Fun.t2(entries.a, key));
+      for (final String attribute : entries.b) {
+        attributeIndex.remove(Fun.t3(attribute, entries.a, key));
+      }
+    }
+  }
+
+  private void addValue(String key, List<byte[]> list) {
+    final byte[] value = (byte[]) map.get(key);
+    if (value != null) {
+      list.add(value);
+    }
+  }
+}
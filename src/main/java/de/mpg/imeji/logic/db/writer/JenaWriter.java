@@ -2,8 +2,6 @@ package de.mpg.imeji.logic.db.writer;
 
 import java.net.URI;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import org.apache.jena.Jena;
 import org.apache.jena.rdf.model.Model;
@@ -14,6 +12,7 @@ import de.mpg.imeji.j2j.transaction.ElementsTransaction;
 import de.mpg.imeji.j2j.transaction.OperationType;
 import de.mpg.imeji.j2j.transaction.ThreadedTransaction;
 import de.mpg.imeji.j2j.transaction.Transaction;
+import de.mpg.imeji.logic.concurrency.ImejiExecutors.Pool;
 import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.db.reader.JenaReader;
 import de.mpg.imeji.logic.model.User;
@@ -34,7 +33,6 @@ import de.mpg.imeji.logic.search.jenasearch.JenaCustomQueries;
  */
 public class JenaWriter implements Writer {
   private final String modelURI;
-  private static final ExecutorService WRITE_EXECUTOR = Executors.newSingleThreadExecutor();
 
   /**
    * Construct one {@link JenaWriter} for one {@link Model}
@@ -107,7 +105,7 @@ public class JenaWriter implements Writer {
   @Override
   public List<Object> editElements(List<ChangeMember> changeElements, User issuingUser) throws ImejiException {
     final ElementsTransaction multitypesTransaction = new ElementsTransaction(changeElements, issuingUser);
-    ThreadedTransaction.run(new ThreadedTransaction(multitypesTransaction, Imeji.tdbPath), WRITE_EXECUTOR);
+    ThreadedTransaction.run(new ThreadedTransaction(multitypesTransaction, Imeji.tdbPath), Imeji.getExecutor(Pool.JENA_WRITE));
     return multitypesTransaction.getResults();
   }
 
@@ -123,7 +121,7 @@ public class JenaWriter implements Writer {
   private List<Object> runCRUDTransaction(List<Object> objects, OperationType type, User user, boolean lazy) throws ImejiException {
     final CRUDTransaction crudTransaction = new CRUDTransaction(objects, type, user, modelURI, lazy);
     // Write Transaction needs to be added in a new Thread
-    ThreadedTransaction.run(new ThreadedTransaction(crudTransaction, Imeji.tdbPath), WRITE_EXECUTOR);
+    ThreadedTransaction.run(new ThreadedTransaction(crudTransaction, Imeji.tdbPath), Imeji.getExecutor(Pool.JENA_WRITE));
     return crudTransaction.getResults();
   }
 
@@ -11,8 +11,6 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
@@ -23,12 +21,14 @@ import de.mpg.imeji.exceptions.ImejiException;
 import de.mpg.imeji.exceptions.NotAllowedError;
 import de.mpg.imeji.exceptions.SearchIndexBulkFailureException;
 import de.mpg.imeji.exceptions.UnprocessableError;
+import de.mpg.imeji.logic.concurrency.ImejiExecutors.Pool;
 import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.db.indexretry.RetryIndex;
 import de.mpg.imeji.logic.db.indexretry.model.RetryBaseRequest;
 import de.mpg.imeji.logic.db.indexretry.model.RetryDeleteFromIndexRequest;
 import de.mpg.imeji.logic.db.indexretry.model.RetryIndexRequest;
-import de.mpg.imeji.logic.db.indexretry.queue.RetryQueue;
+import de.mpg.imeji.logic.db.indexretry.queue.IndexOutbox;
+import de.mpg.imeji.logic.db.indexretry.queue.IndexOutboxEntry;
 import de.mpg.imeji.logic.model.CollectionImeji;
 import de.mpg.imeji.logic.model.ContentVO;
 import de.mpg.imeji.logic.model.Item;
@@ -38,10 +38,13 @@ import de.mpg.imeji.logic.model.UserGroup;
 import de.mpg.imeji.logic.model.aspects.ChangeMember;
 import de.mpg.imeji.logic.search.Search.SearchObjectTypes;
 import de.mpg.imeji.logic.search.SearchIndexer;
+import de.mpg.imeji.logic.search.elasticsearch.ElasticIndexer;
 import de.mpg.imeji.logic.search.factory.SearchFactory;
 import de.mpg.imeji.logic.search.factory.SearchFactory.SEARCH_IMPLEMENTATIONS;
 import de.mpg.imeji.logic.security.authorization.Authorization;
 import de.mpg.imeji.logic.security.authorization.util.SecurityUtil;
+import de.mpg.imeji.logic.statistic.StorageUsageCounters;
+import de.mpg.imeji.logic.storage.index.FileIndex;
 import de.mpg.imeji.logic.util.ObjectsHelper;
 import de.mpg.imeji.logic.validation.ValidatorFactory;
 import de.mpg.imeji.logic.validation.impl.Validator;
@@ -58,7 +61,6 @@ public class WriterFacade {
   private static final Logger LOGGER = LogManager.getLogger(WriterFacade.class);
   private final Writer writer;
   private final SearchIndexer indexer;
-  private final ExecutorService executor = Executors.newCachedThreadPool();
 
   /**
    * Constructor without explicit model. Use when you want to write objects of multiple types within
@@ -111,7 +113,7 @@ public class WriterFacade {
     }
     checkSecurity(objects, user, true);
     validate(objects, Validator.Method.CREATE);
-    List<Object> createdObjects = writeAndIndex(new CreateTask(objects, user), new IndexTask());
+    List<Object> createdObjects = writeAndIndex(new CreateTask(objects, user), new IndexTask(), objects, user);
     return createdObjects;
 
   }
@@ -128,7 +130,7 @@ public class WriterFacade {
     }
     checkSecurity(objects, user, false);
     validate(objects, Validator.Method.DELETE);
-    writeAndIndex(new DeleteTask(objects, user), new DeleteIndexTask());
+    writeAndIndex(new DeleteTask(objects, user), new DeleteIndexTask(), objects, user);
 
   }
 
@@ -146,7 +148,7 @@ public class WriterFacade {
       checkSecurity(objects, user, false);
     }
     validate(objects, Validator.Method.UPDATE);
-    List<Object> updatedObjects = writeAndIndex(new UpdateTask(objects, user), new IndexTask());
+    List<Object> updatedObjects = writeAndIndex(new UpdateTask(objects, user), new IndexTask(), objects, user);
     return updatedObjects;
   }
 
@@ -163,7 +165,7 @@ public class WriterFacade {
     }
     throwAuthorizationException(user != null, SecurityUtil.authorization().administrate(user, Imeji.PROPERTIES.getBaseURI()),
         "Only admin can use update wihout validation");
-    List<Object> updatedObjects = writeAndIndex(new UpdateTask(imejiDataObjects, user), new IndexTask());
+    List<Object> updatedObjects = writeAndIndex(new UpdateTask(imejiDataObjects, user), new IndexTask(), imejiDataObjects, user);
     return updatedObjects;
   }
 
@@ -188,7 +190,7 @@ public class WriterFacade {
     Object valueToSet = changeMember.getValue();
     validate(valueToSet, Validator.Method.UPDATE);
 
-    List<Object> updatedObjects = writeAndIndex(new EditElementsTask(changeMember, user), new IndexTask());
+    List<Object> updatedObjects = writeAndIndex(new EditElementsTask(changeMember, user), new IndexTask(), imejiDataObjectList, user);
     return updatedObjects.get(0);
 
   }
@@ -204,6 +206,22 @@ public class WriterFacade {
    * @throws ImejiException
    */
   public List<Object> editElements(List<ChangeMember> changeElements, User user) throws ImejiException {
+    return editElements(changeElements, user, false);
+  }
+
+  /**
+   * Change the value of specific fields of a list of data objects in database and search index, in
+   * a single transaction. If partialIndex is true, only the workflow fields (status, license) of
+   * the changed items are updated in the search index: the items are not reindexed completely,
+   * unless the partial update fails and is retried by the {@link IndexOutbox}
+   * 
+   * @param changeElements
+   * @param user
+   * @param partialIndex
+   * @return
+   * @throws ImejiException
+   */
+  public List<Object> editElements(List<ChangeMember> changeElements, User user, boolean partialIndex) throws ImejiException {
 
     List<Object> imejiDataObjectList =
         changeElements.stream().map(dataObject -> dataObject.getImejiDataObject()).collect(Collectors.toList());
@@ -213,7 +231,15 @@ public class WriterFacade {
       validate(valueToSet, Validator.Method.UPDATE);
     }
 
-    List<Object> dataObjectsChangedInStore = writeToDatabase(new EditElementsTask(changeElements, user));
+    final List<IndexOutboxEntry> outboxEntries =
+        IndexOutbox.getInstance().beginWrite(toOutboxRequests(RetryIndexRequest.getRetryIndexRequests(imejiDataObjectList)), user);
+    List<Object> dataObjectsChangedInStore;
+    try {
+      dataObjectsChangedInStore = writeToDatabase(new EditElementsTask(changeElements, user), imejiDataObjectList);
+    } catch (ImejiException | RuntimeException e) {
+      IndexOutbox.getInstance().cancel(outboxEntries);
+      throw e;
+    }
 
     // copy latest object version of object in Jena to ElasticSearch:
     Map<Class<?>, List<Object>> typedObjectMap = ObjectsHelper.createTypedObjectMap(dataObjectsChangedInStore);
@@ -222,10 +248,11 @@ public class WriterFacade {
       List<Object> objectsToIndex = typedObjectMap.get(dataType);
       SearchObjectTypes typeToIndex = SearchObjectTypes.getFromDataType(dataType);
       SearchIndexer myIndexer = SearchFactory.create(typeToIndex, SEARCH_IMPLEMENTATIONS.ELASTIC).getIndexer();
-      IndexTask indexTask = new IndexTask();
+      SearchIndexTask indexTask = partialIndex && myIndexer instanceof ElasticIndexer ? new PartialIndexTask() : new IndexTask();
       indexTask.setIndexer(myIndexer);
-      indexInSearchIndexWithRetry(objectsToIndex, indexTask);
+      indexInSearchIndexWithRetry(objectsToIndex, indexTask, outboxEntries, user);
     }
+    endWrite(outboxEntries);
     return dataObjectsChangedInStore;
 
   }
@@ -265,22 +292,38 @@ public class WriterFacade {
 
   /**
    * Write a list of objects first to database then to search index or delete an object first from
-   * database and then from search index. Throws exception if writing to database fails.
+   * database and then from search index. Throws exception if writing to database fails. The objects
+   * are written to the {@link IndexOutbox} before the database commit, so that a crash after the
+   * commit can't lose their indexing.
    * 
    * @param databaseTask a create/delete/update task for objects in database
    * @param indexTask an index or delete task for indexing objects or deleting objects from search
    *        index
+   * @param objects the objects written by the database task
+   * @param user the user writing the objects
    * @return list of written/deleted objects
    * @throws ImejiException
    */
-  private List<Object> writeAndIndex(Callable<List<Object>> databaseTask, SearchIndexTask indexTask) throws ImejiException {
+  private List<Object> writeAndIndex(Callable<List<Object>> databaseTask, SearchIndexTask indexTask, List<Object> objects, User user)
+      throws ImejiException {
 
-    // 1. Write to database
-    List<Object> objectsChangedInDatabase = writeToDatabase(databaseTask);
+    // 1. Record the objects to index in the outbox
+    indexTask.setObjects(objects);
+    final List<IndexOutboxEntry> outboxEntries = beginWrite(indexTask, user);
 
-    // 2. If writing to database was successful and we got a result from database
+    // 2. Write to database
+    List<Object> objectsChangedInDatabase;
+    try {
+      objectsChangedInDatabase = writeToDatabase(databaseTask, objects);
+    } catch (ImejiException | RuntimeException e) {
+      IndexOutbox.getInstance().cancel(outboxEntries);
+      throw e;
+    }
+
+    // 3. If writing to database was successful and we got a result from database
     // (latest version of the written objects), index the objects (copy them) in search index 	  
-    indexInSearchIndexWithRetry(objectsChangedInDatabase, indexTask);
+    indexInSearchIndexWithRetry(objectsChangedInDatabase, indexTask, outboxEntries, user);
+    endWrite(outboxEntries);
 
     // finally return written objects
     return objectsChangedInDatabase;
@@ -290,69 +333,165 @@ public class WriterFacade {
    * Write a list of objects to database or delete a list of objects from database.
    * 
    * @param databaseTask
+   * @param objects the objects written by the task
    * @return list of objects currently (after writing) in database
    * @throws ImejiException
    */
-  private List<Object> writeToDatabase(Callable<List<Object>> databaseTask) throws ImejiException {
+  private List<Object> writeToDatabase(Callable<List<Object>> databaseTask, List<Object> objects) throws ImejiException {
 
     List<Object> objectsInDatabase = new ArrayList<>(0);
 
     // 1. Write to database
+    FileIndex.invalidate(objects);
+    final String counterMark = StorageUsageCounters.beginUpdate(objects);
     try {
-      objectsInDatabase = executor.submit(databaseTask).get();
+      objectsInDatabase = Imeji.getExecutor(Pool.WRITE).submit(databaseTask).get();
+      FileIndex.update(objectsInDatabase, databaseTask instanceof DeleteTask);
+      StorageUsageCounters.update(objectsInDatabase, databaseTask instanceof DeleteTask);
     } catch (ExecutionException | InterruptedException | CancellationException execExept) {
       if (execExept.getCause() instanceof ImejiException) {
         throw (ImejiException) execExept.getCause();
       } else {
         throw new ImejiException(execExept.getMessage());
       }
+    } finally {
+      StorageUsageCounters.endUpdate(counterMark);
     }
     return objectsInDatabase;
   }
 
 
   /**
-   * Access search index and index or delete documents. In case of failure, save documents in a
-   * retry queue in order to retry indexing/deleting later on.
+   * Access search index and index or delete documents. The documents have been written to the
+   * {@link IndexOutbox} before the database commit, and are removed from it once indexed: in case
+   * of failure, they stay in the outbox in order to retry indexing/deleting later on. In
+   * asynchronous mode, the documents are indexed in the background by the outbox, and the searches
+   * of the user wait until they are visible.
    * 
    * @param objectsToIndex
    * @param indexTask either IndexTask oder DeleteIndexTask
+   * @param writeEntries the entries written to the outbox before the database commit
+   * @param user the user writing the objects
    */
-  private void indexInSearchIndexWithRetry(List<Object> objectsToIndex, SearchIndexTask indexTask) {
+  private void indexInSearchIndexWithRetry(List<Object> objectsToIndex, SearchIndexTask indexTask, List<IndexOutboxEntry> writeEntries,
+      User user) {
 
     // 2. If writing to database was successful and we got a result from database
     // (latest version of the written objects), index the objects in (copy them to) search index 	  
     if (!objectsToIndex.isEmpty()) {
       indexTask.setObjects(objectsToIndex);
+      final List<IndexOutboxEntry> outboxEntries = getOutboxEntries(indexTask, writeEntries, user);
+      if (IndexOutbox.getInstance().isAsync() && !outboxEntries.isEmpty() && outboxEntries.size() == objectsToIndex.size()) {
+        IndexOutbox.getInstance().submit(outboxEntries);
+        return;
+      }
 
       try {
-        executor.submit(indexTask).get();
+        Imeji.getExecutor(Pool.INDEX).submit(indexTask).get();
+        IndexOutbox.getInstance().acknowledge(outboxEntries);
       } catch (ExecutionException executionException) {
         Throwable taskException = executionException.getCause();
         if (taskException instanceof IOException) {
           // SearchIndex is down, connection timed out
-          List<RetryBaseRequest> retryIndexList = indexTask.getRetryRequests();
-          RetryQueue.getInstance().addRetryIndexRequests(retryIndexList);
+          IndexOutbox.getInstance().retry(outboxEntries);
         } else if (taskException instanceof SearchIndexBulkFailureException) {
           // in a bulk request one or more operations failed
-          SearchIndexBulkFailureException failedException = (SearchIndexBulkFailureException) taskException;
-          List<RetryBaseRequest> retryRequests = failedException.getRetryRequests(objectsToIndex);
-          RetryQueue.getInstance().addRetryIndexRequests(retryRequests);
+          Set<String> failedIds = ((SearchIndexBulkFailureException) taskException).getFailedIds();
+          Map<Boolean, List<IndexOutboxEntry>> failed =
+              outboxEntries.stream().collect(Collectors.partitioningBy(e -> failedIds.contains(e.getRequest().getUri().toString())));
+          LOGGER.error(taskException.getMessage());
+          IndexOutbox.getInstance().acknowledge(failed.get(false));
+          IndexOutbox.getInstance().retry(failed.get(true));
         } else if (taskException instanceof UnprocessableError) {
           // there were problems transforming an object to a json representation, development error
           LOGGER.error("Could not parse data object to json representation", taskException);
+          IndexOutbox.getInstance().acknowledge(outboxEntries);
+        } else {
+          LOGGER.error("Error indexing objects, will retry", taskException);
+          IndexOutbox.getInstance().retry(outboxEntries);
         }
 
       } catch (InterruptedException | CancellationException interruptedOrCanceled) {
         // thread was interrupted before executing: retry all objects
-        List<RetryBaseRequest> retryIndexList = indexTask.getRetryRequests();
-        RetryQueue.getInstance().addRetryIndexRequests(retryIndexList);
+        IndexOutbox.getInstance().retry(outboxEntries);
+      }
+
+    }
+  }
 
+  /**
+   * Write the objects of the task to the {@link IndexOutbox}, before they are written to the
+   * database. Only the objects indexed in the search index are written
+   *
+   * @param indexTask
+   * @param user
+   * @return the entries written to the outbox
+   */
+  private List<IndexOutboxEntry> beginWrite(SearchIndexTask indexTask, User user) {
+    if (!(indexTask.taskIndexer instanceof ElasticIndexer)) {
+      return new ArrayList<>();
+    }
+    return IndexOutbox.getInstance().beginWrite(toOutboxRequests(indexTask.getRetryRequests()), user);
+  }
+
+  /**
+   * Return the entries of the outbox for the objects of the task. The objects which have not been
+   * written to the outbox before the database commit (for instance because they had no id yet) are
+   * written now
+   *
+   * @param indexTask
+   * @param writeEntries the entries written before the database commit
+   * @param user
+   * @return
+   */
+  private List<IndexOutboxEntry> getOutboxEntries(SearchIndexTask indexTask, List<IndexOutboxEntry> writeEntries, User user) {
+    if (!(indexTask.taskIndexer instanceof ElasticIndexer)) {
+      return new ArrayList<>();
+    }
+    final Map<URI, IndexOutboxEntry> byUri =
+        writeEntries.stream().collect(Collectors.toMap(e -> e.getRequest().getUri(), e -> e, (e1, e2) -> e2));
+    final List<IndexOutboxEntry> outboxEntries = new ArrayList<>();
+    final List<RetryBaseRequest> notWritten = new ArrayList<>();
+    for (final RetryBaseRequest request : toOutboxRequests(indexTask.getRetryRequests())) {
+      final IndexOutboxEntry entry = byUri.get(request.getUri());
+      if (entry != null) {
+        outboxEntries.add(entry);
+      } else {
+        notWritten.add(request);
       }
+    }
+    if (!notWritten.isEmpty()) {
+      outboxEntries.addAll(IndexOutbox.getInstance().append(notWritten, user));
+    }
+    return outboxEntries;
+  }
 
+  /**
+   * Release the entries written to the outbox before the database commit which have not been
+   * indexed, for instance because the database didn't return their object
+   *
+   * @param writeEntries
+   */
+  private void endWrite(List<IndexOutboxEntry> writeEntries) {
+    final List<IndexOutboxEntry> unused = writeEntries.stream().filter(IndexOutboxEntry::isWriting).collect(Collectors.toList());
+    if (!unused.isEmpty()) {
+      IndexOutbox.getInstance().cancel(unused);
     }
   }
 
+  /**
+   * Keep only the requests for the objects indexed in the search index
+   *
+   * @param requests
+   * @return
+   */
+  private static List<RetryBaseRequest> toOutboxRequests(List<RetryBaseRequest> requests) {
+    return requests.stream()
+        .filter(r -> SearchObjectTypes.getFromDataType(r instanceof RetryIndexRequest ? ((RetryIndexRequest) r).getObjectClass()
+            : ((RetryDeleteFromIndexRequest) r).getObjectToDelete().getClass()) != null)
+        .collect(Collectors.toList());
+  }
+
 
   /**
    * Index a list of objects in search index. In case of failure exception is thrown.
@@ -364,7 +503,7 @@ public class WriterFacade {
   private void indexInSearchIndex(List<Object> objectsToIndex, SearchIndexTask indexTask) throws ExecutionException, InterruptedException {
     if (!objectsToIndex.isEmpty()) {
       indexTask.setObjects(objectsToIndex);
-      executor.submit(indexTask).get();
+      Imeji.getExecutor(Pool.INDEX).submit(indexTask).get();
     }
 
   }
@@ -596,6 +735,25 @@ public class WriterFacade {
     }
   }
 
+  /**
+   * Task to update only the workflow fields of the indexed objects (see
+   * {@link ElasticIndexer#updatePartialBatch(List)}). The objects are reindexed completely if the
+   * task is retried
+   */
+  private class PartialIndexTask extends SearchIndexTask {
+
+    @Override
+    public Integer call() throws Exception {
+      ((ElasticIndexer) taskIndexer).updatePartialBatch(this.objects);
+      return 1;
+    }
+
+    @Override
+    public List<RetryBaseRequest> getRetryRequests() {
+      return RetryIndexRequest.getRetryIndexRequests(this.objects);
+    }
+  }
+
   /**
    * Task to delete objects from index.
    * 
@@ -2,6 +2,7 @@ package de.mpg.imeji.logic.events;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -9,10 +10,11 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 import de.mpg.imeji.exceptions.ImejiException;
-import de.mpg.imeji.logic.db.keyValue.KeyValueStoreService;
-import de.mpg.imeji.logic.db.keyValue.stores.HTreeMapStore;
+import de.mpg.imeji.logic.db.keyValue.IndexedKeyValueStoreService;
+import de.mpg.imeji.logic.db.keyValue.stores.IndexedHTreeMapStore;
 import de.mpg.imeji.logic.events.listener.ListenerService;
 import de.mpg.imeji.logic.events.messages.Message;
+import de.mpg.imeji.logic.events.messages.MessageCodec;
 import de.mpg.imeji.logic.events.messages.Message.MessageType;
 
 /**
@@ -22,10 +24,21 @@ import de.mpg.imeji.logic.events.messages.Message.MessageType;
  *
  */
 public class MessageService {
-  private static final KeyValueStoreService QUEUE = new KeyValueStoreService(new HTreeMapStore("messageQueue"));
+  /**
+   * Messages are written on the hot path of every upload: they are committed in groups (at the
+   * latest after 1s), a crash can therefore lose the messages of the last second
+   */
+  private static final IndexedKeyValueStoreService QUEUE =
+      new IndexedKeyValueStoreService(new IndexedHTreeMapStore("messageQueue", 1000, 500), new MessageCodec());
   private static Logger LOGGER = LogManager.getLogger(MessageService.class);
+  private static final String OBJECT_INDEX = "object:";
+  private static final String TYPE_INDEX = "type:";
   private final ListenerService subscriptionService = new ListenerService();
 
+  static {
+    indexMessages();
+  }
+
   /**
    * Register a new {@link Message}
    * 
@@ -33,7 +46,7 @@ public class MessageService {
    */
   public void add(Message message) {
     try {
-      QUEUE.put(message.getMessageId(), message);
+      QUEUE.put(message.getMessageId(), message, message.getTime(), getIndexes(message));
       subscriptionService.notifySubscribers(message);
     } catch (ImejiException e) {
       LOGGER.error("Error adding a new message", e);
@@ -41,18 +54,13 @@ public class MessageService {
   }
 
   /**
-   * Read and delete all messages for a specific object
+   * Read all messages for a specific object
    * 
    * @param objectId
    * @return
    */
   public List<Message> readForObject(String objectId) {
-    try {
-      return QUEUE.getList(objectId + ":*", Message.class);
-    } catch (ImejiException e) {
-      LOGGER.error("Error reading message queue for object " + objectId, e);
-    }
-    return new ArrayList<>();
+    return readForObject(objectId, Long.MIN_VALUE, Long.MAX_VALUE);
   }
 
   /**
@@ -62,7 +70,7 @@ public class MessageService {
    */
   public List<Message> readAll() {
     try {
-      return QUEUE.getList(".*", Message.class);
+      return QUEUE.getRange(Long.MIN_VALUE, Long.MAX_VALUE, Message.class);
     } catch (ImejiException e) {
       LOGGER.error("Error reading message queue ", e);
     }
@@ -77,8 +85,7 @@ public class MessageService {
    */
   public List<Message> readForObject(String objectId, long from, long to) {
     try {
-      return QUEUE.getList(objectId + ":.*", Message.class).stream().filter(m -> m.getTime() > from && m.getTime() < to)
-          .collect(Collectors.toList());
+      return QUEUE.getRange(OBJECT_INDEX + objectId, from, to, Message.class);
     } catch (ImejiException e) {
       LOGGER.error("Error reading message queue for object " + objectId, e);
     }
@@ -94,8 +101,18 @@ public class MessageService {
    * @return
    */
   public List<Message> retrieveByType(long from, long to, MessageType... types) {
-    return readAll().stream().filter(m -> Arrays.asList(types).contains(m.getType()) && m.getTime() > from && m.getTime() < to)
-        .collect(Collectors.toList());
+    final List<Message> messages = new ArrayList<>();
+    try {
+      for (final MessageType type : types) {
+        messages.addAll(QUEUE.getRange(TYPE_INDEX + type.name(), from, to, Message.class));
+      }
+      if (types.length > 1) {
+        messages.sort(Comparator.comparingLong(Message::getTime));
+      }
+    } catch (ImejiException e) {
+      LOGGER.error("Error reading message queue for types " + Arrays.toString(types), e);
+    }
+    return messages;
   }
 
   /**
@@ -105,10 +122,7 @@ public class MessageService {
    */
   public void deleteOldMessages(long timestamp) {
     try {
-      List<Message> allMessages = QUEUE.getList(".*", Message.class);
-      for (Message message : allMessages.stream().filter(m -> m.getTime() < timestamp).collect(Collectors.toList())) {
-        QUEUE.delete(message.getMessageId());
-      }
+      QUEUE.deleteBefore(timestamp);
     } catch (ImejiException e) {
       LOGGER.error("Error deleting message before " + timestamp, e);
     }
@@ -120,12 +134,38 @@ public class MessageService {
    * @param messages
    */
   public void deleteMessages(List<Message> messages) {
-    for (Message m : messages) {
-      try {
-        QUEUE.delete(m.getMessageId());
-      } catch (ImejiException e) {
-        LOGGER.error("Error deleting message from queue", e);
+    try {
+      QUEUE.deleteAll(messages.stream().map(Message::getMessageId).collect(Collectors.toList()));
+    } catch (ImejiException e) {
+      LOGGER.error("Error deleting message from queue", e);
+    }
+  }
+
+  /**
+   * The attributes a {@link Message} is indexed with
+   * 
+   * @param message
+   * @return
+   */
+  private static List<String> getIndexes(Message message) {
+    return Arrays.asList(OBJECT_INDEX + message.getObjectId(), TYPE_INDEX + message.getType().name());
+  }
+
+  /**
+   * Index the messages written before the queue had indexes
+   */
+  private static void indexMessages() {
+    if (QUEUE.isIndexComplete()) {
+      return;
+    }
+    try {
+      final List<Message> messages = QUEUE.getList(".*", Message.class);
+      LOGGER.info("Indexing " + messages.size() + " messages of the message queue");
+      for (final Message message : messages) {
+        QUEUE.put(message.getMessageId(), message, message.getTime(), getIndexes(message));
       }
+    } catch (ImejiException e) {
+      LOGGER.error("Error indexing the message queue", e);
     }
   }
 }
@@ -10,6 +10,7 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 import org.reflections.Reflections;
 
+import de.mpg.imeji.logic.concurrency.ImejiExecutors.Pool;
 import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.events.messages.Message;
 import de.mpg.imeji.logic.events.messages.Message.MessageType;
@@ -64,7 +65,7 @@ public class ListenerService {
    */
   public void notifySubscribers(Message message) {
     subscriptions.getOrDefault(message.getType(), new ArrayList<>()).stream().peek(s -> s.send(message))
-        .forEach(s -> Imeji.getEXECUTOR().submit(s));
+        .forEach(s -> Imeji.getExecutor(Pool.LISTENER).submit(s));
   }
 
   /**
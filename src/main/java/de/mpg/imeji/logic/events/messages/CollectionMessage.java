@@ -20,6 +20,12 @@ public class CollectionMessage extends Message {
     this.name = collection.getName();
   }
 
+  CollectionMessage(MessageType type, String objectId, long time, String id, String parent, String name) {
+    super(type, objectId, time, id);
+    this.parent = parent;
+    this.name = name;
+  }
+
   public String getParent() {
     return parent;
   }
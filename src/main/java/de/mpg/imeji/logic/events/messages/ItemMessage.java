@@ -19,6 +19,12 @@ public class ItemMessage extends Message {
     this.itemId = item.getIdString();
   }
 
+  ItemMessage(MessageType type, String objectId, long time, String id, String filename, String itemId) {
+    super(type, objectId, time, id);
+    this.filename = filename;
+    this.itemId = itemId;
+  }
+
   /**
    * @return the filename
    */
@@ -30,7 +30,7 @@ public abstract class Message implements Serializable {
   private final MessageType type;
   private final long time;
   private final String objectId;
-  private final String id = IdentifierUtil.newRandomId();
+  private final String id;
 
   /**
    * Create a Message for a collection
@@ -42,6 +42,29 @@ public abstract class Message implements Serializable {
     this.type = type;
     this.objectId = ObjectHelper.getId(objectUri);
     this.time = System.currentTimeMillis();
+    this.id = IdentifierUtil.newRandomId();
+  }
+
+  /**
+   * Restore a Message (see {@link MessageCodec})
+   * 
+   * @param type
+   * @param objectId
+   * @param time
+   * @param id
+   */
+  Message(MessageType type, String objectId, long time, String id) {
+    this.type = type;
+    this.objectId = objectId;
+    this.time = time;
+    this.id = id;
+  }
+
+  /**
+   * @return the random part of the message id
+   */
+  String getId() {
+    return id;
   }
 
   public String getMessageId() {
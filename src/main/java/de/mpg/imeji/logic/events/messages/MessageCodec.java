@@ -0,0 +1,101 @@
+package de.mpg.imeji.logic.events.messages;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import de.mpg.imeji.logic.db.keyValue.KeyValueCodec;
+import de.mpg.imeji.logic.events.messages.Message.MessageType;
+
+/**
+ * {@link KeyValueCodec} for all {@link Message}s. Each record starts with a tag for the class of
+ * the message, followed by the fields of {@link Message} and the fields of the subclass
+ */
+public class MessageCodec extends KeyValueCodec<Message> {
+  private static final int ID = 1;
+  private static final int VERSION = 1;
+  private static final byte COLLECTION = 1;
+  private static final byte MOVE_COLLECTION = 2;
+  private static final byte ITEM = 3;
+  private static final byte MOVE_ITEM = 4;
+  private static final byte SHARE = 5;
+  private static final byte STATEMENT = 6;
+
+  public MessageCodec() {
+    super(ID, VERSION, Message.class);
+  }
+
+  @Override
+  public void write(Message message, DataOutput out) throws IOException {
+    out.writeByte(getTag(message));
+    out.writeUTF(message.getType().name());
+    writeString(message.getObjectId(), out);
+    out.writeLong(message.getTime());
+    writeString(message.getId(), out);
+    if (message instanceof CollectionMessage) {
+      final CollectionMessage m = (CollectionMessage) message;
+      writeString(m.getParent(), out);
+      writeString(m.getName(), out);
+      if (message instanceof MoveCollectionMessage) {
+        writeString(((MoveCollectionMessage) message).getPreviousParent(), out);
+      }
+    } else if (message instanceof ItemMessage) {
+      final ItemMessage m = (ItemMessage) message;
+      writeString(m.getFilename(), out);
+      writeString(m.getItemId(), out);
+      if (message instanceof MoveItemMessage) {
+        writeString(((MoveItemMessage) message).getPreviousParent(), out);
+      }
+    } else if (message instanceof ShareMessage) {
+      final ShareMessage m = (ShareMessage) message;
+      writeString(m.getEmail(), out);
+      writeString(m.getGroupId(), out);
+    } else if (message instanceof StatementMessage) {
+      final StatementMessage m = (StatementMessage) message;
+      writeString(m.getIndex(), out);
+      writeString(m.getPreviousIndex(), out);
+    }
+  }
+
+  @Override
+  public Message read(DataInput in, int version) throws IOException {
+    final byte tag = in.readByte();
+    final MessageType type = MessageType.valueOf(in.readUTF());
+    final String objectId = readString(in);
+    final long time = in.readLong();
+    final String id = readString(in);
+    switch (tag) {
+      case COLLECTION:
+        return new CollectionMessage(type, objectId, time, id, readString(in), readString(in));
+      case MOVE_COLLECTION:
+        return new MoveCollectionMessage(type, objectId, time, id, readString(in), readString(in), readString(in));
+      case ITEM:
+        return new ItemMessage(type, objectId, time, id, readString(in), readString(in));
+      case MOVE_ITEM:
+        return new MoveItemMessage(type, objectId, time, id, readString(in), readString(in), readString(in));
+      case SHARE:
+        return new ShareMessage(type, objectId, time, id, readString(in), readString(in));
+      case STATEMENT:
+        return new StatementMessage(type, objectId, time, id, readString(in), readString(in));
+      default:
+        throw new IOException("Unknown message tag " + tag);
+    }
+  }
+
+  private byte getTag(Message message) throws IOException {
+    if (message instanceof MoveCollectionMessage) {
+      return MOVE_COLLECTION;
+    } else if (message instanceof CollectionMessage) {
+      return COLLECTION;
+    } else if (message instanceof MoveItemMessage) {
+      return MOVE_ITEM;
+    } else if (message instanceof ItemMessage) {
+      return ITEM;
+    } else if (message instanceof ShareMessage) {
+      return SHARE;
+    } else if (message instanceof StatementMessage) {
+      return STATEMENT;
+    }
+    throw new IOException("No codec for message " + message.getClass());
+  }
+}
@@ -18,6 +18,11 @@ public class MoveCollectionMessage extends CollectionMessage {
     this.previousParent = previousParent;
   }
 
+  MoveCollectionMessage(MessageType type, String objectId, long time, String id, String parent, String name, String previousParent) {
+    super(type, objectId, time, id, parent, name);
+    this.previousParent = previousParent;
+  }
+
   private static CollectionImeji setNewParent(CollectionImeji collection, String newParent) {
     collection.setCollection(ObjectHelper.getURI(CollectionImeji.class, newParent));
     return collection;
@@ -19,6 +19,11 @@ public class MoveItemMessage extends ItemMessage {
     this.previousParent = previousParent;
   }
 
+  MoveItemMessage(MessageType type, String objectId, long time, String id, String filename, String itemId, String previousParent) {
+    super(type, objectId, time, id, filename, itemId);
+    this.previousParent = previousParent;
+  }
+
   private static Item setNewParent(Item item, String newParent) {
     item.setCollection(ObjectHelper.getURI(CollectionImeji.class, newParent));
     return item;
@@ -42,6 +42,12 @@ public class ShareMessage extends Message {
     this.groupId = group.getId().toString();
   }
 
+  ShareMessage(MessageType type, String objectId, long time, String id, String email, String groupId) {
+    super(type, objectId, time, id);
+    this.email = email;
+    this.groupId = groupId;
+  }
+
   public String getEmail() {
     return email;
   }
@@ -25,6 +25,12 @@ public class StatementMessage extends Message {
     this.previousIndex = previousIndex;
   }
 
+  StatementMessage(MessageType type, String objectId, long time, String id, String index, String previousIndex) {
+    super(type, objectId, time, id);
+    this.index = index;
+    this.previousIndex = previousIndex;
+  }
+
   /**
    * @return the previousIndex
    */
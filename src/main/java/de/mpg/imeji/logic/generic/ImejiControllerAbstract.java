@@ -1,12 +1,16 @@
 package de.mpg.imeji.logic.generic;
 
+import java.net.URI;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.function.Function;
 
 import de.mpg.imeji.exceptions.ImejiException;
 import de.mpg.imeji.exceptions.NotSupportedMethodException;
 import de.mpg.imeji.exceptions.UnprocessableError;
 import de.mpg.imeji.exceptions.WorkflowException;
+import de.mpg.imeji.logic.batch.CollectionWorkflowJob;
 import de.mpg.imeji.logic.concurrency.Locks;
 import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.model.ImejiLicenses;
@@ -168,6 +172,24 @@ public abstract class ImejiControllerAbstract<T> {
     WORKFLOW_MANAGER.prepareUpdate(properties, user);
   }
 
+  /**
+   * Throw an {@link UnprocessableError} if one of the collections of the objects is being released
+   * or withdrawn
+   *
+   * @param objects
+   * @param collectionOf the collection of an object
+   * @throws UnprocessableError
+   */
+  protected void checkNoWorkflowRunning(List<T> objects, Function<T, URI> collectionOf) throws UnprocessableError {
+    final LinkedHashSet<URI> collectionIds = new LinkedHashSet<>();
+    for (final T object : objects) {
+      collectionIds.add(collectionOf.apply(object));
+    }
+    for (final URI collectionId : collectionIds) {
+      CollectionWorkflowJob.checkNotRunning(collectionId);
+    }
+  }
+
   /**
    * True if at least one {@link Item} is locked by another {@link User}
    *
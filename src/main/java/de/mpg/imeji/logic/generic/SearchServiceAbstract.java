@@ -4,11 +4,10 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import de.mpg.imeji.exceptions.ImejiException;
+import de.mpg.imeji.logic.concurrency.ImejiExecutors.Pool;
 import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.model.User;
 import de.mpg.imeji.logic.search.Search;
@@ -27,7 +26,6 @@ import de.mpg.imeji.logic.search.model.SortCriterion;
  */
 public abstract class SearchServiceAbstract<T> extends ImejiServiceAbstract {
   protected final Search search;
-  private final ExecutorService executor = Executors.newCachedThreadPool();
 
   public SearchServiceAbstract(SearchObjectTypes type) {
     super();
@@ -79,7 +77,7 @@ public abstract class SearchServiceAbstract<T> extends ImejiServiceAbstract {
    * @return
    */
   public Future<List<T>> retrieveAsync(List<String> ids, User user) {
-    return executor.submit(new RetrieveJob(ids, user));
+    return Imeji.getExecutor(Pool.SEARCH).submit(new RetrieveJob(ids, user));
   }
 
   /**
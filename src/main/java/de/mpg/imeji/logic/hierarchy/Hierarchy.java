@@ -1,28 +1,45 @@
 package de.mpg.imeji.logic.hierarchy;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Objects;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.search.jenasearch.ImejiSPARQL;
 import de.mpg.imeji.logic.search.jenasearch.JenaCustomQueries;
 
 /**
- * The complete Hierarchy of imeji
- * 
+ * The complete Hierarchy of imeji. <br/>
+ * A Hierarchy is immutable: a change of the hierarchy creates a new Hierarchy (see
+ * {@link #withParent(String, String)} and {@link #without(String)}), which can be published without
+ * locking the readers. <br/>
+ * The collections are numbered in the order of a depth-first traversal of the hierarchy: the
+ * subcollections of a collection are all collections numbered between its enter and its exit
+ * position. A subcollection is therefore found in constant time, and all subcollections are read
+ * without recursion
+ *
  * @author saquet
  *
  */
 public class Hierarchy {
-  private Map<String, List<String>> tree = new HashMap<>();
-  private Map<String, Node> nodes = new HashMap<>();
+  private static final Logger LOGGER = LogManager.getLogger(Hierarchy.class);
+  private final Map<String, List<String>> tree;
+  private final Map<String, Node> nodes;
+  private final Map<String, Position> positions;
+  private final List<String> preorder;
 
   /**
    * A node of the Hierarchy
-   * 
+   *
    * @author saquet
    *
    */
@@ -37,7 +54,7 @@ public class Hierarchy {
 
     /**
      * The uri of the parent
-     * 
+     *
      * @return
      */
     public String getParent() {
@@ -46,7 +63,7 @@ public class Hierarchy {
 
     /**
      * The uri of the Child
-     * 
+     *
      * @return
      */
     public String getChild() {
@@ -55,20 +72,216 @@ public class Hierarchy {
   }
 
   /**
-   * Load the complete Hierarchy
+   * The position of a collection in the depth-first traversal of the hierarchy
+   */
+  private static class Position {
+    private final int enter;
+    private int exit;
+    private final int depth;
+
+    private Position(int enter, int depth) {
+      this.enter = enter;
+      this.depth = depth;
+    }
+  }
+
+  /**
+   * Create an empty Hierarchy
+   */
+  public Hierarchy() {
+    this(Collections.emptyMap());
+  }
+
+  /**
+   * Create the Hierarchy of the relations child -> parent
+   *
+   * @param parents key: the uri of a collection, value: the uri of its parent
    */
-  public void init() {
+  private Hierarchy(Map<String, String> parents) {
+    final Map<String, Node> nodeMap = new HashMap<>(parents.size() * 2);
+    final Map<String, List<String>> treeMap = new HashMap<>();
+    for (final Map.Entry<String, String> e : parents.entrySet()) {
+      nodeMap.put(e.getKey(), new Node(e.getKey(), e.getValue()));
+      treeMap.computeIfAbsent(e.getValue(), k -> new ArrayList<>()).add(e.getKey());
+    }
+    treeMap.replaceAll((k, v) -> Collections.unmodifiableList(v));
+    this.nodes = Collections.unmodifiableMap(nodeMap);
+    this.tree = Collections.unmodifiableMap(treeMap);
+    this.positions = new HashMap<>(treeMap.size() + nodeMap.size());
+    this.preorder = new ArrayList<>(treeMap.size() + nodeMap.size());
+    for (final String root : treeMap.keySet()) {
+      if (!nodeMap.containsKey(root)) {
+        traverse(root);
+      }
+    }
+    if (nodeMap.keySet().stream().anyMatch(c -> !positions.containsKey(c))) {
+      LOGGER.error("The hierarchy of the collections contains a cycle: some collections are ignored");
+    }
+  }
+
+  /**
+   * Number the collections of the subtree of the root in depth-first order
+   *
+   * @param root
+   */
+  private void traverse(String root) {
+    final Deque<String> stack = new ArrayDeque<>();
+    positions.put(root, new Position(preorder.size(), 0));
+    preorder.add(root);
+    stack.push(root);
+    final Deque<Integer> childIndexes = new ArrayDeque<>();
+    childIndexes.push(0);
+    while (!stack.isEmpty()) {
+      final String current = stack.peek();
+      final List<String> children = tree.getOrDefault(current, Collections.emptyList());
+      final int i = childIndexes.pop();
+      if (i < children.size()) {
+        childIndexes.push(i + 1);
+        final String child = children.get(i);
+        if (!positions.containsKey(child)) {
+          positions.put(child, new Position(preorder.size(), stack.size()));
+          preorder.add(child);
+          stack.push(child);
+          childIndexes.push(0);
+        }
+      } else {
+        positions.get(stack.pop()).exit = preorder.size();
+      }
+    }
+  }
+
+  /**
+   * Load the complete Hierarchy from the database
+   *
+   * @return
+   */
+  public static Hierarchy load() {
     final List<String> l = ImejiSPARQL.exec(JenaCustomQueries.selectAllSubcollections(), Imeji.collectionModel);
-    final List<Node> nodeList = l.stream().map(s -> new Node(s.split("\\|")[0], s.split("\\|")[1])).collect(Collectors.toList());
-    nodes = nodeList.stream().collect(Collectors.toMap(Node::getChild, Function.identity()));
-    tree = nodeList.stream().collect(Collectors.groupingBy(Node::getParent, Collectors.mapping(Node::getChild, Collectors.toList())));
+    final Map<String, String> parents = new HashMap<>(l.size() * 2);
+    for (final String row : l) {
+      final int separator = row.indexOf('|');
+      if (separator > 0) {
+        parents.put(row.substring(0, separator), row.substring(separator + 1));
+      }
+    }
+    return new Hierarchy(parents);
+  }
+
+  /**
+   * Return a new Hierarchy where the collection has this parent
+   *
+   * @param collectionUri
+   * @param parentUri the new parent, or null if the collection has no parent
+   * @return
+   */
+  public Hierarchy withParent(String collectionUri, String parentUri) {
+    final Node node = nodes.get(collectionUri);
+    if (Objects.equals(node != null ? node.getParent() : null, parentUri)) {
+      return this;
+    }
+    if (parentUri != null && (parentUri.equals(collectionUri) || isChildOf(parentUri, collectionUri))) {
+      LOGGER.error("Collection " + collectionUri + " can not be a child of its subcollection " + parentUri);
+      return this;
+    }
+    final Map<String, String> parents = toParentMap();
+    if (parentUri != null) {
+      parents.put(collectionUri, parentUri);
+    } else {
+      parents.remove(collectionUri);
+    }
+    return new Hierarchy(parents);
+  }
+
+  /**
+   * Return a new Hierarchy without the collection and its subcollections
+   *
+   * @param collectionUri
+   * @return
+   */
+  public Hierarchy without(String collectionUri) {
+    if (!positions.containsKey(collectionUri)) {
+      return this;
+    }
+    final Map<String, String> parents = toParentMap();
+    parents.remove(collectionUri);
+    for (final String subcollection : getSubcollections(collectionUri)) {
+      parents.remove(subcollection);
+    }
+    return new Hierarchy(parents);
+  }
+
+  /**
+   * Return all subcollections of the collection, in depth-first order
+   *
+   * @param collectionUri
+   * @return a new modifiable list
+   */
+  public List<String> getSubcollections(String collectionUri) {
+    final Position p = positions.get(collectionUri);
+    return p != null ? new ArrayList<>(preorder.subList(p.enter + 1, p.exit)) : new ArrayList<>();
+  }
+
+  /**
+   * True if the collection is a subcollection (at any level) of the parent
+   *
+   * @param collectionUri
+   * @param parentUri
+   * @return
+   */
+  public boolean isChildOf(String collectionUri, String parentUri) {
+    final Position c = positions.get(collectionUri);
+    final Position p = positions.get(parentUri);
+    return c != null && p != null && p.enter < c.enter && c.exit <= p.exit;
+  }
+
+  /**
+   * Return all parents of the collection, the top collection first
+   *
+   * @param collectionUri
+   * @return a new modifiable list
+   */
+  public List<String> getParents(String collectionUri) {
+    final Position p = positions.get(collectionUri);
+    if (p == null || p.depth == 0) {
+      return new ArrayList<>();
+    }
+    final String[] parents = new String[p.depth];
+    String current = collectionUri;
+    for (int i = p.depth - 1; i >= 0; i--) {
+      current = nodes.get(current).getParent();
+      parents[i] = current;
+    }
+    return new ArrayList<>(Arrays.asList(parents));
+  }
+
+  /**
+   * Return the top collection of the collection, or the collection itself if it has no parent
+   *
+   * @param collectionUri
+   * @return
+   */
+  public String getTopParent(String collectionUri) {
+    final Position p = positions.get(collectionUri);
+    String current = collectionUri;
+    for (int i = p != null ? p.depth : 0; i > 0; i--) {
+      current = nodes.get(current).getParent();
+    }
+    return current;
+  }
+
+  private Map<String, String> toParentMap() {
+    final Map<String, String> parents = new HashMap<>(nodes.size() * 2);
+    for (final Node n : nodes.values()) {
+      parents.put(n.getChild(), n.getParent());
+    }
+    return parents;
   }
 
   /**
    * Return the Tree of the hierarchy:
    * <li>key: the uri of a collection which has child(s)</li>
    * <li>value: The list of all childs of the collection
-   * 
+   *
    * @return
    */
   public Map<String, List<String>> getTree() {
@@ -79,7 +292,7 @@ public class Hierarchy {
    * Map of all nodes (i.e. parent <-> child relation):
    * <li>key: the uri of the child</li>
    * <li>value: the Node</li>
-   * 
+   *
    * @return
    */
   public Map<String, Node> getNodes() {
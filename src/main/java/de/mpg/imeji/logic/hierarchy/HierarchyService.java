@@ -6,7 +6,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.hierarchy.Hierarchy.Node;
@@ -14,6 +13,7 @@ import de.mpg.imeji.logic.model.CollectionImeji;
 import de.mpg.imeji.logic.model.Item;
 import de.mpg.imeji.logic.search.jenasearch.ImejiSPARQL;
 import de.mpg.imeji.logic.search.jenasearch.JenaCustomQueries;
+import de.mpg.imeji.logic.security.authorization.ReadableCollectionsCache;
 import de.mpg.imeji.logic.util.StringHelper;
 
 /**
@@ -25,21 +25,40 @@ import de.mpg.imeji.logic.util.StringHelper;
 public class HierarchyService implements Serializable {
   private static final long serialVersionUID = -3479895793901732353L;
 
-  private static Hierarchy hierarchy = new Hierarchy();
+  /**
+   * The current Hierarchy. A Hierarchy is never changed: a new one is published for each change
+   */
+  private static volatile Hierarchy hierarchy = new Hierarchy();
   private Map<String, String> collectionsNameMap = new HashMap<>();
 
-  public HierarchyService() {
-    if (hierarchy == null) {
-      hierarchy = new Hierarchy();
-      hierarchy.init();
-    }
+  /**
+   * Reload the hierarchy from the database
+   */
+  public static synchronized void reloadHierarchy() {
+    hierarchy = Hierarchy.load();
+    ReadableCollectionsCache.invalidateAll();
   }
 
   /**
-   * Reload the hierarchy
+   * Update the hierarchy after a collection has been created or moved, without reloading it
+   * 
+   * @param collectionUri
+   * @param parentUri the parent of the collection, or null if the collection has no parent
    */
-  public static void reloadHierarchy() {
-    hierarchy.init();
+  public static synchronized void setParent(String collectionUri, String parentUri) {
+    hierarchy = hierarchy.withParent(collectionUri, parentUri);
+    ReadableCollectionsCache.invalidateAll();
+  }
+
+  /**
+   * Update the hierarchy after a collection and its subcollections have been deleted, without
+   * reloading it
+   * 
+   * @param collectionUri
+   */
+  public static synchronized void removeCollection(String collectionUri) {
+    hierarchy = hierarchy.without(collectionUri);
+    ReadableCollectionsCache.invalidateAll();
   }
 
   /**
@@ -58,10 +77,7 @@ public class HierarchyService implements Serializable {
    * @return
    */
   public List<String> findAllSubcollections(String collectionUri) {
-    return hierarchy.getTree().get(collectionUri) != null
-        ? hierarchy.getTree().get(collectionUri).stream().flatMap(s -> Stream.concat(Stream.of(s), findAllSubcollections(s).stream()))
-            .collect(Collectors.toList())
-        : new ArrayList<>();
+    return hierarchy.getSubcollections(collectionUri);
   }
 
   /**
@@ -84,7 +100,7 @@ public class HierarchyService implements Serializable {
    * @return
    */
   public boolean isChildOf(String collectionId, String parentId) {
-    return findAllSubcollections(parentId).contains(collectionId);
+    return hierarchy.isChildOf(collectionId, parentId);
   }
 
   /**
@@ -111,13 +127,7 @@ public class HierarchyService implements Serializable {
    * @return
    */
   public List<String> findAllParents(String uri) {
-    List<String> l = new ArrayList<>();
-    String parent = getParent(uri);
-    if (parent != null) {
-      l.addAll(findAllParents(parent));
-      l.add(parent);
-    }
-    return l;
+    return hierarchy.getParents(uri);
   }
 
   /**
@@ -167,11 +177,7 @@ public class HierarchyService implements Serializable {
    * @return
    */
   public String getLastParent(String firstParent) {
-    Node parentNode = hierarchy.getNodes().get(firstParent);
-    if (parentNode != null) {
-      return getLastParent(parentNode.getParent());
-    }
-    return firstParent;
+    return hierarchy.getTopParent(firstParent);
   }
 
   /**
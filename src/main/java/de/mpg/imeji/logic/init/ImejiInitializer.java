@@ -7,6 +7,7 @@ import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import de.mpg.imeji.logic.storage.Storage;
 import de.mpg.imeji.logic.util.StorageUtils;
@@ -28,13 +29,15 @@ import org.apache.jena.tdb.sys.TDBMaker;
 import de.mpg.imeji.exceptions.AlreadyExistsException;
 import de.mpg.imeji.exceptions.ImejiException;
 import de.mpg.imeji.j2j.annotations.j2jModel;
+import de.mpg.imeji.logic.batch.CollectionWorkflowJob;
 import de.mpg.imeji.logic.batch.executors.NightlyExecutor;
+import de.mpg.imeji.logic.concurrency.ImejiExecutors;
 import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.config.ImejiConfiguration;
 import de.mpg.imeji.logic.config.emailcontent.ImejiEmailContentConfiguration;
 import de.mpg.imeji.logic.config.util.PropertyReader;
 import de.mpg.imeji.logic.core.statement.StatementService;
-import de.mpg.imeji.logic.db.indexretry.queue.RetryQueue;
+import de.mpg.imeji.logic.db.indexretry.queue.IndexOutbox;
 import de.mpg.imeji.logic.db.keyValue.KeyValueStoreService;
 import de.mpg.imeji.logic.events.listener.ListenerService;
 import de.mpg.imeji.logic.hierarchy.HierarchyService;
@@ -69,6 +72,8 @@ public class ImejiInitializer {
    * Executes jobs over night
    */
   private static NightlyExecutor NIGHTLY_EXECUTOR = new NightlyExecutor();
+  // Max time (in s) to wait for the running tasks on shutdown
+  private static final long EXECUTORS_SHUTDOWN_TIMEOUT = 30;
 
   /**
    * Initialize the {@link Jena} database according to imeji.properties<br/>
@@ -131,7 +136,8 @@ public class ImejiInitializer {
     initDefaultStatements();
     new ListenerService().init();
     HierarchyService.reloadHierarchy();
-    initRetryQueue();
+    initIndexOutbox();
+    CollectionWorkflowJob.resumeAll();
   }
 
   /**
@@ -274,12 +280,11 @@ public class ImejiInitializer {
 
 
   /**
-   * In case imeji was shut down while retry queue was still running, the requests were saved to
-   * file. Re-start retry queue.
+   * Index the objects which were written to the database but not to the search index when imeji was
+   * shut down (or crashed)
    */
-  public static void initRetryQueue() {
-    RetryQueue retryQueue = RetryQueue.getInstance();
-    retryQueue.checkRetryQueueOnInitialization();
+  public static void initIndexOutbox() {
+    IndexOutbox.getInstance().start();
   }
 
 
@@ -288,13 +293,9 @@ public class ImejiInitializer {
    */
   public static void shutdown() {
     LOGGER.info("Shutting down thread executors...");
-    Imeji.getEXECUTOR().shutdown();
-    Imeji.getCONTENT_EXTRACTION_EXECUTOR().shutdown();
-    Imeji.getINTERNAL_STORAGE_EXECUTOR().shutdown();
     NIGHTLY_EXECUTOR.stop();
-    LOGGER.info("imeji executor shutdown? " + Imeji.getEXECUTOR().isShutdown());
-    LOGGER.info("content extraction executor shutdown? " + Imeji.getCONTENT_EXTRACTION_EXECUTOR().isShutdown());
-    LOGGER.info("internal executor shutdown shutdown? " + Imeji.getINTERNAL_STORAGE_EXECUTOR().isShutdown());
+    IndexOutbox.getInstance().stop();
+    ImejiExecutors.shutdownAll(EXECUTORS_SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
     LOGGER.info("nightly executor shutdown shutdown? " + NIGHTLY_EXECUTOR.isShutdown());
     ElasticInitializer.shutdown();
     KeyValueStoreService.stopAllStores();
@@ -328,8 +329,6 @@ public class ImejiInitializer {
     final AlarmClock alarmClock = AlarmClock.get();
     alarmClock.release();
     LOGGER.info("done");
-    LOGGER.info("Shut down retry queue");
-    RetryQueue.getInstance().shutDown();
   }
 
   /**
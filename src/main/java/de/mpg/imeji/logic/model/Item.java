@@ -137,6 +137,16 @@ public class Item extends Properties implements Serializable, CollectionElement,
    * @return human readable file size
    */
   public String getFileSizeHumanReadable() {
+    return getFileSizeHumanReadable(fileSize);
+  }
+
+  /**
+   * Format a file size as the file size of an item
+   *
+   * @param fileSize
+   * @return
+   */
+  public static String getFileSizeHumanReadable(long fileSize) {
     return FileUtils.byteCountToDisplaySize(fileSize);
   }
 
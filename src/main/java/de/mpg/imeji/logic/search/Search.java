@@ -9,6 +9,8 @@ import de.mpg.imeji.logic.model.Statement;
 import de.mpg.imeji.logic.model.User;
 import de.mpg.imeji.logic.model.UserGroup;
 import de.mpg.imeji.logic.search.facet.model.Facet;
+import de.mpg.imeji.logic.search.model.SearchCursor;
+import de.mpg.imeji.logic.search.model.SearchProjection;
 import de.mpg.imeji.logic.search.model.SearchQuery;
 import de.mpg.imeji.logic.search.model.SearchResult;
 import de.mpg.imeji.logic.search.model.SortCriterion;
@@ -130,6 +132,43 @@ public interface Search {
   public SearchResult searchWithFacetsAndMultiLevelSorting(SearchQuery query, List<SortCriterion> sortCriteria, User user, String folderUri,
       int from, int size, boolean includeSubcollections);
 
+  /**
+   * Search for the page of imeji objects following the position of the cursor. The
+   * {@link SearchResult} contains the cursor of the next page (null after the last page): reading
+   * page n costs the same as reading page 1
+   *
+   * @param query
+   * @param sortCriteria
+   * @param user
+   * @param folderUri
+   * @param cursor the position of the page, {@link SearchCursor#start()} for the first page
+   * @param size
+   * @param addFacets
+   * @param includeSubcollections
+   * @return
+   */
+  public SearchResult searchWithCursor(SearchQuery query, List<SortCriterion> sortCriteria, User user, String folderUri,
+      SearchCursor cursor, int size, boolean addFacets, boolean includeSubcollections);
+
+  /**
+   * Search for imeji objects and return, for each result, the fields of the
+   * {@link SearchProjection}. All other search methods return only the ids of the results
+   *
+   * @param query
+   * @param sortCriteria
+   * @param user
+   * @param folderUri
+   * @param cursor the position of the page, or null to search from the offset
+   * @param offset
+   * @param size
+   * @param addFacets
+   * @param includeSubcollections
+   * @param projection
+   * @return
+   */
+  public SearchResult searchWithProjection(SearchQuery query, List<SortCriterion> sortCriteria, User user, String folderUri,
+      SearchCursor cursor, int offset, int size, boolean addFacets, boolean includeSubcollections, SearchProjection projection);
+
   /**
    * Get the {@link SearchIndexer} for this {@link Search} implementation
    *
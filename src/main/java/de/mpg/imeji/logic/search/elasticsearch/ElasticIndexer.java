@@ -1,6 +1,7 @@
 package de.mpg.imeji.logic.search.elasticsearch;
 
 import co.elastic.clients.elasticsearch._types.ErrorCause;
+import co.elastic.clients.elasticsearch._types.Refresh;
 import co.elastic.clients.elasticsearch._types.VersionType;
 import co.elastic.clients.elasticsearch.core.*;
 import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
@@ -17,12 +18,15 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.mpg.imeji.exceptions.SearchIndexBulkFailureException;
 import de.mpg.imeji.exceptions.UnprocessableError;
+import de.mpg.imeji.logic.config.util.PropertyReader;
 import de.mpg.imeji.logic.model.*;
 import de.mpg.imeji.logic.model.aspects.ResourceLastModified;
 import de.mpg.imeji.logic.search.SearchIndexer;
+import de.mpg.imeji.logic.search.elasticsearch.ElasticService.ElasticIndices;
 import de.mpg.imeji.logic.search.elasticsearch.model.*;
 import de.mpg.imeji.logic.search.elasticsearch.script.CollectionPostIndexScript;
 import de.mpg.imeji.logic.search.elasticsearch.script.ItemPostIndexScript;
+import de.mpg.imeji.logic.search.elasticsearch.script.misc.CollectionFields;
 import de.mpg.imeji.logic.util.StringHelper;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpStatus;
@@ -33,7 +37,10 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -47,12 +54,53 @@ public class ElasticIndexer implements SearchIndexer {
   private static final Logger LOGGER = LogManager.getLogger(ElasticIndexer.class);
   private static final ObjectMapper mapper = new ObjectMapper();
   private final String indexName;
+  private final RefreshPolicy refreshPolicy;
   private final String dataType = "_doc";
   // private final ElasticAnalysers analyser;
   private String mappingFile = "elasticsearch/Elastic_TYPE_Mapping.json";
 
   /**
-   * Create an instance for writing data to the ElasticSearch server
+   * Defines when the changes written by an {@link ElasticIndexer} become visible to searches
+   */
+  public enum RefreshPolicy {
+    /**
+     * Refresh the index after each bulk request: changes are visible when the request returns. Very
+     * expensive, since each refresh creates a new segment.
+     */
+    IMMEDIATE,
+    /**
+     * The bulk request returns only when the next scheduled refresh has made the changes visible
+     * (refresh=wait_for). Read-your-writes without forcing a refresh.
+     */
+    WAIT_FOR,
+    /**
+     * No refresh: changes become visible with the next scheduled refresh. To be used by bulk jobs,
+     * which should call {@link ElasticIndexer#commit()} once they are done.
+     */
+    NONE;
+
+    /**
+     * Return the {@link RefreshPolicy} of the interactive writes, defined by the property
+     * <i>imeji.index.refresh</i> (immediate, wait_for or none). Default is {@link #WAIT_FOR}
+     *
+     * @return
+     */
+    public static RefreshPolicy getConfigured() {
+      try {
+        final String value = PropertyReader.getProperty("imeji.index.refresh");
+        if (!StringHelper.isNullOrEmptyTrim(value)) {
+          return RefreshPolicy.valueOf(value.trim().toUpperCase());
+        }
+      } catch (final Exception e) {
+        LOGGER.error("Invalid value of imeji.index.refresh, using " + WAIT_FOR, e);
+      }
+      return WAIT_FOR;
+    }
+  }
+
+  /**
+   * Create an instance for writing data to the ElasticSearch server, with the
+   * {@link RefreshPolicy#getConfigured()} policy
    * 
    * @param indexName the name for the index under which data shall be stored index is an
    *        ElasticSearch concept, a name or number under which data can be stored collectively
@@ -62,12 +110,38 @@ public class ElasticIndexer implements SearchIndexer {
    */
 
   public ElasticIndexer(String indexName) {
+    this(indexName, RefreshPolicy.getConfigured());
+  }
+
+  /**
+   * Create an instance for writing data to the ElasticSearch server with a specific
+   * {@link RefreshPolicy}
+   * 
+   * @param indexName the name for the index under which data shall be stored
+   * @param refreshPolicy when the written data should be visible for search
+   */
+  public ElasticIndexer(String indexName, RefreshPolicy refreshPolicy) {
     this.indexName = indexName;
+    this.refreshPolicy = refreshPolicy;
     // this.dataType = dataType.name();
     // this.analyser = analyser;
     this.mappingFile = mappingFile.replace("_TYPE_", StringUtils.capitalize(this.indexName));
   }
 
+  /**
+   * Create an instance for writing data to a concrete index (for instance a new index which is not
+   * yet pointed by its alias), using the mapping of the given {@link ElasticIndices}
+   *
+   * @param indexName the name of the concrete index
+   * @param type the {@link ElasticIndices} of the index, defines the mapping
+   * @param refreshPolicy when the written data should be visible for search
+   */
+  public ElasticIndexer(String indexName, ElasticIndices type, RefreshPolicy refreshPolicy) {
+    this.indexName = indexName;
+    this.refreshPolicy = refreshPolicy;
+    this.mappingFile = mappingFile.replace("_TYPE_", StringUtils.capitalize(type.name()));
+  }
+
   /**
    * Add object to the index of this ElasticIndexer instance index is an ElasticSearch concept, a
    * name or number under which data can be stored For each index in ElasticSearch an original
@@ -95,17 +169,21 @@ public class ElasticIndexer implements SearchIndexer {
     }
 
     final BulkRequest.Builder bulkRequestBuilder = new BulkRequest.Builder();
+    // Fields of the collections of the items, read once for the whole batch and written directly in
+    // the item documents
+    final Map<String, CollectionFields> collectionFields = ItemPostIndexScript.retrieveCollectionFields(objectList);
 
     for (final Object obj : objectList) {
 
       try {
         LOGGER.info("+++ index request " + indexName + "  " + getId(obj));
         final IndexOperation indexOperation;
+        final byte[] json = toJson(obj, dataType, indexName, collectionFields);
         if (obj instanceof ResourceLastModified && ((ResourceLastModified) obj).getModified() != null) {
           long timestamp = ((ResourceLastModified) obj).getModified().getTimeInMillis();
-          indexOperation = getIndexOperation(getId(obj), toJson(obj, dataType, indexName), getParent(obj), dataType, timestamp);
+          indexOperation = getIndexOperation(getId(obj), json, getParent(obj), dataType, timestamp);
         } else {
-          indexOperation = getIndexOperation(getId(obj), toJson(obj, dataType, indexName), getParent(obj), dataType, null);
+          indexOperation = getIndexOperation(getId(obj), json, getParent(obj), dataType, null);
         }
         bulkRequestBuilder.operations(op -> op.index(indexOperation));
       } catch (Exception e) {
@@ -113,6 +191,7 @@ public class ElasticIndexer implements SearchIndexer {
       }
     }
 
+    setBulkRefresh(bulkRequestBuilder, objectList);
     BulkRequest bulkRequest = bulkRequestBuilder.build();
     if (bulkRequest.operations().size() > 0) {
       //ElasticService.getClient().bulk(bulkRequest);
@@ -122,13 +201,51 @@ public class ElasticIndexer implements SearchIndexer {
       }
     }
 
-    if (!(objectList.get(0) instanceof ContentVO)) {
-      commit();
-    }
+    refreshAfterBulk(objectList);
     updateIndexBatchPostProcessing(objectList);
   }
 
 
+  /**
+   * Update only the workflow fields (status, modified and license) of the indexed {@link Item}s,
+   * without reindexing the complete documents: the fields of the collection and the metadata of the
+   * items are neither read nor written. Other objects are reindexed completely
+   *
+   * @param objectList the objects as written in the database
+   * @throws UnprocessableError
+   * @throws IOException
+   * @throws SearchIndexBulkFailureException
+   * @throws InterruptedException
+   * @throws ExecutionException
+   */
+  public void updatePartialBatch(List<?> objectList)
+      throws UnprocessableError, IOException, SearchIndexBulkFailureException, InterruptedException, ExecutionException {
+    if (objectList.isEmpty()) {
+      return;
+    }
+    if (!objectList.stream().allMatch(o -> o instanceof Item)) {
+      updateIndexBatch(objectList);
+      return;
+    }
+    final BulkRequest.Builder bulkRequestBuilder = new BulkRequest.Builder();
+    for (final Object obj : objectList) {
+      final ElasticItem item = new ElasticItem((Item) obj);
+      final Map<String, Object> doc = new HashMap<>();
+      doc.put("status", item.getStatus());
+      doc.put("license", item.getLicense());
+      if (item.getModified() != null) {
+        doc.put("modified", item.getModified().getTime());
+      }
+      bulkRequestBuilder.operations(op -> op.update(u -> u.index(indexName).id(item.getId()).action(a -> a.doc(doc))));
+    }
+    setBulkRefresh(bulkRequestBuilder, objectList);
+    final BulkResponse bulkResponse = ElasticService.getClient().bulk(bulkRequestBuilder.build());
+    if (bulkResponse.errors()) {
+      throw getSearchIndexBulkFailureException(bulkResponse);
+    }
+    refreshAfterBulk(objectList);
+  }
+
   /**
    * 
    * @param objectList
@@ -142,7 +259,6 @@ public class ElasticIndexer implements SearchIndexer {
     if (objectList.isEmpty()) {
       return;
     }
-    ItemPostIndexScript.run(objectList, indexName);
     for (Object o : objectList) {
       if (o instanceof CollectionImeji) {
         CollectionPostIndexScript.run((CollectionImeji) o, "items");
@@ -164,6 +280,7 @@ public class ElasticIndexer implements SearchIndexer {
         bulkRequestBuilder.operations(op -> op.delete(getDeleteOperation(id, getParent(obj))));
       }
     }
+    setBulkRefresh(bulkRequestBuilder, l);
     BulkRequest bulkRequest = bulkRequestBuilder.build();
     if (bulkRequest.operations().size() > 0) {
       BulkResponse bulkResponse = ElasticService.getClient().bulk(bulkRequest);
@@ -171,11 +288,53 @@ public class ElasticIndexer implements SearchIndexer {
         throw getSearchIndexBulkFailureException(bulkResponse);
       }
     }
-    if (!(l.get(0) instanceof ContentVO)) {
+    refreshAfterBulk(l);
+  }
+
+  /**
+   * True if the changes on the objects of the list must be made visible according to the
+   * {@link RefreshPolicy}. Contents are never refreshed, since they are not directly searched by
+   * users.
+   * 
+   * @param objectList
+   * @return
+   */
+  private boolean isRefreshNeeded(List<?> objectList) {
+    return refreshPolicy != RefreshPolicy.NONE && !(objectList.get(0) instanceof ContentVO);
+  }
+
+  /**
+   * Set refresh=wait_for on the bulk request if the {@link RefreshPolicy} is
+   * {@link RefreshPolicy#WAIT_FOR}
+   * 
+   * @param bulkRequestBuilder
+   * @param objectList
+   */
+  private void setBulkRefresh(BulkRequest.Builder bulkRequestBuilder, List<?> objectList) {
+    if (refreshPolicy == RefreshPolicy.WAIT_FOR && isRefreshNeeded(objectList)) {
+      bulkRequestBuilder.refresh(Refresh.WaitFor);
+    }
+  }
+
+  /**
+   * Refresh the index after a bulk request if the {@link RefreshPolicy} is
+   * {@link RefreshPolicy#IMMEDIATE}
+   * 
+   * @param objectList
+   */
+  private void refreshAfterBulk(List<?> objectList) {
+    if (refreshPolicy == RefreshPolicy.IMMEDIATE && isRefreshNeeded(objectList)) {
       commit();
     }
   }
 
+  /**
+   * @return the {@link RefreshPolicy} of this indexer
+   */
+  public RefreshPolicy getRefreshPolicy() {
+    return refreshPolicy;
+  }
+
   /**
    * Return the index Request
    *
@@ -302,6 +461,21 @@ public class ElasticIndexer implements SearchIndexer {
    * @throws UnprocessableError
    */
   public static byte[] toJson(Object obj, String dataType, String index) throws UnprocessableError {
+    return toJson(obj, dataType, index, Collections.emptyMap());
+  }
+
+  /**
+   * Transform an object to a json. If the object is an {@link Item}, the fields of its collection
+   * are added to the json
+   *
+   * @param obj
+   * @param collectionFields the {@link CollectionFields} of the collections, indexed by collection
+   *        id
+   * @return
+   * @throws UnprocessableError
+   */
+  private static byte[] toJson(Object obj, String dataType, String index, Map<String, CollectionFields> collectionFields)
+      throws UnprocessableError {
     try {
       // mapper.configure(DeserializationFeature..UNWRAP_ROOT_VALUE, true);
       /*
@@ -309,7 +483,7 @@ public class ElasticIndexer implements SearchIndexer {
       mapper.configure(SerializationFeature.WRAP_ROOT_VALUE, true);
       }
       */
-      return mapper.setSerializationInclusion(Include.NON_NULL).writeValueAsBytes(toESEntity(obj, dataType, index));
+      return mapper.setSerializationInclusion(Include.NON_NULL).writeValueAsBytes(toESEntity(obj, dataType, index, collectionFields));
     } catch (final JsonProcessingException e) {
       throw new UnprocessableError("Error serializing object to json", e);
     }
@@ -386,9 +560,10 @@ public class ElasticIndexer implements SearchIndexer {
    * @param obj
    * @return
    */
-  private static Object toESEntity(Object obj, String dataType, String index) {
+  private static Object toESEntity(Object obj, String dataType, String index, Map<String, CollectionFields> collectionFields) {
     if (obj instanceof Item) {
-      return new ElasticItem((Item) obj);
+      final Item item = (Item) obj;
+      return new ElasticItem(item, item.getCollection() != null ? collectionFields.get(item.getCollection().toString()) : null);
     }
     if (obj instanceof CollectionImeji) {
       return new ElasticFolder((CollectionImeji) obj);
@@ -4,6 +4,10 @@ import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.json.jsonb.JsonbJsonpMapper;
 import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.mpg.imeji.logic.config.util.PropertyReader;
 import de.mpg.imeji.logic.search.elasticsearch.ElasticService.ElasticIndices;
 import org.apache.http.HttpEntity;
@@ -16,6 +20,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.client.Request;
 import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
 import org.elasticsearch.client.RestClient;
 
 import java.io.IOException;
@@ -23,6 +28,9 @@ import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Start/Stop elasticsearch
@@ -32,6 +40,8 @@ import java.nio.file.Paths;
  */
 public class ElasticInitializer {
   private static final Logger LOGGER = LogManager.getLogger(ElasticInitializer.class);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final String DEFAULT_REPLICAS = "1";
 
   private ElasticInitializer() {
     // avoid constructor
@@ -143,25 +153,137 @@ public class ElasticInitializer {
    */
 
   /**
-   * Atomically move the alias from the old to the new index
+   * Get the names of the indexes pointed by the alias. Return an empty list if the alias doesn't
+   * exist
    *
-   * @param oldIndex
-   * @param newIndex
+   * @param aliasName
+   * @return
    */
-  /*
-   * public static void setNewIndexAndRemoveOldIndex(String oldIndex, String
-   * newIndex) { // final String oldIndexName =
-   * getIndexNameFromAliasName(oldIndex);
-   * 
-   * if (oldIndex != null && !oldIndex.equals(newIndex)) {
-   * ElasticService.getClient().admin().indices().prepareAliases().addAlias(
-   * newIndex, ElasticService.DATA_ALIAS) .removeAlias(oldIndex,
-   * ElasticService.DATA_ALIAS).execute().actionGet();
-   * ElasticService.getClient().admin().indices().prepareDelete(oldIndex).execute(
-   * ).actionGet(); } else {
-   * ElasticService.getClient().admin().indices().prepareAliases().addAlias(
-   * newIndex, ElasticService.DATA_ALIAS) .execute().actionGet(); } }
+  public static List<String> getIndexNamesFromAliasName(String aliasName) {
+    final List<String> indexNames = new ArrayList<>();
+    try {
+      final Response resp = ElasticService.getRestClient().performRequest(new Request("GET", "/_alias/" + aliasName));
+      final JsonNode json = MAPPER.readTree(EntityUtils.toString(resp.getEntity()));
+      json.fieldNames().forEachRemaining(indexNames::add);
+    } catch (final ResponseException e) {
+      if (e.getResponse().getStatusLine().getStatusCode() != HttpStatus.SC_NOT_FOUND) {
+        LOGGER.error("Error reading alias " + aliasName, e);
+      }
+    } catch (final IOException e) {
+      LOGGER.error("Error reading alias " + aliasName, e);
+    }
+    return indexNames;
+  }
+
+  /**
+   * Atomically move the aliases from their old indexes to the new indexes, then delete the old
+   * indexes. If an alias is still a concrete index (i.e. created without alias), this index is
+   * removed within the same atomic operation.
+   *
+   * @param newIndexes alias name -> name of the new index
+   * @throws IOException
+   */
+  public static void setNewIndexesAndRemoveOldIndexes(Map<String, String> newIndexes) throws IOException {
+    final ObjectNode request = MAPPER.createObjectNode();
+    final ArrayNode actions = request.putArray("actions");
+    final List<String> oldIndexes = new ArrayList<>();
+    for (final Map.Entry<String, String> e : newIndexes.entrySet()) {
+      final String alias = e.getKey();
+      final List<String> aliasIndexes = getIndexNamesFromAliasName(alias);
+      if (aliasIndexes.isEmpty() && indexExists(alias)) {
+        actions.addObject().putObject("remove_index").put("index", alias);
+      }
+      for (final String oldIndex : aliasIndexes) {
+        if (!oldIndex.equals(e.getValue())) {
+          actions.addObject().putObject("remove").put("index", oldIndex).put("alias", alias);
+          oldIndexes.add(oldIndex);
+        }
+      }
+      actions.addObject().putObject("add").put("index", e.getValue()).put("alias", alias);
+    }
+    LOGGER.info("Moving aliases to new indexes: " + newIndexes);
+    final Request req = new Request("POST", "/_aliases");
+    req.setJsonEntity(MAPPER.writeValueAsString(request));
+    ElasticService.getRestClient().performRequest(req);
+    if (!oldIndexes.isEmpty()) {
+      deleteIndexes(oldIndexes);
+    }
+  }
+
+  /**
+   * Create a new index (without alias) optimized for a bulk load: no replicas and no automatic
+   * refresh. Call {@link #restoreIndexSettings(String, String)} once the load is done.
+   *
+   * @param index
+   * @return the name of the new index
+   * @throws IOException
+   */
+  public static String createIndexForBulkLoad(ElasticIndices index) throws IOException {
+    final String indexName = createIndex(index.name());
+    if (indexName == null) {
+      throw new IOException("Index " + index.name() + " could not be created");
+    }
+    updateIndexSettings(indexName, "{\"index\":{\"number_of_replicas\":0,\"refresh_interval\":\"-1\"}}");
+    return indexName;
+  }
+
+  /**
+   * Restore the settings of an index after a bulk load: set the number of replicas and the default
+   * refresh interval
+   *
+   * @param indexName
+   * @param replicas
+   * @throws IOException
+   */
+  public static void restoreIndexSettings(String indexName, String replicas) throws IOException {
+    updateIndexSettings(indexName, "{\"index\":{\"number_of_replicas\":" + Integer.parseInt(replicas) + ",\"refresh_interval\":null}}");
+  }
+
+  /**
+   * Get the number of replicas of an index (or of the index pointed by an alias). Return the
+   * default of elasticsearch ("1") if the index doesn't exist
+   *
+   * @param indexName
+   * @return
+   */
+  public static String getNumberOfReplicas(String indexName) {
+    try {
+      final Response resp =
+          ElasticService.getRestClient().performRequest(new Request("GET", "/" + indexName + "/_settings/index.number_of_replicas"));
+      final JsonNode json = MAPPER.readTree(EntityUtils.toString(resp.getEntity()));
+      for (final JsonNode settings : json) {
+        final JsonNode replicas = settings.path("settings").path("index").path("number_of_replicas");
+        if (!replicas.isMissingNode()) {
+          return replicas.asText();
+        }
+      }
+    } catch (final IOException e) {
+      LOGGER.warn("Could not read the number of replicas of " + indexName + ": " + e.getMessage());
+    }
+    return DEFAULT_REPLICAS;
+  }
+
+  /**
+   * Delete indexes
+   *
+   * @param indexNames
+   * @throws IOException
    */
+  public static void deleteIndexes(List<String> indexNames) throws IOException {
+    LOGGER.info("Deleting indexes " + indexNames);
+    ElasticService.getRestClient().performRequest(new Request("DELETE", "/" + String.join(",", indexNames)));
+  }
+
+  private static boolean indexExists(String indexName) throws IOException {
+    final Response resp = ElasticService.getRestClient().performRequest(new Request("HEAD", "/" + indexName));
+    return resp.getStatusLine().getStatusCode() == HttpStatus.SC_OK;
+  }
+
+  private static void updateIndexSettings(String indexName, String settings) throws IOException {
+    final Request req = new Request("PUT", "/" + indexName + "/_settings");
+    req.setJsonEntity(settings);
+    ElasticService.getRestClient().performRequest(req);
+  }
 
   /**
    * Create a new Index (without alias)
@@ -1,9 +1,13 @@
 package de.mpg.imeji.logic.search.elasticsearch;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
 import co.elastic.clients.elasticsearch._types.FieldValue;
 import co.elastic.clients.elasticsearch._types.SortOptions;
 import co.elastic.clients.elasticsearch._types.Time;
@@ -14,13 +18,16 @@ import co.elastic.clients.elasticsearch.core.search.Hit;
 import co.elastic.clients.elasticsearch.core.search.HitsMetadata;
 import co.elastic.clients.elasticsearch.core.search.ResponseBody;
 import co.elastic.clients.elasticsearch.core.search.TrackHits;
+import co.elastic.clients.json.JsonData;
 import co.elastic.clients.json.JsonpUtils;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.logging.log4j.LogManager;
 
 import org.elasticsearch.client.RequestOptions;
 
 import de.mpg.imeji.exceptions.ImejiException;
+import de.mpg.imeji.logic.db.indexretry.queue.IndexOutbox;
 import de.mpg.imeji.logic.model.User;
 import de.mpg.imeji.logic.search.Search;
 import de.mpg.imeji.logic.search.SearchIndexer;
@@ -32,6 +39,8 @@ import de.mpg.imeji.logic.search.elasticsearch.factory.util.AggregationsParser;
 import de.mpg.imeji.logic.search.elasticsearch.model.ElasticFields;
 import de.mpg.imeji.logic.search.facet.model.Facet;
 import de.mpg.imeji.logic.search.facet.model.FacetResult;
+import de.mpg.imeji.logic.search.model.SearchCursor;
+import de.mpg.imeji.logic.search.model.SearchProjection;
 import de.mpg.imeji.logic.search.model.SearchQuery;
 import de.mpg.imeji.logic.search.model.SearchResult;
 import de.mpg.imeji.logic.search.model.SortCriterion;
@@ -52,6 +61,12 @@ public class ElasticSearch implements Search {
   public static final int SEARCH_SCROLL_INTERVALL = SEARCH_INTERVALL_MAX_SIZE;
   private static final int SEARCH_TO_INDEX_LIMIT = 10000;
   public static final int SCROLL_TIMEOUT_MSEC = 60000;
+  /**
+   * Number of results read per request when searching with search_after without cursor. The hits
+   * contain only the ids (no source), so that the pages can be larger than for a single page search
+   */
+  private static final int SEARCH_AFTER_PAGE_SIZE = 2000;
+  private static final Time POINT_IN_TIME_KEEP_ALIVE = Time.of(t -> t.time("1m"));
   private final static org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(ElasticSearch.class);
 
   /**
@@ -78,19 +93,19 @@ public class ElasticSearch implements Search {
 
     List<SortCriterion> sortCriteria = new ArrayList<SortCriterion>(1);
     sortCriteria.add(sortCri);
-    return searchElasticSearch(query, sortCriteria, user, folderUri, from, size, false, true);
+    return searchElasticSearch(query, sortCriteria, user, folderUri, from, size, false, true, SearchProjection.ids());
   }
 
   @Override
   public SearchResult searchWithMultiLevelSorting(SearchQuery query, List<SortCriterion> sortCriteria, User user, String folderUri,
       int from, int size) {
-    return searchElasticSearch(query, sortCriteria, user, folderUri, from, size, false, true);
+    return searchElasticSearch(query, sortCriteria, user, folderUri, from, size, false, true, SearchProjection.ids());
   }
 
   @Override
   public SearchResult searchWithFacetsAndMultiLevelSorting(SearchQuery query, List<SortCriterion> sortCriteria, User user, String folderUri,
       int from, int size, boolean includeSubcollections) {
-    return searchElasticSearch(query, sortCriteria, user, folderUri, from, size, true, includeSubcollections);
+    return searchElasticSearch(query, sortCriteria, user, folderUri, from, size, true, includeSubcollections, SearchProjection.ids());
   }
 
   @Override
@@ -98,11 +113,33 @@ public class ElasticSearch implements Search {
 
     List<SortCriterion> sortCriteria = new ArrayList<SortCriterion>(1);
     sortCriteria.add(sortCri);
-    return searchElasticSearch(query, sortCriteria, user, folderUri, from, size, true, true);
+    return searchElasticSearch(query, sortCriteria, user, folderUri, from, size, true, true, SearchProjection.ids());
+  }
+
+  @Override
+  public SearchResult searchWithCursor(SearchQuery query, List<SortCriterion> sortCriteria, User user, String folderUri,
+      SearchCursor cursor, int size, boolean addFacets, boolean includeSubcollections) {
+    return searchWithProjection(query, sortCriteria, user, folderUri, cursor == null ? SearchCursor.start() : cursor, 0, size, addFacets,
+        includeSubcollections, SearchProjection.ids());
+  }
+
+  @Override
+  public SearchResult searchWithProjection(SearchQuery query, List<SortCriterion> sortCriteria, User user, String folderUri,
+      SearchCursor cursor, int from, int size, boolean addFacets, boolean includeSubcollections, SearchProjection projection) {
+    if (cursor == null) {
+      return searchElasticSearch(query, sortCriteria, user, folderUri, from, size, addFacets, includeSubcollections, projection);
+    }
+    size = size <= 0 || size > SEARCH_TO_INDEX_LIMIT ? SEARCH_INTERVALL_MAX_SIZE : size;
+    IndexOutbox.getInstance().awaitWritesOf(user);
+    return searchPage(withFacets -> buildRequest(query, sortCriteria, user, folderUri, withFacets, includeSubcollections, projection),
+        query, cursor, size, addFacets);
   }
 
   private SearchResult searchElasticSearch(SearchQuery query, List<SortCriterion> sortCriteria, User user, String folderUri, int from,
-      int size, boolean addFacets, boolean includeSubcollections) {
+      int size, boolean addFacets, boolean includeSubcollections, SearchProjection projection) {
+
+    // read your writes: in asynchronous index mode, the last writes of the user might not be indexed yet
+    IndexOutbox.getInstance().awaitWritesOf(user);
 
     // magic number "-1" for unlimited size is spread all over the code:
     if (size != GET_ALL_RESULTS && size < 0) {
@@ -110,21 +147,41 @@ public class ElasticSearch implements Search {
     }
     from = from < 0 ? 0 : from;
 
+    // single page or search_after search
+    if (size != GET_ALL_RESULTS && size < SEARCH_INTERVALL_MAX_SIZE && from + size < SEARCH_TO_INDEX_LIMIT) {
+      final SearchRequest.Builder searchRequestBuilder =
+          buildRequest(query, sortCriteria, user, folderUri, addFacets, includeSubcollections, projection).from(from).size(size);
+      searchRequestBuilder.index(Arrays.asList(this.indicesNames));
+      return searchSinglePage(searchRequestBuilder.build(), query, size);
+    } else {
+      return searchWithOffset(
+          withFacets -> buildRequest(query, sortCriteria, user, folderUri, withFacets, includeSubcollections, projection), query, from,
+          size, addFacets);
+    }
+  }
+
+  /**
+   * Build the request of a search, sorted by the sort criteria and then by id, so that each result
+   * has a unique position (required by search_after)
+   *
+   * @param query
+   * @param sortCriteria
+   * @param user
+   * @param folderUri
+   * @param addFacets
+   * @param includeSubcollections
+   * @param projection
+   * @return
+   */
+  private SearchRequest.Builder buildRequest(SearchQuery query, List<SortCriterion> sortCriteria, User user, String folderUri,
+      boolean addFacets, boolean includeSubcollections, SearchProjection projection) {
     // construct request
     final ElasticQueryFactory factory = new ElasticQueryFactory(query, this.indices).folderUri(folderUri).user(user);
     factory.setIncludeSubcollections(includeSubcollections);
     final Query q = factory.build();
     final Query f = factory.buildBaseQuery();
-    /*
-     * SearchRequestBuilder request =
-     * ElasticService.getClient().prepareSearch(ElasticService.DATA_ALIAS).
-     * setNoFields() .setTypes(getTypes()).addSort("_type", SortOrder.ASC); request
-     * = ElasticSearchFactoryUtil.addSorting(request, sortCriteria);
-     */
     SearchRequest.Builder searchRequestBuilder = new SearchRequest.Builder();
-    //SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
     searchRequestBuilder.trackTotalHits(th -> th.enabled(true));
-    //searchSourceBuilder.trackTotalHits(true);
     if (f != null) {
       searchRequestBuilder.query(f).postFilter(q);
     } else {
@@ -133,29 +190,32 @@ public class ElasticSearch implements Search {
     if (addFacets) {
       searchRequestBuilder = addAggregations(searchRequestBuilder, folderUri);
     }
-
-    // single page or scroll search
-    if (size != GET_ALL_RESULTS && size < SEARCH_INTERVALL_MAX_SIZE && from + size < SEARCH_TO_INDEX_LIMIT) {
-      searchRequestBuilder.from(from).size(size);
-      for (SortOptions sb : ElasticSortFactory.build(sortCriteria)) {
-        if (sb != null) {
-          searchRequestBuilder.sort(sb);
-        }
+    for (SortOptions sb : ElasticSortFactory.build(sortCriteria)) {
+      if (sb != null) {
+        searchRequestBuilder.sort(sb);
       }
-      searchRequestBuilder.index(Arrays.asList(this.indicesNames));
-      //LOGGER.info(searchSourceBuilder.toString());
-      return searchSinglePage(searchRequestBuilder.build(), query);
-    } else {
-      searchRequestBuilder.size(SEARCH_SCROLL_INTERVALL);
-      for (SortOptions sb : ElasticSortFactory.build(sortCriteria)) {
-        if (sb != null) {
-          searchRequestBuilder.sort(sb);
-        }
-      }
-      searchRequestBuilder.index(Arrays.asList(this.indicesNames)).scroll(Time.of(t -> t.time("30s")));
+    }
+    return applyProjection(searchRequestBuilder, projection).sort(ElasticSortFactory.buildTieBreaker());
+  }
 
-      return searchWithScroll(searchRequestBuilder.build(), query, from, size);
+  /**
+   * Return only the ids, and the doc values and the source fields of the projection: the source of
+   * the documents is not returned if the projection doesn't need it
+   *
+   * @param request
+   * @param projection
+   * @return
+   */
+  private static SearchRequest.Builder applyProjection(SearchRequest.Builder request, SearchProjection projection) {
+    if (projection.getSourceFields().isEmpty()) {
+      request.source(s -> s.fetch(false));
+    } else {
+      request.source(s -> s.filter(f -> f.includes(projection.getSourceFields())));
     }
+    for (final String field : projection.getFields()) {
+      request.docvalueFields(FieldAndFormat.of(fv -> fv.field(field)));
+    }
+    return request;
   }
 
   /**
@@ -233,7 +293,7 @@ public class ElasticSearch implements Search {
    * @param size
    * @return
    */
-  private SearchResult searchSinglePage(SearchRequest request, SearchQuery query) {
+  private SearchResult searchSinglePage(SearchRequest request, SearchQuery query, int size) {
 
     // send request to ElasticSearch
     LOGGER.debug(request.toString());
@@ -241,6 +301,7 @@ public class ElasticSearch implements Search {
     try {
       resp = ElasticService.getClient().search(request, ObjectNode.class);
       SearchResult elasticSearchResult = getSearchResultFromElasticSearchResponse(resp, query);
+      elasticSearchResult.setNextCursor(getNextCursor(resp, null, size, request.sort().size(), false));
       return elasticSearchResult;
     } catch (Exception e) {
       LOGGER.error("error getting search response", e);
@@ -250,145 +311,193 @@ public class ElasticSearch implements Search {
   }
 
   /**
-   * Search via ElasticSearch Scroll Search. This allows to search for a greater number of documents
-   * or all documents that exist within ElasticSeach database for a given query
+   * Search the results from index "from" to index "from + size" (or all results from "from" if size
+   * is GET_ALL_RESULTS) with search_after on a point in time. The results before "from" are read
+   * page by page, since search_after can't jump to a position: a search with a {@link SearchCursor}
+   * should be preferred for deep pages
    *
-   * @param query ElasticSearch search query
-   * @param sortCriteria Criteria by which the results are sorted
-   * @param user User
-   * @param folderUri
-   * @param from Search from this result number (within all results for the given query)
-   * @param amountOfDocumentsToRetrieve Retrieve this amount of hits/documents
+   * @param request build the request, with or without aggregations
+   * @param query
+   * @param from
+   * @param size
+   * @param addFacets
    * @return
    */
-  private SearchResult searchWithScroll(SearchRequest request, SearchQuery query, int from, int amountOfDocumentsToRetrieve) {
-    // add scroll search
-    // request = request.setScroll(new TimeValue(SCROLL_TIMEOUT_MSEC));
+  private SearchResult searchWithOffset(Function<Boolean, SearchRequest.Builder> request, SearchQuery query, int from, int size,
+      boolean addFacets) {
+    SearchResult result = null;
+    final List<String> ids = new ArrayList<>();
+    final Map<String, Map<String, List<String>>> fieldValues = new HashMap<>();
+    final Map<String, ObjectNode> sources = new HashMap<>();
+    SearchCursor cursor = SearchCursor.start();
+    int position = 0;
+    while (cursor != null && (size == GET_ALL_RESULTS || ids.size() < size)) {
+      final int pageSize = position < from ? Math.min(from - position, SEARCH_AFTER_PAGE_SIZE)
+          : size == GET_ALL_RESULTS ? SEARCH_AFTER_PAGE_SIZE : Math.min(size - ids.size(), SEARCH_AFTER_PAGE_SIZE);
+      final SearchResult page = searchPage(request, query, cursor, pageSize, addFacets && result == null);
+      if (page == null) {
+        closePointInTime(cursor);
+        return null;
+      }
+      result = result == null ? page : result;
+      if (position >= from) {
+        ids.addAll(page.getResults());
+        page.getResults().stream().filter(id -> !page.getFieldValues(id).isEmpty())
+            .forEach(id -> fieldValues.put(id, page.getFieldValues(id)));
+        page.getResults().stream().filter(id -> page.getSource(id) != null).forEach(id -> sources.put(id, page.getSource(id)));
+      }
+      position += page.getResults().size();
+      cursor = page.getNextCursor();
+    }
+    closePointInTime(cursor);
+    result.setResults(ids);
+    result.setFieldValues(fieldValues);
+    result.setSources(sources);
+    result.setNextCursor(cursor != null ? withoutPointInTime(cursor, request.apply(false).build().sort().size()) : null);
+    return result;
+  }
 
-    LOGGER.debug(request.toString());
-    SearchResponse<ObjectNode> searchResponse;
+  /**
+   * Search the page following the cursor. The first page opens a point in time, which is closed
+   * after the last page (or with the first page if all hits fit into it). Each page keeps the point
+   * in time alive for {@link #POINT_IN_TIME_KEEP_ALIVE}: a client which doesn't read the next page
+   * leaves it open until then. If the point in time has expired, the search continues on the
+   * current state of the index
+   *
+   * @param request build the request, with or without aggregations
+   * @param query
+   * @param cursor
+   * @param size
+   * @param addFacets
+   * @return
+   */
+  private SearchResult searchPage(Function<Boolean, SearchRequest.Builder> request, SearchQuery query, SearchCursor cursor, int size,
+      boolean addFacets) {
     try {
-      searchResponse = ElasticService.getClient().search(request, ObjectNode.class);
-      if (searchResponse.shards().failures().size() > 0) {
-        LOGGER.error("Error during search: " + searchResponse.shards().failures().toString());
+      final String pit = cursor.isStart() ? openPointInTime() : cursor.getPointInTime();
+      final SearchRequest.Builder searchRequestBuilder = request.apply(addFacets).size(size);
+      if (pit != null) {
+        searchRequestBuilder.pit(p -> p.id(pit).keepAlive(POINT_IN_TIME_KEEP_ALIVE));
+      } else {
+        searchRequestBuilder.index(Arrays.asList(this.indicesNames));
       }
-      SearchResult result = getSearchResultFromElasticSearchResponse(searchResponse, query);
-      List<String> retrievedIDs = new ArrayList<String>();
-      // scroll all results starting at a given index
-      if (amountOfDocumentsToRetrieve == GET_ALL_RESULTS) {
-        retrievedIDs = scrollAllResults(searchResponse, from);
+      if (!cursor.isStart()) {
+        searchRequestBuilder.searchAfter(toFieldValues(cursor.getSortValues()));
       }
-      // scroll to a size limit starting at a given index
-      else {
-        retrievedIDs = scrollWithSizeUpperBound(searchResponse, from, amountOfDocumentsToRetrieve);
+      final SearchRequest searchRequest = searchRequestBuilder.build();
+      LOGGER.debug(searchRequest.toString());
+      final SearchResponse<ObjectNode> resp;
+      try {
+        resp = ElasticService.getClient().search(searchRequest, ObjectNode.class);
+      } catch (final IOException | ElasticsearchException e) {
+        if (pit != null && !cursor.isStart() && e instanceof ElasticsearchException) {
+          LOGGER.info("Point in time expired, continuing the search without it: " + e.getMessage());
+          return searchPage(request, query, withoutPointInTime(cursor, searchRequest.sort().size()), size, addFacets);
+        }
+        if (pit != null && cursor.isStart()) {
+          closePointInTime(new SearchCursor(pit, Collections.emptyList()));
+        }
+        throw e;
       }
-      result.setResults(retrievedIDs);
-
-      //Clear scroll
-      if (searchResponse.scrollId() != null) {
-        ClearScrollRequest csr = ClearScrollRequest.of(cs -> cs.scrollId(searchResponse.scrollId()));
-        //csr.addScrollId(searchResponse.getScrollId());
-        ClearScrollResponse clearScrollResp = ElasticService.getClient().clearScroll(csr);
+      if (resp.shards().failures().size() > 0) {
+        LOGGER.error("Error during search: " + resp.shards().failures().toString());
+      }
+      final SearchResult result = getSearchResultFromElasticSearchResponse(resp, query);
+      result.setNextCursor(getNextCursor(resp, resp.pitId(), size, searchRequest.sort().size(), cursor.isStart()));
+      if (result.getNextCursor() == null && resp.pitId() != null) {
+        closePointInTime(new SearchCursor(resp.pitId(), Collections.emptyList()));
       }
-
-
       return result;
-    } catch (IOException e) {
+    } catch (IOException | ElasticsearchException e) {
       LOGGER.error("Error during search: ", e);
     }
     return null;
   }
 
   /**
-   * Use scroll search for retrieving documents/results from index "from" to index "from +
-   * amountOfResults"
-   * 
-   * @param searchResponse
-   * @param from
-   * @param amountOfResults
+   * Return the cursor after the last hit of the response, or null if the response is the last page.
+   * With a point in time, the sort values contain an additional tiebreaker (_shard_doc), which is
+   * only valid for this point in time
+   *
+   * @param resp
+   * @param pit
+   * @param size
+   * @param sortCount the number of sort values of the request
+   * @param first true if the response is the first page: it is also the last one if it contains all
+   *        hits
    * @return
    */
-  private List<String> scrollWithSizeUpperBound(ResponseBody<ObjectNode> searchResponse, int from, int amountOfResults) {
-
-    // get results of first query
-    List<String> hitIds = new ArrayList<>(getIDsFromScrollSearchResponse(searchResponse));
-
-    // search until results with index range [0, from+ amountOfResults] are
-    // retrieved
-    while (hitIds.size() < from + amountOfResults) {
-      String scrollId = searchResponse.scrollId();
-      ScrollRequest scrollRequest = ScrollRequest.of(sr -> sr.scrollId(scrollId).scroll(Time.of(t -> t.time("30s"))));
-      //SearchScrollRequest scrollRequest = new SearchScrollRequest(scrollId);
-      //scrollRequest.scroll(TimeValue.timeValueSeconds(30));
-      try {
-        searchResponse = ElasticService.getClient().scroll(scrollRequest, ObjectNode.class);
-      } catch (IOException e) {
-        LOGGER.error("Error during search: ", e);
-      }
-      if (searchResponse.hits().hits().size() == 0) {
-        break;
-      }
-      hitIds.addAll(getIDsFromScrollSearchResponse(searchResponse));
+  private SearchCursor getNextCursor(ResponseBody<ObjectNode> resp, String pit, int size, int sortCount, boolean first) {
+    final List<Hit<ObjectNode>> hits = resp.hits().hits();
+    if (hits.isEmpty() || hits.size() < size || (first && resp.hits().total() != null && resp.hits().total().value() <= hits.size())) {
+      return null;
     }
-
-    if (hitIds.size() > from) {
-      // cut indices at beginning [0, from] and end [from + amountOfResults, end]
-      if (from + amountOfResults < hitIds.size()) {
-        return hitIds.subList(from, from + amountOfResults);
-      } else {
-        return hitIds.subList(from, hitIds.size());
-      }
-    } else {
-      return new ArrayList<>();
+    final List<Serializable> sortValues = new ArrayList<>();
+    for (final FieldValue value : hits.get(hits.size() - 1).sort()) {
+      sortValues.add(toSortValue(value));
     }
-
+    final SearchCursor cursor = new SearchCursor(pit, sortValues);
+    return pit == null ? withoutPointInTime(cursor, sortCount) : cursor;
   }
 
   /**
-   * Use ElasticSearch scroll search to scroll all results starting at a given index
-   * 
-   * @param searchResponse ElasticSearch SearchResponse object
-   * @param from start index (relative to all results that exist in ElasticSeach for the given
-   *        query)
-   * @return list with UIDs of retrieved objects
+   * Return the same position, without the point in time and its tiebreaker
+   *
+   * @param cursor
+   * @param sortCount the number of sort values of the request
+   * @return
    */
-  private List<String> scrollAllResults(ResponseBody<ObjectNode> searchResponse, int from) {
+  private SearchCursor withoutPointInTime(SearchCursor cursor, int sortCount) {
+    final List<Serializable> sortValues = cursor.getSortValues();
+    return new SearchCursor(null, sortValues.subList(0, Math.min(sortCount, sortValues.size())));
+  }
 
-    List<String> retrievedIDs = new ArrayList<>(getIDsFromScrollSearchResponse(searchResponse));
-    do {
-      /*
-       * searchResponse =
-       * ElasticService.getClient().prepareSearchScroll(searchResponse.getScrollId())
-       * .setScroll(new TimeValue(SCROLL_TIMEOUT_MSEC)).execute().actionGet();
-       */
-      String scrollId = searchResponse.scrollId();
-      ScrollRequest scrollRequest = ScrollRequest.of(sr -> sr.scrollId(scrollId).scroll(Time.of(t -> t.time("30s"))));
-      //SearchScrollRequest scrollRequest = new SearchScrollRequest(scrollId);
-      //scrollRequest.scroll(TimeValue.timeValueSeconds(30));
+  private String openPointInTime() throws IOException {
+    return ElasticService.getClient().openPointInTime(o -> o.index(Arrays.asList(this.indicesNames)).keepAlive(POINT_IN_TIME_KEEP_ALIVE))
+        .id();
+  }
+
+  private void closePointInTime(SearchCursor cursor) {
+    if (cursor != null && cursor.getPointInTime() != null) {
       try {
-        searchResponse = ElasticService.getClient().scroll(scrollRequest, ObjectNode.class);
-      } catch (IOException e) {
-        LOGGER.error("Error during search: ", e);
+        ElasticService.getClient().closePointInTime(c -> c.id(cursor.getPointInTime()));
+      } catch (IOException | ElasticsearchException e) {
+        LOGGER.warn("Error closing point in time: " + e.getMessage());
       }
-      List<String> retrievedIDsOfScroll = getIDsFromScrollSearchResponse(searchResponse);
-      retrievedIDs.addAll(retrievedIDsOfScroll);
-    } while (searchResponse.hits().hits().size() > 0);
-
-    // cut indices at beginning [0,from]
-    if (retrievedIDs.size() > from) {
-      return retrievedIDs.subList(from, retrievedIDs.size());
-    } else {
-      return new ArrayList<>();
     }
   }
 
-  private ArrayList<String> getIDsFromScrollSearchResponse(ResponseBody<ObjectNode> searchResponse) {
+  private static Serializable toSortValue(FieldValue value) {
+    if (value.isLong()) {
+      return value.longValue();
+    } else if (value.isDouble()) {
+      return value.doubleValue();
+    } else if (value.isBoolean()) {
+      return value.booleanValue();
+    } else if (value.isString()) {
+      return value.stringValue();
+    } else if (value.isNull()) {
+      return null;
+    }
+    return value._toJsonString();
+  }
 
-    final ArrayList<String> ids = new ArrayList<>(SEARCH_SCROLL_INTERVALL);
-    for (final Hit<ObjectNode> hit : searchResponse.hits().hits()) {
-      ids.add(hit.id());
+  private static List<FieldValue> toFieldValues(List<Serializable> sortValues) {
+    final List<FieldValue> values = new ArrayList<>(sortValues.size());
+    for (final Serializable value : sortValues) {
+      if (value == null) {
+        values.add(FieldValue.NULL);
+      } else if (value instanceof Long) {
+        values.add(FieldValue.of((Long) value));
+      } else if (value instanceof Double) {
+        values.add(FieldValue.of((Double) value));
+      } else if (value instanceof Boolean) {
+        values.add(FieldValue.of((Boolean) value));
+      } else {
+        values.add(FieldValue.of(value.toString()));
+      }
     }
-    return ids;
+    return values;
   }
 
   @Override
@@ -399,15 +508,16 @@ public class ElasticSearch implements Search {
     //SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
     //searchSourceBuilder.trackTotalHits(true);
 
-    // single page or scroll search
+    // single page or search_after search
     if (size != GET_ALL_RESULTS && size < SEARCH_INTERVALL_MAX_SIZE && from + size < SEARCH_TO_INDEX_LIMIT) {
-      searchRequestBuilder.query(q).size(size).from(from).sort(ElasticSortFactory.build(sort));
+      applyProjection(searchRequestBuilder, SearchProjection.ids()).query(q).size(size).from(from).sort(ElasticSortFactory.build(sort))
+          .sort(ElasticSortFactory.buildTieBreaker());
       searchRequestBuilder.index(Arrays.asList(this.indicesNames));
-      return searchSinglePage(searchRequestBuilder.build(), null);
+      return searchSinglePage(searchRequestBuilder.build(), null, size);
     } else {
-      searchRequestBuilder.query(q).size(SEARCH_SCROLL_INTERVALL).from(from).sort(ElasticSortFactory.build(sort));
-      searchRequestBuilder.index(Arrays.asList(this.indicesNames));
-      return searchWithScroll(searchRequestBuilder.build(), null, from, size);
+      return searchWithOffset(withFacets -> applyProjection(new SearchRequest.Builder(), SearchProjection.ids())
+          .trackTotalHits(th -> th.enabled(true)).query(q).sort(ElasticSortFactory.build(sort)).sort(ElasticSortFactory.buildTieBreaker()),
+          null, from, size, false);
     }
 
     /*
@@ -436,6 +546,9 @@ public class ElasticSearch implements Search {
 
     List<String> fieldValues = new ArrayList<>();
     final Query q = QueryStringQuery.of(qs -> qs.query(query))._toQuery();
+    // the id is the id of the hit, not a doc value
+    final SearchProjection fieldProjection =
+        field.equals(ElasticFields.ID.field()) ? SearchProjection.ids() : SearchProjection.fields(field);
     SearchRequest.Builder searchRequestBuilder = new SearchRequest.Builder();
     searchRequestBuilder.trackTotalHits(th -> th.enabled(true));
     //SearchRequest searchRequest = new SearchRequest();
@@ -444,8 +557,7 @@ public class ElasticSearch implements Search {
 
     // single page search
     if (size != GET_ALL_RESULTS && size < SEARCH_INTERVALL_MAX_SIZE && from + size < SEARCH_TO_INDEX_LIMIT) {
-      searchRequestBuilder.docvalueFields(FieldAndFormat.of(fv -> fv.field(field))).query(q).size(size).from(from)
-          .sort(ElasticSortFactory.build(sort));
+      applyProjection(searchRequestBuilder, fieldProjection).query(q).size(size).from(from).sort(ElasticSortFactory.build(sort));
       searchRequestBuilder.index(Arrays.asList(indexName));
       SearchResponse<ObjectNode> singlePageSearchResponse;
       try {
@@ -457,7 +569,7 @@ public class ElasticSearch implements Search {
     }
     // scroll search
     else {
-      searchRequestBuilder.docvalueFields(FieldAndFormat.of(fv -> fv.field(field))).query(q).size(SEARCH_INTERVALL_MAX_SIZE).from(from)
+      applyProjection(searchRequestBuilder, fieldProjection).query(q).size(SEARCH_INTERVALL_MAX_SIZE).from(from)
           .sort(ElasticSortFactory.build(sort));
       searchRequestBuilder.index(Arrays.asList(indexName)).scroll(t -> t.time("30s"));
       ResponseBody<ObjectNode> scrollSearchResponse = null;
@@ -507,6 +619,77 @@ public class ElasticSearch implements Search {
     return fieldValues;
   }
 
+  /**
+   * Return the filenames of the items of the collection which are within the filenames: one terms
+   * query for many filenames
+   *
+   * @param collectionUri
+   * @param filenames
+   * @return
+   * @throws ImejiException if the search failed
+   */
+  public static Set<String> searchExistingFilenames(String collectionUri, Collection<String> filenames) throws ImejiException {
+    final Query folder = TermQuery.of(t -> t.field(ElasticFields.FOLDER.field()).value(collectionUri))._toQuery();
+    final Set<String> existing = searchExistingValues(folder, ElasticFields.NAME.field() + ".sort", ElasticFields.NAME.field(), filenames);
+    // the terms query ignores the case: keep only the same filenames
+    existing.retainAll(filenames);
+    return existing;
+  }
+
+  /**
+   * Return the checksums of the files of the items of the collection which are within the
+   * checksums: one terms query for many checksums
+   *
+   * @param collectionUri
+   * @param checksums
+   * @return
+   * @throws ImejiException if the search failed
+   */
+  public static Set<String> searchExistingChecksums(String collectionUri, Collection<String> checksums) throws ImejiException {
+    final Query folder = HasParentQuery
+        .of(hp -> hp.parentType("item").query(TermQuery.of(t -> t.field(ElasticFields.FOLDER.field()).value(collectionUri))._toQuery()))
+        ._toQuery();
+    return searchExistingValues(folder, ElasticFields.CHECKSUM.field(), ElasticFields.CHECKSUM.field(), checksums);
+  }
+
+  /**
+   * Return the values of a field of the documents of the items index which match the filter and
+   * have one of the values. The values are searched with one terms query per
+   * {@link #SEARCH_INTERVALL_MAX_SIZE} values
+   *
+   * @param filter
+   * @param termsField the field of the terms query
+   * @param sourceField the field read from the source of the matching documents
+   * @param values
+   * @return
+   * @throws ImejiException if the search failed: the values can not be said not to exist
+   */
+  private static Set<String> searchExistingValues(Query filter, String termsField, String sourceField, Collection<String> values)
+      throws ImejiException {
+    final Set<String> existing = new HashSet<>();
+    final List<String> list = new ArrayList<>(new LinkedHashSet<>(values));
+    for (int i = 0; i < list.size(); i += SEARCH_INTERVALL_MAX_SIZE) {
+      final List<FieldValue> chunk =
+          list.subList(i, Math.min(i + SEARCH_INTERVALL_MAX_SIZE, list.size())).stream().map(FieldValue::of).collect(Collectors.toList());
+      final Query terms = TermsQuery.of(t -> t.field(termsField).terms(tf -> tf.value(chunk)))._toQuery();
+      final SearchRequest.Builder request = new SearchRequest.Builder().index(ElasticIndices.items.name())
+          .query(BoolQuery.of(b -> b.filter(filter, terms))._toQuery()).size(chunk.size()).trackTotalHits(th -> th.enabled(false));
+      try {
+        final SearchResponse<ObjectNode> response =
+            ElasticService.getClient().search(applyProjection(request, SearchProjection.source(sourceField)).build(), ObjectNode.class);
+        for (final Hit<ObjectNode> hit : response.hits().hits()) {
+          final JsonNode value = hit.source() != null ? hit.source().at("/" + sourceField.replace('.', '/')) : null;
+          if (value != null && !value.isMissingNode() && !value.isNull()) {
+            existing.add(value.asText());
+          }
+        }
+      } catch (IOException | ElasticsearchException e) {
+        throw new ImejiException("Error searching existing values of " + termsField, e);
+      }
+    }
+    return existing;
+  }
+
   private static List<String> getFieldValuesOfSearchResponse(HitsMetadata<ObjectNode> searchHits, String field) {
 
     List<String> fieldValues = new ArrayList<>();
@@ -540,19 +723,46 @@ public class ElasticSearch implements Search {
    */
   private SearchResult getSearchResultFromElasticSearchResponse(ResponseBody<ObjectNode> searchResponse, SearchQuery query) {
 
-    final int totalNumberOfHitsForSearchQuery = Math.toIntExact(searchResponse.hits().total().value());
-    final List<String> ids = new ArrayList<String>(totalNumberOfHitsForSearchQuery);
-    for (final Hit hit : searchResponse.hits().hits()) {
+    final List<String> ids = new ArrayList<String>(searchResponse.hits().hits().size());
+    final Map<String, Map<String, List<String>>> fieldValues = new HashMap<>();
+    final Map<String, ObjectNode> sources = new HashMap<>();
+    for (final Hit<ObjectNode> hit : searchResponse.hits().hits()) {
       ids.add(hit.id());
+      if (!hit.fields().isEmpty()) {
+        fieldValues.put(hit.id(), readFieldValues(hit));
+      }
+      if (hit.source() != null) {
+        sources.put(hit.id(), hit.source());
+      }
     }
 
     List<FacetResult> facets = AggregationsParser.parse(searchResponse, this.types);
     SearchResult searchResult = new SearchResult(ids, getTotalNumberOfRecords(searchResponse, facets),
         getNumberOfItems(searchResponse, facets), getNumberOfItemsOfCollection(searchResponse, facets),
         getNumberOfRootItemsOfCollection(searchResponse, facets), getNumberOfSubcollections(searchResponse, facets), facets);
+    searchResult.setFieldValues(fieldValues);
+    searchResult.setSources(sources);
     return searchResult;
   }
 
+  /**
+   * Read the doc values returned for a hit
+   *
+   * @param hit
+   * @return the values of each field
+   */
+  private static Map<String, List<String>> readFieldValues(Hit<ObjectNode> hit) {
+    final Map<String, List<String>> values = new HashMap<>();
+    for (final Map.Entry<String, JsonData> field : hit.fields().entrySet()) {
+      final List<String> fieldValues = new ArrayList<>();
+      for (final Object value : field.getValue().to(List.class)) {
+        fieldValues.add(String.valueOf(value));
+      }
+      values.put(field.getKey(), fieldValues);
+    }
+    return values;
+  }
+
   private long getTotalNumberOfRecords(ResponseBody resp, List<FacetResult> facets) {
     return facets.stream().filter(f -> f.getName().equals("all")).findAny().map(f -> f.getValues().get(0).getCount())
         .orElse(resp.hits().total().value());
@@ -55,6 +55,16 @@ public class ElasticSortFactory {
     return sortBuilderList;
   }
 
+  /**
+   * Build the last sort of all searches: by id, to give each result a unique position in the sorted
+   * results (needed to read the next page with search_after)
+   *
+   * @return
+   */
+  public static SortOptions buildTieBreaker() {
+    return SortOptions.of(so -> so.field(fs -> fs.field(ElasticFields.ID.field()).unmappedType(FieldType.Keyword).order(SortOrder.Asc)));
+  }
+
   /**
    * Build an ElasticSearch {@link SortBuilder} from an Imeji {@link SortCriterion}
    *
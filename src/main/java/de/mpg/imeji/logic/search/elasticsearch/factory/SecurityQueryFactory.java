@@ -1,6 +1,5 @@
 package de.mpg.imeji.logic.search.elasticsearch.factory;
 
-import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -8,16 +7,12 @@ import java.util.stream.Collectors;
 
 import co.elastic.clients.elasticsearch._types.FieldValue;
 import co.elastic.clients.elasticsearch._types.query_dsl.*;
-import de.mpg.imeji.logic.hierarchy.HierarchyService;
-import de.mpg.imeji.logic.model.Grant;
 import de.mpg.imeji.logic.model.Grant.GrantType;
 import de.mpg.imeji.logic.model.Properties.Status;
 import de.mpg.imeji.logic.model.User;
-import de.mpg.imeji.logic.search.elasticsearch.factory.util.ElasticSearchFactoryUtil;
 import de.mpg.imeji.logic.search.elasticsearch.model.ElasticFields;
+import de.mpg.imeji.logic.security.authorization.ReadableCollectionsCache;
 import de.mpg.imeji.logic.security.authorization.util.SecurityUtil;
-import de.mpg.imeji.logic.util.ObjectHelper;
-import de.mpg.imeji.logic.util.ObjectHelper.ObjectType;
 import org.reflections.util.QueryBuilder;
 
 /**
@@ -63,7 +58,6 @@ public class SecurityQueryFactory {
    */
   private Query buildLoggedInUserSecurityQuery() {
     List<String> collectionUris = getCollectionUris();
-    collectionUris = addChildren(collectionUris);
     BoolQuery.Builder qb = toQuery(collectionUris);
     if (role == null) {
       qb.should(getStatusQuery());
@@ -103,13 +97,13 @@ public class SecurityQueryFactory {
   }
 
   /**
-   * Return the list of all collections allowed for the user and, if defined, for for the grant
+   * Return the list of all collections and subcollections allowed for the user and, if defined, for
+   * for the grant
    * 
    * @return
    */
   private List<String> getCollectionUris() {
-    List<Grant> grants = ElasticSearchFactoryUtil.getAllGrants(user);
-    return filterByRoleAndGetCollectionUri(grants, role);
+    return new ArrayList<>(ReadableCollectionsCache.get(user, role));
   }
 
   /**
@@ -143,26 +137,4 @@ public class SecurityQueryFactory {
     searchForCollections = b;
     return this;
   }
-
-  /**
-   * Get all children of a collection of a Collection
-   * 
-   * @param collectionsUris
-   * @return
-   */
-  private List<String> addChildren(List<String> collectionsUris) {
-    return collectionsUris.stream().flatMap(uri -> new HierarchyService().addAllSubcollections(uri).stream()).collect(Collectors.toList());
-  }
-
-  /**
-   * Filter the Grants by role and return the collection uris for these grants
-   * 
-   * @param user
-   * @param role
-   * @return
-   */
-  private static List<String> filterByRoleAndGetCollectionUri(List<Grant> grants, GrantType role) {
-    return grants.stream().filter(g -> ObjectHelper.getObjectType(URI.create(g.getGrantFor())) == ObjectType.COLLECTION
-        && (role == null || role.isSameOrBigger(g.getGrantType()))).map(g -> g.getGrantFor()).collect(Collectors.toList());
-  }
 }
@@ -0,0 +1,111 @@
+package de.mpg.imeji.logic.search.elasticsearch.factory.util;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import de.mpg.imeji.logic.model.Properties.Status;
+import de.mpg.imeji.logic.search.elasticsearch.model.ElasticFields;
+import de.mpg.imeji.logic.search.elasticsearch.model.ElasticFolder;
+import de.mpg.imeji.logic.search.elasticsearch.model.ElasticItem;
+import de.mpg.imeji.logic.search.model.ItemSummary;
+import de.mpg.imeji.logic.search.model.ItemSummary.MetadataSummary;
+import de.mpg.imeji.logic.search.model.SearchProjection;
+
+/**
+ * Parse the source of an indexed {@link ElasticItem} or {@link ElasticFolder} to an
+ * {@link ItemSummary}
+ */
+public class ItemSummaryParser {
+  /**
+   * The projection of a search returning the fields needed by {@link #parse(String, ObjectNode)}
+   */
+  public static final SearchProjection PROJECTION =
+      SearchProjection.source(ElasticFields.NAME.field(), ElasticFields.FOLDER.field(), ElasticFields.FILETYPE.field(),
+          ElasticFields.SIZE.field(), ElasticFields.MODIFIED.field(), ElasticFields.STATUS.field(), ElasticFields.METADATA.field());
+
+  private ItemSummaryParser() {
+    // avoid constructor
+  }
+
+  /**
+   * Parse the source of a search hit. The index of the metadata is the formatted index of its
+   * statement
+   *
+   * @param id the id of the hit
+   * @param source
+   * @return
+   */
+  public static ItemSummary parse(String id, ObjectNode source) {
+    final ItemSummary summary = new ItemSummary(URI.create(id));
+    final String folder = getText(source, ElasticFields.FOLDER.field());
+    summary.setCollection(folder != null ? URI.create(folder) : null);
+    summary.setFilename(getText(source, ElasticFields.NAME.field()));
+    summary.setFiletype(getText(source, ElasticFields.FILETYPE.field()));
+    summary.setFileSize(source.path(ElasticFields.SIZE.field()).asLong());
+    if (source.hasNonNull(ElasticFields.MODIFIED.field())) {
+      summary.setModified(new Date(source.get(ElasticFields.MODIFIED.field()).asLong()));
+    }
+    final String status = getText(source, ElasticFields.STATUS.field());
+    if (status != null) {
+      summary.setStatus(Status.valueOf(status));
+    }
+    for (final JsonNode md : source.path(ElasticFields.METADATA.field())) {
+      summary.getMetadata().add(new MetadataSummary(getText(md, "index"), getValue(md)));
+    }
+    return summary;
+  }
+
+  /**
+   * Return the value of a metadata as displayed in a list: the value of the field of its type
+   *
+   * @param md
+   * @return
+   */
+  private static String getValue(JsonNode md) {
+    final String completename = getText(md, "completename");
+    if (completename != null) {
+      final List<String> organizations = new ArrayList<>();
+      md.path("organization").forEach(o -> organizations.add(o.asText()));
+      return completename + (organizations.isEmpty() ? "" : "(" + String.join(", ", organizations) + ")");
+    }
+    final String date = getText(md, "date");
+    if (date != null) {
+      return date;
+    }
+    final String location = getText(md, "location");
+    final String[] latLong = location != null ? location.split(",") : new String[0];
+    if (latLong.length == 2) {
+      final String name = getText(md, "name");
+      return (name != null ? name : "") + " (" + latLong[1] + "/" + latLong[0] + ")";
+    }
+    for (final String field : new String[] {"uri", "title", "name"}) {
+      final String value = getText(md, field);
+      if (value != null) {
+        return value;
+      }
+    }
+    final String text = getText(md, "text");
+    final double number = md.path("number").asDouble();
+    if (text != null && text.equals(Double.toString(number))) {
+      return MetadataSummary.formatNumber(number);
+    }
+    return text != null ? text : "";
+  }
+
+  /**
+   * Return the text of a field, or null if the field is missing or empty
+   *
+   * @param node
+   * @param field
+   * @return
+   */
+  private static String getText(JsonNode node, String field) {
+    final JsonNode value = node.get(field);
+    return value == null || value.isNull() || value.asText().trim().isEmpty() ? null : value.asText();
+  }
+}
@@ -8,6 +8,7 @@ import de.mpg.imeji.logic.model.Item;
 import de.mpg.imeji.logic.model.License;
 import de.mpg.imeji.logic.model.Metadata;
 import de.mpg.imeji.logic.model.util.LicenseUtil;
+import de.mpg.imeji.logic.search.elasticsearch.script.misc.CollectionFields;
 import de.mpg.imeji.logic.util.StorageUtils;
 import de.mpg.imeji.logic.util.StringHelper;
 
@@ -28,6 +29,9 @@ public final class ElasticItem extends ElasticProperties {
   private final long size;
   private final List<ElasticMetadata> metadata = new ArrayList<>();
   private final ElasticJoinField joinField = new ElasticJoinField();
+  private final List<String> authorsOfCollection;
+  private final List<String> organizationsOfCollection;
+  private final String titleWithIdOfCollection;
 
   /**
    * Constructor with an {@link Item}
@@ -35,7 +39,20 @@ public final class ElasticItem extends ElasticProperties {
    * @param item
    */
   public ElasticItem(Item item) {
+    this(item, null);
+  }
+
+  /**
+   * Constructor with an {@link Item} and the fields of its collection
+   *
+   * @param item
+   * @param collectionFields the {@link CollectionFields} of the collection of the item, can be null
+   */
+  public ElasticItem(Item item, CollectionFields collectionFields) {
     super(item);
+    this.authorsOfCollection = collectionFields != null ? collectionFields.getAuthors() : null;
+    this.organizationsOfCollection = collectionFields != null ? collectionFields.getOrganizations() : null;
+    this.titleWithIdOfCollection = collectionFields != null ? collectionFields.getTitleWithId() : null;
     this.folder = item.getCollection() != null ? item.getCollection().toString() : null;
     this.name = item.getFilename();
     this.license = getLicenseName(item);
@@ -105,4 +122,16 @@ public final class ElasticItem extends ElasticProperties {
   public ElasticJoinField getJoinField() {
     return joinField;
   }
+
+  public List<String> getAuthorsOfCollection() {
+    return authorsOfCollection;
+  }
+
+  public List<String> getOrganizationsOfCollection() {
+    return organizationsOfCollection;
+  }
+
+  public String getTitleWithIdOfCollection() {
+    return titleWithIdOfCollection;
+  }
 }
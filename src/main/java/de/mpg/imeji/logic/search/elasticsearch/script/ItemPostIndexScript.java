@@ -1,14 +1,11 @@
 package de.mpg.imeji.logic.search.elasticsearch.script;
 
-import co.elastic.clients.elasticsearch.core.BulkRequest;
-import co.elastic.clients.elasticsearch.core.BulkResponse;
-import co.elastic.clients.elasticsearch.core.GetRequest;
-import co.elastic.clients.elasticsearch.core.GetResponse;
-import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.MgetRequest;
+import co.elastic.clients.elasticsearch.core.MgetResponse;
+import co.elastic.clients.elasticsearch.core.get.GetResult;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetResponseItem;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import de.mpg.imeji.exceptions.SearchIndexBulkFailureException;
 import de.mpg.imeji.logic.model.Item;
-import de.mpg.imeji.logic.search.elasticsearch.ElasticIndexer;
 import de.mpg.imeji.logic.search.elasticsearch.ElasticService;
 import de.mpg.imeji.logic.search.elasticsearch.ElasticService.ElasticIndices;
 import de.mpg.imeji.logic.search.elasticsearch.model.ElasticFields;
@@ -17,72 +14,75 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * Script running after an item is indexed
- * 
+ * Script preparing the indexation of items: read the fields of their collection (authors,
+ * organizations, title), which are then written in the item document.<br/>
+ * The collections of a batch are retrieved with one multi-get request, so that each collection is
+ * read only once per batch.
+ *
  * @author saquet
  *
  */
 public class ItemPostIndexScript {
 
   private static final Logger LOGGER = LogManager.getLogger(ItemPostIndexScript.class);
+  private static final List<String> COLLECTION_FIELDS = Arrays.asList(ElasticFields.AUTHOR_COMPLETENAME.field(),
+      ElasticFields.AUTHOR_ORGANIZATION.field(), ElasticFields.ID.field(), ElasticFields.NAME.field());
 
-  public static void run(List<?> list, String index) throws IOException, SearchIndexBulkFailureException {
-
-    List<Item> items = (List<Item>) list.stream().filter(o -> o instanceof Item).collect(Collectors.toList());
-    final BulkRequest.Builder bulkRequestBuilder = new BulkRequest.Builder();
-
-    boolean fieldsFound = false;
-    for (final Item item : items) {
-      CollectionFields fields = retrieveCollectionFields(item, index);
-      if (fields != null) {
-        fieldsFound = true;
-        final ObjectNode json = fields.toJsonNode();
-        bulkRequestBuilder.operations(BulkOperation
-            .of(bo -> bo.update(ur -> ur.index(ElasticIndices.items.name()).id(item.getId().toString()).action(act -> act.doc(json)))));
-
+  /**
+   * Retrieve the {@link CollectionFields} of all collections of the items of the list. The returned
+   * map (collection id -> fields) acts as cache for the current batch.
+   *
+   * @param list
+   * @return
+   */
+  public static Map<String, CollectionFields> retrieveCollectionFields(List<?> list) {
+    final Set<String> collectionIds = new LinkedHashSet<>();
+    for (final Object o : list) {
+      if (o instanceof Item && ((Item) o).getCollection() != null) {
+        collectionIds.add(((Item) o).getCollection().toString());
       }
     }
-
-    if (fieldsFound) {
-      final BulkRequest bulkRequest = bulkRequestBuilder.build();
-      BulkResponse bulkResponse = ElasticService.getClient().bulk(bulkRequest);
-
-      if (bulkResponse.errors()) {
-        throw ElasticIndexer.getSearchIndexBulkFailureException(bulkResponse);
-      }
+    if (collectionIds.isEmpty()) {
+      return new HashMap<>();
     }
-
+    return retrieveCollectionFields(collectionIds);
   }
 
-  private static CollectionFields retrieveCollectionFields(Item item, String index) {
-
-    GetRequest.Builder getRequest = new GetRequest.Builder();
-    String[] includes = new String[] {ElasticFields.AUTHOR_COMPLETENAME.field(), ElasticFields.AUTHOR_ORGANIZATION.field(),
-        ElasticFields.ID.field(), ElasticFields.NAME.field()};
-    //FetchSourceContext source_ctx = new FetchSourceContext(true, includes, null);
-    getRequest.index(ElasticIndices.folders.name()).id(item.getCollection().toString()).sourceIncludes(Arrays.asList(includes));
-    GetResponse<ObjectNode> resp;
+  /**
+   * Read the {@link CollectionFields} of the collections with one multi-get request
+   *
+   * @param collectionIds
+   * @return
+   */
+  private static Map<String, CollectionFields> retrieveCollectionFields(Set<String> collectionIds) {
+    final Map<String, CollectionFields> fields = new HashMap<>(collectionIds.size());
+    final MgetRequest request =
+        MgetRequest.of(mg -> mg.index(ElasticIndices.folders.name()).ids(new ArrayList<>(collectionIds)).sourceIncludes(COLLECTION_FIELDS));
     try {
-      resp = ElasticService.getClient().get(getRequest.build(), ObjectNode.class);
-      if (resp.found()) {
-        /*
-         * return new
-         * CollectionFields(resp.getField(ElasticFields.AUTHOR_COMPLETENAME.field()),
-         * resp.getField(ElasticFields.AUTHOR_ORGANIZATION.field()),
-         * resp.getField(ElasticFields.ID.field()),
-         * resp.getField(ElasticFields.NAME.field()));
-         */
-        return new CollectionFields(resp.source());
+      final MgetResponse<ObjectNode> resp = ElasticService.getClient().mget(request, ObjectNode.class);
+      for (final MultiGetResponseItem<ObjectNode> doc : resp.docs()) {
+        if (doc.isResult()) {
+          final GetResult<ObjectNode> result = doc.result();
+          if (result.found() && result.source() != null) {
+            fields.put(result.id(), new CollectionFields(result.source()));
+          }
+        } else {
+          LOGGER.error("Could not retrieve collection fields of " + doc.failure().id() + ": " + doc.failure().error().reason());
+        }
       }
     } catch (IOException e) {
-      LOGGER.error("Could not retrieve collection fields");
+      LOGGER.error("Could not retrieve collection fields", e);
     }
-    return null;
+    return fields;
   }
 
 }
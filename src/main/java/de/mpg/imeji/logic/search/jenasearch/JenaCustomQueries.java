@@ -616,6 +616,29 @@ public class JenaCustomQueries {
         + "> . ?item <http://imeji.org/terms/fileSize> ?size . not exists {?item <http://imeji.org/terms/status>  <http://imeji.org/terms/status#WITHDRAWN>}}";
   }
 
+  /**
+   * Search for all {@link Item} which are not withdrawn, with their creator, their fileSize and the
+   * email of the owner of their collection. Results are returned as: item|creator|fileSize|email
+   *
+   * @return
+   */
+  public static final String selectFileSizeOfAllItems() {
+    return "SELECT ?s ?o WHERE {?s <http://imeji.org/terms/fileSize> ?size . ?s <" + ImejiNamespaces.CREATOR
+        + "> ?user . OPTIONAL {?s <http://imeji.org/terms/collection> ?c . ?c <" + ImejiNamespaces.CREATOR
+        + "> ?owner . ?owner <http://xmlns.com/foaf/0.1/email> ?email} . not exists {?s <http://imeji.org/terms/status>  <http://imeji.org/terms/status#WITHDRAWN>} . BIND(CONCAT(str(?user), '|', str(?size), '|', COALESCE(str(?email), '')) AS ?o)}";
+  }
+
+  /**
+   * Select the email of the creator of a {@link CollectionImeji}
+   *
+   * @param collectionUri
+   * @return
+   */
+  public static final String selectCollectionOwnerEmail(String collectionUri) {
+    return "SELECT ?s WHERE {<" + collectionUri + "> <" + ImejiNamespaces.CREATOR
+        + "> ?owner . ?owner <http://xmlns.com/foaf/0.1/email> ?s}";
+  }
+
   /**
    * Chararters ( and ) can not be accepted in the sparql query and must therefore removed
    *
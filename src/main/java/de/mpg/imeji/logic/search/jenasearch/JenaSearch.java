@@ -19,6 +19,8 @@ import de.mpg.imeji.logic.search.model.SearchElement;
 import de.mpg.imeji.logic.search.model.SearchGroup;
 import de.mpg.imeji.logic.search.model.SearchLogicalRelation;
 import de.mpg.imeji.logic.search.model.SearchPair;
+import de.mpg.imeji.logic.search.model.SearchCursor;
+import de.mpg.imeji.logic.search.model.SearchProjection;
 import de.mpg.imeji.logic.search.model.SearchQuery;
 import de.mpg.imeji.logic.search.model.SearchResult;
 import de.mpg.imeji.logic.search.model.SortCriterion;
@@ -107,6 +109,20 @@ public class JenaSearch implements Search {
     return null;
   }
 
+  @Override
+  public SearchResult searchWithCursor(SearchQuery query, List<SortCriterion> sortCriteria, User user, String folderUri,
+      SearchCursor cursor, int size, boolean addFacets, boolean includeSubcollections) {
+    // currently there is no implementation for search in Jena with cursor
+    return null;
+  }
+
+  @Override
+  public SearchResult searchWithProjection(SearchQuery query, List<SortCriterion> sortCriteria, User user, String folderUri,
+      SearchCursor cursor, int offset, int size, boolean addFacets, boolean includeSubcollections, SearchProjection projection) {
+    // currently there is no implementation for search in Jena with projection
+    return null;
+  }
+
   /**
    * Search for with query following sparql syntax
    *
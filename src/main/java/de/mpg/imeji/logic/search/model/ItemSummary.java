@@ -0,0 +1,176 @@
+package de.mpg.imeji.logic.search.model;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import de.mpg.imeji.logic.model.Item;
+import de.mpg.imeji.logic.model.Metadata;
+import de.mpg.imeji.logic.model.Properties.Status;
+import de.mpg.imeji.logic.model.util.StatementUtil;
+import de.mpg.imeji.logic.util.StringHelper;
+
+/**
+ * The fields of an {@link Item} (or of a subcollection shown as an item) needed to display it in a
+ * list. A summary is read from the search index, so that a list can be displayed without reading
+ * the items from the database
+ */
+public class ItemSummary implements Serializable {
+  private static final long serialVersionUID = -6158245796310733410L;
+  private final URI id;
+  private URI collection;
+  private String filename;
+  private String filetype;
+  private long fileSize;
+  private Date modified;
+  private Status status = Status.PENDING;
+  private final List<MetadataSummary> metadata = new ArrayList<>();
+
+  /**
+   * A metadata of the item, as displayed in a list
+   */
+  public static class MetadataSummary implements Serializable {
+    private static final long serialVersionUID = 3208470375193536527L;
+    private final String index;
+    private final String value;
+
+    public MetadataSummary(String index, String value) {
+      this.index = index;
+      this.value = value;
+    }
+
+    /**
+     * Summary of a {@link Metadata} read from the database, with the formatted index of its
+     * statement
+     *
+     * @param md
+     */
+    public MetadataSummary(Metadata md) {
+      this.index = StatementUtil.formatIndex(md.getIndex());
+      this.value = initValue(md);
+    }
+
+    private static String initValue(Metadata md) {
+      if (md.getPerson() != null) {
+        return md.getPerson().getCompleteNameWithOrga();
+      } else if (!StringHelper.isNullOrEmptyTrim(md.getDate())) {
+        return md.getDate();
+      } else if (!Double.isNaN(md.getLatitude()) && !Double.isNaN(md.getLongitude())) {
+        return (md.getName() != null ? md.getName() : "") + " (" + md.getLongitude() + "/" + md.getLatitude() + ")";
+      } else if (!StringHelper.isNullOrEmptyTrim(md.getUrl())) {
+        return md.getUrl();
+      } else if (!StringHelper.isNullOrEmptyTrim(md.getTitle())) {
+        return md.getTitle();
+      } else if (!StringHelper.isNullOrEmptyTrim(md.getName())) {
+        return md.getName();
+      } else if (!Double.isNaN(md.getNumber())) {
+        return formatNumber(md.getNumber());
+      }
+      return md.getText() != null ? md.getText() : "";
+    }
+
+    /**
+     * Format a number without grouping and without trailing zeros
+     *
+     * @param number
+     * @return
+     */
+    public static String formatNumber(double number) {
+      final NumberFormat nf = NumberFormat.getNumberInstance(Locale.ENGLISH);
+      nf.setMinimumFractionDigits(0);
+      nf.setMaximumFractionDigits(999999999);
+      nf.setGroupingUsed(false);
+      return nf.format(number);
+    }
+
+    /**
+     * @return the index of the statement of the metadata
+     */
+    public String getIndex() {
+      return index;
+    }
+
+    public String getValue() {
+      return value;
+    }
+  }
+
+  public ItemSummary(URI id) {
+    this.id = id;
+  }
+
+  public URI getId() {
+    return id;
+  }
+
+  /**
+   * @return the collection of the item, or the parent of the subcollection
+   */
+  public URI getCollection() {
+    return collection;
+  }
+
+  public void setCollection(URI collection) {
+    this.collection = collection;
+  }
+
+  /**
+   * @return the filename of the item, or the title of the subcollection
+   */
+  public String getFilename() {
+    return filename;
+  }
+
+  public void setFilename(String filename) {
+    this.filename = filename;
+  }
+
+  public String getFiletype() {
+    return filetype;
+  }
+
+  public void setFiletype(String filetype) {
+    this.filetype = filetype;
+  }
+
+  public long getFileSize() {
+    return fileSize;
+  }
+
+  public void setFileSize(long fileSize) {
+    this.fileSize = fileSize;
+  }
+
+  public Date getModified() {
+    return modified;
+  }
+
+  public void setModified(Date modified) {
+    this.modified = modified;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  public List<MetadataSummary> getMetadata() {
+    return metadata;
+  }
+
+  /**
+   * True if the summary is the one of a subcollection
+   *
+   * @return
+   */
+  public boolean isCollection() {
+    return id.toString().contains("/collection/");
+  }
+}
@@ -0,0 +1,127 @@
+package de.mpg.imeji.logic.search.model;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Position in a sorted search result, used to read the next page of the result without reading the
+ * previous ones (search_after). The cursor contains:
+ * <li>the sort values of the last result of the page
+ * <li>the id of the point in time of the search, if any, to read all pages from the same state of
+ * the index <br/>
+ * A cursor can be written as an opaque String with {@link #toString()} and read with
+ * {@link #parse(String)}
+ */
+public class SearchCursor implements Serializable {
+  private static final long serialVersionUID = -3286254918734201617L;
+  private static final String SEPARATOR = ".";
+  private final String pointInTime;
+  private final List<Serializable> sortValues;
+
+  /**
+   * @param pointInTime the id of the point in time, or null
+   * @param sortValues the sort values of the last result (String, Long, Double, Boolean or null)
+   */
+  public SearchCursor(String pointInTime, List<Serializable> sortValues) {
+    this.pointInTime = pointInTime;
+    this.sortValues = Collections.unmodifiableList(new ArrayList<>(sortValues));
+  }
+
+  /**
+   * The first page of a search
+   *
+   * @return
+   */
+  public static SearchCursor start() {
+    return new SearchCursor(null, new ArrayList<>());
+  }
+
+  /**
+   * True if this cursor is the start of the search
+   *
+   * @return
+   */
+  public boolean isStart() {
+    return sortValues.isEmpty();
+  }
+
+  public String getPointInTime() {
+    return pointInTime;
+  }
+
+  public List<Serializable> getSortValues() {
+    return sortValues;
+  }
+
+  /**
+   * Parse a cursor written with {@link #toString()}
+   *
+   * @param s
+   * @return
+   * @throws IllegalArgumentException if the cursor is not valid
+   */
+  public static SearchCursor parse(String s) {
+    final String[] parts = s.split("\\" + SEPARATOR, -1);
+    final String pit = decode(parts[0]);
+    final List<Serializable> values = new ArrayList<>();
+    for (int i = 1; i < parts.length; i++) {
+      values.add(parseValue(decode(parts[i])));
+    }
+    return new SearchCursor(pit.isEmpty() ? null : pit, values);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder(encode(pointInTime == null ? "" : pointInTime));
+    for (final Serializable value : sortValues) {
+      sb.append(SEPARATOR).append(encode(writeValue(value)));
+    }
+    return sb.toString();
+  }
+
+  private static String writeValue(Serializable value) {
+    if (value == null) {
+      return "n";
+    } else if (value instanceof Long) {
+      return "l" + value;
+    } else if (value instanceof Double) {
+      return "d" + value;
+    } else if (value instanceof Boolean) {
+      return "b" + value;
+    }
+    return "s" + value;
+  }
+
+  private static Serializable parseValue(String s) {
+    if (s.isEmpty()) {
+      throw new IllegalArgumentException("Invalid cursor");
+    }
+    final String value = s.substring(1);
+    switch (s.charAt(0)) {
+      case 'n':
+        return null;
+      case 'l':
+        return Long.parseLong(value);
+      case 'd':
+        return Double.parseDouble(value);
+      case 'b':
+        return Boolean.parseBoolean(value);
+      case 's':
+        return value;
+      default:
+        throw new IllegalArgumentException("Invalid cursor");
+    }
+  }
+
+  private static String encode(String s) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(s.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String decode(String s) {
+    return new String(Base64.getUrlDecoder().decode(s), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,70 @@
+package de.mpg.imeji.logic.search.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Define what a search returns for each result:
+ * <li>only the id (default)
+ * <li>the id and the values of a set of indexed fields, read from the index (doc values)
+ * <li>the id and a set of fields of the indexed document (source)
+ */
+public class SearchProjection {
+  private static final SearchProjection IDS = new SearchProjection(new ArrayList<>(), new ArrayList<>());
+  private final List<String> fields;
+  private final List<String> sourceFields;
+
+  private SearchProjection(List<String> fields, List<String> sourceFields) {
+    this.fields = Collections.unmodifiableList(fields);
+    this.sourceFields = Collections.unmodifiableList(sourceFields);
+  }
+
+  /**
+   * Return only the ids of the results
+   *
+   * @return
+   */
+  public static SearchProjection ids() {
+    return IDS;
+  }
+
+  /**
+   * Return the ids of the results and the values of the fields, which must be indexed as keyword,
+   * number or date
+   *
+   * @param fields
+   * @return
+   */
+  public static SearchProjection fields(String... fields) {
+    return new SearchProjection(new ArrayList<>(Arrays.asList(fields)), new ArrayList<>());
+  }
+
+  /**
+   * Return the ids of the results and these fields of the indexed documents
+   *
+   * @param sourceFields
+   * @return
+   */
+  public static SearchProjection source(String... sourceFields) {
+    return new SearchProjection(new ArrayList<>(), new ArrayList<>(Arrays.asList(sourceFields)));
+  }
+
+  /**
+   * True if only the ids are returned
+   *
+   * @return
+   */
+  public boolean isIdsOnly() {
+    return fields.isEmpty() && sourceFields.isEmpty();
+  }
+
+  public List<String> getFields() {
+    return fields;
+  }
+
+  public List<String> getSourceFields() {
+    return sourceFields;
+  }
+}
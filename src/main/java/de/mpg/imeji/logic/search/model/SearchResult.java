@@ -1,9 +1,13 @@
 package de.mpg.imeji.logic.search.model;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.jena.Jena;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
 import de.mpg.imeji.logic.search.facet.model.FacetResult;
 import de.mpg.imeji.logic.search.jenasearch.JenaSearch;
 import de.mpg.imeji.logic.search.util.SortHelper;
@@ -29,6 +33,18 @@ public class SearchResult {
   private String query = null;
   private SortCriterion sort;
   private List<FacetResult> facets;
+  /**
+   * The position of the next page, if the search was done with a {@link SearchCursor}
+   */
+  private SearchCursor nextCursor;
+  /**
+   * The values of the fields of the {@link SearchProjection}, per result id
+   */
+  private Map<String, Map<String, List<String>>> fieldValues = new HashMap<>();
+  /**
+   * The source fields of the {@link SearchProjection}, per result id
+   */
+  private Map<String, ObjectNode> sources = new HashMap<>();
 
   /**
    * Create a new {@link SearchResult} from a {@link List} of String, and sort it if a
@@ -128,4 +144,43 @@ public class SearchResult {
   public int getNumberOfRootItemsOfCollection() {
     return numberOfRootItemsOfCollection;
   }
+
+  /**
+   * @return the cursor of the next page, or null if there is no next page
+   */
+  public SearchCursor getNextCursor() {
+    return nextCursor;
+  }
+
+  public void setNextCursor(SearchCursor nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * The values of the fields of the {@link SearchProjection} of the search
+   *
+   * @param id the id of a result
+   * @return the values of each field, or an empty map if the search returned only ids
+   */
+  public Map<String, List<String>> getFieldValues(String id) {
+    return fieldValues.getOrDefault(id, new HashMap<>());
+  }
+
+  public void setFieldValues(Map<String, Map<String, List<String>>> fieldValues) {
+    this.fieldValues = fieldValues;
+  }
+
+  /**
+   * The source fields of the {@link SearchProjection} of the search
+   *
+   * @param id the id of a result
+   * @return the fields of the indexed document, or null if the search didn't return them
+   */
+  public ObjectNode getSource(String id) {
+    return sources.get(id);
+  }
+
+  public void setSources(Map<String, ObjectNode> sources) {
+    this.sources = sources;
+  }
 }
@@ -42,6 +42,8 @@ public class ImejiRsaKeys {
     } else {
       rsaJsonWebKey = RsaJwkGenerator.generateJwk(BITS_NUMBER);
     }
+    // the API Keys signed with the previous keys are not valid anymore
+    PrincipalCache.invalidateAll();
   }
 
   /**
@@ -0,0 +1,142 @@
+package de.mpg.imeji.logic.security.authentication;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.mpg.imeji.logic.model.User;
+import de.mpg.imeji.logic.model.UserGroup;
+
+/**
+ * Cache of the {@link User}s authenticated with an API Key or with a login and a password, so that
+ * a client doing many requests is authenticated without verifying its credentials and reading the
+ * user from the database for each request. <br/>
+ * The entries are identified by the hash of the credentials: the credentials are not kept in
+ * memory. An entry expires after {@link #TTL} ms. The entries are invalidated:
+ * <li>for one user, when the user (for instance its API Key, password, status or grants) or its
+ * membership of a group changes ({@link #invalidateUser(URI)})
+ * <li>for all users, when a {@link UserGroup} or the RSA keys change ({@link #invalidateAll()})
+ */
+public class PrincipalCache {
+  private static final Logger LOGGER = LogManager.getLogger(PrincipalCache.class);
+  private static final int MAX_ENTRIES = 10000;
+  private static final long TTL = 60000;
+  private static final Map<String, Entry> PRINCIPALS = new ConcurrentHashMap<>();
+  /**
+   * Incremented by each invalidation, to avoid caching a user read before the invalidation
+   */
+  private static final AtomicLong GENERATION = new AtomicLong();
+
+  /**
+   * An authenticated user
+   */
+  private static class Entry {
+    private final User user;
+    private final long expires;
+
+    private Entry(User user) {
+      this.user = user;
+      this.expires = System.currentTimeMillis() + TTL;
+    }
+  }
+
+  private PrincipalCache() {
+    // avoid constructor
+  }
+
+  /**
+   * Return the key of an API Key
+   *
+   * @param apiKey
+   * @return
+   */
+  public static String apiKey(String apiKey) {
+    return DigestUtils.sha256Hex("key:" + apiKey);
+  }
+
+  /**
+   * Return the key of a login and a password
+   *
+   * @param login
+   * @param password
+   * @return
+   */
+  public static String credentials(String login, String password) {
+    return DigestUtils.sha256Hex("basic:" + login.length() + ":" + login + ":" + password);
+  }
+
+  /**
+   * @return the current generation of the cache, to be passed to {@link #put(String, User, long)}
+   */
+  public static long generation() {
+    return GENERATION.get();
+  }
+
+  /**
+   * Return a copy of the user authenticated with the key, or null if the key is not cached
+   *
+   * @param key
+   * @return
+   */
+  public static User get(String key) {
+    final Entry entry = PRINCIPALS.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.expires < System.currentTimeMillis()) {
+      PRINCIPALS.remove(key, entry);
+      return null;
+    }
+    return SerializationUtils.clone(entry.user);
+  }
+
+  /**
+   * Cache the user authenticated with the key. The user is not cached if the cache has been
+   * invalidated since the generation
+   *
+   * @param key
+   * @param user
+   * @param generation the generation of the cache before the user has been read
+   */
+  public static void put(String key, User user, long generation) {
+    if (user == null || user.getId() == null) {
+      return;
+    }
+    if (PRINCIPALS.size() >= MAX_ENTRIES) {
+      PRINCIPALS.values().removeIf(e -> e.expires < System.currentTimeMillis());
+      if (PRINCIPALS.size() >= MAX_ENTRIES) {
+        LOGGER.info("Principal cache full: clearing it");
+        PRINCIPALS.clear();
+      }
+    }
+    final Entry entry = new Entry(SerializationUtils.clone(user));
+    PRINCIPALS.put(key, entry);
+    if (GENERATION.get() != generation) {
+      PRINCIPALS.remove(key, entry);
+    }
+  }
+
+  /**
+   * Invalidate all entries of the user
+   *
+   * @param userId
+   */
+  public static void invalidateUser(URI userId) {
+    GENERATION.incrementAndGet();
+    PRINCIPALS.values().removeIf(e -> e.user.getId().equals(userId));
+  }
+
+  /**
+   * Invalidate the complete cache
+   */
+  public static void invalidateAll() {
+    GENERATION.incrementAndGet();
+    PRINCIPALS.clear();
+  }
+}
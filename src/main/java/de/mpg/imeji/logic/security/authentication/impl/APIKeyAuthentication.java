@@ -1,9 +1,11 @@
 package de.mpg.imeji.logic.security.authentication.impl;
 
 import java.net.URI;
+import java.util.AbstractMap.SimpleImmutableEntry;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
+import org.jose4j.jwk.RsaJsonWebKey;
 import org.jose4j.jws.AlgorithmIdentifiers;
 import org.jose4j.jws.JsonWebSignature;
 import org.jose4j.jwt.JwtClaims;
@@ -29,6 +31,10 @@ import de.mpg.imeji.logic.security.user.UserService;
  */
 public class APIKeyAuthentication implements Authentication {
   private static final Logger LOGGER = LogManager.getLogger(APIKeyAuthentication.class);
+  /**
+   * The consumer of the Json Web Tokens, built once for the current RSA key
+   */
+  private static volatile SimpleImmutableEntry<RsaJsonWebKey, JwtConsumer> jwtConsumer;
   private final String key;
 
   public APIKeyAuthentication(String key) {
@@ -110,10 +116,8 @@ public class APIKeyAuthentication implements Authentication {
    * @throws JoseException
    */
   public static String consumeJsonWebToken(String token) throws JoseException {
-    final JwtConsumer jwtConsumer = new JwtConsumerBuilder().setRequireExpirationTime().setAllowedClockSkewInSeconds(30).setRequireSubject()
-        .setVerificationKey(ImejiRsaKeys.getRsaJsonWebKey().getKey()).build();
     try {
-      final JwtClaims jwtClaims = jwtConsumer.processToClaims(token);
+      final JwtClaims jwtClaims = getJwtConsumer().processToClaims(token);
       return jwtClaims.getSubject();
     } catch (InvalidJwtException | MalformedClaimException e) {
       LOGGER.error("Wrong APi Key!", e);
@@ -122,6 +126,23 @@ public class APIKeyAuthentication implements Authentication {
 
   }
 
+  /**
+   * Return the consumer of the Json Web Tokens signed with the current RSA key
+   *
+   * @return
+   * @throws JoseException
+   */
+  private static JwtConsumer getJwtConsumer() throws JoseException {
+    final RsaJsonWebKey key = ImejiRsaKeys.getRsaJsonWebKey();
+    SimpleImmutableEntry<RsaJsonWebKey, JwtConsumer> consumer = jwtConsumer;
+    if (consumer == null || consumer.getKey() != key) {
+      consumer = new SimpleImmutableEntry<>(key, new JwtConsumerBuilder().setRequireExpirationTime().setAllowedClockSkewInSeconds(30)
+          .setRequireSubject().setVerificationKey(key.getKey()).build());
+      jwtConsumer = consumer;
+    }
+    return consumer.getValue();
+  }
+
   @Override
   public String getUserLogin() {
     // TODO Auto-generated method stub
@@ -7,6 +7,7 @@ import org.apache.commons.codec.binary.Base64;
 import de.mpg.imeji.exceptions.AuthenticationError;
 import de.mpg.imeji.logic.model.User;
 import de.mpg.imeji.logic.security.authentication.Authentication;
+import de.mpg.imeji.logic.security.authentication.PrincipalCache;
 import de.mpg.imeji.logic.util.StringHelper;
 
 /**
@@ -60,18 +61,37 @@ public class HttpAuthentication implements Authentication {
   @Override
   public User doLogin() throws AuthenticationError {
     if (apiKey != null) {
-      final APIKeyAuthentication keyAuthentication = new APIKeyAuthentication(apiKey);
-      return keyAuthentication.doLogin();
+      return doLogin(PrincipalCache.apiKey(apiKey), new APIKeyAuthentication(apiKey));
     } else if (usernamePassword != null) {
       final int p = usernamePassword.indexOf(":");
       if (p != -1) {
-        return new DefaultAuthentication(getUserLogin(), getUserPassword()).doLogin();
+        return doLogin(PrincipalCache.credentials(getUserLogin(), getUserPassword()),
+            new DefaultAuthentication(getUserLogin(), getUserPassword()));
       }
     }
     // not logged in
     return null;
   }
 
+  /**
+   * Return the user cached for the credentials, or login with the authentication and cache the user
+   *
+   * @param key the key of the credentials in the {@link PrincipalCache}
+   * @param authentication
+   * @return
+   * @throws AuthenticationError
+   */
+  private User doLogin(String key, Authentication authentication) throws AuthenticationError {
+    final User cached = PrincipalCache.get(key);
+    if (cached != null) {
+      return cached;
+    }
+    final long generation = PrincipalCache.generation();
+    final User user = authentication.doLogin();
+    PrincipalCache.put(key, user, generation);
+    return user;
+  }
+
   /**
    * Parse the authprization header and set the variables
    *
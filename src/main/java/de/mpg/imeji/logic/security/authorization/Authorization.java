@@ -5,6 +5,7 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.Logger;
@@ -230,6 +231,17 @@ public class Authorization implements Serializable {
     return grants;
   }
 
+  /**
+   * Return the uris of all collections and subcollections the {@link User} can read via its grants
+   * or the grants of its {@link UserGroup}s (see {@link ReadableCollectionsCache})
+   *
+   * @param user
+   * @return
+   */
+  public Set<String> getReadableCollections(User user) {
+    return ReadableCollectionsCache.get(user, null);
+  }
+
   /**
    * Reloads the representation of file structure from database
    */
@@ -0,0 +1,196 @@
+package de.mpg.imeji.logic.security.authorization;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.mpg.imeji.logic.config.Imeji;
+import de.mpg.imeji.logic.hierarchy.HierarchyService;
+import de.mpg.imeji.logic.model.Grant;
+import de.mpg.imeji.logic.model.Grant.GrantType;
+import de.mpg.imeji.logic.model.User;
+import de.mpg.imeji.logic.model.UserGroup;
+import de.mpg.imeji.logic.search.elasticsearch.factory.util.ElasticSearchFactoryUtil;
+import de.mpg.imeji.logic.security.usergroup.UserGroupService;
+import de.mpg.imeji.logic.util.ObjectHelper;
+import de.mpg.imeji.logic.util.ObjectHelper.ObjectType;
+
+/**
+ * Cache of the collections (including all their subcollections) a {@link User} can read, via its
+ * own grants or via the grants of its {@link UserGroup}s. <br/>
+ * The entries are invalidated:
+ * <li>for one user, when its grants change (the grants of the user are part of the entry) or when
+ * it is added to or removed from a group ({@link #invalidateUser(URI)})
+ * <li>for all users, when a group or the hierarchy of the collections changes
+ * ({@link #invalidateGroup(String)}, {@link #invalidateAll()})
+ */
+public class ReadableCollectionsCache {
+  private static final Logger LOGGER = LogManager.getLogger(ReadableCollectionsCache.class);
+  private static final int MAX_ENTRIES = 10000;
+  private static final Map<String, Entry> USERS = new ConcurrentHashMap<>();
+  private static final Map<String, List<String>> GROUP_GRANTS = new ConcurrentHashMap<>();
+  /**
+   * Incremented by each invalidation, to avoid caching a value computed with outdated data
+   */
+  private static final AtomicLong GENERATION = new AtomicLong();
+
+  /**
+   * The cached values for one user
+   */
+  private static class Entry {
+    private final List<String> userGrants;
+    private final List<String> groups;
+    private final Map<String, Set<String>> collectionsByRole = new ConcurrentHashMap<>();
+
+    private Entry(List<String> userGrants, List<String> groups) {
+      this.userGrants = userGrants;
+      this.groups = groups;
+    }
+  }
+
+  private ReadableCollectionsCache() {
+    // avoid constructor
+  }
+
+  /**
+   * Return the uris of all collections and subcollections for which the user has a grant. If role
+   * is not null, only the grants the same or bigger than the role are considered
+   *
+   * @param user
+   * @param role
+   * @return
+   */
+  public static Set<String> get(User user, GrantType role) {
+    if (user == null || user.getId() == null) {
+      return Collections.emptySet();
+    }
+    final String roleKey = role == null ? "" : role.name();
+    final long generation = GENERATION.get();
+    Entry entry = USERS.get(user.getId().toString());
+    if (entry == null || !entry.userGrants.equals(new ArrayList<>(user.getGrants()))) {
+      entry = new Entry(new ArrayList<>(user.getGrants()), ElasticSearchFactoryUtil.getGroupsOfUser(user.getId().toString()));
+      put(user.getId().toString(), entry, generation);
+    }
+    Set<String> collections = entry.collectionsByRole.get(roleKey);
+    if (collections == null) {
+      collections = Collections.unmodifiableSet(getCollections(entry, role));
+      if (GENERATION.get() == generation) {
+        entry.collectionsByRole.put(roleKey, collections);
+      }
+    }
+    return collections;
+  }
+
+  /**
+   * True if the user has a grant for the collection or one of its parents
+   *
+   * @param user
+   * @param collectionUri
+   * @return
+   */
+  public static boolean canRead(User user, String collectionUri) {
+    return get(user, null).contains(collectionUri);
+  }
+
+  /**
+   * Invalidate the entry of the user
+   *
+   * @param userId
+   */
+  public static void invalidateUser(URI userId) {
+    GENERATION.incrementAndGet();
+    USERS.remove(userId.toString());
+  }
+
+  /**
+   * Invalidate the grants of the group and the entries of all users (the members of the group might
+   * have changed)
+   *
+   * @param groupId
+   */
+  public static void invalidateGroup(String groupId) {
+    GENERATION.incrementAndGet();
+    GROUP_GRANTS.remove(groupId);
+    USERS.clear();
+  }
+
+  /**
+   * Invalidate the complete cache
+   */
+  public static void invalidateAll() {
+    GENERATION.incrementAndGet();
+    GROUP_GRANTS.clear();
+    USERS.clear();
+  }
+
+  /**
+   * Compute the collections for the role
+   *
+   * @param entry
+   * @param role
+   * @return
+   */
+  private static Set<String> getCollections(Entry entry, GrantType role) {
+    final List<String> grants = new ArrayList<>(entry.userGrants);
+    grants.addAll(getGroupGrants(entry.groups));
+    final HierarchyService hierarchyService = new HierarchyService();
+    final Set<String> collections = new LinkedHashSet<>();
+    for (final String s : grants) {
+      final Grant g = new Grant(s);
+      if (ObjectHelper.getObjectType(URI.create(g.getGrantFor())) == ObjectType.COLLECTION
+          && (role == null || role.isSameOrBigger(g.getGrantType()))) {
+        collections.addAll(hierarchyService.addAllSubcollections(g.getGrantFor()));
+      }
+    }
+    return collections;
+  }
+
+  /**
+   * Return the grants of the groups. The groups which are not cached are read from the database
+   *
+   * @param groups
+   * @return
+   */
+  private static List<String> getGroupGrants(List<String> groups) {
+    final long generation = GENERATION.get();
+    final List<String> missing = new ArrayList<>();
+    final List<String> grants = new ArrayList<>();
+    for (final String group : groups) {
+      final List<String> groupGrants = GROUP_GRANTS.get(group);
+      if (groupGrants == null) {
+        missing.add(group);
+      } else {
+        grants.addAll(groupGrants);
+      }
+    }
+    if (!missing.isEmpty()) {
+      for (final UserGroup group : new UserGroupService().retrieveBatch(missing, Imeji.adminUser)) {
+        final List<String> groupGrants = new ArrayList<>(group.getGrants());
+        if (GENERATION.get() == generation) {
+          GROUP_GRANTS.put(group.getId().toString(), groupGrants);
+        }
+        grants.addAll(groupGrants);
+      }
+    }
+    return grants;
+  }
+
+  private static void put(String userId, Entry entry, long generation) {
+    if (USERS.size() >= MAX_ENTRIES) {
+      LOGGER.info("Readable collections cache full: clearing it");
+      USERS.clear();
+    }
+    if (GENERATION.get() == generation) {
+      USERS.put(userId, entry);
+    }
+  }
+}
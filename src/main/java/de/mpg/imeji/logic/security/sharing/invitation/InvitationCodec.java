@@ -0,0 +1,31 @@
+package de.mpg.imeji.logic.security.sharing.invitation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import de.mpg.imeji.logic.db.keyValue.KeyValueCodec;
+
+/**
+ * {@link KeyValueCodec} for {@link Invitation}
+ */
+public class InvitationCodec extends KeyValueCodec<Invitation> {
+  private static final int ID = 1;
+  private static final int VERSION = 1;
+
+  public InvitationCodec() {
+    super(ID, VERSION, Invitation.class);
+  }
+
+  @Override
+  public void write(Invitation invitation, DataOutput out) throws IOException {
+    writeString(invitation.getInviteeEmail(), out);
+    writeString(invitation.getObjectUri(), out);
+    writeString(invitation.getRole(), out);
+  }
+
+  @Override
+  public Invitation read(DataInput in, int version) throws IOException {
+    return new Invitation(readString(in), readString(in), readString(in));
+  }
+}
@@ -28,7 +28,8 @@ public class InvitationService {
   private static final Logger LOGGER = LogManager.getLogger(InvitationService.class);
   private final UserService userController = new UserService();
   private final ShareService shareBC = new ShareService();
-  private static final KeyValueStoreService KEY_VALUE_STORE_BC = new KeyValueStoreService(new HTreeMapStore("invitationStore"));
+  private static final KeyValueStoreService KEY_VALUE_STORE_BC =
+      new KeyValueStoreService(new HTreeMapStore("invitationStore"), new InvitationCodec());
 
   /**
    * Invite a user to collaborate for an object
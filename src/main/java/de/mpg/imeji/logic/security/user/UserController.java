@@ -27,6 +27,7 @@ import de.mpg.imeji.logic.model.aspects.ChangeMember;
 import de.mpg.imeji.logic.model.aspects.ChangeMember.ActionType;
 import de.mpg.imeji.logic.search.jenasearch.ImejiSPARQL;
 import de.mpg.imeji.logic.search.jenasearch.JenaCustomQueries;
+import de.mpg.imeji.logic.security.authentication.PrincipalCache;
 import de.mpg.imeji.logic.security.usergroup.UserGroupService;
 import de.mpg.imeji.util.DateHelper;
 
@@ -74,6 +75,7 @@ class UserController extends ImejiControllerAbstract<User> implements AccessElem
   @Override
   public List<User> updateBatch(List<User> usersToUpdate, User user) throws ImejiException {
     List<User> updatedUsers = this.fromObjectList(WRITER.update(J2JHelper.cast2ObjectList(usersToUpdate), Imeji.adminUser, true));
+    usersToUpdate.forEach(u -> PrincipalCache.invalidateUser(u.getId()));
     return updatedUsers;
   }
 
@@ -178,6 +180,7 @@ class UserController extends ImejiControllerAbstract<User> implements AccessElem
     ugc.removeUserFromAllGroups(user, Imeji.adminUser);
     // remove user
     WRITER.delete(WriterFacade.toList(user), Imeji.adminUser);
+    PrincipalCache.invalidateUser(user.getId());
   }
 
 
@@ -197,6 +200,7 @@ class UserController extends ImejiControllerAbstract<User> implements AccessElem
 
     ChangeMember changeMember = new ChangeMember(action, imejiDataObject, elementField, element);
     User updatedUser = (User) WRITER.changeElement(changeMember, user);
+    PrincipalCache.invalidateUser(imejiDataObject.getId());
     return updatedUser;
   }
 
@@ -16,6 +16,7 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 import org.jose4j.lang.JoseException;
 
+import de.mpg.imeji.logic.batch.ReIndexProgress;
 import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.db.reader.ReaderFacade;
 import de.mpg.imeji.logic.model.CollectionImeji;
@@ -30,7 +31,7 @@ import de.mpg.imeji.logic.search.Search;
 import de.mpg.imeji.logic.search.Search.SearchObjectTypes;
 import de.mpg.imeji.logic.search.SearchQueryParser;
 import de.mpg.imeji.logic.search.elasticsearch.ElasticIndexer;
-import de.mpg.imeji.logic.search.elasticsearch.ElasticService.ElasticIndices;
+import de.mpg.imeji.logic.search.elasticsearch.ElasticIndexer.RefreshPolicy;
 import de.mpg.imeji.logic.search.factory.SearchFactory;
 import de.mpg.imeji.logic.search.factory.SearchFactory.SEARCH_IMPLEMENTATIONS;
 import de.mpg.imeji.logic.search.jenasearch.ImejiSPARQL;
@@ -43,6 +44,8 @@ import de.mpg.imeji.logic.search.model.SortCriterion;
 import de.mpg.imeji.logic.search.model.SortCriterion.SortOrder;
 import de.mpg.imeji.logic.security.authentication.impl.APIKeyAuthentication;
 import de.mpg.imeji.logic.security.authorization.AuthorizationPredefinedRoles;
+import de.mpg.imeji.logic.security.authentication.PrincipalCache;
+import de.mpg.imeji.logic.security.authorization.ReadableCollectionsCache;
 import de.mpg.imeji.logic.security.authorization.util.SecurityUtil;
 import de.mpg.imeji.logic.security.sharing.invitation.InvitationService;
 import de.mpg.imeji.logic.security.user.util.QuotaUtil;
@@ -133,6 +136,7 @@ public class UserService {
           "User cannot be deleted, as they own or modified collections");
     }
     controller.delete(user);
+    ReadableCollectionsCache.invalidateUser(user.getId());
   }
 
   /**
@@ -277,6 +281,8 @@ public class UserService {
    * @param recentlyModifiedUserId The User id
    */
   public void setRecentlyModified(URI recentlyModifiedUserId) {
+    ReadableCollectionsCache.invalidateUser(recentlyModifiedUserId);
+    PrincipalCache.invalidateUser(recentlyModifiedUserId);
     final String sparqlQuery = JenaCustomQueries.setUserLastModifiedToNow(recentlyModifiedUserId);
     ImejiSPARQL.execUpdate(sparqlQuery);
   }
@@ -562,11 +568,31 @@ public class UserService {
   }
 
   public void reindex(String index) throws Exception {
+    reindex(index, new ReIndexProgress("users"));
+  }
+
+  /**
+   * Reindex all users
+   *
+   * @param index
+   * @param progress
+   * @throws Exception
+   */
+  public void reindex(String index, ReIndexProgress progress) throws Exception {
     LOGGER.info("Indexing users...");
-    final ElasticIndexer indexer = new ElasticIndexer(ElasticIndices.users.name());
-    final List<User> users = retrieveAll();
-    LOGGER.info("+++ " + users.size() + " users to index +++");
-    indexer.indexBatch(users);
+    final ElasticIndexer indexer = new ElasticIndexer(index, RefreshPolicy.NONE);
+    try {
+      final List<User> users = retrieveAll();
+      progress.start(users.size());
+      LOGGER.info("+++ " + users.size() + " users to index +++");
+      indexer.indexBatch(users);
+      indexer.commit();
+      progress.addIndexed(users.size());
+      progress.done();
+    } catch (final Exception e) {
+      progress.fail();
+      throw e;
+    }
     LOGGER.info("...users reindexed!");
   }
 }
@@ -20,6 +20,7 @@ import de.mpg.imeji.logic.search.Search;
 import de.mpg.imeji.logic.search.factory.SearchFactory;
 import de.mpg.imeji.logic.search.jenasearch.JenaCustomQueries;
 import de.mpg.imeji.logic.security.user.UserService;
+import de.mpg.imeji.logic.statistic.StorageUsageCounters;
 
 /**
  * Utility Class for imeji Quota
@@ -107,9 +108,28 @@ public class QuotaUtil {
    * @throws ImejiException
    */
   public static long checkQuota(long currentDiskUsage, User user, File file, CollectionImeji col) throws ImejiException {
+    return checkQuota(currentDiskUsage, user, file.length(), col);
+  }
+
+  /**
+   * Check user disk space quota for files with a total size, for instance all files of an upload.
+   * Quota is calculated for user of target collection.
+   *
+   * @param user
+   * @param size the total size of the files
+   * @param col
+   * @return remained disk space after the upload; <code>-1</code> will be returned for unlimited
+   *         quota
+   * @throws ImejiException
+   */
+  public static long checkQuota(User user, long size, CollectionImeji col) throws ImejiException {
+    return checkQuota(getUsedQuota(user), user, size, col);
+  }
+
+  private static long checkQuota(long currentDiskUsage, User user, long size, CollectionImeji col) throws ImejiException {
     final User targetCollectionUser =
         col == null || user.getId().equals(col.getCreatedBy()) ? user : new UserService().retrieve(col.getCreatedBy(), Imeji.adminUser);
-    final long needed = currentDiskUsage + file.length();
+    final long needed = currentDiskUsage + size;
     if (needed > targetCollectionUser.getQuota()) {
       throw new QuotaExceededException("Data quota (" + QuotaUtil.getQuotaHumanReadable(targetCollectionUser.getQuota(), Locale.ENGLISH)
           + " allowed) has been exceeded (" + FileUtils.byteCountToDisplaySize(currentDiskUsage) + " used)");
@@ -124,6 +144,10 @@ public class QuotaUtil {
    * @return
    */
   public static long getUsedQuota(User user) {
+    final long used = StorageUsageCounters.getUsedStorageOfUser(user.getId().toString());
+    if (used != StorageUsageCounters.UNKNOWN) {
+      return used;
+    }
     final Search search = SearchFactory.create(); // default: Jena
     final List<String> results = search.searchString(JenaCustomQueries.selectUserFileSize(user.getId().toString()), null, null,
         Search.SEARCH_FROM_START_INDEX, Search.GET_ALL_RESULTS).getResults();
@@ -10,6 +10,7 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 import de.mpg.imeji.exceptions.ImejiException;
+import de.mpg.imeji.logic.batch.ReIndexProgress;
 import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.model.Grant;
 import de.mpg.imeji.logic.model.User;
@@ -18,12 +19,15 @@ import de.mpg.imeji.logic.model.aspects.ChangeMember.ActionType;
 import de.mpg.imeji.logic.search.Search;
 import de.mpg.imeji.logic.search.Search.SearchObjectTypes;
 import de.mpg.imeji.logic.search.elasticsearch.ElasticIndexer;
+import de.mpg.imeji.logic.search.elasticsearch.ElasticIndexer.RefreshPolicy;
 import de.mpg.imeji.logic.search.factory.SearchFactory;
 import de.mpg.imeji.logic.search.factory.SearchFactory.SEARCH_IMPLEMENTATIONS;
 import de.mpg.imeji.logic.search.jenasearch.JenaCustomQueries;
 import de.mpg.imeji.logic.search.model.SearchQuery;
 import de.mpg.imeji.logic.search.model.SearchResult;
 import de.mpg.imeji.logic.search.model.SortCriterion;
+import de.mpg.imeji.logic.security.authentication.PrincipalCache;
+import de.mpg.imeji.logic.security.authorization.ReadableCollectionsCache;
 import de.mpg.imeji.logic.security.user.UserService;
 
 /**
@@ -202,12 +206,15 @@ public class UserGroupService {
    * @param userGroup
    */
   private void updateUsersOfUserGroupForReload(UserGroup userGroup) {
+    ReadableCollectionsCache.invalidateGroup(userGroup.getId().toString());
+    PrincipalCache.invalidateAll();
     for (URI user : userGroup.getUsers()) {
       new UserService().setRecentlyModified(user);
     }
   }
 
   private void updateUserForReload(URI usersURI) {
+    ReadableCollectionsCache.invalidateUser(usersURI);
     new UserService().setRecentlyModified(usersURI);
   }
 
@@ -327,12 +334,31 @@ public class UserGroupService {
    * @throws ImejiException
    */
   public void reindex(String index) throws Exception {
+    reindex(index, new ReIndexProgress("user groups"));
+  }
+
+  /**
+   * Reindex all user groups
+   *
+   * @param index
+   * @param progress
+   * @throws Exception
+   */
+  public void reindex(String index, ReIndexProgress progress) throws Exception {
     LOGGER.info("Indexing users...");
-    final ElasticIndexer indexer = new ElasticIndexer(index);
-    final List<UserGroup> groups = (List<UserGroup>) retrieveAll();
-    LOGGER.info("+++ " + groups.size() + " user groups to index +++");
-    indexer.indexBatch(groups);
-    // indexer.commit();
+    final ElasticIndexer indexer = new ElasticIndexer(index, RefreshPolicy.NONE);
+    try {
+      final List<UserGroup> groups = (List<UserGroup>) retrieveAll();
+      progress.start(groups.size());
+      LOGGER.info("+++ " + groups.size() + " user groups to index +++");
+      indexer.indexBatch(groups);
+      indexer.commit();
+      progress.addIndexed(groups.size());
+      progress.done();
+    } catch (final Exception e) {
+      progress.fail();
+      throw e;
+    }
     LOGGER.info("...user groups reindexed!");
   }
 }
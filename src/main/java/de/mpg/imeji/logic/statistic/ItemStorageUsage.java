@@ -0,0 +1,38 @@
+package de.mpg.imeji.logic.statistic;
+
+import java.io.Serializable;
+
+/**
+ * The storage counted for one item by the {@link StorageUsageCounters}: the size of its file, the
+ * user who created it and the institute of its collection
+ */
+public final class ItemStorageUsage implements Serializable {
+  private static final long serialVersionUID = 7395240856329138415L;
+  private final long fileSize;
+  private final String userId;
+  private final String institute;
+
+  public ItemStorageUsage(long fileSize, String userId, String institute) {
+    this.fileSize = fileSize;
+    this.userId = userId;
+    this.institute = institute;
+  }
+
+  public long getFileSize() {
+    return fileSize;
+  }
+
+  /**
+   * @return the uri of the creator of the item
+   */
+  public String getUserId() {
+    return userId;
+  }
+
+  /**
+   * @return the institute of the owner of the collection of the item, or null if unknown
+   */
+  public String getInstitute() {
+    return institute;
+  }
+}
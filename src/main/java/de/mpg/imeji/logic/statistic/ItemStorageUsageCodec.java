@@ -0,0 +1,31 @@
+package de.mpg.imeji.logic.statistic;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import de.mpg.imeji.logic.db.keyValue.KeyValueCodec;
+
+/**
+ * {@link KeyValueCodec} for {@link ItemStorageUsage}
+ */
+public class ItemStorageUsageCodec extends KeyValueCodec<ItemStorageUsage> {
+  private static final int ID = 1;
+  private static final int VERSION = 1;
+
+  public ItemStorageUsageCodec() {
+    super(ID, VERSION, ItemStorageUsage.class);
+  }
+
+  @Override
+  public void write(ItemStorageUsage usage, DataOutput out) throws IOException {
+    out.writeLong(usage.getFileSize());
+    writeString(usage.getUserId(), out);
+    writeString(usage.getInstitute(), out);
+  }
+
+  @Override
+  public ItemStorageUsage read(DataInput in, int version) throws IOException {
+    return new ItemStorageUsage(in.readLong(), readString(in), readString(in));
+  }
+}
@@ -36,6 +36,10 @@ public class StatisticsService {
    * @return
    */
   public long getUsedStorageSizeForInstitute(String instituteName) {
+    final long used = StorageUsageCounters.getUsedStorageOfInstitute(instituteName);
+    if (used != StorageUsageCounters.UNKNOWN) {
+      return used;
+    }
     final Search s = new JenaSearch(SearchObjectTypes.ALL, null);
     final List<String> result = s.searchString(JenaCustomQueries.selectInstituteFileSize(instituteName), null, null,
         Search.SEARCH_FROM_START_INDEX, Search.GET_ALL_RESULTS).getResults();
@@ -46,7 +50,16 @@ public class StatisticsService {
     return 0;
   }
 
+  /**
+   * Return the size of all files (of the items which are not withdrawn)
+   *
+   * @return
+   */
   public long getAllFileSize() {
+    final long used = StorageUsageCounters.getUsedStorage();
+    if (used != StorageUsageCounters.UNKNOWN) {
+      return used;
+    }
     final Search s = new JenaSearch(SearchObjectTypes.ALL, null);
     final List<String> result =
         s.searchString(JenaCustomQueries.selectFileSizeForAll(), null, null, Search.SEARCH_FROM_START_INDEX, Search.GET_ALL_RESULTS)
@@ -0,0 +1,362 @@
+package de.mpg.imeji.logic.statistic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.mpg.imeji.exceptions.ImejiException;
+import de.mpg.imeji.exceptions.NotFoundException;
+import de.mpg.imeji.logic.batch.StorageUsageAnalyseJob;
+import de.mpg.imeji.logic.config.Imeji;
+import de.mpg.imeji.logic.db.keyValue.KeyValueStoreService;
+import de.mpg.imeji.logic.db.keyValue.stores.HTreeMapStore;
+import de.mpg.imeji.logic.model.CollectionImeji;
+import de.mpg.imeji.logic.model.Item;
+import de.mpg.imeji.logic.model.Properties.Status;
+import de.mpg.imeji.logic.search.Search;
+import de.mpg.imeji.logic.search.Search.SearchObjectTypes;
+import de.mpg.imeji.logic.search.jenasearch.JenaCustomQueries;
+import de.mpg.imeji.logic.search.jenasearch.JenaSearch;
+
+/**
+ * Persistent counters of the storage used by each user, each institute and by all items (the sum of
+ * the file size of the items which are not withdrawn):
+ * <li>user:{userId} -> the storage used by the items created by the user
+ * <li>institute:{institute} -> the storage used by the items in the collections of the institute
+ * (defined by the email of the owner of the collection)
+ * <li>all -> the storage used by all items
+ * <li>item:{itemId} -> the {@link ItemStorageUsage} counted for the item <br/>
+ * The counters are updated by the {@link de.mpg.imeji.logic.db.writer.WriterFacade} for each
+ * written {@link Item}, with the difference between the new and the counted size of the item, and
+ * are reconciled with the database by the {@link StorageUsageAnalyseJob}. Until the first
+ * reconciliation, the counters are unknown and the usage must be read from the database. <br/>
+ * The counters are updated after the database commit: before the commit, the write is marked in the
+ * store ({@link #beginUpdate(List)}), and the mark is removed once the counters are updated
+ * ({@link #endUpdate(String)}). If imeji stops in between, the mark is found at the next start: the
+ * counters are then unknown until they are reconciled again
+ */
+public class StorageUsageCounters {
+  private static final Logger LOGGER = LogManager.getLogger(StorageUsageCounters.class);
+  /**
+   * Returned when the counters have not been reconciled yet
+   */
+  public static final long UNKNOWN = -1;
+  private static final KeyValueStoreService STORE =
+      new KeyValueStoreService(new HTreeMapStore("storageUsageStore"), new ItemStorageUsageCodec());
+  private static final String USER_KEY = "user:";
+  private static final String INSTITUTE_KEY = "institute:";
+  private static final String ITEM_KEY = "item:";
+  private static final String COLLECTION_KEY = "collection:";
+  private static final String ALL_KEY = "all";
+  private static final String RECONCILED_KEY = "reconciled";
+  private static final String DIRTY_KEY = "dirty:";
+  private static final String RUN_ID = Long.toString(System.currentTimeMillis(), 36);
+  private static final AtomicLong WRITES = new AtomicLong();
+  private static final AtomicBoolean INTERRUPTED_WRITES_CHECKED = new AtomicBoolean(false);
+  private static final Object LOCK = new Object();
+  private static final AtomicBoolean RECONCILIATION_STARTED = new AtomicBoolean(false);
+
+  private StorageUsageCounters() {
+    // avoid constructor
+  }
+
+  /**
+   * Return the storage used by the items created by the user
+   *
+   * @param userId
+   * @return the used storage in bytes, or {@link #UNKNOWN}
+   */
+  public static long getUsedStorageOfUser(String userId) {
+    return getCounter(USER_KEY + userId);
+  }
+
+  /**
+   * Return the storage used by the items in the collections of the institute
+   *
+   * @param institute
+   * @return the used storage in bytes, or {@link #UNKNOWN}
+   */
+  public static long getUsedStorageOfInstitute(String institute) {
+    return getCounter(INSTITUTE_KEY + normalizeInstitute(institute));
+  }
+
+  /**
+   * Return the storage used by all items
+   *
+   * @return the used storage in bytes, or {@link #UNKNOWN}
+   */
+  public static long getUsedStorage() {
+    return getCounter(ALL_KEY);
+  }
+
+  /**
+   * Update the counters with objects written to the database
+   *
+   * @param objects the objects written to the database
+   * @param deleted true if the objects have been deleted
+   */
+  public static void update(List<Object> objects, boolean deleted) {
+    try {
+      synchronized (LOCK) {
+        updateCounters(objects, deleted);
+      }
+    } catch (final Exception e) {
+      LOGGER.error("Error updating the storage usage counters", e);
+    }
+  }
+
+  /**
+   * Mark the counters as dirty before objects are written to the database, if they contain items
+   *
+   * @param objects the objects which are going to be written
+   * @return the mark, to be passed to {@link #endUpdate(String)}, or null if no mark was needed
+   */
+  public static String beginUpdate(List<Object> objects) {
+    if (objects.stream().noneMatch(o -> o instanceof Item)) {
+      return null;
+    }
+    checkInterruptedWrites();
+    final String key = DIRTY_KEY + RUN_ID + ":" + WRITES.incrementAndGet();
+    try {
+      STORE.put(key, Boolean.TRUE);
+      return key;
+    } catch (final ImejiException e) {
+      LOGGER.error("Error marking the storage usage counters as dirty", e);
+      return null;
+    }
+  }
+
+  /**
+   * Remove the mark of {@link #beginUpdate(List)}, once the counters have been updated or the write
+   * has failed
+   *
+   * @param mark
+   */
+  public static void endUpdate(String mark) {
+    if (mark == null) {
+      return;
+    }
+    try {
+      STORE.delete(mark);
+    } catch (final ImejiException e) {
+      LOGGER.error("Error removing the dirty mark of the storage usage counters", e);
+    }
+  }
+
+  /**
+   * Once per start: if writes of a previous run were not counted, the counters are reconciled again
+   */
+  private static void checkInterruptedWrites() {
+    if (INTERRUPTED_WRITES_CHECKED.compareAndSet(false, true)) {
+      final List<String> marks = STORE.getKeys("^" + DIRTY_KEY + "(?!" + RUN_ID + ":).*");
+      if (!marks.isEmpty()) {
+        LOGGER.warn(marks.size() + " writes were not counted in the storage usage counters: they will be reconciled");
+        synchronized (LOCK) {
+          try {
+            STORE.delete(RECONCILED_KEY);
+            STORE.deleteAll(marks);
+          } catch (final ImejiException e) {
+            LOGGER.error("Error invalidating the storage usage counters", e);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Recompute all counters from the database. Items written during the reconciliation might be
+   * counted with their previous size until the next reconciliation
+   */
+  public static void reconcile() {
+    final long start = System.currentTimeMillis();
+    final Map<String, Object> entries = new HashMap<>();
+    final Map<String, Long> counters = new HashMap<>();
+    final Search search = new JenaSearch(SearchObjectTypes.ALL, null);
+    for (final String row : search
+        .searchString(JenaCustomQueries.selectFileSizeOfAllItems(), null, null, Search.SEARCH_FROM_START_INDEX, Search.GET_ALL_RESULTS)
+        .getResults()) {
+      final String[] values = row.split("\\|", 4);
+      if (values.length < 4) {
+        continue;
+      }
+      final ItemStorageUsage usage = new ItemStorageUsage(parseFileSize(values[2]), values[1], toInstitute(values[3]));
+      entries.put(ITEM_KEY + values[0], usage);
+      addToCounters(counters, usage, 1);
+    }
+    synchronized (LOCK) {
+      try {
+        STORE.deleteAll(STORE.getKeys("^(" + USER_KEY + "|" + INSTITUTE_KEY + "|" + ITEM_KEY + "|" + COLLECTION_KEY + ").*"));
+        entries.putAll(counters);
+        entries.putIfAbsent(ALL_KEY, 0L);
+        entries.put(RECONCILED_KEY, Boolean.TRUE);
+        STORE.putAll(entries);
+      } catch (final ImejiException e) {
+        LOGGER.error("Error writing the storage usage counters", e);
+      }
+    }
+    LOGGER.info("Storage usage counters reconciled in " + (System.currentTimeMillis() - start) + " ms");
+  }
+
+  /**
+   * Return the institute of an email (its domain)
+   *
+   * @param email
+   * @return
+   */
+  public static String toInstitute(String email) {
+    if (email == null || !email.contains("@")) {
+      return null;
+    }
+    return normalizeInstitute(email.substring(email.lastIndexOf('@') + 1));
+  }
+
+  private static String normalizeInstitute(String institute) {
+    return institute.replace(" ", "").toLowerCase();
+  }
+
+  private static long getCounter(String key) {
+    checkInterruptedWrites();
+    if (!isReconciled()) {
+      startReconciliation();
+      return UNKNOWN;
+    }
+    try {
+      return (Long) STORE.get(key);
+    } catch (final NotFoundException e) {
+      return 0;
+    }
+  }
+
+  private static boolean isReconciled() {
+    try {
+      return STORE.get(RECONCILED_KEY) != null;
+    } catch (final NotFoundException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Reconcile the counters once in the background, if they have never been reconciled
+   */
+  private static void startReconciliation() {
+    if (RECONCILIATION_STARTED.compareAndSet(false, true)) {
+      Imeji.getEXECUTOR().submit(StorageUsageCounters::reconcile);
+    }
+  }
+
+  private static void updateCounters(List<Object> objects, boolean deleted) throws ImejiException {
+    final Map<String, Object> entries = new HashMap<>();
+    final Map<String, Long> counters = new HashMap<>();
+    final List<String> removed = new ArrayList<>();
+    for (final Object o : objects) {
+      if (o instanceof Item && ((Item) o).getId() != null) {
+        final Item item = (Item) o;
+        final String key = ITEM_KEY + item.getId();
+        final ItemStorageUsage previous = getItemUsage(key);
+        final ItemStorageUsage current = deleted || isWithdrawn(item) ? null : toItemUsage(item, previous);
+        if (previous != null) {
+          addToCounters(counters, previous, -1);
+        }
+        if (current != null) {
+          addToCounters(counters, current, 1);
+          entries.put(key, current);
+        } else if (previous != null) {
+          removed.add(key);
+        }
+      } else if (o instanceof CollectionImeji && deleted && ((CollectionImeji) o).getId() != null) {
+        removed.add(COLLECTION_KEY + ((CollectionImeji) o).getId());
+      }
+    }
+    for (final Map.Entry<String, Long> counter : counters.entrySet()) {
+      if (counter.getValue() != 0) {
+        entries.put(counter.getKey(), getValue(counter.getKey()) + counter.getValue());
+      }
+    }
+    if (!entries.isEmpty()) {
+      STORE.putAll(entries);
+    }
+    STORE.deleteAll(removed);
+  }
+
+  private static ItemStorageUsage toItemUsage(Item item, ItemStorageUsage previous) {
+    final String userId = item.getCreatedBy() != null ? item.getCreatedBy().toString() : previous != null ? previous.getUserId() : null;
+    if (userId == null) {
+      return null;
+    }
+    return new ItemStorageUsage(item.getFileSize(), userId, getInstituteOfCollection(item, previous));
+  }
+
+  /**
+   * Return the institute of the collection of the item. The institute of each collection is read
+   * once from the database
+   *
+   * @param item
+   * @param previous
+   * @return
+   */
+  private static String getInstituteOfCollection(Item item, ItemStorageUsage previous) {
+    if (item.getCollection() == null) {
+      return previous != null ? previous.getInstitute() : null;
+    }
+    final String key = COLLECTION_KEY + item.getCollection();
+    try {
+      final String institute = (String) STORE.get(key);
+      return institute.isEmpty() ? null : institute;
+    } catch (final NotFoundException e) {
+      final List<String> emails = new JenaSearch(SearchObjectTypes.ALL, null)
+          .searchString(JenaCustomQueries.selectCollectionOwnerEmail(item.getCollection().toString()), null, null,
+              Search.SEARCH_FROM_START_INDEX, Search.GET_ALL_RESULTS)
+          .getResults();
+      final String institute = emails.isEmpty() ? null : toInstitute(emails.get(0));
+      try {
+        STORE.put(key, institute == null ? "" : institute);
+      } catch (final ImejiException e1) {
+        LOGGER.error("Error writing the institute of " + item.getCollection(), e1);
+      }
+      return institute;
+    }
+  }
+
+  private static boolean isWithdrawn(Item item) {
+    return item.getStatus() == Status.WITHDRAWN;
+  }
+
+  private static void addToCounters(Map<String, Long> counters, ItemStorageUsage usage, int sign) {
+    final long size = sign * usage.getFileSize();
+    counters.merge(ALL_KEY, size, Long::sum);
+    counters.merge(USER_KEY + usage.getUserId(), size, Long::sum);
+    if (usage.getInstitute() != null) {
+      counters.merge(INSTITUTE_KEY + usage.getInstitute(), size, Long::sum);
+    }
+  }
+
+  private static ItemStorageUsage getItemUsage(String key) {
+    try {
+      return (ItemStorageUsage) STORE.get(key);
+    } catch (final NotFoundException e) {
+      return null;
+    }
+  }
+
+  private static long getValue(String key) {
+    try {
+      return (Long) STORE.get(key);
+    } catch (final NotFoundException e) {
+      return 0;
+    }
+  }
+
+  private static long parseFileSize(String s) {
+    try {
+      return Long.parseLong(s.trim());
+    } catch (final NumberFormatException e) {
+      return 0;
+    }
+  }
+}
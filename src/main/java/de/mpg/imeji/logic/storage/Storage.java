@@ -178,4 +178,12 @@ public interface Storage extends Serializable {
    */
   public double getContentLenght(String url);
 
+  /**
+   * Return the time (in ms) the file was last modified, or 0 if unknown
+   * 
+   * @param url
+   * @return
+   */
+  public long getLastModified(String url);
+
 }
@@ -1,6 +1,5 @@
 package de.mpg.imeji.logic.storage;
 
-import static de.mpg.imeji.logic.util.StorageUtils.calculateChecksum;
 import static de.mpg.imeji.logic.util.StorageUtils.compareExtension;
 import static de.mpg.imeji.logic.util.StorageUtils.guessExtension;
 
@@ -16,12 +15,14 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 import de.mpg.imeji.exceptions.ImejiException;
+import de.mpg.imeji.exceptions.UnprocessableError;
 import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.config.util.PropertyReader;
 import de.mpg.imeji.logic.model.CollectionImeji;
 import de.mpg.imeji.logic.model.UploadResult;
 import de.mpg.imeji.logic.storage.administrator.StorageAdministrator;
-import de.mpg.imeji.logic.storage.util.ImageUtils;
+import de.mpg.imeji.logic.storage.ingest.IngestedFile;
+import de.mpg.imeji.logic.storage.ingest.StreamingIngest;
 import de.mpg.imeji.logic.util.StorageUtils;
 
 /**
@@ -77,22 +78,48 @@ public final class StorageController implements Serializable {
    * @throws ImejiException
    */
   public UploadResult upload(String filename, File file) throws ImejiException {
+    return upload(filename, inspect(file));
+  }
+
+  /**
+   * Call upload method of the controlled {@link Storage} for a file read by the
+   * {@link StreamingIngest}: the checksum, the size and the dimension of the file are not read
+   * again
+   *
+   * @param filename
+   * @param file
+   * @return
+   * @throws ImejiException
+   */
+  public UploadResult upload(String filename, IngestedFile file) throws ImejiException {
     filename = FilenameUtils.getName(filename);
-    final UploadResult result = storage.upload(filename, file);
-    final File storageFile = storage.read(result.getOrginal());
-    result.setChecksum(calculateChecksum(storageFile));
-    result.setFileSize(storageFile.length());
-    // If the file is an image, read the dimension of the image
-    if (StorageUtils.getMimeType(storageFile).contains("image")) {
-      final Dimension d = ImageUtils.getImageDimension(storageFile);
-      if (d != null) {
-        result.setHeight(d.height);
-        result.setWidth(d.width);
-      }
+    final UploadResult result = storage.upload(filename, file.getFile());
+    result.setChecksum(file.getChecksum());
+    result.setFileSize(file.getSize());
+    // If the file is an image, set the dimension of the image
+    final Dimension d = file.getDimension();
+    if (d != null) {
+      result.setHeight(d.height);
+      result.setWidth(d.width);
     }
     return result;
   }
 
+  /**
+   * Read a file with the {@link StreamingIngest}
+   *
+   * @param file
+   * @return
+   * @throws ImejiException
+   */
+  public static IngestedFile inspect(File file) throws ImejiException {
+    try {
+      return StreamingIngest.inspect(file);
+    } catch (final IOException e) {
+      throw new UnprocessableError("Error reading the file: ", e);
+    }
+  }
+
   /**
    * Call read method of the controlled {@link Storage}
    *
@@ -156,6 +183,26 @@ public final class StorageController implements Serializable {
     return storage.getCollectionId(url);
   }
 
+  /**
+   * Return the time (in ms) the file was last modified, or 0 if unknown
+   *
+   * @param url
+   * @return
+   */
+  public long getLastModified(String url) {
+    return storage.getLastModified(url);
+  }
+
+  /**
+   * Return the id of the file in the storage (the same for all resolutions of the file)
+   *
+   * @param url
+   * @return
+   */
+  public String getStorageId(String url) {
+    return storage.getStorageId(url);
+  }
+
   /**
    * Null if the file format related to the passed extension can be uploaded, not allowed file type
    * exception otherwise
@@ -164,15 +211,25 @@ public final class StorageController implements Serializable {
    * @return not allowed file format extension
    */
   public String guessNotAllowedFormat(File file) {
+    return guessNotAllowedFormat(file.getName(), guessExtension(file));
+  }
+
+  /**
+   * Null if the file format related to the passed extension can be uploaded, not allowed file type
+   * exception otherwise
+   *
+   * @param filename
+   * @param guessedExtension the extension guessed from the content of the file
+   * @return not allowed file format extension
+   */
+  public String guessNotAllowedFormat(String filename, String guessedExtension) {
     boolean canBeUploaded = false;
-    String guessedExtension = FilenameUtils.getExtension(file.getName());
-    if (!"".equals(guessedExtension)) {
-      canBeUploaded = isAllowedFormat(guessedExtension);
+    final String extension = FilenameUtils.getExtension(filename);
+    if (!"".equals(extension)) {
+      canBeUploaded = isAllowedFormat(extension);
     }
-    // In Any case check the extension by Tika results
-    guessedExtension = guessExtension(file);
-
-    // file can be uploaded only if both results are true
+    // In Any case check the extension by Tika results: the file can be uploaded only if both results
+    // are true
     canBeUploaded = canBeUploaded && isAllowedFormat(guessedExtension);
 
     return canBeUploaded ? guessedExtension : StorageUtils.BAD_FORMAT;
@@ -1,6 +1,7 @@
 package de.mpg.imeji.logic.storage.administrator.impl;
 
 import java.io.File;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.FileFilterUtils;
@@ -12,6 +13,7 @@ import de.mpg.imeji.logic.search.jenasearch.ImejiSPARQL;
 import de.mpg.imeji.logic.search.jenasearch.JenaCustomQueries;
 import de.mpg.imeji.logic.storage.administrator.StorageAdministrator;
 import de.mpg.imeji.logic.storage.impl.InternalStorage;
+import de.mpg.imeji.logic.storage.ingest.StreamingIngest;
 import de.mpg.imeji.logic.storage.internal.InternalStorageManager;
 import de.mpg.imeji.logic.util.StringHelper;
 
@@ -102,8 +104,14 @@ public class InternalStorageAdministrator implements StorageAdministrator {
   public int clean() {
     int deleted = 0;
     LOGGER.info("Start cleaning...");
+    final File stagingDir = new File(storageDir, StreamingIngest.STAGING_DIRECTORY);
     for (final File f : FileUtils.listFiles(storageDir, null, true)) {
-      if (f.isFile()) {
+      if (f.getParentFile().equals(stagingDir)) {
+        // files being uploaded: remove only the files left by an interrupted upload
+        if (f.lastModified() < System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1) && FileUtils.deleteQuietly(f)) {
+          deleted++;
+        }
+      } else if (f.isFile()) {
         final InternalStorageManager m = new InternalStorageManager();
         final String url = m.transformPathToUrl(f.getPath());
         if (ImejiSPARQL.exec(JenaCustomQueries.selectItemIdOfFileUrl(url), null).size() == 0) {
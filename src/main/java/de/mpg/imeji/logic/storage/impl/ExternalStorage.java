@@ -192,6 +192,11 @@ public class ExternalStorage implements Storage {
     return 0;
   }
 
+  @Override
+  public long getLastModified(String url) {
+    return 0;
+  }
+
   @Override
   public void readPart(String url, OutputStream out, boolean close, long offset, long length) throws ImejiException {
     read(url, out, close);
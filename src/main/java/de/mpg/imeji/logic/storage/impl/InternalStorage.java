@@ -90,8 +90,7 @@ public class InternalStorage implements Storage {
   private void retryRead(String url, OutputStream out, boolean close, int counter) {
     final String path = manager.transformUrlToPath(url);
     try {
-      final FileInputStream fis = new FileInputStream(path);
-      StorageUtils.writeInOut(fis, out, close);
+      StorageUtils.writeFileInOut(Paths.get(path), out, close);
     } catch (final Exception e) {
       if (MAX_RETRY > counter) {
         LOGGER.info(path + " not found! Retrying read file: " + counter);
@@ -116,8 +115,7 @@ public class InternalStorage implements Storage {
   public void readPart(String url, OutputStream out, boolean close, long offset, long length) throws ImejiException {
     final String path = manager.transformUrlToPath(url);
     try {
-      final FileInputStream fis = new FileInputStream(path);
-      StorageUtils.writeInOut(fis, out, close, offset, length);
+      StorageUtils.writeFileInOut(Paths.get(path), out, close, offset, length);
     } catch (final Exception e) {
       throw new RuntimeException("Error reading file " + path + " in internal storage: ", e);
     }
@@ -353,4 +351,9 @@ public class InternalStorage implements Storage {
     return f.length();
   }
 
+  @Override
+  public long getLastModified(String url) {
+    return new File(manager.transformUrlToPath(url)).lastModified();
+  }
+
 }
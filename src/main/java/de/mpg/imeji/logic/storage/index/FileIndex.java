@@ -0,0 +1,176 @@
+package de.mpg.imeji.logic.storage.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.mpg.imeji.exceptions.ImejiException;
+import de.mpg.imeji.exceptions.NotFoundException;
+import de.mpg.imeji.logic.db.keyValue.KeyValueStoreService;
+import de.mpg.imeji.logic.db.keyValue.stores.HTreeMapStore;
+import de.mpg.imeji.logic.model.ContentVO;
+import de.mpg.imeji.logic.model.Item;
+import de.mpg.imeji.logic.storage.StorageController;
+
+/**
+ * Persistent index of the files of the items, to authorize the access to a file without querying
+ * the database:
+ * <li>file:{storageId} -> the item of the file
+ * <li>item:{itemId} -> the collection and the status of the item <br/>
+ * The index is updated by the {@link de.mpg.imeji.logic.db.writer.WriterFacade} for each written
+ * {@link Item} and {@link ContentVO}: the entries of the items are removed before the database
+ * commit ({@link #invalidate(List)}) and written after it ({@link #update(List, boolean)}). If the
+ * update after the commit is lost, the item is not indexed and its access is checked in the
+ * database. Files written before the index existed are added when they are read for the first time
+ * (see {@link #put(String, Item, long)})
+ */
+public class FileIndex {
+  private static final Logger LOGGER = LogManager.getLogger(FileIndex.class);
+  private static final KeyValueStoreService STORE =
+      new KeyValueStoreService(new HTreeMapStore("fileIndexStore", 1000, 500), new FileIndexEntryCodec());
+  private static final StorageController STORAGE_CONTROLLER = new StorageController();
+  private static final String FILE_KEY = "file:";
+  private static final String ITEM_KEY = "item:";
+  /**
+   * Incremented by each invalidation, to avoid indexing an item read before it was changed
+   */
+  private static final AtomicLong GENERATION = new AtomicLong();
+
+  private FileIndex() {
+    // avoid constructor
+  }
+
+  /**
+   * Return the item (id, collection and status) of the file, or null if the file is not indexed
+   *
+   * @param fileUrl
+   * @return
+   */
+  public static FileIndexEntry get(String fileUrl) {
+    try {
+      final String storageId = STORAGE_CONTROLLER.getStorageId(fileUrl);
+      final FileIndexEntry file = (FileIndexEntry) STORE.get(FILE_KEY + storageId);
+      return (FileIndexEntry) STORE.get(ITEM_KEY + file.getItemId());
+    } catch (final NotFoundException e) {
+      return null;
+    } catch (final Exception e) {
+      LOGGER.warn("Error reading the file index for " + fileUrl + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * The current generation of the index, to be read before reading an item from the database
+   *
+   * @return
+   */
+  public static long getGeneration() {
+    return GENERATION.get();
+  }
+
+  /**
+   * Index the file of the item, if no item has been invalidated since the item has been read
+   *
+   * @param fileUrl
+   * @param item
+   * @param generation the generation read before the item was read from the database
+   */
+  public static void put(String fileUrl, Item item, long generation) {
+    if (GENERATION.get() != generation || item.getCollection() == null || item.getStatus() == null) {
+      return;
+    }
+    final Map<String, Object> entries = new HashMap<>();
+    entries.put(FILE_KEY + STORAGE_CONTROLLER.getStorageId(fileUrl), new FileIndexEntry(item.getId().toString(), null, null));
+    entries.put(ITEM_KEY + item.getId(), toEntry(item));
+    putAll(entries);
+  }
+
+  /**
+   * Remove the entries of the items which are going to be written to the database. Must be called
+   * before the database commit: an entry is never older than the item in the database
+   *
+   * @param objects the objects which are going to be written
+   */
+  public static void invalidate(List<Object> objects) {
+    final List<String> keys = new ArrayList<>();
+    for (final Object o : objects) {
+      if (o instanceof Item && ((Item) o).getId() != null) {
+        keys.add(ITEM_KEY + ((Item) o).getId());
+      }
+    }
+    if (keys.isEmpty()) {
+      return;
+    }
+    GENERATION.incrementAndGet();
+    try {
+      STORE.deleteAll(keys);
+    } catch (final ImejiException e) {
+      LOGGER.error("Error invalidating the file index", e);
+    }
+  }
+
+  /**
+   * Update the index with objects written to the database
+   *
+   * @param objects the objects written to the database
+   * @param deleted true if the objects have been deleted
+   */
+  public static void update(List<Object> objects, boolean deleted) {
+    try {
+      updateEntries(objects, deleted);
+    } catch (final Exception e) {
+      LOGGER.error("Error updating the file index", e);
+    }
+  }
+
+  private static void updateEntries(List<Object> objects, boolean deleted) {
+    final Map<String, Object> entries = new HashMap<>();
+    for (final Object o : objects) {
+      if (o instanceof Item && ((Item) o).getId() != null) {
+        final Item item = (Item) o;
+        if (deleted) {
+          delete(ITEM_KEY + item.getId());
+        } else if (item.getCollection() != null && item.getStatus() != null) {
+          entries.put(ITEM_KEY + item.getId(), toEntry(item));
+        }
+      } else if (o instanceof ContentVO && ((ContentVO) o).getOriginal() != null) {
+        final ContentVO content = (ContentVO) o;
+        final String key = FILE_KEY + STORAGE_CONTROLLER.getStorageId(content.getOriginal());
+        if (deleted) {
+          delete(key);
+        } else if (content.getItemId() != null) {
+          entries.put(key, new FileIndexEntry(content.getItemId(), null, null));
+        }
+      }
+    }
+    putAll(entries);
+  }
+
+  private static FileIndexEntry toEntry(Item item) {
+    return new FileIndexEntry(item.getId().toString(), item.getCollection().toString(), item.getStatus().name());
+  }
+
+  private static void putAll(Map<String, Object> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    try {
+      STORE.putAll(entries);
+    } catch (final ImejiException e) {
+      LOGGER.error("Error writing the file index", e);
+    }
+  }
+
+  private static void delete(String key) {
+    try {
+      STORE.delete(key);
+    } catch (final ImejiException e) {
+      LOGGER.error("Error deleting " + key + " from the file index", e);
+    }
+  }
+}
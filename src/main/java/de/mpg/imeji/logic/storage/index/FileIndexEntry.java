@@ -0,0 +1,42 @@
+package de.mpg.imeji.logic.storage.index;
+
+import java.io.Serializable;
+
+/**
+ * Entry of the {@link FileIndex}:
+ * <li>for a file (key: storage id), the item of the file
+ * <li>for an item (key: item id), its collection and its status
+ */
+public final class FileIndexEntry implements Serializable {
+  private static final long serialVersionUID = -2394513734006416232L;
+  private final String itemId;
+  private final String collectionId;
+  private final String status;
+
+  public FileIndexEntry(String itemId, String collectionId, String status) {
+    this.itemId = itemId;
+    this.collectionId = collectionId;
+    this.status = status;
+  }
+
+  /**
+   * @return the uri of the item
+   */
+  public String getItemId() {
+    return itemId;
+  }
+
+  /**
+   * @return the uri of the collection of the item (null for a file entry)
+   */
+  public String getCollectionId() {
+    return collectionId;
+  }
+
+  /**
+   * @return the status of the item (null for a file entry)
+   */
+  public String getStatus() {
+    return status;
+  }
+}
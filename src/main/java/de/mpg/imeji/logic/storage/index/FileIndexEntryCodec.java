@@ -0,0 +1,31 @@
+package de.mpg.imeji.logic.storage.index;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import de.mpg.imeji.logic.db.keyValue.KeyValueCodec;
+
+/**
+ * {@link KeyValueCodec} for {@link FileIndexEntry}
+ */
+public class FileIndexEntryCodec extends KeyValueCodec<FileIndexEntry> {
+  private static final int ID = 1;
+  private static final int VERSION = 1;
+
+  public FileIndexEntryCodec() {
+    super(ID, VERSION, FileIndexEntry.class);
+  }
+
+  @Override
+  public void write(FileIndexEntry entry, DataOutput out) throws IOException {
+    writeString(entry.getItemId(), out);
+    writeString(entry.getCollectionId(), out);
+    writeString(entry.getStatus(), out);
+  }
+
+  @Override
+  public FileIndexEntry read(DataInput in, int version) throws IOException {
+    return new FileIndexEntry(readString(in), readString(in), readString(in));
+  }
+}
@@ -0,0 +1,60 @@
+package de.mpg.imeji.logic.storage.ingest;
+
+import java.awt.Dimension;
+import java.io.File;
+
+import de.mpg.imeji.logic.util.StorageUtils;
+
+/**
+ * A file read once by the {@link StreamingIngest}, with the properties computed while reading it:
+ * the properties don't need to be computed again by the validation and the storage of the file
+ */
+public class IngestedFile {
+  private final File file;
+  private final String checksum;
+  private final long size;
+  private final String extension;
+  private final Dimension dimension;
+
+  IngestedFile(File file, String checksum, long size, String extension, Dimension dimension) {
+    this.file = file;
+    this.checksum = checksum;
+    this.size = size;
+    this.extension = extension;
+    this.dimension = dimension;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * @return the MD5 checksum of the file, as hexadecimal
+   */
+  public String getChecksum() {
+    return checksum;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * @return the extension guessed from the content of the file (see
+   *         {@link StorageUtils#guessExtension(File)})
+   */
+  public String getExtension() {
+    return extension;
+  }
+
+  public String getMimeType() {
+    return StorageUtils.getMimeType(extension);
+  }
+
+  /**
+   * @return the dimension of the image, or null if the file is not an image
+   */
+  public Dimension getDimension() {
+    return dimension;
+  }
+}
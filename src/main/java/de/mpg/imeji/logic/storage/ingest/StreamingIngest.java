@@ -0,0 +1,137 @@
+package de.mpg.imeji.logic.storage.ingest;
+
+import java.awt.Dimension;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.mpg.imeji.logic.config.util.PropertyReader;
+import de.mpg.imeji.logic.storage.util.ImageUtils;
+import de.mpg.imeji.logic.util.StorageUtils;
+import de.mpg.imeji.logic.util.StringHelper;
+import de.mpg.imeji.logic.util.TempFileUtil;
+
+/**
+ * Read an uploaded file only once: while the file is written, its checksum is calculated and its
+ * first bytes are kept to guess its format. The dimension of an image is read from the header of
+ * the written file. <br/>
+ * The uploaded files are written in the staging directory of the storage, so that the storage moves
+ * them without copying them
+ */
+public class StreamingIngest {
+  private static final Logger LOGGER = LogManager.getLogger(StreamingIngest.class);
+  /**
+   * The number of first bytes used to guess the format of the file
+   */
+  private static final int HEAD_SIZE = 64 * 1024;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  public static final String STAGING_DIRECTORY = "staging";
+  private static File stagingDirectory;
+
+  private StreamingIngest() {
+    // avoid constructor
+  }
+
+  /**
+   * Write the stream in the staging directory. The stream is closed
+   *
+   * @param in
+   * @param filename the name of the uploaded file
+   * @return
+   * @throws IOException
+   */
+  public static IngestedFile ingest(InputStream in, String filename) throws IOException {
+    final String extension = FilenameUtils.getExtension(filename);
+    final File staged = File.createTempFile(TempFileUtil.IMEJI_TEMP_FILE_PREFIX + "upload",
+        StringHelper.isNullOrEmptyTrim(extension) ? null : "." + extension, getStagingDirectory());
+    try (InputStream input = in; OutputStream out = new FileOutputStream(staged)) {
+      return read(input, out, staged, FilenameUtils.getName(filename));
+    } catch (final IOException | RuntimeException e) {
+      FileUtils.deleteQuietly(staged);
+      throw e;
+    }
+  }
+
+  /**
+   * Read a file already written on the disk
+   *
+   * @param file
+   * @return
+   * @throws IOException
+   */
+  public static IngestedFile inspect(File file) throws IOException {
+    try (InputStream in = new FileInputStream(file)) {
+      return read(in, null, file, file.getName());
+    }
+  }
+
+  /**
+   * Read the stream once, write it if out is not null, and compute the properties of the file
+   *
+   * @param in
+   * @param out
+   * @param file
+   * @param filename the name used to guess the format
+   * @return
+   * @throws IOException
+   */
+  private static IngestedFile read(InputStream in, OutputStream out, File file, String filename) throws IOException {
+    final MessageDigest md5 = DigestUtils.getMd5Digest();
+    final ByteArrayOutputStream head = new ByteArrayOutputStream(HEAD_SIZE);
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    long size = 0;
+    int n;
+    while ((n = in.read(buffer)) != -1) {
+      md5.update(buffer, 0, n);
+      if (head.size() < HEAD_SIZE) {
+        head.write(buffer, 0, Math.min(n, HEAD_SIZE - head.size()));
+      }
+      if (out != null) {
+        out.write(buffer, 0, n);
+      }
+      size += n;
+    }
+    if (out != null) {
+      out.flush();
+    }
+    final String extension = StorageUtils.guessExtension(head.toByteArray(), filename);
+    // read only the header of the image
+    final Dimension dimension = StorageUtils.getMimeType(extension).contains("image") ? ImageUtils.getImageDimension(file) : null;
+    return new IngestedFile(file, Hex.encodeHexString(md5.digest()), size, extension, dimension);
+  }
+
+  /**
+   * Return the staging directory: in the storage directory if possible, in the temp directory
+   * otherwise
+   *
+   * @return
+   */
+  private static synchronized File getStagingDirectory() {
+    if (stagingDirectory == null) {
+      try {
+        final File dir = new File(PropertyReader.getProperty("imeji.storage.path"), STAGING_DIRECTORY);
+        if (dir.isDirectory() || dir.mkdirs()) {
+          stagingDirectory = dir;
+        }
+      } catch (final Exception e) {
+        LOGGER.error("Error creating the staging directory in the storage: using the temp directory", e);
+      }
+      if (stagingDirectory == null) {
+        stagingDirectory = TempFileUtil.getOrCreateTempDirectory();
+      }
+    }
+    return stagingDirectory;
+  }
+}
@@ -15,12 +15,15 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
+import de.mpg.imeji.logic.concurrency.PrioritizedTask;
+import de.mpg.imeji.logic.concurrency.PrioritizedTask.Priority;
 import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.config.util.PropertyReader;
 import de.mpg.imeji.logic.model.Item;
@@ -29,6 +32,7 @@ import de.mpg.imeji.logic.storage.administrator.StorageAdministrator;
 import de.mpg.imeji.logic.storage.administrator.impl.InternalStorageAdministrator;
 import de.mpg.imeji.logic.storage.transform.ImageGeneratorManager;
 import de.mpg.imeji.logic.util.IdentifierUtil;
+import de.mpg.imeji.logic.util.StorageUtils;
 import de.mpg.imeji.logic.util.StringHelper;
 
 /**
@@ -310,7 +314,8 @@ public class InternalStorageManager implements Serializable {
     File original = new File(transformUrlToPath(item.getOriginalUrl()));
     move(file, original.getAbsolutePath());
     // Create thumbnail,prieview and full
-    Imeji.getINTERNAL_STORAGE_EXECUTOR().submit(new GenerateThumbnailPreviewAndFullTask(item, original));
+    Imeji.getINTERNAL_STORAGE_EXECUTOR()
+        .submit(new PrioritizedTask<>(new GenerateThumbnailPreviewAndFullTask(item, original), Priority.INTERACTIVE));
     return item;
   }
 
@@ -347,28 +352,62 @@ public class InternalStorageManager implements Serializable {
   }
 
   /**
-   * Generate all images for this file and this item
+   * Generate all images for this file and this item. A jpeg is copied as it is to the full
+   * resolution, and decoded once to write the web resolution and the thumbnail. An image in another
+   * format is decoded once to write the 3 resolutions (see
+   * {@link ImageGeneratorManager#generateFullWebAndThumbnail(File, String)})
    * 
    * @param item
    * @param file
    */
   private void generateThumbnailPreviewAndFull(InternalStorageItem item, File file) {
-    File fullResolution = null;
     try {
       final ImageGeneratorManager generatorManager = new ImageGeneratorManager();
-      // write web resolution file in storage
       final String calculatedExtension = guessExtension(file);
-      fullResolution = generatorManager.generateFullResolution(file, calculatedExtension);
-      fullResolution = new File(move(fullResolution, transformUrlToPath(item.getFullUrl())));
-      // Generate and write Web resolution
-      move(generatorManager.generateWebResolution(fullResolution, "jpg"), transformUrlToPath(item.getWebUrl()));
-      // Generate and write Thumbnail resolution
-      move(generatorManager.generateThumbnail(fullResolution, "jpg"), transformUrlToPath(item.getThumbnailUrl()));
+      final String fullPath = transformUrlToPath(item.getFullUrl());
+      if (StorageUtils.compareExtension(calculatedExtension, "jpg")) {
+        writeWebAndThumbnail(generatorManager, item, new File(copy(file, fullPath)));
+      } else {
+        writeFiles(item, generatorManager.generateFullWebAndThumbnail(file, calculatedExtension));
+      }
     } catch (final Exception e) {
       LOGGER.error("Error transforming and writing file in internal storage ", e);
     }
   }
 
+  /**
+   * Generate the web resolution and the thumbnail from the full resolution and write them in the
+   * storage
+   *
+   * @param generatorManager
+   * @param item
+   * @param fullResolution
+   * @throws IOException
+   */
+  private void writeWebAndThumbnail(ImageGeneratorManager generatorManager, InternalStorageItem item, File fullResolution)
+      throws IOException {
+    writeFiles(item, generatorManager.generateWebAndThumbnail(fullResolution));
+  }
+
+  /**
+   * Move the generated resolutions in the storage
+   *
+   * @param item
+   * @param files
+   * @throws IOException
+   */
+  private void writeFiles(InternalStorageItem item, Map<FileResolution, File> files) throws IOException {
+    try {
+      if (files.containsKey(FileResolution.FULL)) {
+        move(files.get(FileResolution.FULL), transformUrlToPath(item.getFullUrl()));
+      }
+      move(files.get(FileResolution.WEB), transformUrlToPath(item.getWebUrl()));
+      move(files.get(FileResolution.THUMBNAIL), transformUrlToPath(item.getThumbnailUrl()));
+    } finally {
+      files.values().forEach(FileUtils::deleteQuietly);
+    }
+  }
+
   /**
    * Delete existing full web thumbnail images/previews of a file and create new ones Needed after
    * changes in GUI or changes in file icons
@@ -404,12 +443,10 @@ public class InternalStorageManager implements Serializable {
       final ImageGeneratorManager generatorManager = new ImageGeneratorManager();
       File fullResolution = new File(transformUrlToPath(item.getFullUrl()));
       if (fullResolution.exists()) {
-        // Generate and write web resolution from full resolution
+        // Generate and write web and thumbnail resolution from full resolution
         removeFile(item.getWebUrl());
-        move(generatorManager.generateWebResolution(fullResolution, "jpg"), transformUrlToPath(item.getWebUrl()));
-        // Generate and write thumbnail resolution from full resolution
         removeFile(item.getThumbnailUrl());
-        move(generatorManager.generateThumbnail(fullResolution, "jpg"), transformUrlToPath(item.getThumbnailUrl()));
+        writeWebAndThumbnail(generatorManager, item, fullResolution);
       }
     } catch (final Exception e) {
       LOGGER.error("Error transforming and writing file in internal storage ", e);
@@ -1,15 +1,19 @@
 package de.mpg.imeji.logic.storage.transform;
 
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 import de.mpg.imeji.exceptions.ImejiException;
+import de.mpg.imeji.logic.config.util.PropertyReader;
 import de.mpg.imeji.logic.storage.Storage.FileResolution;
 import de.mpg.imeji.logic.storage.transform.generator.CompressedFilesImageGenerator;
 import de.mpg.imeji.logic.storage.transform.generator.ImageGenerator;
@@ -20,6 +24,8 @@ import de.mpg.imeji.logic.storage.transform.generator.RawFileImageGenerator;
 import de.mpg.imeji.logic.storage.transform.generator.SimpleAudioImageGenerator;
 import de.mpg.imeji.logic.storage.transform.generator.SimpleImageGenerator;
 import de.mpg.imeji.logic.storage.util.ImageMagickUtils;
+import de.mpg.imeji.logic.storage.util.ImageUtils;
+import de.mpg.imeji.logic.storage.util.JpegUtils;
 import de.mpg.imeji.logic.util.StorageUtils;
 import de.mpg.imeji.logic.util.TempFileUtil;
 
@@ -89,6 +95,91 @@ public final class ImageGeneratorManager {
     return generate(file, extension, FileResolution.WEB);
   }
 
+  /**
+   * Generate the web resolution and the thumbnail of a jpeg (the full resolution) in one pass: the
+   * jpeg is decoded once, by imagemagick if installed, otherwise in memory. If this fails, the
+   * resolutions are generated one after the other
+   *
+   * @param jpg the full resolution
+   * @return the web resolution and the thumbnail
+   */
+  public Map<FileResolution, File> generateWebAndThumbnail(File jpg) {
+    final Map<FileResolution, File> files = new EnumMap<>(FileResolution.class);
+    try {
+      if (ImageMagickUtils.imageMagickEnabled) {
+        final File web = TempFileUtil.createTempFile("magickResize", ".jpg");
+        final File thumbnail = TempFileUtil.createTempFile("magickCrop", ".jpg");
+        ImageMagickUtils.resizeWebAndThumbnail(jpg, web, thumbnail);
+        files.put(FileResolution.WEB, web);
+        files.put(FileResolution.THUMBNAIL, thumbnail);
+      } else {
+        final BufferedImage image = JpegUtils.readJpeg(jpg);
+        final String mimeType = StorageUtils.getMimeType("jpg");
+        files.put(FileResolution.WEB, ImageUtils.toFile(ImageUtils.scaleImage(image, FileResolution.WEB), mimeType));
+        files.put(FileResolution.THUMBNAIL, ImageUtils.toFile(ImageUtils.scaleImage(image, FileResolution.THUMBNAIL), mimeType));
+      }
+    } catch (final Exception e) {
+      LOGGER.warn("Error generating web resolution and thumbnail in one pass, generating them separately", e);
+      files.values().forEach(FileUtils::deleteQuietly);
+      files.put(FileResolution.WEB, generateWebResolution(jpg, "jpg"));
+      files.put(FileResolution.THUMBNAIL, generateThumbnail(jpg, "jpg"));
+    }
+    return files;
+  }
+
+  /**
+   * Generate the full resolution, the web resolution and the thumbnail of a file which is not a
+   * jpeg. An image is decoded once by imagemagick to write the 3 resolutions (except tiff, which
+   * imagemagick converts through bmp). Other files, or if this fails: the full resolution is
+   * generated first, then the web resolution and the thumbnail from it
+   *
+   * @param file
+   * @param extension
+   * @return the full resolution, the web resolution and the thumbnail
+   * @throws ImejiException
+   */
+  public Map<FileResolution, File> generateFullWebAndThumbnail(File file, String extension) throws ImejiException {
+    if (isMagickSinglePass(extension)) {
+      final Map<FileResolution, File> files = new EnumMap<>(FileResolution.class);
+      try {
+        files.put(FileResolution.FULL, TempFileUtil.createTempFile("magickFull", ".jpg"));
+        files.put(FileResolution.WEB, TempFileUtil.createTempFile("magickResize", ".jpg"));
+        files.put(FileResolution.THUMBNAIL, TempFileUtil.createTempFile("magickCrop", ".jpg"));
+        ImageMagickUtils.convertToFullWebAndThumbnail(file, files.get(FileResolution.FULL), files.get(FileResolution.WEB),
+            files.get(FileResolution.THUMBNAIL));
+        if (files.values().stream().allMatch(f -> f.length() > 0)) {
+          return files;
+        }
+        LOGGER.warn("Imagemagick wrote an empty image for " + file.getName() + ", generating the resolutions separately");
+      } catch (final Exception e) {
+        LOGGER.warn("Error generating full, web resolution and thumbnail in one pass, generating them separately", e);
+      }
+      files.values().forEach(FileUtils::deleteQuietly);
+    }
+    final File full = generateFullResolution(file, extension);
+    final Map<FileResolution, File> files = generateWebAndThumbnail(full);
+    files.put(FileResolution.FULL, full);
+    return files;
+  }
+
+  /**
+   * True if the 3 resolutions of a file with this extension can be written by one imagemagick
+   * command
+   *
+   * @param extension
+   * @return
+   */
+  private boolean isMagickSinglePass(String extension) {
+    try {
+      return ImageMagickUtils.imageMagickEnabled && Boolean.parseBoolean(PropertyReader.getProperty("imeji.imagemagick.enable"))
+          && StorageUtils.getMimeType(extension).contains("image") && !StorageUtils.compareExtension(extension, "tif")
+          && !StorageUtils.compareExtension(extension, "tiff");
+    } catch (final IOException e) {
+      LOGGER.error("Error reading property imeji.imagemagick.enable", e);
+      return false;
+    }
+  }
+
   /**
    * Generate a full resolution image. Convert the original to jpeg if possible, otherwise return
    * null
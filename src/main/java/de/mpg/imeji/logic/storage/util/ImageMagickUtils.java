@@ -105,6 +105,82 @@ public class ImageMagickUtils {
     return null;
   }
 
+  /**
+   * Generate the web resolution and the thumbnail of a jpeg with one convert command: the image is
+   * decoded once (at a reduced size if possible), then written at both resolutions
+   *
+   * @param jpg
+   * @param web the file where the web resolution is written
+   * @param thumbnail the file where the thumbnail is written
+   * @throws IOException
+   * @throws URISyntaxException
+   * @throws InterruptedException
+   * @throws IM4JavaException
+   */
+  public static void resizeWebAndThumbnail(File jpg, File web, File thumbnail)
+      throws IOException, URISyntaxException, InterruptedException, IM4JavaException {
+    final int webSize = ImageUtils.getResolution(FileResolution.WEB);
+    final int thumbnailSize = ImageUtils.getResolution(FileResolution.THUMBNAIL);
+    final ConvertCmd cmd = getConvert();
+    final IMOperation op = new IMOperation();
+    // Let the jpeg decoder scale down the image while reading it
+    op.define("jpeg:size=" + 2 * webSize + "x" + 2 * webSize);
+    op.addImage(jpg.getAbsolutePath());
+    op.quality(80.0);
+    op.openOperation();
+    op.p_clone();
+    op.thumbnail(webSize, webSize, "");
+    op.write(web.getAbsolutePath());
+    op.p_delete();
+    op.closeOperation();
+    op.thumbnail(thumbnailSize, thumbnailSize, "^");
+    op.gravity("center");
+    op.extent(thumbnailSize, thumbnailSize);
+    op.addImage(thumbnail.getAbsolutePath());
+    cmd.run(op);
+  }
+
+  /**
+   * Convert an image to the full resolution jpeg, and generate its web resolution and its
+   * thumbnail, with one convert command: the image is decoded once, then written at the 3
+   * resolutions. Images made of many layers or frames are flattened, as in
+   * {@link #convertToJPEG(File, String)}
+   *
+   * @param file an image which is not a jpeg
+   * @param full the file where the full resolution is written
+   * @param web the file where the web resolution is written
+   * @param thumbnail the file where the thumbnail is written
+   * @throws IOException
+   * @throws URISyntaxException
+   * @throws InterruptedException
+   * @throws IM4JavaException
+   */
+  public static void convertToFullWebAndThumbnail(File file, File full, File web, File thumbnail)
+      throws IOException, URISyntaxException, InterruptedException, IM4JavaException {
+    final int webSize = ImageUtils.getResolution(FileResolution.WEB);
+    final int thumbnailSize = ImageUtils.getResolution(FileResolution.THUMBNAIL);
+    final ConvertCmd cmd = getConvert();
+    final IMOperation op = new IMOperation();
+    // Read only the first frames, to avoid high memory consumption
+    op.addImage(file.getAbsolutePath() + "[0-24]");
+    op.flatten();
+    op.strip();
+    op.quality(70.0);
+    op.write(full.getAbsolutePath());
+    op.quality(80.0);
+    op.openOperation();
+    op.p_clone();
+    op.thumbnail(webSize, webSize, "");
+    op.write(web.getAbsolutePath());
+    op.p_delete();
+    op.closeOperation();
+    op.thumbnail(thumbnailSize, thumbnailSize, "^");
+    op.gravity("center");
+    op.extent(thumbnailSize, thumbnailSize);
+    op.addImage(thumbnail.getAbsolutePath());
+    cmd.run(op);
+  }
+
   /**
    * Resize a file as a jpeg
    * 
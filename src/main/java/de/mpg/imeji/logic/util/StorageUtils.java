@@ -10,6 +10,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.regex.Pattern;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -146,6 +151,50 @@ public class StorageUtils {
     }
   }
 
+  /**
+   * Write a file to an {@link OutputStream}. The file is read with a {@link FileChannel}, which
+   * transfers the bytes directly to the output without intermediate buffer copies when possible
+   *
+   * @param path
+   * @param out
+   * @param close
+   * @throws IOException
+   */
+  public static void writeFileInOut(Path path, OutputStream out, boolean close) throws IOException {
+    writeFileInOut(path, out, close, 0, Long.MAX_VALUE);
+  }
+
+  /**
+   * Write a part of a file to an {@link OutputStream}. The part is read with positional reads of a
+   * {@link FileChannel}: the bytes before the offset are not read.
+   *
+   * @param path
+   * @param out
+   * @param close
+   * @param offset
+   * @param length
+   * @throws IOException
+   */
+  public static void writeFileInOut(Path path, OutputStream out, boolean close, long offset, long length) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final WritableByteChannel target = Channels.newChannel(out);
+      final long end = Math.min(channel.size(), length > Long.MAX_VALUE - offset ? Long.MAX_VALUE : offset + length);
+      long position = offset;
+      while (position < end) {
+        final long transferred = channel.transferTo(position, end - position, target);
+        if (transferred <= 0) {
+          break;
+        }
+        position += transferred;
+      }
+      out.flush();
+    } finally {
+      if (close) {
+        IOUtils.closeQuietly(out);
+      }
+    }
+  }
+
   /**
    * Return a {@link HttpClient} to be used in {@link Get}
    *
@@ -261,23 +310,51 @@ public class StorageUtils {
    */
   public static String guessExtension(File file) {
     try {
-      final MimeType type = allTypes.forName(tika.detect(file));
-      if (!type.getExtensions().isEmpty()) {
-        final String ext = type.getExtensions().get(0).replace(".", "");
-        if (FilenameUtils.getExtension(file.getName()).equals("smr") && "bin".equals(ext)) {
-          return "smr";
-        }
-        return ext;
-      } else {
-        final String calculatedExtension = FilenameUtils.getExtension(file.getName());
-        if (!isNullOrEmpty(calculatedExtension)) {
-          return calculatedExtension;
-        }
-      }
+      return toExtension(tika.detect(file), file.getName());
+    } catch (final Exception e) {
+      LOGGER.error("Error guessing file format", e);
+    }
+    return BAD_FORMAT;
+  }
+
+  /**
+   * Guess the extension of a file from its first bytes and its name, without reading the file
+   *
+   * @param head the first bytes of the file
+   * @param filename
+   * @return
+   */
+  public static String guessExtension(byte[] head, String filename) {
+    try {
+      return toExtension(tika.detect(head, filename), filename);
     } catch (final Exception e) {
       LOGGER.error("Error guessing file format", e);
     }
+    return BAD_FORMAT;
+  }
 
+  /**
+   * Return the extension of a detected mime-type
+   *
+   * @param mimeType
+   * @param filename
+   * @return
+   * @throws MimeTypeException
+   */
+  private static String toExtension(String mimeType, String filename) throws MimeTypeException {
+    final MimeType type = allTypes.forName(mimeType);
+    if (!type.getExtensions().isEmpty()) {
+      final String ext = type.getExtensions().get(0).replace(".", "");
+      if (FilenameUtils.getExtension(filename).equals("smr") && "bin".equals(ext)) {
+        return "smr";
+      }
+      return ext;
+    } else {
+      final String calculatedExtension = FilenameUtils.getExtension(filename);
+      if (!isNullOrEmpty(calculatedExtension)) {
+        return calculatedExtension;
+      }
+    }
     return BAD_FORMAT;
   }
 
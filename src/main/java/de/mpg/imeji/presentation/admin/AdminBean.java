@@ -3,10 +3,13 @@ package de.mpg.imeji.presentation.admin;
 import de.mpg.imeji.exceptions.ImejiException;
 import de.mpg.imeji.exceptions.NotFoundException;
 import de.mpg.imeji.logic.batch.*;
+import de.mpg.imeji.logic.concurrency.ImejiExecutors;
+import de.mpg.imeji.logic.concurrency.InstrumentedExecutor;
 import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.config.emailcontent.ImejiExternalEmailContent;
 import de.mpg.imeji.logic.config.util.PropertyReader;
 import de.mpg.imeji.logic.core.collection.CollectionService;
+import de.mpg.imeji.logic.db.indexretry.queue.IndexOutbox;
 import de.mpg.imeji.logic.events.listener.ListenerService;
 import de.mpg.imeji.logic.hierarchy.HierarchyService;
 import de.mpg.imeji.logic.model.CollectionImeji;
@@ -105,6 +108,42 @@ public class AdminBean extends SuperBean {
     Imeji.getEXECUTOR().submit(new ElasticReIndexJob());
   }
 
+  /**
+   * The progress of the current (or last) reindex
+   *
+   * @return
+   */
+  public List<ReIndexProgress> getReindexProgress() {
+    return ElasticReIndexJob.getProgress();
+  }
+
+  /**
+   * The progress of the running release and withdraw jobs of collections
+   *
+   * @return
+   */
+  public List<ReIndexProgress> getWorkflowJobs() {
+    return CollectionWorkflowJob.getRunningJobs();
+  }
+
+  /**
+   * Return the state of the executors of imeji (threads, queue, latency)
+   *
+   * @return
+   */
+  public List<InstrumentedExecutor> getExecutors() {
+    return ImejiExecutors.getAll();
+  }
+
+  /**
+   * Return the state of the index outbox (pending objects, lag)
+   *
+   * @return
+   */
+  public IndexOutbox getIndexOutbox() {
+    return IndexOutbox.getInstance();
+  }
+
   private void cleanSubscriptions() throws ImejiException {
     SubscriptionService service = new SubscriptionService();
     List<Subscription> subscriptions = new SubscriptionService().retrieveAll(Imeji.adminUser);
@@ -1,7 +1,9 @@
 package de.mpg.imeji.presentation.beans;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.faces.context.FacesContext;
@@ -12,6 +14,7 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 import de.mpg.imeji.logic.config.Imeji;
+import de.mpg.imeji.logic.search.model.SearchCursor;
 import de.mpg.imeji.logic.search.model.SortCriterion.SortOrder;
 import de.mpg.imeji.presentation.session.BeanHelper;
 import de.mpg.imeji.presentation.util.CookieUtils;
@@ -70,6 +73,15 @@ public abstract class SuperPaginatorBean<ListElementType> extends SuperBean {
   private List<SelectItem> sortMenu;
   private String selectedSortCriterion;
   private String selectedSortOrder = SortOrder.DESCENDING.name();
+  /**
+   * The position of the first element of each page already known (i.e. the pages following a
+   * displayed page), to read them with a {@link SearchCursor}
+   */
+  private final Map<Integer, SearchCursor> pageCursors = new HashMap<>();
+  /**
+   * The sorting and page size for which the cursors are valid
+   */
+  private String pageCursorsKey;
 
   /**
    * Types of paginators
@@ -160,6 +172,36 @@ public abstract class SuperPaginatorBean<ListElementType> extends SuperBean {
     }
   }
 
+  /**
+   * Return the position of the first element of the current page, or null if it is not known (the
+   * previous page hasn't been displayed with the current sorting and page size)
+   *
+   * @return
+   */
+  protected SearchCursor getCursorOfCurrentPage() {
+    return getPageCursorsKey().equals(pageCursorsKey) ? pageCursors.get(currentPageNumber) : null;
+  }
+
+  /**
+   * Set the position of the first element of the next page, as returned by the search of the
+   * current page
+   *
+   * @param cursor
+   */
+  protected void setCursorOfNextPage(SearchCursor cursor) {
+    if (!getPageCursorsKey().equals(pageCursorsKey)) {
+      pageCursors.clear();
+      pageCursorsKey = getPageCursorsKey();
+    }
+    if (cursor != null) {
+      pageCursors.put(currentPageNumber + 1, cursor);
+    }
+  }
+
+  private String getPageCursorsKey() {
+    return selectedSortCriterion + "|" + selectedSortOrder + "|" + elementsPerPage;
+  }
+
   /**
    * Returns the current list with the specified elements
    *
@@ -3,7 +3,6 @@ package de.mpg.imeji.presentation.item.browse;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +31,7 @@ import de.mpg.imeji.logic.model.Organization;
 import de.mpg.imeji.logic.model.Person;
 import de.mpg.imeji.logic.model.Properties.Status;
 import de.mpg.imeji.logic.search.Search;
+import de.mpg.imeji.logic.search.model.SearchCursor;
 import de.mpg.imeji.logic.search.model.SearchQuery;
 import de.mpg.imeji.logic.search.model.SearchResult;
 import de.mpg.imeji.logic.search.model.SortCriterion;
@@ -154,13 +154,13 @@ public class CollectionItemsBean extends ItemsBean {
   @Override
   public SearchResult search(SearchQuery searchQuery, List<SortCriterion> sortCriteria, int offset, int limit) {
     final SearchAndRetrieveFacade facade = new SearchAndRetrieveFacade();
-    return facade.searchWithFacetsAndMultiLevelSorting(searchQuery, collection, getSessionUser(), sortCriteria, limit, offset, true);
+    return facade.searchSummaries(searchQuery, collection, getSessionUser(), sortCriteria, null, offset, limit, true);
   }
 
   @Override
-  public Collection<Item> loadItems(List<String> uris) throws ImejiException {
+  public SearchResult searchWithCursor(SearchQuery searchQuery, List<SortCriterion> sortCriteria, SearchCursor cursor, int size) {
     final SearchAndRetrieveFacade facade = new SearchAndRetrieveFacade();
-    return facade.retrieveItemsAndCollectionsAsItems(uris, getSessionUser());
+    return facade.searchSummaries(searchQuery, collection, getSessionUser(), sortCriteria, cursor, 0, size, true);
   }
 
   @Override
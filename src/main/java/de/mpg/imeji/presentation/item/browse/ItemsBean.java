@@ -23,6 +23,7 @@ import de.mpg.imeji.exceptions.ImejiExceptionWithUserMessage;
 import de.mpg.imeji.exceptions.UnprocessableError;
 import de.mpg.imeji.exceptions.WorkflowException;
 import de.mpg.imeji.logic.config.Imeji;
+import de.mpg.imeji.logic.core.facade.SearchAndRetrieveFacade;
 import de.mpg.imeji.logic.core.item.ItemService;
 import de.mpg.imeji.logic.hierarchy.HierarchyService;
 import de.mpg.imeji.logic.model.CollectionImeji;
@@ -32,7 +33,9 @@ import de.mpg.imeji.logic.model.SearchFields;
 import de.mpg.imeji.logic.search.Search;
 import de.mpg.imeji.logic.search.SearchQueryParser;
 import de.mpg.imeji.logic.search.factory.SearchFactory;
+import de.mpg.imeji.logic.search.model.ItemSummary;
 import de.mpg.imeji.logic.search.model.SearchGroup;
+import de.mpg.imeji.logic.search.model.SearchCursor;
 import de.mpg.imeji.logic.search.model.SearchQuery;
 import de.mpg.imeji.logic.search.model.SearchResult;
 import de.mpg.imeji.logic.search.model.SortCriterion;
@@ -140,20 +143,25 @@ public class ItemsBean extends SuperPaginatorBean<ThumbnailBean> {
       // Access ElasticSearch, read UIDs of all Items that can bee seen by logged-on
       // user
       // SearchResult: contains a list of Item UIDs
-      searchResult = search(getSearchQuery(), getSortCriteriaForItems(), offset, size);
+      // The pages following a displayed page are read with a cursor: deep pages cost the same as
+      // the first one
+      final SearchCursor cursor = getCursorOfCurrentPage();
+      searchResult = cursor != null ? searchWithCursor(getSearchQuery(), getSortCriteriaForItems(), cursor, size)
+          : search(getSearchQuery(), getSortCriteriaForItems(), offset, size);
       totalNumberOfRecords = searchResult.getNumberOfRecords();
+      setCursorOfNextPage(searchResult.getNextCursor());
 
-      // (b) Build Item objects and read Item content from Jena
-      // Access Jena, create empty Item objects, stock them with their UIDs,
-      // fill objects with content stored in Jena
-      // result: Collection of Item objects
-      final Collection<Item> items = loadItems(searchResult.getResults());
+      // (b) Read the summaries of the Items from the SearchResult
+      // The search returns the fields of the Items displayed in the list: Jena is only read for
+      // the Items which are missing in the search index
+      final List<ItemSummary> summaries = loadSummaries(searchResult);
 
       // (c) create "Thumbnails" for Items and return them
       HierarchyService hierarchyService = new HierarchyService();
 
-      List<ThumbnailBean> thumbnailBeans = items.stream().parallel().map(item -> new ThumbnailBean(item, getSessionBean(), getNavigation()))
-          .peek(t -> t.initPath(hierarchyService)).collect(Collectors.toList());
+      List<ThumbnailBean> thumbnailBeans =
+          summaries.stream().parallel().map(summary -> new ThumbnailBean(summary, getSessionBean(), getNavigation()))
+              .peek(t -> t.initPath(hierarchyService)).collect(Collectors.toList());
 
       return thumbnailBeans;
 
@@ -173,14 +181,28 @@ public class ItemsBean extends SuperPaginatorBean<ThumbnailBean> {
   }
 
   /**
-   * Perform the {@link Search}
+   * Perform the {@link Search}. The {@link SearchResult} contains the {@link ItemSummary} of the
+   * results
    *
    * @param searchQuery
    * @param sortCriterion
    * @return
    */
   public SearchResult search(SearchQuery searchQuery, List<SortCriterion> sortCriteria, int offset, int size) {
-    return new ItemService().searchWithFacetsAndMultiLevelSorting(null, searchQuery, sortCriteria, getSessionUser(), size, offset);
+    return new SearchAndRetrieveFacade().searchItemSummaries(searchQuery, getSessionUser(), sortCriteria, null, offset, size);
+  }
+
+  /**
+   * Perform the {@link Search} of the page following the cursor
+   *
+   * @param searchQuery
+   * @param sortCriteria
+   * @param cursor
+   * @param size
+   * @return
+   */
+  public SearchResult searchWithCursor(SearchQuery searchQuery, List<SortCriterion> sortCriteria, SearchCursor cursor, int size) {
+    return new SearchAndRetrieveFacade().searchItemSummaries(searchQuery, getSessionUser(), sortCriteria, cursor, 0, size);
   }
 
   /**
@@ -195,15 +217,14 @@ public class ItemsBean extends SuperPaginatorBean<ThumbnailBean> {
   }
 
   /**
-   * load all items (defined by their uri)
+   * Load the {@link ItemSummary} of the results of a search
    *
-   * @param uris
+   * @param result
    * @return
    * @throws ImejiException
    */
-  public Collection<Item> loadItems(List<String> uris) throws ImejiException {
-    final ItemService itemService = new ItemService();
-    return itemService.retrieveBatch(uris, Search.GET_ALL_RESULTS, Search.SEARCH_FROM_START_INDEX, getSessionUser());
+  public List<ItemSummary> loadSummaries(SearchResult result) throws ImejiException {
+    return new SearchAndRetrieveFacade().retrieveSummaries(result, getSessionUser());
   }
 
   /**
@@ -18,6 +18,8 @@ import de.mpg.imeji.logic.hierarchy.HierarchyService;
 import de.mpg.imeji.logic.model.Item;
 import de.mpg.imeji.logic.model.Metadata;
 import de.mpg.imeji.logic.model.Properties.Status;
+import de.mpg.imeji.logic.search.model.ItemSummary;
+import de.mpg.imeji.logic.search.model.ItemSummary.MetadataSummary;
 import de.mpg.imeji.logic.util.ObjectHelper;
 import de.mpg.imeji.logic.util.StorageUtils;
 import de.mpg.imeji.logic.util.StringHelper;
@@ -79,6 +81,31 @@ public class ThumbnailBean implements Serializable {
     this.isCollection = uri.toString().contains("/collection/");
   }
 
+  /**
+   * Bean for Thumbnail list elements, initialized from an {@link ItemSummary} read from the search
+   * index
+   *
+   * @param summary
+   * @param session
+   * @param navigation
+   */
+  public ThumbnailBean(ItemSummary summary, SessionBean session, Navigation navigation) {
+    this.uri = summary.getId();
+    this.collectionUri = summary.getCollection();
+    this.id = ObjectHelper.getId(getUri());
+    this.link = initThumbnailLink(summary.getId(), summary.getStatus(), navigation);
+    this.filename = summary.getFilename();
+    this.fileMimeType = summary.getFiletype();
+    this.fileSize = Item.getFileSizeHumanReadable(summary.getFileSize());
+    this.modified = summary.getModified() != null ? DateHelper.printDate(summary.getModified()) : "";
+    this.fileextension = StorageUtils.getExtensionFromFileName(this.filename);
+    this.metadata = summary.getMetadata().stream().map(md -> new SimpleMetadata(md)).collect(Collectors.toList());
+    this.caption = findCaption();
+    this.selected = session.getSelected().contains(uri.toString());
+    this.status = summary.getStatus() != null ? summary.getStatus().toString() : "";
+    this.isCollection = summary.isCollection();
+  }
+
   /**
    * Init Path of the ThumbnailBean.
    * 
@@ -117,6 +144,11 @@ public class ThumbnailBean implements Serializable {
           + (!Double.isNaN(metadata.getLongitude()) ? " (" + metadata.getLongitude() + "/" + metadata.getLatitude() + ")" : "");
     }
 
+    public SimpleMetadata(MetadataSummary metadata) {
+      this.name = metadata.getIndex();
+      this.value = metadata.getValue();
+    }
+
     public String getName() {
       return name;
     }
@@ -133,7 +165,11 @@ public class ThumbnailBean implements Serializable {
    * @return
    */
   private String initThumbnailLink(Item item, Navigation navigation) {
-    return Status.WITHDRAWN != item.getStatus() ? navigation.getFileUrl() + "?item=" + item.getId() + "&resolution=thumbnail"
+    return initThumbnailLink(item.getId(), item.getStatus(), navigation);
+  }
+
+  private String initThumbnailLink(URI itemId, Status status, Navigation navigation) {
+    return Status.WITHDRAWN != status ? navigation.getFileUrl() + "?item=" + itemId + "&resolution=thumbnail"
         : navigation.getApplicationUrl() + "resources/icon/discarded.png";
   }
 
@@ -8,8 +8,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import javax.faces.bean.ManagedBean;
 import javax.faces.bean.ManagedProperty;
@@ -84,7 +82,6 @@ public class ItemBean extends SuperBean {
   String fullResolution;
   String originalFile;
   private boolean edit = false;
-  private ExecutorService rotationService;
   private EditItemComponent editor;
 
   /**
@@ -116,7 +113,6 @@ public class ItemBean extends SuperBean {
    * @throws IOException @
    */
   public void init() {
-    rotationService = Executors.newSingleThreadExecutor();
     try {
       if (item != null) {
         loadCollection(getSessionUser());
@@ -609,24 +605,30 @@ public class ItemBean extends SuperBean {
     if (SecurityUtil.authorization().update(getSessionUser(), getImage())) {
       int degrees = (rotation - lastRotation + 360) % 360;
       lastRotation = rotation;
-      rotationService.submit(new RotationJob(degrees));
+      Imeji.getINTERNAL_STORAGE_EXECUTOR().submit(new RotationJob(degrees));
     }
   }
 
   /**
-   * Rotate the files to the degrees
+   * Rotate the files to the degrees. The rotations of the same content are done one after the other
    * 
    * @param degrees
    * @throws IOException
    * @throws Exception
    */
   public void rotate(int degrees) throws IOException, Exception {
-    new StorageController().rotate(getContent().getFull(), degrees);
-    long width = getContent().getWidth();
-    getContent().setWidth(getContent().getHeight());
-    getContent().setHeight(width);
-    showTechnicalMetadata();
-    setContent(new ContentService().update(getContent()));
+    final String contentId = getContent().getId().toString();
+    Locks.lockFiles(contentId);
+    try {
+      new StorageController().rotate(getContent().getFull(), degrees);
+      long width = getContent().getWidth();
+      getContent().setWidth(getContent().getHeight());
+      getContent().setHeight(width);
+      showTechnicalMetadata();
+      setContent(new ContentService().update(getContent()));
+    } finally {
+      Locks.releaseFiles(contentId);
+    }
   }
 
   private class RotationJob implements Callable<Integer> {
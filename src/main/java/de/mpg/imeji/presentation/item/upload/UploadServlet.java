@@ -1,8 +1,6 @@
 package de.mpg.imeji.presentation.item.upload;
 
 import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.Charset;
@@ -31,6 +29,7 @@ import org.apache.logging.log4j.LogManager;
 
 import de.mpg.imeji.exceptions.AuthenticationError;
 import de.mpg.imeji.exceptions.ImejiException;
+import de.mpg.imeji.logic.concurrency.ImejiExecutors.Pool;
 import de.mpg.imeji.logic.config.Imeji;
 import de.mpg.imeji.logic.core.collection.CollectionService;
 import de.mpg.imeji.logic.core.item.ItemService;
@@ -41,8 +40,9 @@ import de.mpg.imeji.logic.model.User;
 import de.mpg.imeji.logic.model.factory.ImejiFactory;
 import de.mpg.imeji.logic.security.authentication.factory.AuthenticationFactory;
 import de.mpg.imeji.logic.storage.Storage;
+import de.mpg.imeji.logic.storage.ingest.IngestedFile;
+import de.mpg.imeji.logic.storage.ingest.StreamingIngest;
 import de.mpg.imeji.logic.util.StorageUtils;
-import de.mpg.imeji.logic.util.TempFileUtil;
 import de.mpg.imeji.presentation.session.SessionBean;
 
 /**
@@ -66,14 +66,14 @@ public class UploadServlet extends HttpServlet {
    *
    */
   private class UploadItem {
-    private File file;
+    private IngestedFile file;
     private String filename;
     private Map<String, String> params = new HashMap<String, String>();
 
     /**
      * @param file the file to set
      */
-    public void setFile(File file) {
+    public void setFile(IngestedFile file) {
       this.file = file;
     }
 
@@ -84,7 +84,7 @@ public class UploadServlet extends HttpServlet {
       this.filename = filename;
     }
 
-    public File getFile() {
+    public IngestedFile getFile() {
       return file;
     }
 
@@ -112,7 +112,7 @@ public class UploadServlet extends HttpServlet {
   @Override
   protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
     // final UploadItem upload = doUpload(req);
-    final Future<UploadItem> uploadFuture = Imeji.getEXECUTOR().submit(new UploadInTempTask(req));
+    final Future<UploadItem> uploadFuture = Imeji.getExecutor(Pool.UPLOAD).submit(new UploadInTempTask(req));
     UploadItem upload = null;
     final SessionBean session = getSession(req);
     try {
@@ -133,8 +133,8 @@ public class UploadServlet extends HttpServlet {
     } catch (InterruptedException e) {
       LOGGER.error("Upload interrupted");
     } finally {
-      if (upload != null && upload.getFile().exists()) {
-        FileUtils.deleteQuietly(upload.getFile());
+      if (upload != null && upload.getFile() != null && upload.getFile().getFile().exists()) {
+        FileUtils.deleteQuietly(upload.getFile().getFile());
       }
     }
   }
@@ -161,7 +161,8 @@ public class UploadServlet extends HttpServlet {
   }
 
   /**
-   * Download the file on the disk in a tmp file
+   * Write the file in the staging directory of the storage: the file is read only once (see
+   * {@link StreamingIngest})
    *
    * @param req
    * @return
@@ -177,9 +178,7 @@ public class UploadServlet extends HttpServlet {
         final FileItemStream fis = iter.next();
         if (!fis.isFormField()) {
           uploadItem.setFilename(fis.getName());
-          final File tmp = TempFileUtil.createTempFile("upload", "." + FilenameUtils.getExtension(uploadItem.getFilename()));
-          StorageUtils.writeInOut(fis.openStream(), new FileOutputStream(tmp), true);
-          uploadItem.setFile(tmp);
+          uploadItem.setFile(StreamingIngest.ingest(fis.openStream(), uploadItem.getFilename()));
         } else {
           ByteArrayOutputStream out = new ByteArrayOutputStream();
           StorageUtils.writeInOut(fis.openStream(), out, true);
@@ -0,0 +1,114 @@
+package de.mpg.imeji.presentation.storage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A range of bytes requested with an HTTP Range header (RFC 7233)
+ */
+public class ByteRange {
+  private static final int MAX_RANGES = 32;
+  private final long start;
+  private final long end;
+
+  public ByteRange(long start, long end) {
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * Parse a Range header. Return null if the header is invalid (it must then be ignored), an empty
+   * list if none of the ranges can be satisfied. Overlapping and adjacent ranges are merged: the
+   * returned ranges are sorted and never send the same bytes twice
+   *
+   * @param header
+   * @param contentLength
+   * @return
+   */
+  public static List<ByteRange> parse(String header, long contentLength) {
+    if (header == null || !header.trim().startsWith("bytes=")) {
+      return null;
+    }
+    final String[] specs = header.trim().substring("bytes=".length()).split(",");
+    if (specs.length > MAX_RANGES) {
+      return null;
+    }
+    final List<ByteRange> ranges = new ArrayList<>();
+    try {
+      for (final String spec : specs) {
+        final String s = spec.trim();
+        final int dash = s.indexOf('-');
+        if (dash < 0) {
+          return null;
+        }
+        final String first = s.substring(0, dash).trim();
+        final String last = s.substring(dash + 1).trim();
+        if (first.isEmpty()) {
+          // Suffix range: the last n bytes
+          final long suffix = Long.parseLong(last);
+          if (suffix > 0 && contentLength > 0) {
+            ranges.add(new ByteRange(Math.max(0, contentLength - suffix), contentLength - 1));
+          }
+        } else {
+          final long start = Long.parseLong(first);
+          final long end = last.isEmpty() ? contentLength - 1 : Math.min(Long.parseLong(last), contentLength - 1);
+          if (!last.isEmpty() && Long.parseLong(last) < start) {
+            return null;
+          }
+          if (start < contentLength) {
+            ranges.add(new ByteRange(start, end));
+          }
+        }
+      }
+    } catch (final NumberFormatException e) {
+      return null;
+    }
+    return coalesce(ranges);
+  }
+
+  /**
+   * Sort the ranges and merge the ranges which overlap or are adjacent
+   *
+   * @param ranges
+   * @return
+   */
+  private static List<ByteRange> coalesce(List<ByteRange> ranges) {
+    if (ranges.size() < 2) {
+      return ranges;
+    }
+    ranges.sort(Comparator.comparingLong(ByteRange::getStart));
+    final List<ByteRange> merged = new ArrayList<>();
+    ByteRange current = ranges.get(0);
+    for (final ByteRange next : ranges.subList(1, ranges.size())) {
+      if (next.start <= current.end + 1) {
+        current = new ByteRange(current.start, Math.max(current.end, next.end));
+      } else {
+        merged.add(current);
+        current = next;
+      }
+    }
+    merged.add(current);
+    return merged;
+  }
+
+  public long getStart() {
+    return start;
+  }
+
+  public long getEnd() {
+    return end;
+  }
+
+  public long getLength() {
+    return end - start + 1;
+  }
+
+  /**
+   * @param contentLength
+   * @return the value of the Content-Range header for this range
+   */
+  public String toContentRange(long contentLength) {
+    return "bytes " + start + "-" + end + "/" + contentLength;
+  }
+}
@@ -1,6 +1,10 @@
 package de.mpg.imeji.presentation.storage;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -46,7 +50,8 @@ public class FileServlet extends HttpServlet {
   private final ExternalStorage externalStorage = new ExternalStorage();
   private final Navigation navivation = new Navigation();
   private String domain;
-  private final static int MAX_RANGE_LENGTH = 1000000;
+  private static final String MULTIPART_BOUNDARY = "IMEJI_BYTERANGES";
+  private static final byte[] MULTIPART_END = ("\r\n--" + MULTIPART_BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII);
 
   private static final String RESOURCE_EMTPY_ICON_URL = "http://localhost:8080/imeji/resources/icon/empty.png";
 
@@ -84,19 +89,37 @@ public class FileServlet extends HttpServlet {
       } else if (url == null) {
         url = domain + req.getRequestURI();
       }
-      long contentLength = (long) storageController.getStorage().getContentLenght(url);
+      if ("NO_THUMBNAIL_URL".equals(url)) {
+        externalStorage.read(RESOURCE_EMTPY_ICON_URL, resp.getOutputStream(), true);
+        return;
+      }
+      checkSecurity(url, user);
+      if (user != null && !StorageUtil.isAllowedToViewFile(url, null)) {
+        // Not public: shared caches must not store it
+        resp.setHeader("Cache-Control", "private, no-cache");
+      }
+      final long contentLength = (long) storageController.getStorage().getContentLenght(url);
+      final long lastModified = storageController.getLastModified(url);
+      final String etag = getETag(contentLength, lastModified);
+      resp.setHeader("Accept-Ranges", "bytes");
+      if (etag != null) {
+        resp.setHeader("ETag", etag);
+        resp.setDateHeader("Last-Modified", lastModified);
+        if (isNotModified(req, etag, lastModified)) {
+          resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+          return;
+        }
+      }
       resp.setContentType(StorageUtils.getMimeType(StringHelper.getFileExtension(url)));
-      resp.setHeader("Accept-Ranges", isFirefox(req) ? "none" : "bytes");
-      resp.setContentLengthLong(contentLength);
       if (!StringHelper.isNullOrEmptyTrim(filename)) {
         resp.setHeader("content-disposition", "attachment; filename=\"" + filename + "\"");
       }
-      if ("NO_THUMBNAIL_URL".equals(url)) {
-        externalStorage.read(RESOURCE_EMTPY_ICON_URL, resp.getOutputStream(), true);
-      } else if (range != null && !isFirefox(req)) {
-        doRangeRequest(req, resp, user, range, url, contentLength);
+      final List<ByteRange> ranges = range != null && isRangeValid(req, etag, lastModified) ? ByteRange.parse(range, contentLength) : null;
+      if (ranges == null) {
+        resp.setContentLengthLong(contentLength);
+        storageController.read(url, resp.getOutputStream(), false);
       } else {
-        readFile(url, resp, false, user);
+        doRangeRequest(resp, ranges, url, contentLength);
       }
     } catch (final Exception e) {
       if (e instanceof NotAllowedError) {
@@ -118,10 +141,6 @@ public class FileServlet extends HttpServlet {
     }
   }
 
-  private boolean isFirefox(HttpServletRequest req) {
-    return req.getHeader("User-Agent").contains("Firefox");
-  }
-
   private String retrieveUrlOfContent(String contentId, String resolution) throws ImejiException {
     final ContentVO content = contentController.retrieveLazy(contentId);
     switch (resolution) {
@@ -150,106 +169,123 @@ public class FileServlet extends HttpServlet {
   }
 
   /**
-   * Read a File and write it back in the response
+   * Return the ETag of the file, or null if the file has no modification date
    *
-   * @param url
-   * @param resp
-   * @param isExternalStorage
-   * @throws ImejiException
-   * @throws IOException
+   * @param contentLength
+   * @param lastModified
+   * @return
    */
-  private void readFile(String url, HttpServletResponse resp, boolean isExternalStorage, User user) throws ImejiException, IOException {
-    if (isExternalStorage) {
-      readExternalFile(url, resp);
-    } else {
-      readStorageFile(url, resp, user);
-    }
+  private String getETag(long contentLength, long lastModified) {
+    return lastModified > 0 ? "\"" + Long.toHexString(contentLength) + "-" + Long.toHexString(lastModified) + "\"" : null;
   }
 
   /**
-   * Do a Range Request: Force the response to to smaller than MAX_RANGE_LENGTH
-   * 
-   * @param resp
-   * @param user
-   * @param range
-   * @param url
-   * @param contentLength
-   * @throws ImejiException
-   * @throws IOException
+   * True if the client has already the current version of the file (If-None-Match or, if not set,
+   * If-Modified-Since)
+   *
+   * @param req
+   * @param etag
+   * @param lastModified
+   * @return
    */
-  private void doRangeRequest(HttpServletRequest req, HttpServletResponse resp, User user, String range, String url, long contentLength)
-      throws ImejiException, IOException {
-    // First parse request
-    int rangeStart = parseRangeStart(range);
-    int rangeEnd = parseRangeEnd(range);
-    if (isFirefox(req)) {
-      // Firefox doensn't support smaller part than requested part (for now, see
-      // https://bugzilla.mozilla.org/show_bug.cgi?id=570755)
-      resp.setContentLengthLong(contentLength - rangeStart);
-      resp.setHeader("Content-Range", "bytes " + rangeStart + "-" + (rangeEnd > 0 ? rangeEnd : "" + "/" + contentLength));
-    } else {
-      // For all other browsers, set the rangeEnd according the MAX_RANGE_LENGTH, in
-      // order to limit
-      // the response size
-      rangeEnd = rangeStart + MAX_RANGE_LENGTH;
-      // If the rangeEnd is bigger than the content length, initialize the rangeEnd
-      // with the
-      // contentLength
-      rangeEnd = (int) (rangeStart + MAX_RANGE_LENGTH > contentLength ? contentLength : rangeEnd) - 1;
-      resp.setContentLengthLong(rangeEnd - rangeStart + 1);
-      resp.setHeader("Content-Range", "bytes " + rangeStart + "-" + (rangeEnd > 0 ? rangeEnd : "") + "/" + contentLength);
+  private boolean isNotModified(HttpServletRequest req, String etag, long lastModified) {
+    final String ifNoneMatch = req.getHeader("If-None-Match");
+    if (ifNoneMatch != null) {
+      return matches(ifNoneMatch, etag);
     }
-    resp.setStatus(206);
-    readPartFile(url, resp, false, user, rangeStart, rangeEnd + 1 - rangeStart);
+    final long ifModifiedSince = getDateHeader(req, "If-Modified-Since");
+    return ifModifiedSince > 0 && lastModified / 1000 <= ifModifiedSince / 1000;
   }
 
   /**
-   * Read Firefox
-   * 
-   * @param url
-   * @param resp
-   * @param isExternalStorage
-   * @param user
-   * @param offset
-   * @param length
-   * @throws ImejiException
-   * @throws IOException
+   * True if the range can be sent: the If-Range header, if set, must match the current version of
+   * the file
+   *
+   * @param req
+   * @param etag
+   * @param lastModified
+   * @return
    */
-  private void readPartFile(String url, HttpServletResponse resp, boolean isExternalStorage, User user, int offset, int length)
-      throws ImejiException, IOException {
-    if (isExternalStorage) {
-      readExternalFile(url, resp);
-    } else {
-      readStoragePartFile(url, resp, user, offset, length);
+  private boolean isRangeValid(HttpServletRequest req, String etag, long lastModified) {
+    final String ifRange = req.getHeader("If-Range");
+    if (ifRange == null) {
+      return true;
     }
+    if (ifRange.trim().startsWith("\"") || ifRange.trim().startsWith("W/")) {
+      return etag != null && etag.equals(ifRange.trim());
+    }
+    final long date = getDateHeader(req, "If-Range");
+    return date > 0 && lastModified / 1000 <= date / 1000;
   }
 
-  private int parseRangeStart(String range) {
-    return Integer.parseInt(range.replace("bytes=", "").trim().split("-")[0]);
+  /**
+   * True if the header (list of ETags or *) matches the etag
+   *
+   * @param header
+   * @param etag
+   * @return
+   */
+  private boolean matches(String header, String etag) {
+    for (final String tag : header.split(",")) {
+      final String t = tag.trim();
+      if ("*".equals(t) || etag.equals(t) || etag.equals(t.replaceFirst("^W/", ""))) {
+        return true;
+      }
+    }
+    return false;
   }
 
-  private int parseRangeEnd(String range) {
-    String[] ranges = range.replace("bytes=", "").trim().split("-");
-    return ranges.length < 2 ? -1 : Integer.parseInt(ranges[1]);
+  private long getDateHeader(HttpServletRequest req, String name) {
+    try {
+      return req.getDateHeader(name);
+    } catch (final IllegalArgumentException e) {
+      return -1;
+    }
   }
 
   /**
-   * Read a File from the current storage
+   * Send the requested ranges of the file: a single part response for one range, a
+   * multipart/byteranges response for many ranges
    *
-   * @param url
    * @param resp
+   * @param ranges
+   * @param url
+   * @param contentLength
    * @throws ImejiException
    * @throws IOException
    */
-  private void readStorageFile(String url, HttpServletResponse resp, User user) throws ImejiException, IOException {
-    checkSecurity(url, user);
-    storageController.read(url, resp.getOutputStream(), false);
-  }
-
-  private void readStoragePartFile(String url, HttpServletResponse resp, User user, long offset, long length)
+  private void doRangeRequest(HttpServletResponse resp, List<ByteRange> ranges, String url, long contentLength)
       throws ImejiException, IOException {
-    checkSecurity(url, user);
-    storageController.readPart(url, resp.getOutputStream(), false, offset, length);
+    if (ranges.isEmpty()) {
+      resp.setHeader("Content-Range", "bytes */" + contentLength);
+      resp.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+      return;
+    }
+    resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+    if (ranges.size() == 1) {
+      final ByteRange r = ranges.get(0);
+      resp.setHeader("Content-Range", r.toContentRange(contentLength));
+      resp.setContentLengthLong(r.getLength());
+      storageController.readPart(url, resp.getOutputStream(), false, r.getStart(), r.getLength());
+      return;
+    }
+    final String contentType = resp.getContentType();
+    final List<byte[]> partHeaders = new ArrayList<>();
+    long length = MULTIPART_END.length;
+    for (final ByteRange r : ranges) {
+      final byte[] header = ("\r\n--" + MULTIPART_BOUNDARY + "\r\nContent-Type: " + contentType + "\r\nContent-Range: "
+          + r.toContentRange(contentLength) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+      partHeaders.add(header);
+      length += header.length + r.getLength();
+    }
+    resp.setContentType("multipart/byteranges; boundary=" + MULTIPART_BOUNDARY);
+    resp.setContentLengthLong(length);
+    final OutputStream out = resp.getOutputStream();
+    for (int i = 0; i < ranges.size(); i++) {
+      out.write(partHeaders.get(i));
+      storageController.readPart(url, out, false, ranges.get(i).getStart(), ranges.get(i).getLength());
+    }
+    out.write(MULTIPART_END);
   }
 
   /**
@@ -266,18 +302,6 @@ public class FileServlet extends HttpServlet {
     }
   }
 
-  /**
-   * Read an external (i.e not in the current storage) file
-   *
-   * @param url
-   * @param resp
-   * @throws ImejiException
-   * @throws IOException
-   */
-  private void readExternalFile(String url, HttpServletResponse resp) throws ImejiException, IOException {
-    externalStorage.read(url, resp.getOutputStream(), true);
-  }
-
   /**
    * Return the {@link User} of the request. Check first is a user is send with the request. If not,
    * check in the the session.
@@ -1,12 +1,21 @@
 package de.mpg.imeji.presentation.storage;
 
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import de.mpg.imeji.exceptions.ImejiException;
 import de.mpg.imeji.logic.core.collection.CollectionService;
 import de.mpg.imeji.logic.core.item.ItemService;
 import de.mpg.imeji.logic.model.CollectionImeji;
 import de.mpg.imeji.logic.model.Item;
+import de.mpg.imeji.logic.model.Properties.Status;
 import de.mpg.imeji.logic.model.User;
+import de.mpg.imeji.logic.security.authorization.ReadableCollectionsCache;
+import de.mpg.imeji.logic.security.authorization.util.SecurityUtil;
 import de.mpg.imeji.logic.storage.StorageController;
+import de.mpg.imeji.logic.storage.index.FileIndex;
+import de.mpg.imeji.logic.storage.index.FileIndexEntry;
 import de.mpg.imeji.logic.util.ObjectHelper;
 
 /**
@@ -18,6 +27,13 @@ import de.mpg.imeji.logic.util.ObjectHelper;
 public class StorageUtil {
 
   public static final StorageController STORAGE_CONTROLLER = new StorageController();
+  // Time (in ms) during which an allowed access to a file is not checked again
+  private static final long ALLOWED_TTL = 60000;
+  private static final int ALLOWED_MAX_SIZE = 10000;
+  // {userId}|{fileUrl} -> expiration time of the allowed access
+  private static final Map<String, Long> ALLOWED = new ConcurrentHashMap<>();
+  // The generation of the file index when the allowed accesses were checked
+  private static volatile long allowedGeneration = FileIndex.getGeneration();
 
   /**
    * True if the user is allowed to view this file
@@ -27,7 +43,51 @@ public class StorageUtil {
    * @return
    */
   public static boolean isAllowedToViewFile(String fileUrl, User user) {
-    return isAllowedToViewCollectionOfFile(fileUrl, user) || StorageUtil.isAllowedToViewItemOfFile(fileUrl, user);
+    final String key = (user != null ? user.getId().toString() : "") + "|" + fileUrl;
+    final long generation = FileIndex.getGeneration();
+    if (generation != allowedGeneration) {
+      // items have been changed: their status might not allow the access anymore
+      ALLOWED.clear();
+      allowedGeneration = generation;
+    }
+    final Long expires = ALLOWED.get(key);
+    if (expires != null && expires > System.currentTimeMillis()) {
+      return true;
+    }
+    final boolean allowed = isAllowedToViewIndexedFile(fileUrl, user) || isAllowedToViewCollectionOfFile(fileUrl, user)
+        || StorageUtil.isAllowedToViewItemOfFile(fileUrl, user);
+    if (allowed && FileIndex.getGeneration() == generation) {
+      if (ALLOWED.size() >= ALLOWED_MAX_SIZE) {
+        ALLOWED.clear();
+      }
+      ALLOWED.put(key, System.currentTimeMillis() + ALLOWED_TTL);
+    }
+    return allowed;
+  }
+
+  /**
+   * True if the file is in the {@link FileIndex} and its item can be read by the user. False if the
+   * file is not indexed, if its entry is incomplete or if the entry doesn't allow to read it (the
+   * index might be outdated): the access is then checked in the database
+   *
+   * @param fileUrl
+   * @param user
+   * @return
+   */
+  private static boolean isAllowedToViewIndexedFile(String fileUrl, User user) {
+    final FileIndexEntry entry = FileIndex.get(fileUrl);
+    if (entry == null || entry.getItemId() == null || entry.getCollectionId() == null || entry.getStatus() == null) {
+      return false;
+    }
+    try {
+      final Item item = new Item();
+      item.setId(URI.create(entry.getItemId()));
+      item.setCollection(URI.create(entry.getCollectionId()));
+      item.setStatus(Status.valueOf(entry.getStatus()));
+      return SecurityUtil.authorization().read(user, item);
+    } catch (final IllegalArgumentException e) {
+      return false;
+    }
   }
 
   /**
@@ -39,7 +99,9 @@ public class StorageUtil {
    */
   private static boolean isAllowedToViewItemOfFile(String fileUrl, User user) {
     try {
-      new ItemService().retrieveLazyForFile(fileUrl, user);
+      final long generation = FileIndex.getGeneration();
+      final Item item = new ItemService().retrieveLazyForFile(fileUrl, user);
+      FileIndex.put(fileUrl, item, generation);
       return true;
     } catch (final ImejiException e) {
       return false;
@@ -57,6 +119,9 @@ public class StorageUtil {
   private static boolean isAllowedToViewCollectionOfFile(String fileUrl, User user) {
     try {
       final String collectionId = STORAGE_CONTROLLER.getCollectionId(fileUrl);
+      if (ReadableCollectionsCache.canRead(user, ObjectHelper.getURI(CollectionImeji.class, collectionId).toString())) {
+        return true;
+      }
       new CollectionService().retrieveLazy(ObjectHelper.getURI(CollectionImeji.class, collectionId), user);
       return true;
     } catch (final Exception e) {
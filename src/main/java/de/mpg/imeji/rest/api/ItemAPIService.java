@@ -7,6 +7,8 @@ import static de.mpg.imeji.rest.transfer.TransferTOtoVO.TRANSFER_MODE.UPDATE;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.ws.rs.ServiceUnavailableException;
+
 import org.apache.commons.io.FilenameUtils;
 
 import de.mpg.imeji.exceptions.BadRequestException;
@@ -17,11 +19,14 @@ import de.mpg.imeji.logic.core.item.ItemService;
 import de.mpg.imeji.logic.model.CollectionImeji;
 import de.mpg.imeji.logic.model.Item;
 import de.mpg.imeji.logic.model.User;
+import de.mpg.imeji.logic.model.factory.ImejiFactory;
 import de.mpg.imeji.logic.search.Search;
 import de.mpg.imeji.logic.search.SearchQueryParser;
 import de.mpg.imeji.logic.search.factory.SearchFactory;
 import de.mpg.imeji.logic.search.factory.SearchFactory.SEARCH_IMPLEMENTATIONS;
+import de.mpg.imeji.logic.search.model.SearchCursor;
 import de.mpg.imeji.logic.search.model.SearchResult;
+import de.mpg.imeji.logic.storage.ingest.IngestedFile;
 import de.mpg.imeji.logic.util.ObjectHelper;
 import de.mpg.imeji.logic.util.StringHelper;
 import de.mpg.imeji.rest.to.SearchResultTO;
@@ -39,6 +44,10 @@ import de.mpg.imeji.rest.transfer.TransferVOtoTO;
 public class ItemAPIService implements APIService<DefaultItemTO> {
 
   private final ItemService controller = new ItemService();
+  /**
+   * The cursor of the first page
+   */
+  public static final String START_CURSOR = "*";
 
   @Override
   public DefaultItemTO create(DefaultItemTO to, User u) throws ImejiException {
@@ -61,6 +70,35 @@ public class ItemAPIService implements APIService<DefaultItemTO> {
     }
   }
 
+  /**
+   * Create one item for each uploaded file. All items get the collection, the licenses and the
+   * metadata of the {@link DefaultItemTO}. The files are validated, stored and indexed together
+   *
+   * @param to
+   * @param files
+   * @param filenames the name of each file
+   * @param u
+   * @return
+   * @throws ImejiException
+   */
+  public List<DefaultItemTO> create(DefaultItemTO to, List<IngestedFile> files, List<String> filenames, User u) throws ImejiException {
+    final CollectionImeji collection = getCollection(to.getCollectionId(), u);
+    final List<Item> items = new ArrayList<>(files.size());
+    for (final String filename : filenames) {
+      final Item item = ImejiFactory.newItem(collection);
+      TransferTOtoVO.transferDefaultItem(to, item, u, CREATE);
+      item.setFilename(filename);
+      items.add(item);
+    }
+    final List<DefaultItemTO> tos = new ArrayList<>(items.size());
+    for (final Item item : controller.createWithFiles(items, files, collection, u)) {
+      final DefaultItemTO createdTO = new DefaultItemTO();
+      TransferVOtoTO.transferDefaultItem(item, createdTO);
+      tos.add(createdTO);
+    }
+    return tos;
+  }
+
   @Override
   public DefaultItemTO read(String id, User u) throws ImejiException {
     final DefaultItemTO defaultTO = new DefaultItemTO();
@@ -132,6 +170,42 @@ public class ItemAPIService implements APIService<DefaultItemTO> {
         .size(size).totalNumberOfRecords(result.getNumberOfRecords()).build();
   }
 
+  /**
+   * Search the page of items following the cursor. The cursor of the next page keeps a point in
+   * time of the search index open for 1 minute: the next page must be requested within this time to
+   * read the same state of the index, later pages are read from the current state of the index
+   *
+   * @param q
+   * @param cursor the cursor returned with the previous page, or * for the first page
+   * @param size
+   * @param u
+   * @return
+   * @throws ImejiException
+   * @throws ServiceUnavailableException if the search index could not be searched
+   */
+  public SearchResultTO<DefaultItemTO> search(String q, String cursor, int size, User u) throws ImejiException {
+    final SearchCursor searchCursor;
+    try {
+      searchCursor = START_CURSOR.equals(cursor) ? SearchCursor.start() : SearchCursor.parse(cursor);
+    } catch (final IllegalArgumentException e) {
+      throw new BadRequestException("Invalid cursor: " + cursor);
+    }
+    final SearchResult result = SearchFactory.create(SEARCH_IMPLEMENTATIONS.ELASTIC).searchWithCursor(SearchQueryParser.parseStringQuery(q),
+        null, u, null, searchCursor, size, false, true);
+    if (result == null) {
+      throw new ServiceUnavailableException("The search index is not available");
+    }
+    final List<DefaultItemTO> tos = new ArrayList<>();
+    for (final Item vo : controller.retrieveBatch(result.getResults(), Search.GET_ALL_RESULTS, Search.SEARCH_FROM_START_INDEX, u)) {
+      final DefaultItemTO to = new DefaultItemTO();
+      TransferVOtoTO.transferDefaultItem(vo, to);
+      tos.add(to);
+    }
+    return new SearchResultTO.Builder<DefaultItemTO>().numberOfRecords(result.getResults().size()).results(tos).query(q).size(size)
+        .totalNumberOfRecords(result.getNumberOfRecords())
+        .nextCursor(result.getNextCursor() != null ? result.getNextCursor().toString() : null).build();
+  }
+
   /**
    * Return the collection of the item
    *
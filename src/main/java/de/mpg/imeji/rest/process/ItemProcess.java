@@ -7,19 +7,36 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.Response.Status;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.glassfish.jersey.media.multipart.FormDataBodyPart;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.mpg.imeji.exceptions.BadRequestException;
+import de.mpg.imeji.exceptions.ImejiException;
+import de.mpg.imeji.exceptions.QuotaExceededException;
 import de.mpg.imeji.exceptions.UnprocessableError;
+import de.mpg.imeji.logic.config.util.PropertyReader;
+import de.mpg.imeji.logic.core.collection.CollectionService;
+import de.mpg.imeji.logic.model.CollectionImeji;
 import de.mpg.imeji.logic.model.User;
+import de.mpg.imeji.logic.security.user.util.QuotaUtil;
 import de.mpg.imeji.logic.storage.StorageController;
+import de.mpg.imeji.logic.storage.ingest.IngestedFile;
+import de.mpg.imeji.logic.storage.ingest.StreamingIngest;
+import de.mpg.imeji.logic.util.ObjectHelper;
 import de.mpg.imeji.logic.util.StorageUtils;
 import de.mpg.imeji.logic.util.StringHelper;
 import de.mpg.imeji.logic.util.TempFileUtil;
@@ -37,6 +54,8 @@ import de.mpg.imeji.rest.to.defaultItemTO.DefaultItemWithFileTO;
 public class ItemProcess {
   private static final Logger LOGGER = LoggerFactory.getLogger(ItemProcess.class);
   public static final String METADATA_KEY = "metadata";
+  private static final long DEFAULT_ZIP_MAX_ENTRIES = 10000;
+  private static final long DEFAULT_ZIP_MAX_SIZE = 10L * 1024 * 1024 * 1024;
 
   /**
    * Create an Item with its file
@@ -61,6 +80,154 @@ public class ItemProcess {
     }
   }
 
+  /**
+   * Create one Item for each uploaded file. A ZIP file (.zip) is unpacked, and one item is created
+   * for each file of the archive. All items are validated, written and indexed together. <br/>
+   * The unpacking of a ZIP file stops with an error as soon as it exceeds the maximum number of
+   * files (<i>imeji.upload.zip.max.entries</i>), the maximum uncompressed size
+   * (<i>imeji.upload.zip.max.size</i>, in bytes) or the remaining quota of the collection owner
+   *
+   * @param req
+   * @param parts the uploaded files
+   * @param json the collection, licenses and metadata of all items
+   * @return
+   */
+  public static JSONResponse createItems(HttpServletRequest req, List<FormDataBodyPart> parts, String json) {
+    final List<IngestedFile> files = new ArrayList<>();
+    final List<String> filenames = new ArrayList<>();
+    try {
+      final User u = BasicAuthentication.auth(req);
+      final DefaultItemTO to = (DefaultItemTO) RestProcessUtils.buildTOFromJSON(json, DefaultItemTO.class);
+      if (parts == null || parts.isEmpty()) {
+        throw new BadRequestException("At least one file must be uploaded.");
+      }
+      final long quota = getRemainingQuota(to, u);
+      long uploaded = 0;
+      for (final FormDataBodyPart part : parts) {
+        final String filename =
+            part.getContentDisposition() != null ? FilenameUtils.getName(part.getContentDisposition().getFileName()) : null;
+        if (StringHelper.isNullOrEmptyTrim(filename)) {
+          throw new BadRequestException("Each uploaded file must have a filename.");
+        }
+        if ("zip".equalsIgnoreCase(FilenameUtils.getExtension(filename))) {
+          ingestZip(part.getValueAs(InputStream.class), files, filenames, quota - uploaded);
+        } else {
+          files.add(StreamingIngest.ingest(part.getValueAs(InputStream.class), filename));
+          filenames.add(filename);
+        }
+        uploaded = files.stream().mapToLong(IngestedFile::getSize).sum();
+      }
+      return RestProcessUtils.buildResponse(Status.CREATED.getStatusCode(), new ItemAPIService().create(to, files, filenames, u));
+    } catch (final Exception e) {
+      LOGGER.error("Error creating items", e);
+      return RestProcessUtils.localExceptionHandler(e, e.getLocalizedMessage());
+    } finally {
+      // the stored files have been moved out of the staging directory
+      files.stream().forEach(f -> FileUtils.deleteQuietly(f.getFile()));
+    }
+  }
+
+  /**
+   * Return the space left in the quota of the owner of the collection of the items, before the
+   * upload
+   *
+   * @param to
+   * @param u
+   * @return
+   * @throws ImejiException
+   */
+  private static long getRemainingQuota(DefaultItemTO to, User u) throws ImejiException {
+    if (StringHelper.isNullOrEmptyTrim(to.getCollectionId())) {
+      // the missing collection is reported when the items are created
+      return Long.MAX_VALUE;
+    }
+    final CollectionImeji collection =
+        new CollectionService().retrieveLazy(ObjectHelper.getURI(CollectionImeji.class, to.getCollectionId()), u);
+    return QuotaUtil.checkQuota(u, 0, collection);
+  }
+
+  /**
+   * Ingest all files of a ZIP archive. The unpacking stops as soon as the archive has too many
+   * files, or its files are larger than the maximum size or the quota
+   *
+   * @param in
+   * @param files
+   * @param filenames
+   * @param quota the space left for the files of the archive
+   * @throws IOException
+   * @throws ImejiException
+   */
+  private static void ingestZip(InputStream in, List<IngestedFile> files, List<String> filenames, long quota)
+      throws IOException, ImejiException {
+    final long maxEntries = readProperty("imeji.upload.zip.max.entries", DEFAULT_ZIP_MAX_ENTRIES);
+    final long maxSize = readProperty("imeji.upload.zip.max.size", DEFAULT_ZIP_MAX_SIZE);
+    final long limit = Math.min(maxSize, quota);
+    try (ZipInputStream zip = new ZipInputStream(in)) {
+      ZipEntry entry;
+      long entries = 0;
+      long unpacked = 0;
+      while ((entry = zip.getNextEntry()) != null) {
+        final String filename = FilenameUtils.getName(entry.getName());
+        if (!entry.isDirectory() && !StringHelper.isNullOrEmptyTrim(filename)) {
+          if (++entries > maxEntries) {
+            throw new UnprocessableError("The ZIP archive contains more than " + maxEntries + " files");
+          }
+          final IngestedFile file =
+              StreamingIngest.ingest(new SizeLimitedInputStream(CloseShieldInputStream.wrap(zip), limit - unpacked), filename);
+          files.add(file);
+          filenames.add(filename);
+          unpacked += file.getSize();
+        }
+      }
+    } catch (final SizeLimitExceededException e) {
+      if (quota < maxSize) {
+        throw new QuotaExceededException("Data quota exceeded: the files of the ZIP archive are larger than the "
+            + FileUtils.byteCountToDisplaySize(Math.max(quota, 0)) + " left");
+      }
+      throw new UnprocessableError("The files of the ZIP archive are larger than " + FileUtils.byteCountToDisplaySize(maxSize));
+    }
+  }
+
+  private static long readProperty(String key, long defaultValue) {
+    try {
+      final String value = PropertyReader.getProperty(key);
+      return value != null ? Long.parseLong(value.trim()) : defaultValue;
+    } catch (final Exception e) {
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Thrown when the unpacked files of an archive exceed their maximum size
+   */
+  private static class SizeLimitExceededException extends IOException {
+    private static final long serialVersionUID = -2392713547734410871L;
+  }
+
+  /**
+   * Count the bytes unpacked from an entry of a ZIP archive, and stop the unpacking when they
+   * exceed the size left for the archive
+   */
+  private static class SizeLimitedInputStream extends ProxyInputStream {
+    private final long maxSize;
+    private long size = 0;
+
+    private SizeLimitedInputStream(InputStream in, long maxSize) {
+      super(in);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    protected void afterRead(int n) throws IOException {
+      if (n > 0) {
+        size += n;
+        if (size > maxSize) {
+          throw new SizeLimitExceededException();
+        }
+      }
+    }
+  }
+
   /**
    * Read an Item according to its Id
    *
@@ -101,13 +268,15 @@ public class ItemProcess {
    *
    * @param req
    * @param q
+   * @param cursor the position of the page (* for the first page), or null to read from offset
    * @return
    */
-  public static JSONResponse readItems(HttpServletRequest req, String q, int offset, int size) {
+  public static JSONResponse readItems(HttpServletRequest req, String q, int offset, int size, String cursor) {
     final ItemAPIService service = new ItemAPIService();
     try {
       final User u = BasicAuthentication.auth(req);
-      return RestProcessUtils.buildResponse(OK.getStatusCode(), service.search(q, offset, size, u));
+      return RestProcessUtils.buildResponse(OK.getStatusCode(),
+          cursor == null ? service.search(q, offset, size, u) : service.search(q, cursor, size, u));
     } catch (final Exception e) {
       return RestProcessUtils.localExceptionHandler(e, e.getLocalizedMessage());
     }
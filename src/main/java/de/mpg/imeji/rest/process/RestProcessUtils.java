@@ -10,6 +10,7 @@ import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.ServiceUnavailableException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
@@ -212,6 +213,8 @@ public class RestProcessUtils {
       resp = RestProcessUtils.buildJSONAndExceptionResponse(HttpStatus.SC_UNPROCESSABLE_ENTITY, localMessage);
     } else if (eX instanceof InternalServerErrorException) {
       resp = RestProcessUtils.buildJSONAndExceptionResponse(Status.INTERNAL_SERVER_ERROR.getStatusCode(), localMessage);
+    } else if (eX instanceof ServiceUnavailableException) {
+      resp = RestProcessUtils.buildJSONAndExceptionResponse(Status.SERVICE_UNAVAILABLE.getStatusCode(), localMessage);
     } else if (eX instanceof BadRequestException) {
       resp = RestProcessUtils.buildJSONAndExceptionResponse(Status.BAD_REQUEST.getStatusCode(), localMessage);
     } else if (eX instanceof ClassCastException) {
@@ -6,10 +6,12 @@ import de.mpg.imeji.rest.to.defaultItemTO.DefaultItemTO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Parameters;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.glassfish.jersey.media.multipart.FormDataBodyPart;
 import org.glassfish.jersey.media.multipart.FormDataContentDisposition;
 import org.glassfish.jersey.media.multipart.FormDataParam;
 
@@ -19,6 +21,7 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.io.InputStream;
+import java.util.List;
 
 import static de.mpg.imeji.rest.process.ItemProcess.*;
 import static de.mpg.imeji.rest.process.RestProcessUtils.buildJSONResponse;
@@ -28,12 +31,19 @@ import static de.mpg.imeji.rest.process.RestProcessUtils.buildJSONResponse;
 public class ItemResource implements ImejiResource {
 
   @Override
+  public Response readAll(HttpServletRequest req, String q, int offset, int size) {
+    return search(req, q, offset, size, null);
+  }
+
   @GET
   @Operation(summary = "Search and retrieve items")
   @Produces(MediaType.APPLICATION_JSON)
-  public Response readAll(@Context HttpServletRequest req, @QueryParam("q") String q, @DefaultValue("0") @QueryParam("offset") int offset,
-      @DefaultValue(DEFAULT_LIST_SIZE) @QueryParam("size") int size) {
-    return buildJSONResponse(readItems(req, q, offset, size));
+  public Response search(@Context HttpServletRequest req, @QueryParam("q") String q, @DefaultValue("0") @QueryParam("offset") int offset,
+      @DefaultValue(DEFAULT_LIST_SIZE) @QueryParam("size") int size,
+      @Parameter(description = "Position of the page, as returned as nextCursor with the previous page (* for the first page). "
+          + "Deep pages are read as fast as the first one. If set, offset is ignored. The next page reads the same state of the index "
+          + "if it is requested within 1 minute, later it reads the current state") @QueryParam("cursor") String cursor) {
+    return buildJSONResponse(readItems(req, q, offset, size, cursor));
   }
 
   @Override
@@ -68,6 +78,23 @@ public class ItemResource implements ImejiResource {
     return RestProcessUtils.buildJSONResponse(createItem(req, file, json, origName));
   }
 
+  @POST
+  @Path("/batch")
+  @Consumes(MediaType.MULTIPART_FORM_DATA)
+  @Operation(summary = "Create new items with many files",
+      description = "Create one item for each uploaded file (form parameter \"file\", multipart/form-data, repeated for each file). "
+          + "The files of a ZIP archive (.zip) are uploaded as single files. "
+          + "All items are created in the collection and with the licenses and metadata of the json parameter. "
+          + "The upload fails if one of the files can't be uploaded")
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response createBatch(@Context HttpServletRequest req,
+      @Parameter(
+          array = @ArraySchema(schema = @Schema(format = "binary", type = "string"))) @FormDataParam("file") List<FormDataBodyPart> files,
+      @Parameter(required = true,
+          schema = @Schema(defaultValue = "{\"collectionId\":\"\"}", type = "string")) @FormDataParam(value = "json") String json) {
+    return RestProcessUtils.buildJSONResponse(createItems(req, files, json));
+  }
+
   @PUT
   @Path("/{id}")
   @Consumes(MediaType.MULTIPART_FORM_DATA)
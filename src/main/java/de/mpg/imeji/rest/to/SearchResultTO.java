@@ -7,7 +7,7 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
-@JsonPropertyOrder({"query", "totalNumberOfResults", "numberOfResults", "offset", "size", "results"})
+@JsonPropertyOrder({"query", "totalNumberOfResults", "numberOfResults", "offset", "size", "nextCursor", "results"})
 @JsonInclude(JsonInclude.Include.NON_NULL)
 /**
  * A TO to wrap Search results
@@ -23,6 +23,7 @@ public class SearchResultTO<T> implements Serializable {
   private int size;
   private int offset;
   private String query;
+  private String nextCursor;
   private List<T> results = new ArrayList<>();
 
   public SearchResultTO() {}
@@ -39,6 +40,7 @@ public class SearchResultTO<T> implements Serializable {
     private int size;
     private int offset;
     private String query;
+    private String nextCursor;
     private List<T> results = new ArrayList<>();
 
     public SearchResultTO<T> build() {
@@ -75,6 +77,11 @@ public class SearchResultTO<T> implements Serializable {
       return this;
     }
 
+    public Builder<T> nextCursor(String s) {
+      this.nextCursor = s;
+      return this;
+    }
+
   }
 
   public SearchResultTO(Builder<T> builder) {
@@ -84,6 +91,7 @@ public class SearchResultTO<T> implements Serializable {
     this.results = builder.results;
     this.size = builder.size;
     this.totalNumberOfResults = builder.totalNumberOfResults;
+    this.nextCursor = builder.nextCursor;
   }
 
   /**
@@ -170,4 +178,18 @@ public class SearchResultTO<T> implements Serializable {
     this.offset = offset;
   }
 
+  /**
+   * @return the cursor of the next page, if the search was done with a cursor
+   */
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  /**
+   * @param nextCursor the nextCursor to set
+   */
+  public void setNextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+
 }
@@ -88,6 +88,16 @@ public class DateHelper {
     return formatSmall.get().format(c.getTime());
   }
 
+  /**
+   * Print a Date into a String: 2017-09.07
+   *
+   * @param d
+   * @return
+   */
+  public static String printDate(Date d) {
+    return formatSmall.get().format(d);
+  }
+
   /**
    * Print a date so: 2017-09.07, 09:31
    * 
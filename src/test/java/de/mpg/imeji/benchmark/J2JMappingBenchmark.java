@@ -0,0 +1,199 @@
+package de.mpg.imeji.benchmark;
+
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import de.mpg.imeji.j2j.annotations.j2jId;
+import de.mpg.imeji.j2j.annotations.j2jResource;
+import de.mpg.imeji.j2j.helper.J2JClassMapping;
+import de.mpg.imeji.j2j.helper.J2JFieldMapping;
+import de.mpg.imeji.j2j.helper.J2JHelper;
+import de.mpg.imeji.j2j.persistence.Java2Jena;
+import de.mpg.imeji.j2j.persistence.Jena2Java;
+import de.mpg.imeji.logic.model.CollectionImeji;
+import de.mpg.imeji.logic.model.Item;
+import de.mpg.imeji.logic.model.Metadata;
+import de.mpg.imeji.logic.model.Organization;
+import de.mpg.imeji.logic.model.Person;
+
+/**
+ * JMH benchmark of the j2j mapping. Compares the former reflective access (annotation scan,
+ * getDeclaredField, Method.invoke) with the precompiled {@link J2JClassMapping}, and measures the
+ * full write/load of {@link Item} and {@link CollectionImeji} with {@link Java2Jena} and
+ * {@link Jena2Java}.<br/>
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=de.mpg.imeji.benchmark.J2JMappingBenchmark<br/>
+ * The write/load and getId benchmarks only use the public j2j API: to compare two revisions, run
+ * them with the classes of each revision, e.g. with the argument "J2JMappingBenchmark.(write|load)"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class J2JMappingBenchmark {
+  private Item item;
+  private CollectionImeji collection;
+  private Model model;
+
+  @Setup
+  public void setup() {
+    final Person person = new Person();
+    person.setId(URI.create("http://imeji.org/person/benchmark"));
+    person.setFamilyName("Doe");
+    person.setGivenName("John");
+    final Organization organization = new Organization();
+    organization.setId(URI.create("http://imeji.org/organization/benchmark"));
+    organization.setName("MPDL");
+    person.setOrganizations(new ArrayList<>(Arrays.asList(organization)));
+    collection = new CollectionImeji();
+    collection.setId(URI.create("http://imeji.org/collection/benchmark"));
+    collection.setTitle("Benchmark collection");
+    collection.setDescription("A collection to benchmark j2j");
+    collection.setPersons(new ArrayList<>(Arrays.asList(person)));
+    collection.setTypes(new ArrayList<>(Arrays.asList("type1", "type2")));
+    item = new Item();
+    item.setId(URI.create("http://imeji.org/item/benchmark"));
+    item.setCollection(collection.getId());
+    item.setFilename("benchmark.jpg");
+    item.setFiletype("image/jpeg");
+    item.setFileSize(1024);
+    item.setCreated(Calendar.getInstance());
+    final List<Metadata> metadata = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      final Metadata md = new Metadata();
+      md.setUri(URI.create("http://imeji.org/metadata/benchmark" + i));
+      md.setIndex("statement" + i);
+      md.setText("value " + i);
+      md.setNumber(i);
+      metadata.add(md);
+    }
+    item.setMetadata(metadata);
+    model = ModelFactory.createDefaultModel();
+    new Java2Jena(model, false).write(item);
+    new Java2Jena(model, false).write(collection);
+  }
+
+  @Benchmark
+  public void reflectionReadItemFields(Blackhole bh) throws Exception {
+    readFieldsWithReflection(item, bh);
+  }
+
+  @Benchmark
+  public void mappingReadItemFields(Blackhole bh) {
+    readFieldsWithMapping(item, bh);
+  }
+
+  @Benchmark
+  public void reflectionReadCollectionFields(Blackhole bh) throws Exception {
+    readFieldsWithReflection(collection, bh);
+  }
+
+  @Benchmark
+  public void mappingReadCollectionFields(Blackhole bh) {
+    readFieldsWithMapping(collection, bh);
+  }
+
+  @Benchmark
+  public Object reflectionGetId() throws Exception {
+    final j2jId ano = item.getClass().getAnnotation(j2jId.class);
+    return new URI(item.getClass().getMethod(ano.getMethod()).invoke(item).toString());
+  }
+
+  @Benchmark
+  public Object mappingGetId() {
+    return J2JHelper.getId(item);
+  }
+
+  @Benchmark
+  public Model writeItem() {
+    final Model m = ModelFactory.createDefaultModel();
+    new Java2Jena(m, false).write(item);
+    return m;
+  }
+
+  @Benchmark
+  public Model writeCollection() {
+    final Model m = ModelFactory.createDefaultModel();
+    new Java2Jena(m, false).write(collection);
+    return m;
+  }
+
+  @Benchmark
+  public Object loadItem() {
+    final Item i = new Item();
+    i.setId(item.getId());
+    return new Jena2Java(model, false).loadResource(i);
+  }
+
+  @Benchmark
+  public Object loadCollection() {
+    final CollectionImeji c = new CollectionImeji();
+    c.setId(collection.getId());
+    return new Jena2Java(model, false).loadResource(c);
+  }
+
+  /**
+   * The access path used before {@link J2JClassMapping}: walk the class hierarchy, filter the
+   * annotated fields and read them via {@link Field#get(Object)}
+   *
+   * @param o
+   * @param bh
+   * @throws IllegalAccessException
+   */
+  private static void readFieldsWithReflection(Object o, Blackhole bh) throws IllegalAccessException {
+    for (final Field f : scanFields(o.getClass())) {
+      f.setAccessible(true);
+      bh.consume(f.get(o));
+    }
+  }
+
+  private static void readFieldsWithMapping(Object o, Blackhole bh) {
+    for (final J2JFieldMapping f : J2JClassMapping.of(o).getFields()) {
+      bh.consume(f.get(o));
+    }
+  }
+
+  private static List<Field> scanFields(Class<?> clazz) {
+    final List<Field> fields = new ArrayList<>();
+    if (clazz.getAnnotation(j2jResource.class) != null) {
+      for (final Field f : clazz.getDeclaredFields()) {
+        if (J2JHelper.isAnnotated(f)) {
+          fields.add(f);
+        }
+      }
+      if (clazz.getSuperclass() != null) {
+        fields.addAll(scanFields(clazz.getSuperclass()));
+      }
+    }
+    return fields;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    final String include = args.length > 0 ? args[0] : J2JMappingBenchmark.class.getSimpleName();
+    new Runner(new OptionsBuilder().include(include).build()).run();
+  }
+}
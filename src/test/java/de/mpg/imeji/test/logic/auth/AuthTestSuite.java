@@ -6,9 +6,11 @@ import org.junit.runners.Suite;
 import de.mpg.imeji.testimpl.logic.auth.DefaultAuthenticationTest;
 import de.mpg.imeji.testimpl.logic.auth.FileAuthorizationTest;
 import de.mpg.imeji.testimpl.logic.auth.HttpAuthenticationTest;
+import de.mpg.imeji.testimpl.logic.auth.ReadableCollectionsCacheTest;
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses({DefaultAuthenticationTest.class, HttpAuthenticationTest.class, FileAuthorizationTest.class})
+@Suite.SuiteClasses({DefaultAuthenticationTest.class, HttpAuthenticationTest.class, FileAuthorizationTest.class,
+    ReadableCollectionsCacheTest.class})
 
 public class AuthTestSuite {
 
@@ -0,0 +1,110 @@
+package de.mpg.imeji.test.logic.auth;
+
+import java.net.URI;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.mpg.imeji.logic.model.User;
+import de.mpg.imeji.logic.security.authentication.PrincipalCache;
+
+/**
+ * Test the {@link PrincipalCache} methods
+ */
+public class PrincipalCacheTest {
+  private User user1;
+  private User user2;
+
+  @Before
+  public void init() {
+    PrincipalCache.invalidateAll();
+    user1 = createUser("1");
+    user2 = createUser("2");
+  }
+
+  @Test
+  public void putAndGet() {
+    final String key = PrincipalCache.apiKey("secret");
+    PrincipalCache.put(key, user1, PrincipalCache.generation());
+    final User cached = PrincipalCache.get(key);
+    Assert.assertEquals(user1.getId(), cached.getId());
+    Assert.assertEquals(user1.getEmail(), cached.getEmail());
+    Assert.assertNotSame(user1, cached);
+    Assert.assertNotSame(cached, PrincipalCache.get(key));
+    Assert.assertNull(PrincipalCache.get(PrincipalCache.apiKey("other")));
+  }
+
+  @Test
+  public void cachedUserIsACopy() {
+    final String key = PrincipalCache.apiKey("secret");
+    PrincipalCache.put(key, user1, PrincipalCache.generation());
+    user1.setEmail("changed@imeji.org");
+    PrincipalCache.get(key).setEmail("changed@imeji.org");
+    Assert.assertEquals("user1@imeji.org", PrincipalCache.get(key).getEmail());
+  }
+
+  @Test
+  public void userWithoutIdIsNotCached() {
+    final String key = PrincipalCache.apiKey("secret");
+    final User user = new User();
+    user.setId(null);
+    PrincipalCache.put(key, user, PrincipalCache.generation());
+    PrincipalCache.put(key, null, PrincipalCache.generation());
+    Assert.assertNull(PrincipalCache.get(key));
+  }
+
+  @Test
+  public void outdatedGenerationIsNotCached() {
+    final String key = PrincipalCache.credentials("user1@imeji.org", "password");
+    final long generation = PrincipalCache.generation();
+    // the user is changed while it was read from the database
+    PrincipalCache.invalidateUser(user1.getId());
+    PrincipalCache.put(key, user1, generation);
+    Assert.assertNull(PrincipalCache.get(key));
+    PrincipalCache.put(key, user1, PrincipalCache.generation());
+    Assert.assertNotNull(PrincipalCache.get(key));
+  }
+
+  @Test
+  public void invalidateUser() {
+    final String key1 = PrincipalCache.apiKey("key1");
+    final String key1b = PrincipalCache.credentials("user1@imeji.org", "password");
+    final String key2 = PrincipalCache.apiKey("key2");
+    PrincipalCache.put(key1, user1, PrincipalCache.generation());
+    PrincipalCache.put(key1b, user1, PrincipalCache.generation());
+    PrincipalCache.put(key2, user2, PrincipalCache.generation());
+    final long generation = PrincipalCache.generation();
+    PrincipalCache.invalidateUser(user1.getId());
+    Assert.assertNotEquals(generation, PrincipalCache.generation());
+    Assert.assertNull(PrincipalCache.get(key1));
+    Assert.assertNull(PrincipalCache.get(key1b));
+    Assert.assertEquals(user2.getId(), PrincipalCache.get(key2).getId());
+  }
+
+  @Test
+  public void invalidateAll() {
+    final String key1 = PrincipalCache.apiKey("key1");
+    final String key2 = PrincipalCache.apiKey("key2");
+    PrincipalCache.put(key1, user1, PrincipalCache.generation());
+    PrincipalCache.put(key2, user2, PrincipalCache.generation());
+    PrincipalCache.invalidateAll();
+    Assert.assertNull(PrincipalCache.get(key1));
+    Assert.assertNull(PrincipalCache.get(key2));
+  }
+
+  @Test
+  public void keys() {
+    Assert.assertEquals(PrincipalCache.apiKey("secret"), PrincipalCache.apiKey("secret"));
+    Assert.assertFalse(PrincipalCache.apiKey("secret").contains("secret"));
+    Assert.assertNotEquals(PrincipalCache.credentials("a:b", "c"), PrincipalCache.credentials("a", "b:c"));
+    Assert.assertNotEquals(PrincipalCache.apiKey("a"), PrincipalCache.credentials("a", ""));
+  }
+
+  private static User createUser(String id) {
+    final User user = new User();
+    user.setId(URI.create("http://imeji.org/user/" + id));
+    user.setEmail("user" + id + "@imeji.org");
+    return user;
+  }
+}
@@ -0,0 +1,138 @@
+package de.mpg.imeji.test.logic.concurrency;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.mpg.imeji.logic.concurrency.Lock;
+import de.mpg.imeji.logic.concurrency.Locks;
+
+/**
+ * Test the {@link Locks} methods
+ */
+public class LocksTest {
+  private static final String URI = "http://imeji.org/item/locked";
+  private ExecutorService executor;
+
+  @Before
+  public void init() {
+    Locks.reset();
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void clear() {
+    executor.shutdownNow();
+    Locks.reset();
+  }
+
+  @Test
+  public void userLock() {
+    Locks.lock(new Lock(URI, "user1@imeji.org"));
+    Assert.assertTrue(Locks.isLocked(URI, "user2@imeji.org"));
+    Assert.assertFalse(Locks.isLocked(URI, "user1@imeji.org"));
+    Assert.assertFalse(Locks.isLocked("http://imeji.org/item/other", "user2@imeji.org"));
+  }
+
+  @Test
+  public void systemLock() {
+    Locks.lock(new Lock(URI));
+    Assert.assertTrue(Locks.isLocked(URI, "user1@imeji.org"));
+    Assert.assertTrue(Locks.isLocked(URI, null));
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void lockedByAnotherUser() {
+    Locks.lock(new Lock(URI, "user1@imeji.org"));
+    Locks.lock(new Lock(URI, "user2@imeji.org"));
+  }
+
+  @Test
+  public void contention() {
+    final long contended = Locks.getContendedCount();
+    Locks.lock(new Lock(URI));
+    try {
+      Locks.lock(new Lock(URI, "user1@imeji.org"));
+      Assert.fail("The object is locked by the system");
+    } catch (final RuntimeException e) {
+      Assert.assertEquals(contended + 1, Locks.getContendedCount());
+    }
+  }
+
+  @Test
+  public void unlockRemovesExpiration() {
+    final Lock lock = new Lock(URI, "user1@imeji.org");
+    Locks.lock(lock);
+    Locks.lock(new Lock("http://imeji.org/item/other"));
+    Assert.assertEquals(2, Locks.getExpirationQueueSize());
+    Locks.unLock(lock);
+    Assert.assertFalse(Locks.isLocked(URI, "user2@imeji.org"));
+    Assert.assertEquals(1, Locks.getExpirationQueueSize());
+  }
+
+  @Test
+  public void relockReplacesExpiration() {
+    Locks.lock(new Lock(URI, "user1@imeji.org"));
+    Locks.lock(new Lock(URI, "user1@imeji.org"));
+    Assert.assertEquals(1, Locks.getExpirationQueueSize());
+    // Unlock with another instance of the same lock
+    Locks.unLock(new Lock(URI, "user1@imeji.org"));
+    Assert.assertEquals(0, Locks.getExpirationQueueSize());
+  }
+
+  @Test
+  public void unlockAll() {
+    Locks.lock(new Lock(URI, "user1@imeji.org"));
+    Locks.lock(new Lock("http://imeji.org/item/other", "user1@imeji.org"));
+    Locks.lock(new Lock("http://imeji.org/item/system"));
+    Locks.unlockAll("user1@imeji.org");
+    Assert.assertTrue(Locks.getUserLocks().isEmpty());
+    Assert.assertEquals(1, Locks.getSystemLocks().size());
+    Assert.assertEquals(1, Locks.getExpirationQueueSize());
+  }
+
+  @Test
+  public void lockFilesWaitsForRelease() throws Exception {
+    Locks.lockFiles("content");
+    final Future<?> waiting;
+    try {
+      waiting = executor.submit(() -> {
+        Locks.lockFiles("content");
+        Locks.releaseFiles("content");
+      });
+      try {
+        waiting.get(100, TimeUnit.MILLISECONDS);
+        Assert.fail("The files are locked");
+      } catch (final TimeoutException e) {
+        // expected
+      }
+    } finally {
+      Locks.releaseFiles("content");
+    }
+    waiting.get(1, TimeUnit.SECONDS);
+  }
+
+  @Test(expected = IllegalMonitorStateException.class)
+  public void releaseFilesNotLocked() {
+    Locks.releaseFiles("content");
+  }
+
+  @Test
+  public void releaseFilesLockedByAnotherThread() throws Exception {
+    executor.submit(() -> Locks.lockFiles("content")).get();
+    try {
+      Locks.releaseFiles("content");
+      Assert.fail("The files are locked by another thread");
+    } catch (final IllegalMonitorStateException e) {
+      // expected
+    }
+    executor.submit(() -> Locks.releaseFiles("content")).get();
+  }
+}
@@ -0,0 +1,211 @@
+package de.mpg.imeji.test.logic.db;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.mpg.imeji.logic.config.Imeji;
+import de.mpg.imeji.logic.db.indexretry.model.RetryBaseRequest;
+import de.mpg.imeji.logic.db.indexretry.model.RetryDeleteFromIndexRequest;
+import de.mpg.imeji.logic.db.indexretry.model.RetryIndexRequest;
+import de.mpg.imeji.logic.db.indexretry.queue.IndexOutbox;
+import de.mpg.imeji.logic.db.indexretry.queue.IndexOutboxEntry;
+import de.mpg.imeji.logic.model.Item;
+
+/**
+ * Test the sequencing and the backoff of the {@link IndexOutbox}. No search index is running: the
+ * entries are never indexed by the outbox
+ */
+public class IndexOutboxTest {
+  @ClassRule
+  public static final TemporaryFolder TDB = new TemporaryFolder();
+  private static final Pattern BACKOFF = Pattern.compile("next retry in: (\\d+)ms");
+  private static final long MIN_BACKOFF = 1000;
+  private static IndexOutbox outbox;
+  private final List<IndexOutboxEntry> appended = new ArrayList<>();
+
+  @BeforeClass
+  public static void init() {
+    Imeji.tdbPath = TDB.getRoot().getAbsolutePath();
+    outbox = IndexOutbox.getInstance();
+  }
+
+  @After
+  public void clear() {
+    outbox.acknowledge(appended);
+    Assert.assertEquals(0, outbox.getPendingCount());
+  }
+
+  @Test
+  public void sequence() {
+    final long token = outbox.getToken();
+    final List<IndexOutboxEntry> entries = append(index("1"), index("2"));
+    Assert.assertEquals(token + 1, entries.get(0).getSequence());
+    Assert.assertEquals(token + 2, entries.get(1).getSequence());
+    Assert.assertEquals(token + 2, outbox.getToken());
+    Assert.assertEquals(2, outbox.getPendingCount());
+  }
+
+  @Test
+  public void rewriteKeepsFirstSequence() {
+    final IndexOutboxEntry first = append(index("1")).get(0);
+    final long firstToken = outbox.getToken();
+    final IndexOutboxEntry second = append(index("1")).get(0);
+    Assert.assertTrue(second.getSequence() > first.getSequence());
+    Assert.assertEquals(first.getSequence(), second.getFirstSequence());
+    Assert.assertEquals(first.getEnqueued(), second.getEnqueued());
+    Assert.assertEquals(1, outbox.getPendingCount());
+    // the first write is indexed, but the object is still pending for its second write
+    outbox.acknowledge(Arrays.asList(first));
+    Assert.assertEquals(1, outbox.getPendingCount());
+    Assert.assertFalse(outbox.isVisible(firstToken));
+    outbox.acknowledge(Arrays.asList(second));
+    Assert.assertTrue(outbox.isVisible(firstToken));
+    Assert.assertTrue(outbox.isVisible(outbox.getToken()));
+  }
+
+  @Test
+  public void visibility() {
+    final long before = outbox.getToken();
+    final List<IndexOutboxEntry> entries = append(index("1"), index("2"));
+    Assert.assertTrue(outbox.isVisible(before));
+    Assert.assertFalse(outbox.isVisible(outbox.getToken()));
+    Assert.assertFalse(outbox.isVisible(Arrays.asList(uri("2"))));
+    outbox.acknowledge(entries.subList(1, 2));
+    Assert.assertTrue(outbox.isVisible(Arrays.asList(uri("2"))));
+    Assert.assertFalse(outbox.isVisible(outbox.getToken()));
+    Assert.assertFalse(outbox.awaitVisible(outbox.getToken(), 10));
+    outbox.acknowledge(entries.subList(0, 1));
+    Assert.assertTrue(outbox.awaitVisible(outbox.getToken(), 10));
+  }
+
+  @Test
+  public void noIndexAfterDelete() {
+    final IndexOutboxEntry delete = append(delete("1")).get(0);
+    Assert.assertTrue(append(index("1")).isEmpty());
+    Assert.assertEquals(1, outbox.getPendingCount());
+    Assert.assertTrue(append(delete("1")).get(0).isDelete());
+    Assert.assertEquals(delete.getSequence(), append(delete("1")).get(0).getFirstSequence());
+  }
+
+  @Test
+  public void cancelledDeleteIsIndexed() {
+    final List<IndexOutboxEntry> entries = outbox.beginWrite(Arrays.asList(delete("1")), null);
+    appended.addAll(entries);
+    Assert.assertTrue(entries.get(0).isWriting());
+    final List<RetryBaseRequest> notified = new ArrayList<>();
+    final Consumer<List<RetryBaseRequest>> listener = notified::addAll;
+    outbox.addListener(listener);
+    try {
+      outbox.cancel(entries);
+    } finally {
+      outbox.removeListener(listener);
+    }
+    Assert.assertFalse(entries.get(0).isWriting());
+    Assert.assertEquals(1, notified.size());
+    Assert.assertTrue(notified.get(0) instanceof RetryIndexRequest);
+    Assert.assertEquals(uri("1"), notified.get(0).getUri());
+    Assert.assertEquals(1, outbox.getPendingCount());
+    // the index request replaces the delete: the object can be indexed again
+    Assert.assertFalse(append(index("1")).isEmpty());
+  }
+
+  @Test
+  public void listeners() {
+    final List<RetryBaseRequest> notified = new ArrayList<>();
+    final Consumer<List<RetryBaseRequest>> listener = notified::addAll;
+    outbox.addListener(listener);
+    append(index("1"), delete("2"));
+    outbox.removeListener(listener);
+    append(index("3"));
+    Assert.assertEquals(2, notified.size());
+    Assert.assertEquals(uri("1"), notified.get(0).getUri());
+    Assert.assertEquals(uri("2"), notified.get(1).getUri());
+  }
+
+  @Test
+  public void parkedEntryIsIgnoredByVisibility() {
+    final IndexOutboxEntry entry = append(index("1")).get(0);
+    final long token = outbox.getToken();
+    for (int i = 1; i < 5; i++) {
+      outbox.retry(Arrays.asList(entry));
+      Assert.assertFalse(entry.isParked());
+      Assert.assertFalse(outbox.isVisible(token));
+    }
+    outbox.retry(Arrays.asList(entry));
+    Assert.assertTrue(entry.isParked());
+    Assert.assertEquals(1, outbox.getParkedCount());
+    Assert.assertEquals(1, outbox.getPendingCount());
+    Assert.assertTrue(outbox.isVisible(token));
+  }
+
+  @Test
+  public void backoffDoubles() throws InterruptedException {
+    final IndexOutboxEntry entry = append(index("1")).get(0);
+    outbox.retry(Arrays.asList(entry));
+    final long previous = waitForBackoffChange(0, 2 * MIN_BACKOFF);
+    Assert.assertTrue(previous >= MIN_BACKOFF);
+    final long next = waitForBackoffChange(previous, previous + 2 * MIN_BACKOFF);
+    Assert.assertEquals(2 * previous, next);
+  }
+
+  /**
+   * Wait until the backoff of the outbox is different from the previous one
+   *
+   * @param previous
+   * @param timeout
+   * @return the new backoff
+   * @throws InterruptedException
+   */
+  private static long waitForBackoffChange(long previous, long timeout) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + timeout;
+    long backoff = getBackoff();
+    while ((backoff == previous || backoff == 0) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+      backoff = getBackoff();
+    }
+    Assert.assertNotEquals(previous, backoff);
+    return backoff;
+  }
+
+  private static long getBackoff() {
+    final Matcher m = BACKOFF.matcher(outbox.toString());
+    Assert.assertTrue(m.find());
+    return Long.parseLong(m.group(1));
+  }
+
+  private List<IndexOutboxEntry> append(RetryBaseRequest... requests) {
+    final List<IndexOutboxEntry> entries = outbox.append(Arrays.asList(requests), null);
+    appended.addAll(entries);
+    return entries;
+  }
+
+  private static RetryBaseRequest index(String id) {
+    return new RetryIndexRequest(uri(id), createItem(id));
+  }
+
+  private static RetryBaseRequest delete(String id) {
+    return new RetryDeleteFromIndexRequest(uri(id), createItem(id));
+  }
+
+  private static Item createItem(String id) {
+    final Item item = new Item();
+    item.setId(uri(id));
+    return item;
+  }
+
+  private static URI uri(String id) {
+    return URI.create("http://imeji.org/item/outbox" + id);
+  }
+}
@@ -0,0 +1,222 @@
+package de.mpg.imeji.test.logic.db;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.mpg.imeji.exceptions.ImejiException;
+import de.mpg.imeji.logic.db.keyValue.KeyValueCodec;
+import de.mpg.imeji.logic.db.keyValue.KeyValueStore;
+import de.mpg.imeji.logic.db.keyValue.KeyValueStoreService;
+import de.mpg.imeji.logic.events.messages.CollectionMessage;
+import de.mpg.imeji.logic.events.messages.ItemMessage;
+import de.mpg.imeji.logic.events.messages.Message;
+import de.mpg.imeji.logic.events.messages.Message.MessageType;
+import de.mpg.imeji.logic.events.messages.MessageCodec;
+import de.mpg.imeji.logic.events.messages.ShareMessage;
+import de.mpg.imeji.logic.model.CollectionImeji;
+import de.mpg.imeji.logic.model.Item;
+import de.mpg.imeji.logic.model.User;
+import de.mpg.imeji.logic.security.sharing.invitation.Invitation;
+import de.mpg.imeji.logic.security.sharing.invitation.InvitationCodec;
+import de.mpg.imeji.logic.statistic.ItemStorageUsage;
+import de.mpg.imeji.logic.statistic.ItemStorageUsageCodec;
+import de.mpg.imeji.logic.storage.index.FileIndexEntry;
+import de.mpg.imeji.logic.storage.index.FileIndexEntryCodec;
+
+/**
+ * Test the {@link KeyValueCodec}s and their use in the {@link KeyValueStoreService}
+ */
+public class KeyValueCodecTest {
+  private MemoryStore store;
+
+  /**
+   * A {@link KeyValueStore} in memory
+   */
+  private static class MemoryStore implements KeyValueStore {
+    private final Map<String, byte[]> map = new ConcurrentHashMap<>();
+    private final String name;
+
+    private MemoryStore(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public byte[] get(String key) {
+      return map.get(key);
+    }
+
+    @Override
+    public void put(String key, byte[] value) {
+      map.put(key, value);
+    }
+
+    @Override
+    public void delete(String key) {
+      map.remove(key);
+    }
+
+    @Override
+    public void putAll(Map<String, byte[]> values) {
+      map.putAll(values);
+    }
+
+    @Override
+    public void deleteAll(Collection<String> keys) {
+      keys.forEach(map::remove);
+    }
+
+    @Override
+    public List<byte[]> getList(String keyPattern) {
+      final List<byte[]> list = new ArrayList<>();
+      for (final String key : getKeys(keyPattern)) {
+        list.add(map.get(key));
+      }
+      return list;
+    }
+
+    @Override
+    public List<String> getKeys(String keyPattern) {
+      final List<String> list = new ArrayList<>();
+      for (final String key : map.keySet()) {
+        if (key.matches(keyPattern)) {
+          list.add(key);
+        }
+      }
+      return list;
+    }
+
+    @Override
+    public void start() {
+      // nothing to start
+    }
+
+    @Override
+    public void stop() {
+      // nothing to stop
+    }
+
+    @Override
+    public boolean isStarted() {
+      return true;
+    }
+
+    @Override
+    public void reset() {
+      map.clear();
+    }
+  }
+
+  @Before
+  public void init() {
+    store = new MemoryStore("codecTest");
+  }
+
+  @Test
+  public void invitationRoundTrip() throws ImejiException {
+    final KeyValueStoreService service = new KeyValueStoreService(store, new InvitationCodec());
+    final Invitation invitation = new Invitation("invitee@imeji.org", "http://imeji.org/collection/1", "EDIT");
+    service.put(invitation.getId(), invitation);
+    Assert.assertEquals(1, store.get(invitation.getId())[0]);
+    final Invitation read = (Invitation) service.get(invitation.getId());
+    Assert.assertEquals(invitation.getInviteeEmail(), read.getInviteeEmail());
+    Assert.assertEquals(invitation.getObjectUri(), read.getObjectUri());
+    Assert.assertEquals(invitation.getRole(), read.getRole());
+  }
+
+  @Test
+  public void nullStrings() throws ImejiException {
+    final KeyValueStoreService service = new KeyValueStoreService(store, new FileIndexEntryCodec());
+    service.put("entry", new FileIndexEntry("item", null, null));
+    final FileIndexEntry read = (FileIndexEntry) service.get("entry");
+    Assert.assertEquals("item", read.getItemId());
+    Assert.assertNull(read.getCollectionId());
+    Assert.assertNull(read.getStatus());
+  }
+
+  @Test
+  public void itemStorageUsageRoundTrip() throws ImejiException {
+    final KeyValueStoreService service = new KeyValueStoreService(store, new ItemStorageUsageCodec());
+    service.put("usage", new ItemStorageUsage(Long.MAX_VALUE, "user", "mpdl"));
+    final ItemStorageUsage read = (ItemStorageUsage) service.get("usage");
+    Assert.assertEquals(Long.MAX_VALUE, read.getFileSize());
+    Assert.assertEquals("user", read.getUserId());
+    Assert.assertEquals("mpdl", read.getInstitute());
+  }
+
+  @Test
+  public void messageSubclassesRoundTrip() throws ImejiException {
+    final KeyValueStoreService service = new KeyValueStoreService(store, new MessageCodec());
+    final CollectionImeji collection = new CollectionImeji();
+    collection.setId(URI.create("http://imeji.org/collection/1"));
+    collection.setTitle("title");
+    final Item item = new Item();
+    item.setId(URI.create("http://imeji.org/item/1"));
+    item.setCollection(collection.getId());
+    item.setFilename("file.jpg");
+    final User user = new User();
+    user.setEmail("user@imeji.org");
+    final List<Message> messages = new ArrayList<>();
+    messages.add(new CollectionMessage(MessageType.CREATE_COLLECTION, collection));
+    messages.add(new ItemMessage(MessageType.UPLOAD_FILE, item));
+    messages.add(new ShareMessage(MessageType.UNSHARE, collection.getId().toString(), user));
+    for (final Message m : messages) {
+      service.put(m.getMessageId(), m);
+    }
+    for (final Message m : messages) {
+      final Message read = (Message) service.get(m.getMessageId());
+      Assert.assertEquals(m.getClass(), read.getClass());
+      Assert.assertEquals(m.getMessageId(), read.getMessageId());
+      Assert.assertEquals(m.getType(), read.getType());
+    }
+    final ItemMessage itemMessage = (ItemMessage) service.get(messages.get(1).getMessageId());
+    Assert.assertEquals("file.jpg", itemMessage.getFilename());
+    Assert.assertEquals(item.getIdString(), itemMessage.getItemId());
+    Assert.assertEquals("user@imeji.org", ((ShareMessage) service.get(messages.get(2).getMessageId())).getEmail());
+    Assert.assertNull(((ShareMessage) service.get(messages.get(2).getMessageId())).getGroupId());
+  }
+
+  @Test
+  public void migrateJavaSerialization() throws Exception {
+    final Invitation invitation = new Invitation("invitee@imeji.org", "http://imeji.org/collection/1", "READ");
+    store.put(invitation.getId(), javaSerialize(invitation));
+    final KeyValueStoreService service = new KeyValueStoreService(store, new InvitationCodec());
+    Assert.assertEquals(1, store.get(invitation.getId())[0]);
+    Assert.assertEquals("READ", ((Invitation) service.get(invitation.getId())).getRole());
+    Assert.assertEquals(0, service.migrate());
+  }
+
+  @Test
+  public void javaSerializationWithoutCodec() throws ImejiException {
+    final KeyValueStoreService service = new KeyValueStoreService(store, new InvitationCodec());
+    final HashMap<String, String> value = new HashMap<>();
+    value.put("key", "value");
+    service.put("map", value);
+    Assert.assertNotEquals(1, store.get("map")[0]);
+    Assert.assertEquals(value, service.get("map"));
+  }
+
+  private static byte[] javaSerialize(Object o) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ObjectOutputStream os = new ObjectOutputStream(out)) {
+      os.writeObject(o);
+    }
+    return out.toByteArray();
+  }
+}
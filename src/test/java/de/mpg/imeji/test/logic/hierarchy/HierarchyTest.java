@@ -0,0 +1,136 @@
+package de.mpg.imeji.test.logic.hierarchy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.mpg.imeji.logic.hierarchy.Hierarchy;
+
+/**
+ * Test the {@link Hierarchy} methods
+ */
+public class HierarchyTest {
+  private Hierarchy hierarchy;
+
+  /**
+   * <pre>
+   * a
+   * +- b
+   * |  +- c
+   * |  +- d
+   * +- e
+   * f
+   * +- g
+   * </pre>
+   */
+  @Before
+  public void init() {
+    hierarchy = new Hierarchy().withParent("b", "a").withParent("c", "b").withParent("d", "b").withParent("e", "a").withParent("g", "f");
+  }
+
+  @Test
+  public void subcollections() {
+    Assert.assertEquals(set("b", "c", "d", "e"), new HashSet<>(hierarchy.getSubcollections("a")));
+    Assert.assertEquals(set("c", "d"), new HashSet<>(hierarchy.getSubcollections("b")));
+    Assert.assertEquals(Arrays.asList("g"), hierarchy.getSubcollections("f"));
+    Assert.assertTrue(hierarchy.getSubcollections("c").isEmpty());
+    Assert.assertTrue(hierarchy.getSubcollections("unknown").isEmpty());
+  }
+
+  @Test
+  public void subcollectionsInDepthFirstOrder() {
+    final int b = hierarchy.getSubcollections("a").indexOf("b");
+    Assert.assertEquals(set("c", "d"), new HashSet<>(hierarchy.getSubcollections("a").subList(b + 1, b + 3)));
+  }
+
+  @Test
+  public void subcollectionsAreModifiable() {
+    hierarchy.getSubcollections("a").add("x");
+    Assert.assertEquals(4, hierarchy.getSubcollections("a").size());
+  }
+
+  @Test
+  public void isChildOf() {
+    Assert.assertTrue(hierarchy.isChildOf("b", "a"));
+    Assert.assertTrue(hierarchy.isChildOf("d", "a"));
+    Assert.assertTrue(hierarchy.isChildOf("c", "b"));
+    Assert.assertFalse(hierarchy.isChildOf("a", "a"));
+    Assert.assertFalse(hierarchy.isChildOf("a", "b"));
+    Assert.assertFalse(hierarchy.isChildOf("c", "d"));
+    Assert.assertFalse(hierarchy.isChildOf("e", "b"));
+    Assert.assertFalse(hierarchy.isChildOf("g", "a"));
+    Assert.assertFalse(hierarchy.isChildOf("unknown", "a"));
+  }
+
+  @Test
+  public void parents() {
+    Assert.assertEquals(Arrays.asList("a", "b"), hierarchy.getParents("c"));
+    Assert.assertEquals(Arrays.asList("a"), hierarchy.getParents("e"));
+    Assert.assertTrue(hierarchy.getParents("a").isEmpty());
+    Assert.assertTrue(hierarchy.getParents("unknown").isEmpty());
+    Assert.assertEquals("a", hierarchy.getTopParent("d"));
+    Assert.assertEquals("f", hierarchy.getTopParent("f"));
+    Assert.assertEquals("unknown", hierarchy.getTopParent("unknown"));
+  }
+
+  @Test
+  public void move() {
+    final Hierarchy moved = hierarchy.withParent("b", "g");
+    Assert.assertEquals(Arrays.asList("f", "g", "b"), moved.getParents("c"));
+    Assert.assertTrue(moved.isChildOf("d", "f"));
+    Assert.assertFalse(moved.isChildOf("d", "a"));
+    Assert.assertEquals(Arrays.asList("e"), moved.getSubcollections("a"));
+    // the previous hierarchy is not changed
+    Assert.assertTrue(hierarchy.isChildOf("d", "a"));
+    Assert.assertSame(moved, moved.withParent("b", "g"));
+  }
+
+  @Test
+  public void moveToTop() {
+    final Hierarchy moved = hierarchy.withParent("b", null);
+    Assert.assertTrue(moved.getParents("b").isEmpty());
+    Assert.assertEquals(Arrays.asList("b"), moved.getParents("c"));
+    Assert.assertFalse(moved.isChildOf("c", "a"));
+    Assert.assertEquals(set("c", "d"), new HashSet<>(moved.getSubcollections("b")));
+  }
+
+  @Test
+  public void moveToOwnSubcollectionIsIgnored() {
+    Assert.assertSame(hierarchy, hierarchy.withParent("a", "c"));
+    Assert.assertSame(hierarchy, hierarchy.withParent("b", "b"));
+  }
+
+  @Test
+  public void without() {
+    final Hierarchy removed = hierarchy.without("b");
+    Assert.assertEquals(Arrays.asList("e"), removed.getSubcollections("a"));
+    Assert.assertFalse(removed.isChildOf("c", "a"));
+    Assert.assertTrue(removed.getParents("c").isEmpty());
+    Assert.assertFalse(removed.getNodes().containsKey("c"));
+    Assert.assertSame(removed, removed.without("unknown"));
+  }
+
+  @Test
+  public void tree() {
+    Assert.assertEquals(set("b", "e"), new HashSet<>(hierarchy.getTree().get("a")));
+    Assert.assertEquals(5, hierarchy.getNodes().size());
+  }
+
+  @Test
+  public void emptyHierarchy() {
+    final Hierarchy empty = new Hierarchy();
+    Assert.assertTrue(empty.getSubcollections("a").isEmpty());
+    Assert.assertTrue(empty.getParents("a").isEmpty());
+    Assert.assertTrue(empty.getTree().isEmpty());
+    Assert.assertEquals(Collections.emptyMap(), empty.getNodes());
+  }
+
+  private static Set<String> set(String... values) {
+    return new HashSet<>(Arrays.asList(values));
+  }
+}
@@ -0,0 +1,69 @@
+package de.mpg.imeji.test.logic.search;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.mpg.imeji.logic.search.model.SearchCursor;
+
+/**
+ * Test the {@link SearchCursor} methods
+ */
+public class SearchCursorTest {
+
+  @Test
+  public void start() {
+    final SearchCursor start = SearchCursor.start();
+    Assert.assertTrue(start.isStart());
+    final SearchCursor parsed = SearchCursor.parse(start.toString());
+    Assert.assertTrue(parsed.isStart());
+    Assert.assertNull(parsed.getPointInTime());
+  }
+
+  @Test
+  public void encodeDecode() {
+    final List<Serializable> values = Arrays.asList("a.b/c+d=\u00E9", 1234567890123L, 1.5d, Boolean.TRUE, null, "", "-");
+    final SearchCursor cursor = new SearchCursor("pit.id==", values);
+    final String s = cursor.toString();
+    Assert.assertTrue(s.matches("[A-Za-z0-9_\\-.]*"));
+    final SearchCursor parsed = SearchCursor.parse(s);
+    Assert.assertFalse(parsed.isStart());
+    Assert.assertEquals("pit.id==", parsed.getPointInTime());
+    Assert.assertEquals(values, parsed.getSortValues());
+    Assert.assertEquals(Long.class, parsed.getSortValues().get(1).getClass());
+    Assert.assertEquals(Double.class, parsed.getSortValues().get(2).getClass());
+    Assert.assertEquals(s, parsed.toString());
+  }
+
+  @Test
+  public void withoutPointInTime() {
+    final SearchCursor parsed = SearchCursor.parse(new SearchCursor(null, Arrays.asList(5L)).toString());
+    Assert.assertNull(parsed.getPointInTime());
+    Assert.assertEquals(Arrays.asList(5L), parsed.getSortValues());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidBase64() {
+    SearchCursor.parse("not*base64");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unknownValueType() {
+    SearchCursor.parse("." + Base64.getUrlEncoder().encodeToString("x1".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void emptyValue() {
+    SearchCursor.parse(".");
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void invalidNumber() {
+    SearchCursor.parse("." + Base64.getUrlEncoder().encodeToString("labc".getBytes(StandardCharsets.UTF_8)));
+  }
+}
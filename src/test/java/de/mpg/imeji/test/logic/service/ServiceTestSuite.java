@@ -3,6 +3,8 @@ package de.mpg.imeji.test.logic.service;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
+import de.mpg.imeji.testimpl.logic.batch.CollectionWorkflowJobTest;
+import de.mpg.imeji.testimpl.logic.batch.ElasticReIndexJobTest;
 import de.mpg.imeji.testimpl.logic.service.CollectionServiceCreateTest;
 import de.mpg.imeji.testimpl.logic.service.CollectionServiceTest;
 import de.mpg.imeji.testimpl.logic.service.ContentServiceTest;
@@ -16,7 +18,7 @@ import de.mpg.imeji.testimpl.logic.service.UsergroupServiceTest;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({CollectionServiceTest.class, ShareServiceTest.class, StatementServiceTest.class, UsergroupServiceTest.class,
     UserServiceTest.class, ContentServiceTest.class, CollectionServiceCreateTest.class, StatementServiceUpdateTest.class,
-    ItemServiceTest.class})
+    ItemServiceTest.class, ElasticReIndexJobTest.class, CollectionWorkflowJobTest.class})
 
 public class ServiceTestSuite {
 
@@ -0,0 +1,102 @@
+package de.mpg.imeji.test.presentation.storage;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.mpg.imeji.presentation.storage.ByteRange;
+
+/**
+ * Test the {@link ByteRange} methods
+ */
+public class ByteRangeTest {
+
+  @Test
+  public void singleRange() {
+    final List<ByteRange> ranges = ByteRange.parse("bytes=0-99", 1000);
+    Assert.assertEquals(1, ranges.size());
+    assertRange(ranges.get(0), 0, 99);
+    Assert.assertEquals(100, ranges.get(0).getLength());
+    Assert.assertEquals("bytes 0-99/1000", ranges.get(0).toContentRange(1000));
+  }
+
+  @Test
+  public void openRange() {
+    assertRange(ByteRange.parse("bytes=900-", 1000).get(0), 900, 999);
+  }
+
+  @Test
+  public void suffixRange() {
+    assertRange(ByteRange.parse("bytes=-100", 1000).get(0), 900, 999);
+    assertRange(ByteRange.parse("bytes=-5000", 1000).get(0), 0, 999);
+  }
+
+  @Test
+  public void endAfterContentLength() {
+    assertRange(ByteRange.parse("bytes=500-5000", 1000).get(0), 500, 999);
+  }
+
+  @Test
+  public void multipleRanges() {
+    final List<ByteRange> ranges = ByteRange.parse("bytes=0-9, 20-29,-10", 1000);
+    Assert.assertEquals(3, ranges.size());
+    assertRange(ranges.get(0), 0, 9);
+    assertRange(ranges.get(1), 20, 29);
+    assertRange(ranges.get(2), 990, 999);
+  }
+
+  @Test
+  public void overlappingRangesAreMerged() {
+    final StringBuilder sameBytes = new StringBuilder("bytes=0-499");
+    for (int i = 1; i < 32; i++) {
+      sameBytes.append(",0-499");
+    }
+    final List<ByteRange> ranges = ByteRange.parse(sameBytes.toString(), 1000);
+    Assert.assertEquals(1, ranges.size());
+    assertRange(ranges.get(0), 0, 499);
+    assertRange(ByteRange.parse("bytes=0-99,50-149,-900", 1000).get(0), 0, 999);
+  }
+
+  @Test
+  public void adjacentRangesAreMerged() {
+    final List<ByteRange> ranges = ByteRange.parse("bytes=10-19,0-9,30-39,20-25", 1000);
+    Assert.assertEquals(2, ranges.size());
+    assertRange(ranges.get(0), 0, 25);
+    assertRange(ranges.get(1), 30, 39);
+  }
+
+  @Test
+  public void rangesAreSorted() {
+    final List<ByteRange> ranges = ByteRange.parse("bytes=-10,0-9", 1000);
+    Assert.assertEquals(2, ranges.size());
+    assertRange(ranges.get(0), 0, 9);
+    assertRange(ranges.get(1), 990, 999);
+  }
+
+  @Test
+  public void unsatisfiableRanges() {
+    Assert.assertTrue(ByteRange.parse("bytes=1000-1099", 1000).isEmpty());
+    Assert.assertTrue(ByteRange.parse("bytes=-0", 1000).isEmpty());
+    Assert.assertTrue(ByteRange.parse("bytes=-10", 0).isEmpty());
+  }
+
+  @Test
+  public void invalidHeaders() {
+    Assert.assertNull(ByteRange.parse(null, 1000));
+    Assert.assertNull(ByteRange.parse("items=0-99", 1000));
+    Assert.assertNull(ByteRange.parse("bytes=100", 1000));
+    Assert.assertNull(ByteRange.parse("bytes=a-b", 1000));
+    Assert.assertNull(ByteRange.parse("bytes=99-0", 1000));
+    final StringBuilder tooMany = new StringBuilder("bytes=0-0");
+    for (int i = 1; i <= 32; i++) {
+      tooMany.append(',').append(i).append('-').append(i);
+    }
+    Assert.assertNull(ByteRange.parse(tooMany.toString(), 1000));
+  }
+
+  private static void assertRange(ByteRange range, long start, long end) {
+    Assert.assertEquals(start, range.getStart());
+    Assert.assertEquals(end, range.getEnd());
+  }
+}
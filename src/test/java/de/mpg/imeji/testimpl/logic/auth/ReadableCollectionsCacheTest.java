@@ -0,0 +1,59 @@
+package de.mpg.imeji.testimpl.logic.auth;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.mpg.imeji.exceptions.ImejiException;
+import de.mpg.imeji.logic.core.collection.CollectionService;
+import de.mpg.imeji.logic.model.CollectionImeji;
+import de.mpg.imeji.logic.model.UserGroup;
+import de.mpg.imeji.logic.model.factory.ImejiFactory;
+import de.mpg.imeji.logic.security.authorization.ReadableCollectionsCache;
+import de.mpg.imeji.logic.security.sharing.ShareService;
+import de.mpg.imeji.logic.security.sharing.ShareService.ShareRoles;
+import de.mpg.imeji.logic.security.usergroup.UserGroupService;
+import de.mpg.imeji.test.logic.service.SuperServiceTest;
+import de.mpg.imeji.util.JenaUtil;
+
+/**
+ * Test the invalidation of the {@link ReadableCollectionsCache}: a cached entry must not be used
+ * after the grants of the user, the groups or the hierarchy of the collections changed
+ */
+public class ReadableCollectionsCacheTest extends SuperServiceTest {
+
+  @Test
+  public void shareToUser() throws ImejiException {
+    createCollection();
+    final String collectionUri = collectionBasic.getId().toString();
+    Assert.assertTrue(ReadableCollectionsCache.canRead(JenaUtil.testUser, collectionUri));
+    Assert.assertFalse(ReadableCollectionsCache.canRead(JenaUtil.testUser2, collectionUri));
+    JenaUtil.testUser2 = new ShareService().shareToUser(JenaUtil.testUser, JenaUtil.testUser2, collectionUri, ShareRoles.READ.name());
+    Assert.assertTrue(ReadableCollectionsCache.canRead(JenaUtil.testUser2, collectionUri));
+  }
+
+  @Test
+  public void shareToGroup() throws ImejiException {
+    createCollection();
+    final String collectionUri = collectionBasic.getId().toString();
+    final UserGroup group = ImejiFactory.newUserGroup().setName("ReadableCollectionsCacheTest").addUsers(JenaUtil.testUser2).build();
+    new UserGroupService().create(group, JenaUtil.adminTestUser);
+    Assert.assertFalse(ReadableCollectionsCache.canRead(JenaUtil.testUser2, collectionUri));
+    // The grants of the user don't change: only the invalidation of the group can update its entry
+    new ShareService().shareToGroup(JenaUtil.testUser, group, collectionUri, ShareRoles.READ.name());
+    Assert.assertTrue(ReadableCollectionsCache.canRead(JenaUtil.testUser2, collectionUri));
+  }
+
+  @Test
+  public void subcollectionCreatedAfterShare() throws ImejiException {
+    createCollection();
+    final String collectionUri = collectionBasic.getId().toString();
+    JenaUtil.testUser2 = new ShareService().shareToUser(JenaUtil.testUser, JenaUtil.testUser2, collectionUri, ShareRoles.READ.name());
+    Assert.assertTrue(ReadableCollectionsCache.canRead(JenaUtil.testUser2, collectionUri));
+    final CollectionImeji subcollection = new CollectionService().create(
+        ImejiFactory.newCollection().setTitle("Subcollection").setPerson("Max", "Planck", "MPG").setCollection(collectionUri).build(),
+        JenaUtil.testUser);
+    // The grants of the user don't change: only the invalidation of the hierarchy can update its entry
+    Assert.assertTrue(ReadableCollectionsCache.canRead(JenaUtil.testUser2, subcollection.getId().toString()));
+    Assert.assertTrue(ReadableCollectionsCache.get(JenaUtil.testUser2, null).contains(subcollection.getId().toString()));
+  }
+}
@@ -0,0 +1,57 @@
+package de.mpg.imeji.testimpl.logic.batch;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.mpg.imeji.logic.batch.CollectionWorkflowJob;
+import de.mpg.imeji.logic.core.collection.CollectionService;
+import de.mpg.imeji.logic.core.item.ItemService;
+import de.mpg.imeji.logic.model.Item;
+import de.mpg.imeji.logic.model.Properties.Status;
+import de.mpg.imeji.logic.search.elasticsearch.ElasticIndexer;
+import de.mpg.imeji.logic.search.elasticsearch.ElasticIndexer.RefreshPolicy;
+import de.mpg.imeji.logic.search.elasticsearch.ElasticService.ElasticIndices;
+import de.mpg.imeji.test.logic.service.SuperServiceTest;
+import de.mpg.imeji.util.JenaUtil;
+
+/**
+ * Test the {@link CollectionWorkflowJob}: the items are changed once, even if the search index is
+ * not up to date
+ */
+public class CollectionWorkflowJobTest extends SuperServiceTest {
+
+  @Test
+  public void releaseCollection() throws Exception {
+    createCollection();
+    final Item item1 = createItemWithFile();
+    final Item item2 = createItemWithFile();
+    new CollectionService().releaseWithDefaultLicense(collectionBasic, JenaUtil.testUser);
+    assertReleasedOnce(item1);
+    assertReleasedOnce(item2);
+    Assert.assertEquals(Status.RELEASED, new CollectionService().retrieve(collectionBasic.getId(), JenaUtil.testUser).getStatus());
+    Assert.assertFalse(CollectionWorkflowJob.isRunning(collectionBasic.getId()));
+    Assert.assertTrue(CollectionWorkflowJob.getRunningJobs().isEmpty());
+  }
+
+  @Test
+  public void itemChangedButNotIndexed() throws Exception {
+    createCollection();
+    final Item item1 = createItemWithFile();
+    final Item pending = new ItemService().retrieve(item1.getId(), JenaUtil.testUser);
+    final Item item2 = createItemWithFile();
+    new ItemService().releaseWithDefaultLicense(Arrays.asList(item1), JenaUtil.testUser);
+    // The index of the release failed: the index still has the pending item
+    new ElasticIndexer(ElasticIndices.items.name(), RefreshPolicy.IMMEDIATE).indexBatch(Arrays.asList(pending));
+    new CollectionService().releaseWithDefaultLicense(collectionBasic, JenaUtil.testUser);
+    assertReleasedOnce(item1);
+    assertReleasedOnce(item2);
+  }
+
+  private static void assertReleasedOnce(Item item) throws Exception {
+    final Item released = new ItemService().retrieve(item.getId(), JenaUtil.testUser);
+    Assert.assertEquals(Status.RELEASED, released.getStatus());
+    Assert.assertEquals(1, released.getLicenses().size());
+  }
+}
@@ -0,0 +1,73 @@
+package de.mpg.imeji.testimpl.logic.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.mpg.imeji.logic.batch.ElasticReIndexJob;
+import de.mpg.imeji.logic.batch.ReIndexProgress;
+import de.mpg.imeji.logic.core.item.ItemService;
+import de.mpg.imeji.logic.model.Item;
+import de.mpg.imeji.logic.search.elasticsearch.ElasticInitializer;
+import de.mpg.imeji.logic.search.elasticsearch.ElasticService.ElasticIndices;
+import de.mpg.imeji.logic.search.model.SearchQuery;
+import de.mpg.imeji.test.logic.service.SuperServiceTest;
+import de.mpg.imeji.util.JenaUtil;
+
+/**
+ * Test the blue/green reindex of the {@link ElasticReIndexJob}: the aliases are moved to the new
+ * indexes, and the objects written during the reindex are in the new indexes
+ */
+public class ElasticReIndexJobTest extends SuperServiceTest {
+
+  @Test
+  public void swapAliases() throws Exception {
+    createCollection();
+    final Item created = createItem();
+    final List<String> oldItemIndexes = ElasticInitializer.getIndexNamesFromAliasName(ElasticIndices.items.name());
+    new ElasticReIndexJob().call();
+    for (final ReIndexProgress progress : ElasticReIndexJob.getProgress()) {
+      Assert.assertEquals(progress.getName(), ReIndexProgress.State.DONE, progress.getState());
+      Assert.assertEquals(progress.getName(), 0, progress.getFailed());
+    }
+    final List<String> newItemIndexes = ElasticInitializer.getIndexNamesFromAliasName(ElasticIndices.items.name());
+    Assert.assertEquals(1, newItemIndexes.size());
+    Assert.assertFalse(oldItemIndexes.contains(newItemIndexes.get(0)));
+    for (final ElasticIndices index : ElasticIndices.values()) {
+      Assert.assertEquals(index.name(), 1, ElasticInitializer.getIndexNamesFromAliasName(index.name()).size());
+    }
+    Assert.assertTrue(searchItems().contains(created.getId().toString()));
+  }
+
+  @Test
+  public void replayChangesDuringReindex() throws Exception {
+    createCollection();
+    final List<String> created = new ArrayList<>();
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final Future<Integer> reindex = executor.submit(new ElasticReIndexJob());
+      // Write items until the reindex is done: some are written before and some after the aliases
+      // are moved
+      do {
+        created.add(createItem().getId().toString());
+      } while (!reindex.isDone());
+      reindex.get();
+    } finally {
+      executor.shutdown();
+    }
+    Assert.assertFalse(ElasticReIndexJob.isRunning());
+    final List<String> found = searchItems();
+    for (final String id : created) {
+      Assert.assertTrue(id + " not found after the reindex", found.contains(id));
+    }
+  }
+
+  private static List<String> searchItems() {
+    return new ItemService().search(collectionBasic.getId(), new SearchQuery(), null, JenaUtil.adminTestUser, 1000, 0).getResults();
+  }
+}